@@ -0,0 +1,84 @@
+package org.library.app.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/*
+ * AIMD limit on requests in flight. Latency is compared with a slow moving average of past latencies: a sample above
+ * baseline * latencyTolerance, or a failed request, multiplies the limit by backoffRatio; any other sample taken while
+ * at least half of the limit was in use adds 1/limit, so the limit grows by about one per limit's worth of requests.
+ * The limit and the baseline are doubles stored as raw bits in AtomicLongs and updated by CAS.
+ * */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BASELINE_SMOOTHING = 0.05;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double latencyTolerance;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong limit;
+
+    private final AtomicLong baselineLatency = new AtomicLong(Double.doubleToRawLongBits(0));
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance,
+                                      double backoffRatio) {
+        if (minLimit < 1 || minLimit > maxLimit || latencyTolerance <= 1 || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid concurrency limiter settings");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicLong(Double.doubleToRawLongBits(Math.clamp(initialLimit, minLimit, maxLimit)));
+    }
+
+    public boolean tryAcquire() {
+        int currentLimit = limit();
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= currentLimit) {
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = this.inFlight.getAndDecrement();
+        double baseline = update(this.baselineLatency, previous ->
+                previous == 0 ? latencyNanos : previous + BASELINE_SMOOTHING * (latencyNanos - previous));
+        if (failed || latencyNanos > baseline * this.latencyTolerance) {
+            update(this.limit, current -> Math.max(this.minLimit, current * this.backoffRatio));
+        } else if (inFlightBefore * 2 >= limit()) {
+            update(this.limit, current -> Math.min(this.maxLimit, current + 1 / current));
+        }
+    }
+
+    public int limit() {
+        return (int) Double.longBitsToDouble(this.limit.get());
+    }
+
+    public int inFlight() {
+        return this.inFlight.get();
+    }
+
+    private static double update(AtomicLong bits, DoubleUnaryOperator function) {
+        while (true) {
+            long current = bits.get();
+            double next = function.applyAsDouble(Double.longBitsToDouble(current));
+            if (bits.compareAndSet(current, Double.doubleToRawLongBits(next))) {
+                return next;
+            }
+        }
+    }
+}
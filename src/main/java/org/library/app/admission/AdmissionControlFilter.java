@@ -0,0 +1,208 @@
+package org.library.app.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.library.app.exception.LibraryProblem;
+import org.library.app.exception.ProblemResponses;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Runs before everything else that touches the database and either admits a request or answers it at once:
+ * 429 when the member (or, for requests without a member id, the remote address) is over its own rate,
+ * 503 when the global rate or the adaptive concurrency limit is exhausted. Nothing is queued.
+ * */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Pattern MEMBER_PATH = Pattern.compile("^/library-api/members/(\\d+)(?:/.*)?$");
+
+    private static final Duration CLIENT_BUCKET_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    private static final long CONCURRENCY_RETRY_AFTER_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+
+    private final double clientRate;
+
+    private final int clientBurst;
+
+    private final Cache<String, TokenBucket> clientBuckets;
+
+    private final TokenBucket globalBucket;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final List<String> excludedPaths;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Counter admitted;
+
+    private final Counter shedClientRate;
+
+    private final Counter shedGlobalRate;
+
+    private final Counter shedConcurrency;
+
+    private final ProblemResponses problemResponses;
+
+    public AdmissionControlFilter(MeterRegistry meterRegistry,
+                                  ProblemResponses problemResponses,
+                                  @Value("${library.admission.enabled:true}") boolean enabled,
+                                  @Value("${library.admission.client.rate:20}") double clientRate,
+                                  @Value("${library.admission.client.burst:40}") int clientBurst,
+                                  @Value("${library.admission.client.max-tracked:100000}") long maxTrackedClients,
+                                  @Value("${library.admission.global.rate:1000}") double globalRate,
+                                  @Value("${library.admission.global.burst:2000}") int globalBurst,
+                                  @Value("${library.admission.concurrency.initial-limit:20}") int initialLimit,
+                                  @Value("${library.admission.concurrency.min-limit:4}") int minLimit,
+                                  @Value("${library.admission.concurrency.max-limit:100}") int maxLimit,
+                                  @Value("${library.admission.concurrency.latency-tolerance:2.0}") double tolerance,
+                                  @Value("${library.admission.concurrency.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${library.admission.excluded-paths:/library-api/admin/**}")
+                                  List<String> excludedPaths) {
+        this.problemResponses = problemResponses;
+        this.enabled = enabled;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(maxTrackedClients)
+                .expireAfterAccess(CLIENT_BUCKET_IDLE_TIMEOUT)
+                .build();
+        this.globalBucket = new TokenBucket(globalRate, globalBurst);
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, backoffRatio);
+        this.excludedPaths = excludedPaths;
+        this.admitted = Counter.builder("library.admission.admitted").register(meterRegistry);
+        this.shedClientRate = shedCounter(meterRegistry, "client-rate");
+        this.shedGlobalRate = shedCounter(meterRegistry, "global-rate");
+        this.shedConcurrency = shedCounter(meterRegistry, "concurrency");
+        Gauge.builder("library.admission.concurrency.limit", this.limiter, AdaptiveConcurrencyLimiter::limit)
+                .register(meterRegistry);
+        Gauge.builder("library.admission.concurrency.in-flight", this.limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !this.enabled || !path.startsWith("/library-api/")
+                || this.excludedPaths.stream().anyMatch(pattern -> this.pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        long wait = this.clientBuckets
+                .get(clientKey(request), key -> new TokenBucket(this.clientRate, this.clientBurst))
+                .tryAcquire(start);
+        if (wait > 0) {
+            this.shedClientRate.increment();
+            reject(response, LibraryProblem.TOO_MANY_REQUESTS, wait);
+            return;
+        }
+        wait = this.globalBucket.tryAcquire(start);
+        if (wait > 0) {
+            this.shedGlobalRate.increment();
+            reject(response, LibraryProblem.OVERLOADED, wait);
+            return;
+        }
+        if (!this.limiter.tryAcquire()) {
+            this.shedConcurrency.increment();
+            reject(response, LibraryProblem.OVERLOADED, CONCURRENCY_RETRY_AFTER_NANOS);
+            return;
+        }
+        this.admitted.increment();
+
+        Permit permit = new Permit(start);
+        try {
+            chain.doFilter(request, response);
+        } catch (Throwable e) {
+            permit.release(true);
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    permit.release(response.getStatus() >= 500);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    permit.release(true);
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    permit.release(true);
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } else {
+            permit.release(response.getStatus() >= 500);
+        }
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Matcher matcher = MEMBER_PATH.matcher(request.getRequestURI());
+        return matcher.matches() ? "member:" + matcher.group(1) : "address:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, LibraryProblem problem, long waitNanos) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        this.problemResponses.write(response, problem, null);
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("library.admission.shed")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private final class Permit {
+
+        private final long start;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long start) {
+            this.start = start;
+        }
+
+        private void release(boolean failed) {
+            if (this.released.compareAndSet(false, true)) {
+                AdmissionControlFilter.this.limiter.release(System.nanoTime() - this.start, failed);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.library.app.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Token bucket in its GCRA form: the whole state is the theoretical arrival time of the next request. Each admitted
+ * request moves it one emission interval forward, and a request is admitted while that time stays within burst
+ * intervals of now. A single AtomicLong updated by CAS keeps acquiring lock-free.
+ * */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+
+    private final long burstToleranceNanos;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Token bucket rate must be positive and burst at least 1");
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstToleranceNanos = this.emissionIntervalNanos * burst;
+    }
+
+    /*
+     * Returns 0 when a permit was taken, otherwise the nanos until the next permit becomes available.
+     * */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = this.theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos) + this.emissionIntervalNanos;
+            long wait = next - nowNanos - this.burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (this.theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+}
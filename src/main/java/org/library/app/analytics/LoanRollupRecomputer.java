@@ -0,0 +1,301 @@
+package org.library.app.analytics;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.library.app.exception.AlreadyRunningException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Recomputes the loan rollups from t_member_books, for when the incremental counters have drifted, a metric was added
+ * or a restore or data generation wrote loans without events. The id range is split into chunks of chunk-size ids that
+ * a fork-join pool scans on at most `connections` connections of the read-only analytics pool, which keeps at least one
+ * connection for the reports; the defaults scan on 2 of its 4, leaving one for each report thread. Each chunk counts
+ * its loans into partial totals, which are merged as the halves join. The job reads the rollups when it starts and the
+ * scan counts only borrows and returns before that cutoff; each bucket is then corrected by the scanned totals minus
+ * what was read, so the increments every node applied meanwhile stay on top. A loan that commits with an earlier
+ * timestamp after its chunk was scanned, or whose event is applied in the moment between the cutoff and the read, is
+ * miscounted, so the job is best run when borrowing is quiet.
+ * */
+@Slf4j
+@Component
+public class LoanRollupRecomputer {
+
+    private static final String RANGE_SQL = "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM public.t_member_books";
+
+    private static final String CHUNK_SQL =
+            "SELECT c_borrowed_at, c_returned_at FROM public.t_member_books WHERE id BETWEEN ? AND ?";
+
+    private static final int PROGRESS_LOG_STEPS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final LoanRollupUpdater updater;
+
+    private final int chunkSize;
+
+    private final int connections;
+
+    private volatile boolean stopping;
+
+    private Job job;
+
+    // a bulk write arrived while a job was running, whose scan may have missed it
+    private boolean rerun;
+
+    public LoanRollupRecomputer(@Qualifier("analyticsDataSource") DataSource dataSource,
+                                LoanRollupUpdater updater,
+                                @Value("${library.analytics.recompute.chunk-size:50000}") int chunkSize,
+                                @Value("${library.analytics.recompute.connections:2}") int connections,
+                                @Value("${library.bulkhead.analytics.pool-size:4}") int analyticsPoolSize) {
+        if (chunkSize < 1 || connections < 1) {
+            throw new IllegalArgumentException("Recompute chunk size and connections must be positive");
+        }
+        if (connections >= analyticsPoolSize) {
+            throw new IllegalArgumentException("Recompute connections (%d) must be fewer than the %d connections of "
+                    .formatted(connections, analyticsPoolSize) + "library.bulkhead.analytics.pool-size");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.updater = updater;
+        this.chunkSize = chunkSize;
+        this.connections = connections;
+    }
+
+    public synchronized Progress start() {
+        Job started = begin();
+        Thread.ofPlatform()
+                .name("loan-rollup-recompute")
+                .daemon(true)
+                .start(() -> run(started));
+        return started.progress();
+    }
+
+    /*
+     * Runs a recompute on the calling thread, for a caller that exits right after its bulk write and would otherwise
+     * cancel the job on shutdown.
+     * */
+    public Progress recompute() {
+        Job started;
+        synchronized (this) {
+            started = begin();
+        }
+        run(started);
+        return started.progress();
+    }
+
+    /*
+     * For the writes that bypass the events (restore, data generation): starts a recompute, or queues one to start
+     * when the running job finishes.
+     * */
+    public synchronized void recomputeAfterBulkWrite() {
+        if (this.job != null && this.job.state == State.RUNNING) {
+            this.rerun = true;
+            return;
+        }
+        start();
+    }
+
+    public synchronized Progress progress() {
+        if (this.job == null) {
+            throw new NoSuchElementException("No loan rollup recompute");
+        }
+        return this.job.progress();
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.stopping = true;
+    }
+
+    // called holding the monitor
+    private Job begin() {
+        if (this.job != null && this.job.state == State.RUNNING) {
+            throw new AlreadyRunningException("A loan rollup recompute is already running");
+        }
+        this.job = new Job(Instant.now());
+        return this.job;
+    }
+
+    private void run(Job job) {
+        long cutoff = job.startedAt.toEpochMilli();
+        try {
+            LoanRollupTotals rollups = this.updater.rollups();
+            Map<String, Object> range = this.jdbcTemplate.queryForMap(RANGE_SQL);
+            LoanRollupTotals totals = new LoanRollupTotals();
+            if (range.get("min_id") != null) {
+                long minId = ((Number) range.get("min_id")).longValue();
+                long maxId = ((Number) range.get("max_id")).longValue();
+                job.chunks = chunks(minId, maxId);
+                log.info("Recomputing loan rollups before {} from ids {} - {} in {} chunks",
+                        job.startedAt, minId, maxId, job.chunks);
+                AtomicInteger workers = new AtomicInteger();
+                try (ForkJoinPool pool = new ForkJoinPool(this.connections,
+                        forkJoinPool -> newWorker(forkJoinPool, workers.getAndIncrement()), null, false)) {
+                    totals = pool.invoke(new ChunkScan(job, new Semaphore(this.connections), cutoff, minId, maxId));
+                }
+            }
+            job.buckets = this.updater.correct(totals.minus(rollups));
+            job.finish(State.COMPLETED, null);
+            log.info("Loan rollups recomputed from {} loans, {} buckets corrected in {} ms", job.loans.get(),
+                    job.buckets, job.finishedAt.toEpochMilli() - job.startedAt.toEpochMilli());
+        } catch (RuntimeException e) {
+            job.finish(State.FAILED, e.getMessage());
+            log.error("Loan rollup recompute failed after {} of {} chunks", job.chunksScanned.get(), job.chunks, e);
+        }
+        synchronized (this) {
+            if (this.rerun && !this.stopping) {
+                this.rerun = false;
+                start();
+            }
+        }
+    }
+
+    private int chunks(long fromId, long toId) {
+        return (int) ((toId - fromId) / this.chunkSize + 1);
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool, int number) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("loan-rollup-recompute-" + number);
+        worker.setDaemon(true);
+        return worker;
+    }
+
+    private LoanRollupTotals scan(Job job, long cutoff, long fromId, long toId) {
+        LoanRollupTotals totals = new LoanRollupTotals();
+        this.jdbcTemplate.query(CHUNK_SQL, rs -> {
+            Instant borrowedAt = rs.getObject(1, OffsetDateTime.class).toInstant();
+            OffsetDateTime returnedAt = rs.getObject(2, OffsetDateTime.class);
+            if (borrowedAt.toEpochMilli() < cutoff) {
+                totals.borrowed(borrowedAt.toEpochMilli());
+            }
+            // the same timestamp and duration that BOOK_RETURNED carries
+            if (returnedAt != null && returnedAt.toInstant().toEpochMilli() < cutoff) {
+                totals.returned(returnedAt.toInstant().toEpochMilli(),
+                        Duration.between(borrowedAt, returnedAt.toInstant()).toMillis());
+            }
+            job.loans.incrementAndGet();
+        }, fromId, toId);
+        return totals;
+    }
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    public record Progress(State state, Instant startedAt, Instant finishedAt, int chunks, int chunksScanned,
+                           long loans, int buckets, String error) {
+    }
+
+    private static final class Job {
+
+        private final Instant startedAt;
+
+        private final AtomicInteger chunksScanned = new AtomicInteger();
+
+        private final AtomicLong loans = new AtomicLong();
+
+        private volatile State state = State.RUNNING;
+
+        private volatile int chunks;
+
+        private volatile int buckets;
+
+        private volatile Instant finishedAt;
+
+        private volatile String error;
+
+        private Job(Instant startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        private void finish(State state, String error) {
+            this.finishedAt = Instant.now();
+            this.error = error;
+            this.state = state;
+        }
+
+        private Progress progress() {
+            return new Progress(this.state, this.startedAt, this.finishedAt, this.chunks, this.chunksScanned.get(),
+                    this.loans.get(), this.buckets, this.error);
+        }
+    }
+
+    /*
+     * Splits on chunk boundaries until one chunk is left, which it scans holding one of the connection permits.
+     * */
+    private final class ChunkScan extends RecursiveTask<LoanRollupTotals> {
+
+        private final Job job;
+
+        private final Semaphore permits;
+
+        private final long cutoff;
+
+        private final long fromId;
+
+        private final long toId;
+
+        private ChunkScan(Job job, Semaphore permits, long cutoff, long fromId, long toId) {
+            this.job = job;
+            this.permits = permits;
+            this.cutoff = cutoff;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected LoanRollupTotals compute() {
+            int chunks = chunks(this.fromId, this.toId);
+            if (chunks > 1) {
+                long middle = this.fromId + (long) (chunks / 2) * LoanRollupRecomputer.this.chunkSize;
+                ChunkScan upper = new ChunkScan(this.job, this.permits, this.cutoff, middle, this.toId);
+                upper.fork();
+                LoanRollupTotals lower = new ChunkScan(this.job, this.permits, this.cutoff, this.fromId, middle - 1)
+                        .compute();
+                return lower.merge(upper.join());
+            }
+            if (LoanRollupRecomputer.this.stopping) {
+                throw new CancellationException("Loan rollup recompute stopped");
+            }
+            try {
+                this.permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a connection", e);
+            }
+            LoanRollupTotals totals;
+            try {
+                totals = scan(this.job, this.cutoff, this.fromId, this.toId);
+            } finally {
+                this.permits.release();
+            }
+            scanned();
+            return totals;
+        }
+
+        private void scanned() {
+            int scanned = this.job.chunksScanned.incrementAndGet();
+            if (scanned % Math.max(1, this.job.chunks / PROGRESS_LOG_STEPS) == 0) {
+                log.info("Loan rollup recompute scanned {} of {} chunks, {} loans", scanned, this.job.chunks,
+                        this.job.loans.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.library.app.analytics;
+
+import org.library.app.event.LibraryEvent;
+import org.library.app.event.LibraryEventType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/*
+ * Borrows, returns and total loan duration per rollup bucket, for every granularity in LoanRollupUpdater.GRANULARITIES.
+ * Used for the deltas of one event batch, for the partial totals of a recompute and for the rollups it corrects.
+ * */
+final class LoanRollupTotals {
+
+    private final Map<Bucket, Delta> buckets = new LinkedHashMap<>();
+
+    void add(LibraryEvent event) {
+        if (event.type() == LibraryEventType.BOOK_BORROWED) {
+            borrowed(event.timestamp());
+        } else if (event.type() == LibraryEventType.BOOK_RETURNED) {
+            returned(event.timestamp(), event.loanDuration());
+        }
+    }
+
+    void borrowed(long timestamp) {
+        for (TimeWindow granularity : LoanRollupUpdater.GRANULARITIES) {
+            delta(granularity, timestamp).borrows++;
+        }
+    }
+
+    void returned(long timestamp, long loanDuration) {
+        for (TimeWindow granularity : LoanRollupUpdater.GRANULARITIES) {
+            Delta delta = delta(granularity, timestamp);
+            delta.returns++;
+            delta.loanDuration += loanDuration;
+        }
+    }
+
+    /*
+     * Adds the other totals into these and returns these.
+     * */
+    LoanRollupTotals merge(LoanRollupTotals other) {
+        other.buckets.forEach((bucket, delta) -> add(bucket, delta.borrows, delta.returns, delta.loanDuration));
+        return this;
+    }
+
+    void add(Bucket bucket, long borrows, long returns, long loanDuration) {
+        Delta delta = this.buckets.computeIfAbsent(bucket, b -> new Delta());
+        delta.borrows += borrows;
+        delta.returns += returns;
+        delta.loanDuration += loanDuration;
+    }
+
+    /*
+     * These totals minus the other ones, for every bucket where they differ.
+     * */
+    LoanRollupTotals minus(LoanRollupTotals other) {
+        LoanRollupTotals difference = new LoanRollupTotals().merge(this);
+        other.buckets.forEach((bucket, delta) -> difference.add(bucket, -delta.borrows, -delta.returns,
+                -delta.loanDuration));
+        difference.buckets.values()
+                .removeIf(delta -> delta.borrows == 0 && delta.returns == 0 && delta.loanDuration == 0);
+        return difference;
+    }
+
+    boolean isEmpty() {
+        return this.buckets.isEmpty();
+    }
+
+    int size() {
+        return this.buckets.size();
+    }
+
+    void forEach(BiConsumer<Bucket, Delta> action) {
+        this.buckets.forEach(action);
+    }
+
+    private Delta delta(TimeWindow granularity, long timestamp) {
+        return this.buckets.computeIfAbsent(new Bucket(granularity, granularity.start(timestamp)),
+                bucket -> new Delta());
+    }
+
+    record Bucket(TimeWindow granularity, long start) {
+    }
+
+    static final class Delta {
+
+        long borrows;
+
+        long returns;
+
+        long loanDuration;
+    }
+}
@@ -0,0 +1,109 @@
+package org.library.app.analytics;
+
+import org.library.app.event.LibraryEvent;
+import org.library.app.event.LibraryEventConsumer;
+import org.library.app.repository.LoanRollupsRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class LoanRollupUpdater implements LibraryEventConsumer {
+
+    public static final List<TimeWindow> GRANULARITIES = List.of(TimeWindow.HOUR, TimeWindow.DAY);
+
+    private static final String ROLLUPS_SQL = "SELECT c_granularity, c_bucket_start, c_borrows, c_returns, " +
+            "c_loan_duration_total FROM public.t_loan_rollup";
+
+    private static final String INSERT_IF_ABSENT_SQL = "INSERT INTO public.t_loan_rollup " +
+            "(c_granularity, c_bucket_start, c_borrows, c_returns, c_loan_duration_total) VALUES (?, ?, 0, 0, 0) " +
+            "ON CONFLICT DO NOTHING";
+
+    private static final String CORRECT_SQL = "UPDATE public.t_loan_rollup SET c_borrows = c_borrows + ?, " +
+            "c_returns = c_returns + ?, c_loan_duration_total = c_loan_duration_total + ? " +
+            "WHERE c_granularity = ? AND c_bucket_start = ?";
+
+    private static final String DELETE_EMPTY_SQL = "DELETE FROM public.t_loan_rollup " +
+            "WHERE c_borrows = 0 AND c_returns = 0 AND c_loan_duration_total = 0";
+
+    private final LoanRollupsRepository repository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LoanRollupUpdater(LoanRollupsRepository repository, TransactionTemplate transactionTemplate,
+                             DataSource dataSource) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public String name() {
+        return "loan-rollups";
+    }
+
+    @Override
+    public void onBatch(List<LibraryEvent> events) {
+        LoanRollupTotals deltas = new LoanRollupTotals();
+        events.forEach(deltas::add);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        this.transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::apply));
+    }
+
+    /*
+     * Every rollup as it stands now.
+     * */
+    LoanRollupTotals rollups() {
+        LoanRollupTotals rollups = new LoanRollupTotals();
+        this.jdbcTemplate.query(ROLLUPS_SQL, rs -> {
+            TimeWindow granularity = TimeWindow.valueOf(rs.getString(1));
+            long bucketStart = rs.getObject(2, OffsetDateTime.class).toInstant().toEpochMilli();
+            rollups.add(new LoanRollupTotals.Bucket(granularity, bucketStart), rs.getLong(3), rs.getLong(4),
+                    rs.getLong(5));
+        });
+        return rollups;
+    }
+
+    /*
+     * Adds the corrections to the rollups in one transaction, creating missing buckets and dropping the ones left
+     * empty, and returns the number of buckets corrected. Being increments, they keep whatever any node added since
+     * the rollups they were computed from were read.
+     * */
+    int correct(LoanRollupTotals corrections) {
+        List<Object[]> buckets = new ArrayList<>(corrections.size());
+        List<Object[]> deltas = new ArrayList<>(corrections.size());
+        corrections.forEach((bucket, delta) -> {
+            OffsetDateTime bucketStart = OffsetDateTime.ofInstant(Instant.ofEpochMilli(bucket.start()), ZoneOffset.UTC);
+            buckets.add(new Object[]{bucket.granularity().name(), bucketStart});
+            deltas.add(new Object[]{delta.borrows, delta.returns, delta.loanDuration, bucket.granularity().name(),
+                    bucketStart});
+        });
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, buckets);
+            this.jdbcTemplate.batchUpdate(CORRECT_SQL, deltas);
+            this.jdbcTemplate.update(DELETE_EMPTY_SQL);
+        });
+        return deltas.size();
+    }
+
+    /*
+     * Every node applies its own events, so the bucket may be created concurrently; ON CONFLICT DO UPDATE would do
+     * this in one statement but H2 only accepts ON CONFLICT DO NOTHING.
+     * */
+    private void apply(LoanRollupTotals.Bucket bucket, LoanRollupTotals.Delta delta) {
+        Instant bucketStart = Instant.ofEpochMilli(bucket.start());
+        this.repository.insertIfAbsent(bucket.granularity().name(), bucketStart);
+        this.repository.increment(bucket.granularity(), bucketStart, delta.borrows, delta.returns, delta.loanDuration);
+    }
+}
@@ -0,0 +1,170 @@
+package org.library.app.analytics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Space-Saving heavy hitters summary (Metwally et al.). Keeps at most capacity counters in preallocated arrays,
+ * the counter with the smallest count sits at the root of an indexed min-heap and is recycled for new items.
+ * A reported count never underestimates the true count and overestimates it by at most the counter's error.
+ * Not thread-safe.
+ * */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+
+    private final long[] items;
+
+    private final long[] counts;
+
+    private final long[] errors;
+
+    private final int[] heap;
+
+    private final int[] positions;
+
+    private final Map<Long, Integer> slots;
+
+    private int size;
+
+    private long total;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Sketch capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.items = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(long item) {
+        this.total++;
+        Integer slot = this.slots.get(item);
+        if (slot != null) {
+            this.counts[slot]++;
+            siftDown(this.positions[slot]);
+        } else if (this.size < this.capacity) {
+            int free = this.size++;
+            this.items[free] = item;
+            this.counts[free] = 1;
+            this.errors[free] = 0;
+            this.heap[free] = free;
+            this.positions[free] = free;
+            this.slots.put(item, free);
+            siftUp(free);
+        } else {
+            int evicted = this.heap[0];
+            this.slots.remove(this.items[evicted]);
+            this.items[evicted] = item;
+            this.errors[evicted] = this.counts[evicted];
+            this.counts[evicted]++;
+            this.slots.put(item, evicted);
+            siftDown(0);
+        }
+    }
+
+    public List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(this.size);
+        for (int slot = 0; slot < this.size; slot++) {
+            entries.add(new Entry(this.items[slot], this.counts[slot], this.errors[slot]));
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    /*
+     * Top of the union of the sketches' streams. An item a sketch does not hold may still have occurred there up to
+     * that sketch's maxError() times, so that much is added to both its count and its error, which keeps the merged
+     * count an overestimate by at most the merged error.
+     * */
+    public static List<Entry> top(Collection<SpaceSavingSketch> sketches, int limit) {
+        long unseen = 0;
+        Map<Long, long[]> merged = new HashMap<>();
+        for (SpaceSavingSketch sketch : sketches) {
+            long maxError = sketch.maxError();
+            unseen += maxError;
+            for (int slot = 0; slot < sketch.size; slot++) {
+                long[] totals = merged.computeIfAbsent(sketch.items[slot], item -> new long[3]);
+                totals[0] += sketch.counts[slot];
+                totals[1] += sketch.errors[slot];
+                totals[2] += maxError;
+            }
+        }
+        List<Entry> entries = new ArrayList<>(merged.size());
+        for (Map.Entry<Long, long[]> item : merged.entrySet()) {
+            long[] totals = item.getValue();
+            long absent = unseen - totals[2];
+            entries.add(new Entry(item.getKey(), totals[0] + absent, totals[1] + absent));
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    public long total() {
+        return this.total;
+    }
+
+    public long maxError() {
+        return this.size < this.capacity ? 0 : this.counts[this.heap[0]];
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+
+    public void clear() {
+        this.slots.clear();
+        this.size = 0;
+        this.total = 0;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (this.counts[this.heap[parent]] <= this.counts[this.heap[position]]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < this.size && this.counts[this.heap[left]] < this.counts[this.heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < this.size && this.counts[this.heap[right]] < this.counts[this.heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int slot = this.heap[first];
+        this.heap[first] = this.heap[second];
+        this.heap[second] = slot;
+        this.positions[this.heap[first]] = first;
+        this.positions[this.heap[second]] = second;
+    }
+
+    public record Entry(long item, long count, long error) {
+    }
+}
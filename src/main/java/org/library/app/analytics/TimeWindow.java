@@ -0,0 +1,44 @@
+package org.library.app.analytics;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/*
+ * Calendar periods in UTC for the loan rollup buckets; the top borrowed books use duration() as a trailing window
+ * instead.
+ * */
+public enum TimeWindow {
+    HOUR(ChronoUnit.HOURS, ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS, ChronoUnit.DAYS),
+    WEEK(ChronoUnit.DAYS, ChronoUnit.WEEKS);
+
+    private final ChronoUnit truncation;
+
+    private final ChronoUnit length;
+
+    TimeWindow(ChronoUnit truncation, ChronoUnit length) {
+        this.truncation = truncation;
+        this.length = length;
+    }
+
+    public long start(long timestamp) {
+        ZonedDateTime time = Instant.ofEpochMilli(timestamp).atZone(ZoneOffset.UTC).truncatedTo(this.truncation);
+        if (this == WEEK) {
+            time = time.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+        return time.toInstant().toEpochMilli();
+    }
+
+    public Duration duration() {
+        return this.length.getDuration();
+    }
+
+    public long end(long start) {
+        return Instant.ofEpochMilli(start).atZone(ZoneOffset.UTC).plus(1, this.length).toInstant().toEpochMilli();
+    }
+}
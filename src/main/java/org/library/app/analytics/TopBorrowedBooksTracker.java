@@ -0,0 +1,122 @@
+package org.library.app.analytics;
+
+import org.library.app.event.LibraryEvent;
+import org.library.app.event.LibraryEventConsumer;
+import org.library.app.event.LibraryEventType;
+import org.library.app.exception.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Top borrowed books over a trailing hour, day and week. Each window is a ring of slices (5 minutes, 1 hour and
+ * 6 hours), each with its own sketch; a slice is cleared when the ring comes round to it again, and a query merges
+ * the slices of the last window, so the window moves on one slice at a time instead of emptying at every calendar
+ * boundary.
+ * */
+@Component
+public class TopBorrowedBooksTracker implements LibraryEventConsumer {
+
+    private final Map<TimeWindow, TrailingSketch> windows = new EnumMap<>(TimeWindow.class);
+
+    private final int capacity;
+
+    public TopBorrowedBooksTracker(@Value("${library.analytics.top-books.capacity:256}") int capacity) {
+        this.capacity = capacity;
+        for (TimeWindow window : TimeWindow.values()) {
+            this.windows.put(window, new TrailingSketch(window, slices(window), capacity));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "top-borrowed-books";
+    }
+
+    @Override
+    public void onBatch(List<LibraryEvent> events) {
+        for (TrailingSketch trailingSketch : this.windows.values()) {
+            synchronized (trailingSketch) {
+                for (LibraryEvent event : events) {
+                    if (event.type() == LibraryEventType.BOOK_BORROWED) {
+                        trailingSketch.offer(event.bookId(), event.timestamp());
+                    }
+                }
+            }
+        }
+    }
+
+    public WindowTop top(TimeWindow window, int limit, long now) {
+        if (limit < 1 || limit > this.capacity) {
+            throw new InvalidRequestException("Limit must be between 1 and %d".formatted(this.capacity));
+        }
+        TrailingSketch trailingSketch = this.windows.get(window);
+        synchronized (trailingSketch) {
+            return trailingSketch.top(limit, now);
+        }
+    }
+
+    private static int slices(TimeWindow window) {
+        return switch (window) {
+            case HOUR -> 12;
+            case DAY -> 24;
+            case WEEK -> 28;
+        };
+    }
+
+    public record WindowTop(long start, long end, long total, long maxError, List<SpaceSavingSketch.Entry> entries) {
+    }
+
+    private static final class TrailingSketch {
+
+        private final long sliceLength;
+
+        private final SpaceSavingSketch[] sketches;
+
+        private final long[] sliceStarts;
+
+        private TrailingSketch(TimeWindow window, int slices, int capacity) {
+            this.sliceLength = window.duration().toMillis() / slices;
+            this.sketches = new SpaceSavingSketch[slices];
+            this.sliceStarts = new long[slices];
+            for (int slice = 0; slice < slices; slice++) {
+                this.sketches[slice] = new SpaceSavingSketch(capacity);
+                this.sliceStarts[slice] = Long.MIN_VALUE;
+            }
+        }
+
+        private void offer(long bookId, long timestamp) {
+            long sliceStart = timestamp - Math.floorMod(timestamp, this.sliceLength);
+            int slice = (int) Math.floorMod(Math.floorDiv(timestamp, this.sliceLength), (long) this.sketches.length);
+            if (sliceStart < this.sliceStarts[slice]) {
+                // older than the window the ring already moved past
+                return;
+            }
+            if (sliceStart > this.sliceStarts[slice]) {
+                this.sketches[slice].clear();
+                this.sliceStarts[slice] = sliceStart;
+            }
+            this.sketches[slice].offer(bookId);
+        }
+
+        private WindowTop top(int limit, long now) {
+            long end = now - Math.floorMod(now, this.sliceLength) + this.sliceLength;
+            long start = end - this.sliceLength * this.sketches.length;
+            List<SpaceSavingSketch> live = new ArrayList<>(this.sketches.length);
+            long total = 0;
+            long maxError = 0;
+            for (int slice = 0; slice < this.sketches.length; slice++) {
+                if (this.sliceStarts[slice] >= start && this.sliceStarts[slice] < end) {
+                    live.add(this.sketches[slice]);
+                    total += this.sketches[slice].total();
+                    maxError += this.sketches[slice].maxError();
+                }
+            }
+            return new WindowTop(start, end, total, maxError, List.copyOf(SpaceSavingSketch.top(live, limit)));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.library.app.bloom;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.library.app.repository.MembersRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/*
+ * Bloom filter of every member name, so that a name which is certainly free does not cost an existsByName query.
+ * Until the first load finishes, and whenever the answer is "maybe", callers must still ask the database; the unique
+ * constraint on c_name stays the final arbiter. Names that go away (rename, delete) cannot be removed from a Bloom
+ * filter, so they are counted as stale and the filter is rebuilt in the background once they exceed
+ * stale-ratio of the live names. Names added while a rebuild streams the table are replayed into the new filter.
+ * */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private final MembersRepository repository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final int initialCapacity;
+
+    private final double falsePositiveRate;
+
+    private final double staleRatio;
+
+    private volatile ScalableBloomFilter filter;
+
+    private List<String> addedDuringRebuild;
+
+    private final AtomicLong staleNames = new AtomicLong();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final Counter skipped;
+
+    private final Counter checked;
+
+    public MemberNameFilter(MembersRepository repository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${library.member-names.bloom.initial-capacity:100000}") int initialCapacity,
+                            @Value("${library.member-names.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${library.member-names.bloom.stale-ratio:0.2}") double staleRatio) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.staleRatio = staleRatio;
+        this.skipped = lookupCounter(meterRegistry, "skipped");
+        this.checked = lookupCounter(meterRegistry, "checked");
+        Gauge.builder("library.member-names.bloom.size", this, f -> f.filter == null ? 0 : f.filter.size())
+                .register(meterRegistry);
+        Gauge.builder("library.member-names.bloom.stale", this.staleNames, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /*
+     * false means the name is certainly not taken; true means the database has to be asked.
+     * */
+    public boolean mightExist(String name) {
+        ScalableBloomFilter current = this.filter;
+        boolean mightExist = current == null || current.mightContain(name);
+        (mightExist ? this.checked : this.skipped).increment();
+        return mightExist;
+    }
+
+    public void added(String name) {
+        synchronized (this) {
+            if (this.filter != null) {
+                this.filter.put(name);
+            }
+            if (this.addedDuringRebuild != null) {
+                this.addedDuringRebuild.add(name);
+            }
+        }
+    }
+
+    public void removed(String name) {
+        long stale = this.staleNames.incrementAndGet();
+        ScalableBloomFilter current = this.filter;
+        if (current != null && stale > Math.max(1, current.size() * this.staleRatio)
+                && this.rebuilding.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("member-name-filter-rebuild").start(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    this.rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    public void rebuild() {
+        synchronized (this) {
+            this.addedDuringRebuild = new ArrayList<>();
+        }
+        long stale = this.staleNames.get();
+        ScalableBloomFilter rebuilt = new ScalableBloomFilter(this.initialCapacity, this.falsePositiveRate, 2, 0.5);
+        try {
+            this.readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> names = this.repository.streamAllNames()) {
+                    names.forEach(rebuilt::put);
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                this.addedDuringRebuild = null;
+            }
+            log.warn("Could not rebuild member name filter, falling back to the database", e);
+            return;
+        }
+        synchronized (this) {
+            this.addedDuringRebuild.forEach(rebuilt::put);
+            this.addedDuringRebuild = null;
+            this.filter = rebuilt;
+        }
+        this.staleNames.addAndGet(-stale);
+        log.info("Member name filter loaded: {} names, {} slices, {} bits",
+                rebuilt.size(), rebuilt.sliceCount(), rebuilt.bitCount());
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("library.member-names.bloom.lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
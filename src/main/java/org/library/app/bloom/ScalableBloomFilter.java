@@ -0,0 +1,146 @@
+package org.library.app.bloom;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Scalable Bloom filter (Almeida et al.): a chain of plain Bloom filters. When the newest one has taken its capacity
+ * a new one is appended with growthFactor times the capacity and tighteningRatio times the false positive rate, so the
+ * compound rate stays below falsePositiveRate however many elements are added. Bits live in AtomicLongArrays and the
+ * chain is a volatile copy-on-grow array, so mightContain needs no lock; put is synchronized.
+ * Index i of element x is (h1 + i * h2) mod bits (Kirsch-Mitzenmacher) with h1, h2 taken from one 64-bit hash.
+ * */
+public class ScalableBloomFilter {
+
+    private static final double LN2_SQUARED = Math.log(2) * Math.log(2);
+
+    private final double tighteningRatio;
+
+    private final int growthFactor;
+
+    private volatile Slice[] slices;
+
+    private long size;
+
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveRate, int growthFactor, double tighteningRatio) {
+        if (initialCapacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1 || growthFactor < 1
+                || tighteningRatio <= 0 || tighteningRatio >= 1) {
+            throw new IllegalArgumentException("Invalid bloom filter settings");
+        }
+        this.growthFactor = growthFactor;
+        this.tighteningRatio = tighteningRatio;
+        this.slices = new Slice[]{new Slice(initialCapacity, falsePositiveRate * (1 - tighteningRatio))};
+    }
+
+    public boolean mightContain(String element) {
+        long hash = hash(element);
+        for (Slice slice : this.slices) {
+            if (slice.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void put(String element) {
+        long hash = hash(element);
+        Slice[] current = this.slices;
+        for (Slice slice : current) {
+            if (slice.mightContain(hash)) {
+                return;
+            }
+        }
+        Slice last = current[current.length - 1];
+        if (last.count == last.capacity) {
+            last = new Slice((int) Math.min(Integer.MAX_VALUE, (long) last.capacity * this.growthFactor),
+                    last.falsePositiveRate * this.tighteningRatio);
+            Slice[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = last;
+            this.slices = grown;
+        }
+        last.put(hash);
+        this.size++;
+    }
+
+    /*
+     * Elements that were new when put; a false positive on put is not counted, so this may undercount slightly.
+     * */
+    public synchronized long size() {
+        return this.size;
+    }
+
+    public int sliceCount() {
+        return this.slices.length;
+    }
+
+    public long bitCount() {
+        long bits = 0;
+        for (Slice slice : this.slices) {
+            bits += slice.bits;
+        }
+        return bits;
+    }
+
+    private static long hash(String element) {
+        byte[] bytes = element.getBytes(StandardCharsets.UTF_8);
+        long hash = 0x9E3779B97F4A7C15L ^ bytes.length;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static final class Slice {
+
+        private final int capacity;
+
+        private final double falsePositiveRate;
+
+        private final long bits;
+
+        private final int hashFunctions;
+
+        private final AtomicLongArray words;
+
+        private int count;
+
+        private Slice(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            this.bits = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / LN2_SQUARED));
+            this.hashFunctions = Math.max(1, (int) Math.round((double) this.bits / capacity * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((this.bits + 63) >>> 6));
+        }
+
+        private boolean mightContain(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < this.hashFunctions; i++) {
+                long bit = Math.floorMod(h1 + i * h2, this.bits);
+                if ((this.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < this.hashFunctions; i++) {
+                long bit = Math.floorMod(h1 + i * h2, this.bits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                this.words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+            this.count++;
+        }
+    }
+}
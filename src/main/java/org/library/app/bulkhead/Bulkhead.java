@@ -0,0 +1,74 @@
+package org.library.app.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.library.app.exception.BulkheadFullException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * Fixed number of threads in front of a bounded queue. Work that finds both full is failed at once with
+ * BulkheadFullException instead of waiting, so however slow the work gets it can only ever hold these threads.
+ * Saturation is exported as library.bulkhead.executor.* meters tagged name=<bulkhead>, plus library.bulkhead.rejected
+ * and library.bulkhead.saturation (busy threads and queued tasks over threads + queue capacity).
+ * */
+public class Bulkhead implements AutoCloseable {
+
+    private final String name;
+
+    private final int capacity;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ExecutorService monitoredExecutor;
+
+    private final Counter rejected;
+
+    public Bulkhead(String name, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        if (threads < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Invalid bulkhead settings");
+        }
+        this.name = name;
+        this.capacity = threads + queueCapacity;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("bulkhead-" + name + "-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.monitoredExecutor = ExecutorServiceMetrics.monitor(meterRegistry, this.executor, name,
+                "library.bulkhead", Tags.empty());
+        this.rejected = Counter.builder("library.bulkhead.rejected")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("library.bulkhead.saturation", this, Bulkhead::saturation)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, this.monitoredExecutor);
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            return CompletableFuture.failedFuture(new BulkheadFullException("Bulkhead " + this.name + " is full"));
+        }
+    }
+
+    public double saturation() {
+        return (double) (this.executor.getActiveCount() + this.executor.getQueue().size()) / this.capacity;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+package org.library.app.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/*
+ * Reports get their own threads and their own small connection pool against the same database, so a slow report can
+ * exhaust only these and never the request threads or the pool used by borrow and return. Declaring a second
+ * DataSource makes Boot back off from creating the main one, so the main pool is declared here too, built from the
+ * same spring.datasource.* properties; both pools are picked up by the Hikari pool metrics (hikaricp.connections.*).
+ * */
+@Configuration
+public class BulkheadConfiguration {
+
+    public static final String ANALYTICS = "analytics";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public HikariDataSource analyticsDataSource(
+            DataSourceProperties properties,
+            @Value("${library.bulkhead.analytics.pool-size:4}") int poolSize) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ANALYTICS);
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMinimumIdle(0);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public Bulkhead analyticsBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${library.bulkhead.analytics.threads:2}") int threads,
+            @Value("${library.bulkhead.analytics.queue-capacity:16}") int queueCapacity) {
+        return new Bulkhead(ANALYTICS, threads, queueCapacity, meterRegistry);
+    }
+}
@@ -0,0 +1,39 @@
+package org.library.app.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+ * library.cache.invalidation.transport picks how nodes tell each other about changed cache keys: AUTO uses
+ * LISTEN/NOTIFY when the primary datasource is PostgreSQL and turns invalidation off otherwise, IN_JVM connects the
+ * application contexts of one JVM with each other.
+ * */
+@Configuration
+public class CacheInvalidationConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public CacheInvalidationTransport cacheInvalidationTransport(
+            DataSource dataSource,
+            DataSourceProperties dataSourceProperties,
+            @Value("${library.cache.invalidation.transport:AUTO}") InvalidationTransportType type,
+            @Value("${library.cache.invalidation.channel:library_cache}") String channel,
+            @Value("${library.cache.invalidation.poll-timeout:500ms}") Duration pollTimeout,
+            @Value("${library.cache.invalidation.reconnect-delay:1s}") Duration reconnectDelay) {
+        if (type == InvalidationTransportType.AUTO) {
+            type = dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:")
+                    ? InvalidationTransportType.POSTGRES : InvalidationTransportType.NONE;
+        }
+        return switch (type) {
+            case POSTGRES -> new PostgresInvalidationTransport(dataSource, channel,
+                    dataSourceProperties.determineUrl(), dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword(), pollTimeout, reconnectDelay);
+            case IN_JVM -> new InJvmInvalidationTransport(channel);
+            default -> CacheInvalidationTransport.disabled();
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package org.library.app.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.library.app.entity.BookEntity;
+import org.library.app.entity.LoanEntity;
+import org.library.app.entity.MemberEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/*
+ * Applies the invalidations other nodes publish to this node's second-level cache. Every payload the transport
+ * delivers in one go is decoded first and evicted as one batch. The sequence of each sender is tracked: the first
+ * message seen from a node sets its baseline, any later jump means messages were missed and the whole cache is
+ * flushed, and so does a transport reporting lost payloads. Derived caches are told about the same keys. Messages
+ * sent by this node are skipped, Hibernate and the publisher have already taken care of the local caches.
+ * */
+@Slf4j
+@Component
+public class CacheInvalidationListener implements CacheInvalidationTransport.Listener {
+
+    private static final String MEMBER_LOANS_ROLE = MemberEntity.class.getName() + ".loans";
+
+    private final CacheInvalidationTransport transport;
+
+    private final String nodeId;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final List<DerivedCache> derivedCaches;
+
+    private final Map<String, Long> lastSequences = new HashMap<>();
+
+    private final Counter received;
+
+    private final Counter evicted;
+
+    private final Counter gapFlushes;
+
+    private final Counter lostFlushes;
+
+    private final Counter requestedFlushes;
+
+    public CacheInvalidationListener(CacheInvalidationTransport transport,
+                                     CacheInvalidationPublisher publisher,
+                                     EntityManagerFactory entityManagerFactory,
+                                     List<DerivedCache> derivedCaches,
+                                     MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.nodeId = publisher.nodeId();
+        this.entityManagerFactory = entityManagerFactory;
+        this.derivedCaches = derivedCaches;
+        this.received = Counter.builder("library.cache.invalidation.received").register(meterRegistry);
+        this.evicted = Counter.builder("library.cache.invalidation.evicted").register(meterRegistry);
+        this.gapFlushes = flushCounter(meterRegistry, "gap");
+        this.lostFlushes = flushCounter(meterRegistry, "lost");
+        this.requestedFlushes = flushCounter(meterRegistry, "requested");
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        this.transport.subscribe(this);
+    }
+
+    @Override
+    public synchronized void onMessages(List<String> payloads) {
+        Map<String, Set<Long>> keys = new TreeMap<>();
+        Counter flush = null;
+        for (String payload : payloads) {
+            CacheInvalidationMessage message;
+            try {
+                message = CacheInvalidationMessage.decode(payload);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed cache invalidation payload {}", payload);
+                continue;
+            }
+            if (message.node().equals(this.nodeId)) {
+                continue;
+            }
+            this.received.increment();
+            Long last = this.lastSequences.put(message.node(), message.sequence());
+            if (last != null && message.sequence() != last + 1) {
+                log.warn("Missed cache invalidations {}..{} from node {}, flushing the cache",
+                        last + 1, message.sequence() - 1, message.node());
+                flush = this.gapFlushes;
+            } else if (message.flushAll() && flush == null) {
+                flush = this.requestedFlushes;
+            }
+            message.keys().forEach((region, ids) -> keys.computeIfAbsent(region, r -> new TreeSet<>()).addAll(ids));
+        }
+        if (flush != null) {
+            flushAll(flush);
+        } else if (!keys.isEmpty()) {
+            evict(keys);
+        }
+    }
+
+    @Override
+    public synchronized void onMessagesLost() {
+        log.warn("Cache invalidations may have been lost, flushing the cache");
+        this.lastSequences.clear();
+        flushAll(this.lostFlushes);
+    }
+
+    private void evict(Map<String, Set<Long>> keys) {
+        Cache cache = this.entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        keys.forEach((region, ids) -> {
+            for (Long id : ids) {
+                switch (region) {
+                    case CacheRegions.BOOK -> cache.evictEntityData(BookEntity.class, id);
+                    case CacheRegions.MEMBER -> cache.evictEntityData(MemberEntity.class, id);
+                    case CacheRegions.MEMBER_LOANS -> cache.evictCollectionData(MEMBER_LOANS_ROLE, id);
+                    case CacheRegions.LOAN -> cache.evictEntityData(LoanEntity.class, id);
+                    default -> throw new IllegalStateException("Unknown cache region " + region);
+                }
+            }
+            this.evicted.increment(ids.size());
+            this.derivedCaches.forEach(derivedCache -> derivedCache.invalidate(region, ids));
+        });
+    }
+
+    private void flushAll(Counter reason) {
+        this.entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        this.derivedCaches.forEach(DerivedCache::invalidateAll);
+        reason.increment();
+    }
+
+    private static Counter flushCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("library.cache.invalidation.flushes")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,77 @@
+package org.library.app.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/*
+ * One invalidation payload: "<node>|<sequence>|<region>=<id>,<id>;<region>=<id>", or "<node>|<sequence>|*" when the
+ * receivers have to drop everything. Regions are written as short codes so a payload with a few hundred ids stays
+ * well under the 8000 byte NOTIFY limit.
+ * */
+public record CacheInvalidationMessage(String node, long sequence, boolean flushAll, Map<String, Set<Long>> keys) {
+
+    private static final String FLUSH_ALL = "*";
+
+    private static final Map<String, String> CODES = Map.of(
+            CacheRegions.BOOK, "b",
+            CacheRegions.MEMBER, "m",
+            CacheRegions.MEMBER_LOANS, "ml",
+            CacheRegions.LOAN, "l");
+
+    private static final Map<String, String> REGIONS = CODES.entrySet().stream()
+            .collect(Collectors.toUnmodifiableMap(Map.Entry::getValue, Map.Entry::getKey));
+
+    public static CacheInvalidationMessage flushAll(String node, long sequence) {
+        return new CacheInvalidationMessage(node, sequence, true, Map.of());
+    }
+
+    public String encode() {
+        StringBuilder payload = new StringBuilder(64).append(this.node).append('|').append(this.sequence).append('|');
+        if (this.flushAll) {
+            return payload.append(FLUSH_ALL).toString();
+        }
+        String separator = "";
+        for (Map.Entry<String, Set<Long>> region : this.keys.entrySet()) {
+            String code = CODES.get(region.getKey());
+            if (code == null) {
+                throw new IllegalArgumentException("Unknown cache region " + region.getKey());
+            }
+            payload.append(separator).append(code).append('=');
+            separator = ";";
+            String idSeparator = "";
+            for (Long id : region.getValue()) {
+                payload.append(idSeparator).append(id);
+                idSeparator = ",";
+            }
+        }
+        return payload.toString();
+    }
+
+    public static CacheInvalidationMessage decode(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3 || parts[0].isEmpty()) {
+            throw new IllegalArgumentException("Malformed invalidation message: " + payload);
+        }
+        long sequence = Long.parseLong(parts[1]);
+        if (FLUSH_ALL.equals(parts[2])) {
+            return flushAll(parts[0], sequence);
+        }
+        Map<String, Set<Long>> keys = new LinkedHashMap<>();
+        for (String entry : parts[2].split(";")) {
+            int equals = entry.indexOf('=');
+            String region = equals < 0 ? null : REGIONS.get(entry.substring(0, equals));
+            if (region == null) {
+                throw new IllegalArgumentException("Malformed invalidation message: " + payload);
+            }
+            Set<Long> ids = keys.computeIfAbsent(region, r -> new TreeSet<>());
+            for (String id : entry.substring(equals + 1).split(",")) {
+                ids.add(Long.parseLong(id));
+            }
+        }
+        return new CacheInvalidationMessage(parts[0], sequence, false, Collections.unmodifiableMap(keys));
+    }
+}
@@ -0,0 +1,207 @@
+package org.library.app.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Collects the cache keys a transaction changed; once it commits they go to the local derived caches at once and to
+ * a single sender thread for the other nodes. The sender
+ * waits batch-window for more commits, merges everything it has into as few messages as max-ids-per-message allows
+ * and numbers them from one per-node sequence. A payload that fails to send still uses up its sequence number, so
+ * the receivers see a gap and flush instead of silently keeping stale entries.
+ * */
+@Slf4j
+@Component
+public class CacheInvalidationPublisher {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final CacheInvalidationTransport transport;
+
+    private final List<DerivedCache> derivedCaches;
+
+    private final long batchWindowNanos;
+
+    private final int maxIdsPerMessage;
+
+    private final BlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+
+    private final Counter sent;
+
+    private final Counter failed;
+
+    private long sequence;
+
+    private volatile boolean running;
+
+    private Thread sender;
+
+    public CacheInvalidationPublisher(CacheInvalidationTransport transport,
+                                      List<DerivedCache> derivedCaches,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${library.cache.invalidation.batch-window:5ms}") Duration batchWindow,
+                                      @Value("${library.cache.invalidation.max-ids-per-message:300}") int maxIdsPerMessage) {
+        this.transport = transport;
+        this.derivedCaches = derivedCaches;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.maxIdsPerMessage = maxIdsPerMessage;
+        this.sent = Counter.builder("library.cache.invalidation.sent").register(meterRegistry);
+        this.failed = Counter.builder("library.cache.invalidation.send-failures").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!this.transport.enabled()) {
+            return;
+        }
+        this.running = true;
+        this.sender = Thread.ofPlatform()
+                .name("cache-invalidation-sender")
+                .daemon(true)
+                .start(this::sendLoop);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        if (this.sender != null) {
+            this.sender.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public String nodeId() {
+        return this.nodeId;
+    }
+
+    public void invalidateAfterCommit(String region, long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed(Map.of(region, Set.of(id)));
+            return;
+        }
+        PendingKeys pending = (PendingKeys) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingKeys();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.keys.computeIfAbsent(region, r -> new TreeSet<>()).add(id);
+    }
+
+    /*
+     * For changes that cannot be described key by key, such as a restore; not tied to a transaction.
+     * */
+    public void invalidateAll() {
+        this.derivedCaches.forEach(DerivedCache::invalidateAll);
+        if (this.transport.enabled()) {
+            this.queue.add(new Batch(true, Map.of()));
+        }
+    }
+
+    private void committed(Map<String, Set<Long>> keys) {
+        for (DerivedCache derivedCache : this.derivedCaches) {
+            keys.forEach(derivedCache::invalidate);
+        }
+        if (this.transport.enabled()) {
+            this.queue.add(new Batch(false, keys));
+        }
+    }
+
+    private void sendLoop() {
+        List<Batch> batches = new ArrayList<>();
+        while (this.running || !this.queue.isEmpty()) {
+            Batch first;
+            try {
+                first = this.queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            if (this.batchWindowNanos > 0 && this.running) {
+                LockSupport.parkNanos(this.batchWindowNanos);
+            }
+            batches.add(first);
+            this.queue.drainTo(batches);
+            send(batches);
+            batches.clear();
+        }
+    }
+
+    private void send(List<Batch> batches) {
+        if (batches.stream().anyMatch(Batch::flushAll)) {
+            send(CacheInvalidationMessage.flushAll(this.nodeId, ++this.sequence));
+            return;
+        }
+        Map<String, Set<Long>> keys = new TreeMap<>();
+        for (Batch batch : batches) {
+            batch.keys().forEach((region, ids) -> keys.computeIfAbsent(region, r -> new TreeSet<>()).addAll(ids));
+        }
+        Map<String, Set<Long>> chunk = new TreeMap<>();
+        int chunkSize = 0;
+        for (Map.Entry<String, Set<Long>> region : keys.entrySet()) {
+            for (Long id : region.getValue()) {
+                chunk.computeIfAbsent(region.getKey(), r -> new TreeSet<>()).add(id);
+                if (++chunkSize == this.maxIdsPerMessage) {
+                    send(new CacheInvalidationMessage(this.nodeId, ++this.sequence, false, chunk));
+                    chunk = new TreeMap<>();
+                    chunkSize = 0;
+                }
+            }
+        }
+        if (chunkSize > 0) {
+            send(new CacheInvalidationMessage(this.nodeId, ++this.sequence, false, chunk));
+        }
+    }
+
+    private void send(CacheInvalidationMessage message) {
+        try {
+            this.transport.send(message.encode());
+            this.sent.increment();
+        } catch (RuntimeException e) {
+            this.failed.increment();
+            log.warn("Failed to send cache invalidation {} of node {}", message.sequence(), this.nodeId, e);
+        }
+    }
+
+    private record Batch(boolean flushAll, Map<String, Set<Long>> keys) {
+    }
+
+    private final class PendingKeys implements TransactionSynchronization {
+
+        private final Map<String, Set<Long>> keys = new TreeMap<>();
+
+        @Override
+        public void afterCommit() {
+            committed(this.keys);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationPublisher.this);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.library.app.cache;
+
+import java.util.List;
+
+/*
+ * Carries invalidation payloads between nodes. Delivery is at most once and in send order per sender; a listener is
+ * told when the transport itself may have lost payloads (e.g. the LISTEN connection was re-established).
+ * */
+public interface CacheInvalidationTransport extends AutoCloseable {
+
+    void send(String payload);
+
+    void subscribe(Listener listener);
+
+    default boolean enabled() {
+        return true;
+    }
+
+    @Override
+    void close();
+
+    interface Listener {
+
+        void onMessages(List<String> payloads);
+
+        void onMessagesLost();
+    }
+
+    static CacheInvalidationTransport disabled() {
+        return new CacheInvalidationTransport() {
+
+            @Override
+            public void send(String payload) {
+            }
+
+            @Override
+            public void subscribe(Listener listener) {
+            }
+
+            @Override
+            public boolean enabled() {
+                return false;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package org.library.app.cache;
+
+import java.util.List;
+
+/*
+ * Hibernate second-level cache regions. Each region is a separate JCache cache sized by
+ * library.cache.regions.<region>.max-entries.
+ * */
+public final class CacheRegions {
+
+    public static final String BOOK = "book";
+
+    public static final String MEMBER = "member";
+
+    public static final String MEMBER_LOANS = "member-loans";
+
+    public static final String LOAN = "loan";
+
+    public static final List<String> ALL = List.of(BOOK, MEMBER, MEMBER_LOANS, LOAN);
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,15 @@
+package org.library.app.cache;
+
+import java.util.Set;
+
+/*
+ * A node-local cache built from the same rows as the second-level cache regions. It hears about every changed key:
+ * right after a local commit from CacheInvalidationPublisher, and from CacheInvalidationListener when another node
+ * reports the change.
+ * */
+public interface DerivedCache {
+
+    void invalidate(String region, Set<Long> ids);
+
+    void invalidateAll();
+}
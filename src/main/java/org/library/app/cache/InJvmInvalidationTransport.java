@@ -0,0 +1,46 @@
+package org.library.app.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+ * Stand-in for LISTEN/NOTIFY when several application contexts share one JVM (tests, local runs on H2): every
+ * transport open on the channel receives every payload, its own included, synchronously and in send order.
+ * */
+public class InJvmInvalidationTransport implements CacheInvalidationTransport {
+
+    private static final Map<String, List<InJvmInvalidationTransport>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final List<InJvmInvalidationTransport> channel;
+
+    private volatile Listener listener;
+
+    public InJvmInvalidationTransport(String channel) {
+        this.channel = CHANNELS.computeIfAbsent(channel, name -> new CopyOnWriteArrayList<>());
+        this.channel.add(this);
+    }
+
+    @Override
+    public void send(String payload) {
+        synchronized (this.channel) {
+            for (InJvmInvalidationTransport transport : this.channel) {
+                Listener target = transport.listener;
+                if (target != null) {
+                    target.onMessages(List.of(payload));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void close() {
+        this.channel.remove(this);
+    }
+}
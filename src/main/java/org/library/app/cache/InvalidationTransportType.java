@@ -0,0 +1,8 @@
+package org.library.app.cache;
+
+public enum InvalidationTransportType {
+    AUTO,
+    POSTGRES,
+    IN_JVM,
+    NONE
+}
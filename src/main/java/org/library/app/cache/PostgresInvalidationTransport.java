@@ -0,0 +1,149 @@
+package org.library.app.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/*
+ * Payloads are sent with pg_notify on the primary pool outside any transaction, so they go out as soon as the
+ * statement completes. Receiving needs a session that stays in LISTEN, which a pooled connection cannot guarantee, so
+ * the listener thread opens its own connection with the datasource credentials and polls it for notifications.
+ * Every reconnect after the first one reports possibly lost payloads.
+ * */
+@Slf4j
+public class PostgresInvalidationTransport implements CacheInvalidationTransport {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String channel;
+
+    private final String url;
+
+    private final String username;
+
+    private final String password;
+
+    private final int pollTimeoutMillis;
+
+    private final long reconnectDelayMillis;
+
+    private volatile boolean running;
+
+    private volatile Connection connection;
+
+    private Thread listenerThread;
+
+    public PostgresInvalidationTransport(DataSource dataSource, String channel, String url, String username,
+                                         String password, Duration pollTimeout, Duration reconnectDelay) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid NOTIFY channel name " + channel);
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.channel = channel;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.pollTimeoutMillis = Math.toIntExact(Math.max(1, pollTimeout.toMillis()));
+        this.reconnectDelayMillis = reconnectDelay.toMillis();
+    }
+
+    @Override
+    public void send(String payload) {
+        this.jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, this.channel, payload);
+    }
+
+    @Override
+    public synchronized void subscribe(Listener listener) {
+        if (this.listenerThread != null) {
+            throw new IllegalStateException("Already subscribed");
+        }
+        this.running = true;
+        this.listenerThread = Thread.ofPlatform()
+                .name("cache-invalidation-listener")
+                .daemon(true)
+                .start(() -> listen(listener));
+    }
+
+    @Override
+    public synchronized void close() {
+        this.running = false;
+        closeConnection();
+        if (this.listenerThread != null) {
+            try {
+                this.listenerThread.join(this.pollTimeoutMillis + 1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void listen(Listener listener) {
+        boolean connectedBefore = false;
+        while (this.running) {
+            try {
+                this.connection = DriverManager.getConnection(this.url, this.username, this.password);
+                try (Statement statement = this.connection.createStatement()) {
+                    statement.execute("LISTEN " + this.channel);
+                }
+                if (connectedBefore) {
+                    listener.onMessagesLost();
+                }
+                connectedBefore = true;
+                PGConnection pgConnection = this.connection.unwrap(PGConnection.class);
+                while (this.running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(this.pollTimeoutMillis);
+                    if (notifications == null || notifications.length == 0) {
+                        continue;
+                    }
+                    List<String> payloads = new ArrayList<>(notifications.length);
+                    for (PGNotification notification : notifications) {
+                        payloads.add(notification.getParameter());
+                    }
+                    listener.onMessages(payloads);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!this.running) {
+                    break;
+                }
+                log.warn("Cache invalidation listener lost its connection, reconnecting in {} ms",
+                        this.reconnectDelayMillis, e);
+                sleep(this.reconnectDelayMillis);
+            } finally {
+                closeConnection();
+            }
+        }
+    }
+
+    private void closeConnection() {
+        Connection current = this.connection;
+        this.connection = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                log.debug("Failed to close the cache invalidation connection", e);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
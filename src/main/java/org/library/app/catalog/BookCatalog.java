@@ -0,0 +1,212 @@
+package org.library.app.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.library.app.cache.CacheRegions;
+import org.library.app.cache.DerivedCache;
+import org.library.app.controller.dto.BookDTO;
+import org.library.app.entity.BookEntity;
+import org.library.app.repository.BooksRepository;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * The /books/list body kept as one UTF-8 JSON fragment per book, rendered by the application ObjectMapper so the
+ * output is the same as serializing the BookDTO list. A change to a book only marks its id dirty; the next request
+ * re-reads and re-renders the dirty books and publishes a new Generation. A generation never changes after it is
+ * published: its fragments are written to the response one after another without being joined, and its gzip body
+ * is compressed once, on the first request that accepts gzip.
+ * */
+@Component
+public class BookCatalog implements DerivedCache {
+
+    private static final byte[] OPEN = "[".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] SEPARATOR = ",".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] CLOSE = "]".getBytes(StandardCharsets.US_ASCII);
+
+    private final BooksRepository repository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private final TreeMap<Long, byte[]> fragments = new TreeMap<>();
+
+    private final Counter rendered;
+
+    private volatile boolean rebuildAll = true;
+
+    private volatile Generation current;
+
+    private long generations;
+
+    public BookCatalog(BooksRepository repository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.rendered = Counter.builder("library.catalog.fragments.rendered").register(meterRegistry);
+        FunctionCounter.builder("library.catalog.generations", this, catalog -> catalog.generations)
+                .register(meterRegistry);
+    }
+
+    /*
+     * Whether an Accept-Encoding header allows gzip: an explicit gzip or x-gzip coding, else the * wildcard, with a
+     * q-value above 0. Codings are matched as whole tokens, case-insensitively.
+     * */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parameters = element.split(";");
+            String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parameters);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (coding.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        Double accepted = gzip != null ? gzip : wildcard;
+        return accepted != null && accepted > 0;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && (parameter.startsWith("q=") || parameter.startsWith("Q="))) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    public Generation current() {
+        Generation generation = this.current;
+        if (generation != null && !this.rebuildAll && this.dirty.isEmpty()) {
+            return generation;
+        }
+        synchronized (this) {
+            if (this.rebuildAll) {
+                this.rebuildAll = false;
+                this.dirty.clear();
+                this.fragments.clear();
+                this.repository.findAll().forEach(book -> this.fragments.put(book.getId(), render(book)));
+            } else if (!this.dirty.isEmpty()) {
+                Set<Long> ids = new TreeSet<>(this.dirty);
+                this.dirty.removeAll(ids);
+                ids.forEach(this.fragments::remove);
+                this.repository.findAllById(ids).forEach(book -> this.fragments.put(book.getId(), render(book)));
+            } else if (this.current != null) {
+                return this.current;
+            }
+            this.current = new Generation(++this.generations, List.copyOf(this.fragments.values()));
+            return this.current;
+        }
+    }
+
+    @Override
+    public void invalidate(String region, Set<Long> ids) {
+        if (CacheRegions.BOOK.equals(region)) {
+            this.dirty.addAll(ids);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        this.rebuildAll = true;
+    }
+
+    private byte[] render(BookEntity book) {
+        try {
+            this.rendered.increment();
+            return this.objectMapper.writeValueAsBytes(
+                    new BookDTO(book.getTitle(), book.getAuthor(), book.getAmount()));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static final class Generation {
+
+        private final long number;
+
+        private final List<byte[]> segments;
+
+        private final long contentLength;
+
+        private volatile byte[] gzip;
+
+        private Generation(long number, List<byte[]> fragments) {
+            this.number = number;
+            this.segments = new ArrayList<>(fragments.size() * 2 + 1);
+            this.segments.add(OPEN);
+            for (int i = 0; i < fragments.size(); i++) {
+                if (i > 0) {
+                    this.segments.add(SEPARATOR);
+                }
+                this.segments.add(fragments.get(i));
+            }
+            this.segments.add(CLOSE);
+            this.contentLength = this.segments.stream().mapToLong(segment -> segment.length).sum();
+        }
+
+        public long number() {
+            return this.number;
+        }
+
+        public long contentLength() {
+            return this.contentLength;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            for (byte[] segment : this.segments) {
+                out.write(segment);
+            }
+        }
+
+        public byte[] gzip() {
+            byte[] compressed = this.gzip;
+            if (compressed == null) {
+                synchronized (this) {
+                    compressed = this.gzip;
+                    if (compressed == null) {
+                        ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) Math.min(
+                                Integer.MAX_VALUE - 8, this.contentLength / 4 + 64));
+                        try (GZIPOutputStream out = new GZIPOutputStream(buffer, 8192)) {
+                            writeTo(out);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        compressed = buffer.toByteArray();
+                        this.gzip = compressed;
+                    }
+                }
+            }
+            return compressed;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.library.app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.library.app.controller.dto.AuthorDTO;
+import org.library.app.controller.dto.AuthorsPageDTO;
+import org.library.app.controller.dto.BookByIdDTO;
+import org.library.app.service.AuthorService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/library-api/authors")
+public class AuthorsRestController {
+
+    private final AuthorService service;
+
+    @GetMapping
+    @Operation(
+            summary = "Повертає сторінку авторів з підсумками",
+            description = "Повертає сторінку авторів, відсортовану за іменем, з к-стю назв, усіх примірників і " +
+                    "примірників на руках. Наступна сторінка задається параметром after, посилання на неї " +
+                    "повертається в заголовку Link (rel=next). Підсумки оновлюються разом з книжками і позиками, " +
+                    "тому запит не перераховує каталог"
+    )
+    public ResponseEntity<List<AuthorDTO>> getAuthors(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "size", defaultValue = "50") int size,
+            UriComponentsBuilder uriComponentsBuilder) {
+        AuthorsPageDTO page = this.service.getAuthorsPage(after, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextAfter() != null) {
+            String next = uriComponentsBuilder.path("/library-api/authors")
+                    .queryParam("after", page.nextAfter())
+                    .queryParam("size", size)
+                    .encode()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<%s>; rel=\"next\"".formatted(next));
+        }
+        return response.body(page.authors());
+    }
+
+    @GetMapping("/{author}/books")
+    @Operation(
+            summary = "Повертає книжки автора",
+            description = "Повертає книжки автора, відсортовані за назвою, через індекс по автору. Якщо книжок " +
+                    "автора немає - вертається 404 статус"
+    )
+    public ResponseEntity<List<BookByIdDTO>> getBooksByAuthor(@PathVariable("author") String author) {
+        return ResponseEntity.ok(this.service.getBooksByAuthor(author));
+    }
+}
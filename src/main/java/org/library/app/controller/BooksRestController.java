@@ -3,22 +3,36 @@ package org.library.app.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.StringToClassMapItem;
 import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.library.app.analytics.TimeWindow;
+import org.library.app.catalog.BookCatalog;
 import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.BooksByIdsDTO;
+import org.library.app.controller.dto.RelatedBookDTO;
+import org.library.app.controller.dto.TopBooksDTO;
 import org.library.app.controller.payload.NewBookPayload;
+import org.library.app.fields.BookField;
+import org.library.app.fields.SparseFields;
 import org.library.app.service.BooksService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
@@ -27,20 +41,65 @@ public class BooksRestController {
 
     private final BooksService service;
 
+    private final BookCatalog bookCatalog;
+
     @GetMapping("/list")
     @Operation(
             summary = "Повертає список книжок",
-            description = "Повертає список книжок"
+            description = "Повертає список книжок. Тіло складається з заздалегідь закодованих JSON-фрагментів " +
+                    "кожної книжки; якщо клієнт приймає gzip, віддається стиснута версія, збережена для поточної " +
+                    "версії каталогу",
+            responses = @ApiResponse(
+                    description = "запит успішний",
+                    responseCode = "200",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = BookDTO.class))
+                    )
+            )
+    )
+    public void getAllBooks(@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                            HttpServletResponse response) throws IOException {
+        BookCatalog.Generation catalog = this.bookCatalog.current();
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (BookCatalog.acceptsGzip(acceptEncoding)) {
+            byte[] body = catalog.gzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        } else {
+            response.setContentLengthLong(catalog.contentLength());
+            catalog.writeTo(response.getOutputStream());
+        }
+    }
 
+    @GetMapping(path = "/list", params = SparseFields.PARAMETER)
+    @Operation(
+            summary = "Повертає список книжок з вибраними полями",
+            description = "Повертає список книжок, з бази вибираються і повертаються лише поля з параметра fields " +
+                    "(наприклад fields=title,author)",
+            responses = @ApiResponse(
+                    description = "запит успішний",
+                    responseCode = "200",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = BookDTO.class))
+                    )
+            )
     )
-    public ResponseEntity<List<BookDTO>> getAllBooks() {
-        return ResponseEntity.ok(this.service.getAllBooks());
+    public ResponseEntity<MappingJacksonValue> getAllBooksWithFields(
+            @RequestParam(name = SparseFields.PARAMETER) String fields) {
+        Set<BookField> fieldset = SparseFields.parse(fields, BookField.class);
+        return ResponseEntity.ok(SparseFields.body(this.service.getAllBooks(fieldset), fieldset));
     }
 
     @GetMapping("/{bookId:\\d+}")
     @Operation(
             summary = "Повертає книжку по id",
-            description = "Повертає книжку по id, коли книжка не найдена, вертається 404",
+            description = "Повертає книжку по id, коли книжка не найдена, вертається 404. Параметр fields " +
+                    "(наприклад fields=title) обмежує поля, які вибираються з бази і повертаються",
             responses = {
                     @ApiResponse(
                             description = "запит успішний",
@@ -78,8 +137,11 @@ public class BooksRestController {
                     )
             }
     )
-    public ResponseEntity<BookDTO> getBookById(@PathVariable("bookId") Long bookId) {
-        return ResponseEntity.ok(this.service.getBookById(bookId));
+    public ResponseEntity<MappingJacksonValue> getBookById(
+            @PathVariable("bookId") Long bookId,
+            @RequestParam(name = SparseFields.PARAMETER, required = false) String fields) {
+        Set<BookField> fieldset = SparseFields.parse(fields, BookField.class);
+        return ResponseEntity.ok(SparseFields.body(this.service.getBookById(bookId, fieldset), fieldset));
     }
 
     @GetMapping("/all-borrowed-books-count")
@@ -123,8 +185,8 @@ public class BooksRestController {
                     )
             }
     )
-    public ResponseEntity<List<String>> getAllBorrowedBooksAndCountWasBorrowed() {
-        return ResponseEntity.ok(this.service.getAllBorrowedBooksAndCountWasBorrowed());
+    public CompletableFuture<ResponseEntity<List<String>>> getAllBorrowedBooksAndCountWasBorrowed() {
+        return this.service.getAllBorrowedBooksAndCountWasBorrowed().thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/all-borrowed-books")
@@ -132,8 +194,47 @@ public class BooksRestController {
             summary = "Повертає список унікальних назв книжок",
             description = "Повертає список унікальних назв книжок"
     )
-    public ResponseEntity<List<String>> getAllDistinctBorrowedBooks() {
-        return ResponseEntity.ok(this.service.getAllDistinctBorrowedBooks());
+    public CompletableFuture<ResponseEntity<List<String>>> getAllDistinctBorrowedBooks() {
+        return this.service.getAllDistinctBorrowedBooks().thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/top")
+    @Operation(
+            summary = "Повертає найпопулярніші книжки за останню годину, день або тиждень",
+            description = "Повертає найпопулярніші книжки за останню годину, день або тиждень (window = HOUR, DAY, " +
+                    "WEEK). Вікно ковзне і зсувається частинами по 5 хв, 1 год і 6 год відповідно, тож межі " +
+                    "windowStart і windowEnd вирівняні на ці частини. " +
+                    "Кількість наближена: count завищує реальну к-сть не більше ніж на error. Якщо limit поза межами " +
+                    "від 1 до library.analytics.top-books.capacity - вертається 400 статус"
+    )
+    public ResponseEntity<TopBooksDTO> getTopBorrowedBooks(
+            @RequestParam(name = "window", defaultValue = "HOUR") TimeWindow window,
+            @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.ok(this.service.getTopBorrowedBooks(window, limit));
+    }
+
+    @GetMapping("/{bookId:\\d+}/related")
+    @Operation(
+            summary = "Повертає книжки, які часто брали разом з цією",
+            description = "Повертає до limit книжок, які ті самі читачі брали разом з цією книжкою, від найчастіших. " +
+                    "Відповідь будується з пам'яті без запитів до бази, count з часом зменшується. Якщо limit " +
+                    "поза межами - вертається 400 статус"
+    )
+    public ResponseEntity<List<RelatedBookDTO>> getRelatedBooks(
+            @PathVariable("bookId") Long bookId,
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(this.service.getRelatedBooks(bookId, limit));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(
+            summary = "Повертає книжки за списком id",
+            description = "Повертає книжки за списком id (ids=1,2,3) у тому ж порядку одним запитом до бази, " +
+                    "книжки з кешу до бази не запитуються. Id, для яких книжки немає, повертаються в missing. " +
+                    "Якщо id немає, або їх забагато - вертається 400 статус"
+    )
+    public ResponseEntity<BooksByIdsDTO> getBooksByIds(@RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.ok(this.service.getBooksByIds(ids));
     }
 
     @PostMapping
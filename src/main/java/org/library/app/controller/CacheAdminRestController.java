@@ -0,0 +1,30 @@
+package org.library.app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.library.app.controller.dto.CacheRegionStatsDTO;
+import org.library.app.service.CacheAdminService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/library-api/admin/cache")
+public class CacheAdminRestController {
+
+    private final CacheAdminService service;
+
+    @GetMapping
+    @Operation(
+            summary = "Повертає статистику кешу другого рівня",
+            description = "Повертає для кожного регіону кешу (book, member, member-loans, loan) к-сть влучань, " +
+                    "промахів, частку влучань (hitRatio), к-сть записів у кеш і витіснень через обмеження розміру"
+    )
+    public ResponseEntity<List<CacheRegionStatsDTO>> getRegionStatistics() {
+        return ResponseEntity.ok(this.service.getRegionStatistics());
+    }
+}
@@ -0,0 +1,80 @@
+package org.library.app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.library.app.controller.dto.FlightRecordingDTO;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.service.FlightRecordingService;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/library-api/admin/jfr")
+public class FlightRecordingAdminRestController {
+
+    private final FlightRecordingService service;
+
+    @PostMapping
+    @Operation(
+            summary = "Запускає запис JDK Flight Recorder",
+            description = "Запускає обмежений за тривалістю (duration, не більше library.jfr.max-duration) і розміром " +
+                    "запис JFR (duration у форматі 30s, 5m або PT30S) з подіями позик, повернень, створення книжок і аналітичних запитів. Одночасно може " +
+                    "виконуватися лише один запис, запит на новий під час запису отримує 409 статус"
+    )
+    public ResponseEntity<FlightRecordingDTO> startRecording(
+            @RequestParam(value = "duration", required = false) String duration) throws IOException {
+        return ResponseEntity.ok(this.service.start(duration == null ? null : parseDuration(duration)));
+    }
+
+    @GetMapping
+    @Operation(
+            summary = "Повертає стан запису JFR",
+            description = "Повертає назву файлу, стан, час початку, тривалість і поточний розмір запису"
+    )
+    public ResponseEntity<FlightRecordingDTO> getRecording() {
+        return ResponseEntity.ok(this.service.status());
+    }
+
+    @PostMapping("/stop")
+    @Operation(
+            summary = "Зупиняє запис JFR і повертає файл",
+            description = "Зупиняє запис, якщо він ще триває, і повертає файл .jfr як application/octet-stream " +
+                    "для JDK Mission Control або jfr print. Файл видаляється після завантаження"
+    )
+    public ResponseEntity<Resource> stopRecording() {
+        Path file = this.service.stop();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file) {
+                    // the stopped recording is not kept: the file goes once the download has read it
+                    @Override
+                    public InputStream getInputStream() throws IOException {
+                        return Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE);
+                    }
+                });
+    }
+
+    private static Duration parseDuration(String duration) {
+        try {
+            return DurationStyle.detectAndParse(duration);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid duration '%s'".formatted(duration), e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.library.app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.library.app.controller.dto.LoanRollupRecomputeDTO;
+import org.library.app.service.LoanAnalyticsService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/library-api/admin/analytics/loans/recompute")
+public class LoanAnalyticsAdminRestController {
+
+    private final LoanAnalyticsService service;
+
+    @PostMapping
+    @Operation(
+            summary = "Запускає перерахунок підсумків видач і повернень з таблиці позик",
+            description = "Ділить таблицю позик на діапазони id по library.analytics.recompute.chunk-size, " +
+                    "паралельно сканує їх не більше ніж на library.analytics.recompute.connections з'єднаннях, " +
+                    "зводить часткові підсумки і в одній транзакції виправляє підсумки по годинах і днях на різницю з " +
+                    "прочитаними на початку, тож прирости інших вузлів за цей час не втрачаються. Виконується у фоні " +
+                    "і сам запускається після відновлення знімка та генерації даних. Одночасно може виконуватися " +
+                    "лише один перерахунок, запит на новий під час перерахунку отримує 409 статус"
+    )
+    public ResponseEntity<LoanRollupRecomputeDTO> startRecompute() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(this.service.startRecompute());
+    }
+
+    @GetMapping
+    @Operation(
+            summary = "Повертає стан перерахунку підсумків позик",
+            description = "Повертає стан останнього перерахунку (RUNNING, COMPLETED, FAILED), к-сть діапазонів " +
+                    "усього і вже просканованих, к-сть позик, к-сть виправлених підсумків і помилку, якщо вона була"
+    )
+    public ResponseEntity<LoanRollupRecomputeDTO> getRecomputeProgress() {
+        return ResponseEntity.ok(this.service.getRecomputeProgress());
+    }
+}
@@ -0,0 +1,37 @@
+package org.library.app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.library.app.analytics.TimeWindow;
+import org.library.app.controller.dto.LoanRollupDTO;
+import org.library.app.service.LoanAnalyticsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/library-api/analytics/loans")
+public class LoanAnalyticsRestController {
+
+    private final LoanAnalyticsService service;
+
+    @GetMapping
+    @Operation(
+            summary = "Повертає к-сть видач і повернень книжок по годинах або днях",
+            description = "Повертає к-сть видач, повернень і середню тривалість позики (в секундах) для кожної " +
+                    "години або дня (granularity = HOUR, DAY) в проміжку from - to. Дані беруться з " +
+                    "попередньо агрегованих підсумків, тому час відповіді не залежить від розміру історії"
+    )
+    public ResponseEntity<List<LoanRollupDTO>> getLoanRollups(
+            @RequestParam(name = "granularity", defaultValue = "HOUR") TimeWindow granularity,
+            @RequestParam(name = "from", required = false) Instant from,
+            @RequestParam(name = "to", required = false) Instant to) {
+        return ResponseEntity.ok(this.service.getLoanRollups(granularity, from, to));
+    }
+}
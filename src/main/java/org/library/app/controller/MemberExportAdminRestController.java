@@ -0,0 +1,58 @@
+package org.library.app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.library.app.service.ExportFormat;
+import org.library.app.service.MemberExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/library-api/admin/members")
+public class MemberExportAdminRestController {
+
+    private final MemberExportService exportService;
+
+    @GetMapping("/export")
+    @Operation(
+            summary = "Вивантажує всіх користувачів з їхніми книжками",
+            description = "Потоково вивантажує всіх користувачів з книжками, які вони зараз тримають, у форматі " +
+                    "CSV (рядок на кожну позику) або NDJSON (рядок на кожного користувача). Якщо клієнт приймає " +
+                    "gzip, відповідь стискається на льоту"
+    )
+    public ResponseEntity<StreamingResponseBody> exportMembers(
+            @RequestParam(name = "format", defaultValue = "CSV") ExportFormat format,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                this.exportService.exportMembers(format, gzipOut);
+                gzipOut.finish();
+            } else {
+                this.exportService.exportMembers(format, out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.mediaType()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("members." + format.name().toLowerCase())
+                        .build().toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
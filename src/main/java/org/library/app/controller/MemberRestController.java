@@ -10,16 +10,23 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.library.app.controller.dto.BookDTO;
 import org.library.app.controller.dto.MemberDTO;
+import org.library.app.controller.dto.OverdueLoanDTO;
 import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.fields.MemberField;
+import org.library.app.fields.SparseFields;
 import org.library.app.service.MemberService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import java.sql.Date;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequiredArgsConstructor
@@ -31,7 +38,8 @@ public class MemberRestController {
     @GetMapping
     @Operation(
             summary = "Повертає користувача по id",
-            description = "Повертає користувача по id, коли користувач не знайдений, повертається статус 404",
+            description = "Повертає користувача по id, коли користувач не знайдений, повертається статус 404. " +
+                    "Параметр fields (наприклад fields=name) обмежує поля, які вибираються з бази і повертаються",
             responses = {
                     @ApiResponse(
                             description = "запит успішний",
@@ -69,8 +77,11 @@ public class MemberRestController {
             }
 
     )
-    public ResponseEntity<MemberDTO> getMember(@PathVariable("memberId") Long memberId) {
-        return ResponseEntity.ok(this.service.getMemberById(memberId));
+    public ResponseEntity<MappingJacksonValue> getMember(
+            @PathVariable("memberId") Long memberId,
+            @RequestParam(name = SparseFields.PARAMETER, required = false) String fields) {
+        Set<MemberField> fieldset = SparseFields.parse(fields, MemberField.class);
+        return ResponseEntity.ok(SparseFields.body(this.service.getMemberById(memberId, fieldset), fieldset));
     }
 
     @PatchMapping
@@ -289,4 +300,51 @@ public class MemberRestController {
         this.service.memberReturnBook(memberId, bookId);
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping("/overdue")
+    @Operation(
+            summary = "Повертає прострочені книжки користувача",
+            description = "Повертає книжки, які користувач не повернув до терміну, від найстарішого терміну. Якщо користувача не існує - вертається 404 статус",
+            responses = {
+                    @ApiResponse(
+                            description = "запит успішний",
+                            responseCode = "200",
+                            headers = @Header(name = "Content-Type", description = "Тип даних"),
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                            schema = @Schema(
+                                                    type = "array",
+                                                    properties = {
+                                                            @StringToClassMapItem(key = "bookId", value = Long.class),
+                                                            @StringToClassMapItem(key = "title", value = String.class),
+                                                            @StringToClassMapItem(key = "author", value = String.class),
+                                                            @StringToClassMapItem(key = "borrowedAt", value = Instant.class),
+                                                            @StringToClassMapItem(key = "dueAt", value = Instant.class)
+                                                    }
+                                            )
+                                    )
+                            }
+                    ),
+                    @ApiResponse(
+                            description = "Вертає NoSuchElementException, коли користувача не найдено",
+                            responseCode = "404",
+                            headers = @Header(name = "Content-Type", description = "Тип даних"),
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                                            schema = @Schema(
+                                                    type = "object",
+                                                    properties = {
+                                                            @StringToClassMapItem(key = "error", value = String.class)
+                                                    }
+                                            )
+                                    )
+                            }
+                    )
+            }
+    )
+    public ResponseEntity<List<OverdueLoanDTO>> getOverdueLoans(@PathVariable("memberId") Long memberId) {
+        return ResponseEntity.ok(this.service.getOverdueLoans(memberId));
+    }
 }
\ No newline at end of file
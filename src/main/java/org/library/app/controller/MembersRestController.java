@@ -3,6 +3,7 @@ package org.library.app.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.StringToClassMapItem;
 import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -10,19 +11,26 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.library.app.controller.dto.BookDTO;
 import org.library.app.controller.dto.MemberDTO;
+import org.library.app.controller.dto.MembersByIdsDTO;
+import org.library.app.controller.dto.MembersPageDTO;
 import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.fields.MemberField;
+import org.library.app.fields.SparseFields;
 import org.library.app.service.MemberService;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.*;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.sql.Date;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequiredArgsConstructor
@@ -33,11 +41,57 @@ public class MembersRestController {
 
     @GetMapping
     @Operation(
-            summary = "Повертає масив з користувачів",
-            description = "Повертає масив з користувачів"
+            summary = "Повертає сторінку користувачів",
+            description = "Повертає сторінку користувачів, відсортовану за id. Наступна сторінка задається параметром " +
+                    "afterId, посилання на неї повертається в заголовку Link (rel=next). Можна фільтрувати за датою " +
+                    "створення (createdFrom, createdTo) і початком імені (namePrefix). Параметр fields (наприклад " +
+                    "fields=name) обмежує поля, які вибираються з бази і повертаються",
+            responses = @ApiResponse(
+                    description = "запит успішний",
+                    responseCode = "200",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = MemberDTO.class))
+                    )
+            )
+    )
+    public ResponseEntity<MappingJacksonValue> getAllMembers(
+            @RequestParam(name = "afterId", defaultValue = "0") long afterId,
+            @RequestParam(name = "size", defaultValue = "50") int size,
+            @RequestParam(name = "createdFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(name = "createdTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(name = "namePrefix", required = false) String namePrefix,
+            @RequestParam(name = SparseFields.PARAMETER, required = false) String fields,
+            UriComponentsBuilder uriComponentsBuilder) {
+        Set<MemberField> fieldset = SparseFields.parse(fields, MemberField.class);
+        MembersPageDTO page = this.service.getMembersPage(afterId, size, createdFrom, createdTo, namePrefix, fieldset);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextAfterId() != null) {
+            String next = uriComponentsBuilder.path("/library-api/members")
+                    .queryParam("afterId", page.nextAfterId())
+                    .queryParam("size", size)
+                    .queryParamIfPresent("createdFrom", Optional.ofNullable(createdFrom))
+                    .queryParamIfPresent("createdTo", Optional.ofNullable(createdTo))
+                    .queryParamIfPresent("namePrefix", Optional.ofNullable(namePrefix))
+                    .queryParamIfPresent(SparseFields.PARAMETER, Optional.ofNullable(fields))
+                    .encode()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<%s>; rel=\"next\"".formatted(next));
+        }
+        return response.body(SparseFields.body(page.members(), fieldset));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(
+            summary = "Повертає користувачів за списком id",
+            description = "Повертає користувачів за списком id (ids=1,2,3) у тому ж порядку одним запитом до бази, " +
+                    "користувачі з кешу до бази не запитуються. Id, для яких користувача немає, повертаються в " +
+                    "missing. Якщо id немає, або їх забагато - вертається 400 статус"
     )
-    public ResponseEntity<List<MemberDTO>> getAllMembers() {
-        return ResponseEntity.ok(service.getAllMembers());
+    public ResponseEntity<MembersByIdsDTO> getMembersByIds(@RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.ok(this.service.getMembersByIds(ids));
     }
 
     @GetMapping("/{name:\\w*}")
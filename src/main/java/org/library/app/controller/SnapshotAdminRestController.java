@@ -0,0 +1,55 @@
+package org.library.app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.library.app.controller.dto.SnapshotDTO;
+import org.library.app.service.LibrarySnapshotService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/library-api/admin/snapshots")
+public class SnapshotAdminRestController {
+
+    private final LibrarySnapshotService service;
+
+    @PostMapping
+    @Operation(
+            summary = "Створює бінарний знімок книжок, учасників і позик",
+            description = "Записує всі книжки, учасників і позики в один версіонований бінарний файл у каталозі " +
+                    "library.snapshot.directory і повертає назву файлу, к-сть записів, розмір і тривалість"
+    )
+    public ResponseEntity<SnapshotDTO> createSnapshot() throws IOException {
+        return ResponseEntity.ok(this.service.createSnapshot());
+    }
+
+    @GetMapping("/{file}")
+    @Operation(
+            summary = "Завантажує файл знімка",
+            description = "Повертає файл знімка як application/octet-stream, щоб перенести його на інший сервер"
+    )
+    public ResponseEntity<Resource> downloadSnapshot(@PathVariable("file") String file) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(file).build().toString())
+                .body(new FileSystemResource(this.service.resolveSnapshot(file)));
+    }
+
+    @PostMapping("/{file}/restore")
+    @Operation(
+            summary = "Відновлює книжки, учасників і позики зі знімка",
+            description = "Замінює вміст таблиць книжок, учасників і позик даними зі знімка в одній транзакції " +
+                    "і перебудовує кеш та фільтр імен учасників. Пошкоджений файл відхиляється з кодом 400"
+    )
+    public ResponseEntity<SnapshotDTO> restoreSnapshot(@PathVariable("file") String file) throws IOException {
+        return ResponseEntity.ok(this.service.restoreSnapshot(file));
+    }
+}
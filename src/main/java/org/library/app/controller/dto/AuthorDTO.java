@@ -0,0 +1,4 @@
+package org.library.app.controller.dto;
+
+public record AuthorDTO(String author, long titles, long copies, long onLoan) {
+}
@@ -0,0 +1,4 @@
+package org.library.app.controller.dto;
+
+public record BookByIdDTO(Long id, String title, String author, Integer amount) {
+}
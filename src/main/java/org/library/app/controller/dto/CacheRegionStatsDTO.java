@@ -0,0 +1,5 @@
+package org.library.app.controller.dto;
+
+public record CacheRegionStatsDTO(String region, long hits, long misses, Double hitRatio, long puts,
+                                  long evictions) {
+}
@@ -0,0 +1,7 @@
+package org.library.app.controller.dto;
+
+import java.time.Instant;
+
+public record FlightRecordingDTO(String file, String state, Instant startedAt, long durationSeconds, long maxBytes,
+                                 long bytes) {
+}
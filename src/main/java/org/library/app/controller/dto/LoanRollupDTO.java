@@ -0,0 +1,6 @@
+package org.library.app.controller.dto;
+
+import java.time.Instant;
+
+public record LoanRollupDTO(Instant bucketStart, long borrows, long returns, Double averageLoanDurationSeconds) {
+}
@@ -0,0 +1,7 @@
+package org.library.app.controller.dto;
+
+import java.time.Instant;
+
+public record LoanRollupRecomputeDTO(String state, Instant startedAt, Instant finishedAt, int chunks,
+                                     int chunksScanned, long loans, int buckets, String error) {
+}
@@ -0,0 +1,6 @@
+package org.library.app.controller.dto;
+
+import java.util.Date;
+
+public record MemberByIdDTO(Long id, String name, Date creationDate) {
+}
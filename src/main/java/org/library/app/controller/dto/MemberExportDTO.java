@@ -0,0 +1,11 @@
+package org.library.app.controller.dto;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+public record MemberExportDTO(Long id, String name, Date creationDate, List<Loan> loans) {
+
+    public record Loan(Long bookId, String title, String author, Instant borrowedAt) {
+    }
+}
@@ -0,0 +1,6 @@
+package org.library.app.controller.dto;
+
+import java.util.List;
+
+public record MembersByIdsDTO(List<MemberByIdDTO> members, List<Long> missing) {
+}
@@ -0,0 +1,6 @@
+package org.library.app.controller.dto;
+
+import java.util.List;
+
+public record MembersPageDTO(List<MemberDTO> members, Long nextAfterId) {
+}
@@ -0,0 +1,6 @@
+package org.library.app.controller.dto;
+
+import java.time.Instant;
+
+public record OverdueLoanDTO(Long bookId, String title, String author, Instant borrowedAt, Instant dueAt) {
+}
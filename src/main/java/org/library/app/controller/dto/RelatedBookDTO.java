@@ -0,0 +1,4 @@
+package org.library.app.controller.dto;
+
+public record RelatedBookDTO(Long id, long count) {
+}
@@ -0,0 +1,4 @@
+package org.library.app.controller.dto;
+
+public record SnapshotDTO(String file, long books, long members, long loans, long bytes, long durationMillis) {
+}
@@ -0,0 +1,4 @@
+package org.library.app.controller.dto;
+
+public record TopBookDTO(Long id, String title, long count, long error) {
+}
@@ -0,0 +1,8 @@
+package org.library.app.controller.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record TopBooksDTO(String window, Instant windowStart, Instant windowEnd,
+                          long totalBorrows, long maxError, List<TopBookDTO> books) {
+}
@@ -0,0 +1,73 @@
+package org.library.app.datagen;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Runs JDBC batches on a fixed number of threads, each batch on whatever pooled connection its thread gets, in
+ * auto-commit. At most two batches per thread are in flight, so a producer that is faster than the database blocks in
+ * write instead of piling batches up in memory. await() waits for everything written so far and rethrows the first
+ * failure.
+ * */
+final class BatchWriter implements AutoCloseable {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ExecutorService executor;
+
+    private final int permits;
+
+    private final Semaphore inFlight;
+
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    BatchWriter(JdbcTemplate jdbcTemplate, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one writer thread is needed");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.executor = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("datagen-writer-", 0).daemon(true).factory());
+        this.permits = threads * 2;
+        this.inFlight = new Semaphore(this.permits);
+    }
+
+    void write(String sql, List<Object[]> rows) {
+        rethrowFailure();
+        this.inFlight.acquireUninterruptibly();
+        this.executor.execute(() -> {
+            try {
+                if (this.failure.get() == null) {
+                    this.jdbcTemplate.batchUpdate(sql, rows);
+                }
+            } catch (RuntimeException e) {
+                this.failure.compareAndSet(null, e);
+            } finally {
+                this.inFlight.release();
+            }
+        });
+    }
+
+    void await() {
+        this.inFlight.acquireUninterruptibly(this.permits);
+        this.inFlight.release(this.permits);
+        rethrowFailure();
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private void rethrowFailure() {
+        RuntimeException e = this.failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+}
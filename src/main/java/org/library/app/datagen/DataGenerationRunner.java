@@ -0,0 +1,71 @@
+package org.library.app.datagen;
+
+import org.library.app.analytics.LoanRollupRecomputer;
+import org.library.app.service.AuthorService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+ * Under the datagen profile, appends library.datagen.* worth of synthetic data once the schema exists, then
+ * recomputes the author totals and the loan rollups, which the generator's plain inserts bypass. The rollup recompute
+ * runs on this thread, because the command line entry point exits as soon as startup returns. It listens for
+ * ApplicationStartedEvent, so it is done before the ApplicationReadyEvent listeners (member name filter, overdue
+ * wheel) load their state from the tables.
+ * */
+@Component
+@Profile("datagen")
+public class DataGenerationRunner {
+
+    private final LibraryDataGenerator generator;
+
+    private final AuthorService authorService;
+
+    private final LoanRollupRecomputer loanRollupRecomputer;
+
+    private final int books;
+
+    private final int members;
+
+    private final int loans;
+
+    private final long seed;
+
+    public DataGenerationRunner(DataSource dataSource,
+                                AuthorService authorService,
+                                LoanRollupRecomputer loanRollupRecomputer,
+                                @Value("${library.datagen.books:100000}") int books,
+                                @Value("${library.datagen.members:200000}") int members,
+                                @Value("${library.datagen.loans:1000000}") int loans,
+                                @Value("${library.datagen.seed:42}") long seed,
+                                @Value("${library.datagen.batch-size:1000}") int batchSize,
+                                @Value("${library.datagen.threads:4}") int threads,
+                                @Value("${library.datagen.open-loan-ratio:0.05}") double openLoanRatio,
+                                @Value("${library.datagen.skew:1.0}") double skew,
+                                @Value("${member.max.book.limit:10}") int bookLimit,
+                                @Value("${library.loans.period:14d}") Duration loanPeriod) {
+        this.generator = new LibraryDataGenerator(dataSource, batchSize, threads, bookLimit, loanPeriod,
+                openLoanRatio, skew);
+        this.authorService = authorService;
+        this.loanRollupRecomputer = loanRollupRecomputer;
+        this.books = books;
+        this.members = members;
+        this.loans = loans;
+        this.seed = seed;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void generate() {
+        this.generator.generate(this.books, this.members, this.loans, this.seed);
+        this.authorService.rebuild();
+        LoanRollupRecomputer.Progress rollups = this.loanRollupRecomputer.recompute();
+        if (rollups.state() != LoanRollupRecomputer.State.COMPLETED) {
+            throw new IllegalStateException("Loan rollup recompute after data generation failed: " + rollups.error());
+        }
+    }
+}
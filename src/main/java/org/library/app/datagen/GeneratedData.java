@@ -0,0 +1,4 @@
+package org.library.app.datagen;
+
+public record GeneratedData(long books, long members, long loans, long openLoans, long durationMillis) {
+}
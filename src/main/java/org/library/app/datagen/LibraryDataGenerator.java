@@ -0,0 +1,215 @@
+package org.library.app.datagen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/*
+ * Appends synthetic books, members and loans for tests and load experiments. Ids continue after the highest existing
+ * id and the identity columns are restarted afterwards, so the application can keep inserting. Rows are a pure
+ * function of the seed, whatever the number of writer threads. Authors and loans follow Zipf distributions: a few
+ * authors write many books and most write one or two, and a book or member of popularity rank k is picked for a loan
+ * in proportion to 1 / k^skew, so most members never borrow at all. Loans are spread over the last two years in id
+ * order; a loan stays open with probability openLoanRatio as long as the member is under the book limit, does not
+ * already hold that book and a copy is left, and every open loan takes one copy off the book's amount, so the data
+ * satisfies the borrow rules.
+ *
+ * Rows are produced on the calling thread and written as JDBC batches by a BatchWriter; with the PostgreSQL driver's
+ * reWriteBatchedInserts each batch becomes a few multi-row INSERTs.
+ * */
+@Slf4j
+public class LibraryDataGenerator {
+
+    private static final String INSERT_BOOK =
+            "INSERT INTO public.t_book (id, c_title, c_author, c_amount) VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_MEMBER =
+            "INSERT INTO public.t_member (id, c_name, c_creation_date) VALUES (?, ?, ?)";
+
+    private static final String INSERT_LOAN = "INSERT INTO public.t_member_books " +
+            "(id, member_id, book_id, c_borrowed_at, c_returned_at, c_due_at, c_overdue) " +
+            "VALUES (?, ?, ?, ?, ?, ?, FALSE)";
+
+    private static final String UPDATE_AMOUNT = "UPDATE public.t_book SET c_amount = ? WHERE id = ?";
+
+    private static final String[] FIRST_NAMES = {"John", "Maria", "Taras", "Olena", "Robert", "Anna", "Joshua",
+            "Lesya", "Craig", "Ivan", "Martin", "Sofia"};
+
+    private static final String[] SYLLABLES = {"ba", "ko", "li", "mu", "ne", "ro", "sa", "ti", "vo", "de", "ha",
+            "ni", "pe", "zu", "ga", "fi"};
+
+    private static final int BOOKS_PER_AUTHOR = 4;
+
+    private static final double AUTHOR_SKEW = 0.8;
+
+    private static final double MEMBER_SKEW = 0.6;
+
+    private static final Duration LOAN_HISTORY = Duration.ofDays(730);
+
+    private static final int MEMBER_HISTORY_DAYS = 5 * 365;
+
+    private static final int MAX_COPIES = 5;
+
+    private static final int PROGRESS_LOANS = 1_000_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int batchSize;
+
+    private final int threads;
+
+    private final int bookLimit;
+
+    private final Duration loanPeriod;
+
+    private final double openLoanRatio;
+
+    private final double skew;
+
+    public LibraryDataGenerator(DataSource dataSource, int batchSize, int threads, int bookLimit, Duration loanPeriod,
+                                double openLoanRatio, double skew) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.bookLimit = bookLimit;
+        this.loanPeriod = loanPeriod;
+        this.openLoanRatio = openLoanRatio;
+        this.skew = skew;
+    }
+
+    public GeneratedData generate(int books, int members, int loans, long seed) {
+        if (books < 1 || members < 1 || loans < 0) {
+            throw new IllegalArgumentException("At least one book and one member are needed");
+        }
+        long start = System.nanoTime();
+        Random random = new Random(seed);
+        long firstBook = nextId("public.t_book");
+        long firstMember = nextId("public.t_member");
+        long firstLoan = nextId("public.t_member_books");
+        try (BatchWriter writer = new BatchWriter(this.jdbcTemplate, this.threads)) {
+            ZipfDistribution authors = new ZipfDistribution(Math.max(1, books / BOOKS_PER_AUTHOR), AUTHOR_SKEW,
+                    random);
+            int[] copies = new int[books];
+            List<Object[]> rows = new ArrayList<>(this.batchSize);
+            for (int i = 0; i < books; i++) {
+                copies[i] = 1 + random.nextInt(MAX_COPIES);
+                rows = add(writer, INSERT_BOOK, rows, new Object[]{firstBook + i, "Book " + (firstBook + i),
+                        author(authors.sample(random)), copies[i]});
+            }
+            flush(writer, INSERT_BOOK, rows);
+            LocalDate today = LocalDate.now();
+            rows = new ArrayList<>(this.batchSize);
+            for (int i = 0; i < members; i++) {
+                rows = add(writer, INSERT_MEMBER, rows, new Object[]{firstMember + i, "Member" + (firstMember + i),
+                        Date.valueOf(today.minusDays(random.nextInt(MEMBER_HISTORY_DAYS)))});
+            }
+            flush(writer, INSERT_MEMBER, rows);
+            writer.await();
+            log.info("Generated {} books and {} members, generating {} loans", books, members, loans);
+
+            ZipfDistribution bookPopularity = new ZipfDistribution(books, this.skew, random);
+            ZipfDistribution memberActivity = new ZipfDistribution(members, MEMBER_SKEW, random);
+            int[] amounts = copies.clone();
+            int[] openLoans = new int[members];
+            Set<Long> held = new HashSet<>();
+            Instant now = Instant.now();
+            Instant historyStart = now.minus(LOAN_HISTORY);
+            double millisPerLoan = (double) LOAN_HISTORY.toMillis() / Math.max(1, loans);
+            long open = 0;
+            rows = new ArrayList<>(this.batchSize);
+            for (int i = 0; i < loans; i++) {
+                int member = memberActivity.sample(random);
+                int book = bookPopularity.sample(random);
+                Instant borrowedAt = historyStart.plusMillis((long) ((i + random.nextDouble()) * millisPerLoan));
+                Instant returnedAt = null;
+                if (random.nextDouble() >= this.openLoanRatio || openLoans[member] >= this.bookLimit
+                        || amounts[book] == 0 || !held.add((long) member * books + book)) {
+                    returnedAt = borrowedAt.plus(Duration.ofHours(1 + random.nextInt(30 * 24)));
+                    if (returnedAt.isAfter(now)) {
+                        returnedAt = now;
+                    }
+                } else {
+                    openLoans[member]++;
+                    amounts[book]--;
+                    open++;
+                }
+                rows = add(writer, INSERT_LOAN, rows, new Object[]{firstLoan + i, firstMember + member,
+                        firstBook + book, Timestamp.from(borrowedAt),
+                        returnedAt == null ? null : Timestamp.from(returnedAt),
+                        Timestamp.from(borrowedAt.plus(this.loanPeriod))});
+                if ((i + 1) % PROGRESS_LOANS == 0) {
+                    log.info("Generated {} of {} loans", i + 1, loans);
+                }
+            }
+            flush(writer, INSERT_LOAN, rows);
+
+            rows = new ArrayList<>(this.batchSize);
+            for (int i = 0; i < books; i++) {
+                if (amounts[i] != copies[i]) {
+                    rows = add(writer, UPDATE_AMOUNT, rows, new Object[]{amounts[i], firstBook + i});
+                }
+            }
+            flush(writer, UPDATE_AMOUNT, rows);
+            writer.await();
+            restartIdentity("public.t_book");
+            restartIdentity("public.t_member");
+            restartIdentity("public.t_member_books");
+            GeneratedData generated = new GeneratedData(books, members, loans, open,
+                    (System.nanoTime() - start) / 1_000_000);
+            log.info("Library data generated: {}", generated);
+            return generated;
+        }
+    }
+
+    /*
+     * A capitalized first name and a surname spelled from the digits of the author number in base 16, so every
+     * number gets its own name that still passes the "Name Surname" rule of the book payload.
+     * */
+    static String author(int number) {
+        StringBuilder surname = new StringBuilder();
+        int rest = number / FIRST_NAMES.length;
+        do {
+            surname.append(SYLLABLES[rest % SYLLABLES.length]);
+            rest /= SYLLABLES.length;
+        } while (rest > 0 || surname.length() < 4);
+        surname.setCharAt(0, Character.toUpperCase(surname.charAt(0)));
+        return FIRST_NAMES[number % FIRST_NAMES.length] + " " + surname;
+    }
+
+    private List<Object[]> add(BatchWriter writer, String sql, List<Object[]> rows, Object[] row) {
+        rows.add(row);
+        if (rows.size() < this.batchSize) {
+            return rows;
+        }
+        writer.write(sql, rows);
+        return new ArrayList<>(this.batchSize);
+    }
+
+    private static void flush(BatchWriter writer, String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            writer.write(sql, rows);
+        }
+    }
+
+    private long nextId(String table) {
+        return this.jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+    }
+
+    private void restartIdentity(String table) {
+        this.jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + nextId(table));
+    }
+}
@@ -0,0 +1,21 @@
+package org.library.app.datagen;
+
+import org.library.app.LibraryApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/*
+ * Command line entry point: starts the application without the web server under the datagen profile, which creates
+ * the schema and appends the data, then exits. Every library.datagen.* key can be given as an argument, for example
+ * mvn -Pdatagen compile exec:java -Dexec.args="--library.datagen.loans=10000000 --library.datagen.threads=8"
+ * */
+public class LibraryDataGeneratorApplication {
+
+    public static void main(String[] args) {
+        System.exit(SpringApplication.exit(new SpringApplicationBuilder(LibraryApplication.class)
+                .profiles("datagen")
+                .web(WebApplicationType.NONE)
+                .run(args)));
+    }
+}
@@ -0,0 +1,45 @@
+package org.library.app.datagen;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * Picks one of size items so that the item of popularity rank k comes up in proportion to 1 / k^exponent. Ranks are
+ * handed to the items in a shuffled order, so the popular items are spread over the id range instead of being the
+ * first ids. Keeps the cumulative weights in memory (8 bytes per item) and samples with a binary search.
+ * */
+final class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    private final int[] itemOfRank;
+
+    ZipfDistribution(int size, double exponent, Random random) {
+        if (size < 1 || exponent < 0) {
+            throw new IllegalArgumentException("Invalid Zipf distribution settings");
+        }
+        this.cumulative = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            this.cumulative[rank] = total;
+        }
+        this.itemOfRank = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.itemOfRank[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int item = this.itemOfRank[i];
+            this.itemOfRank[i] = this.itemOfRank[j];
+            this.itemOfRank[j] = item;
+        }
+    }
+
+    int sample(Random random) {
+        double point = random.nextDouble() * this.cumulative[this.cumulative.length - 1];
+        int rank = Arrays.binarySearch(this.cumulative, point);
+        rank = rank < 0 ? -rank - 1 : rank;
+        return this.itemOfRank[Math.min(rank, this.itemOfRank.length - 1)];
+    }
+}
@@ -0,0 +1,30 @@
+package org.library.app.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/*
+ * Per-author totals over t_book and the open loans, kept up to date by the book and loan operations in their own
+ * transactions. copies counts every copy, on the shelf or on loan.
+ * */
+@Getter
+@Setter
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(schema = "public", name = "t_author_stats")
+public class AuthorStatsEntity {
+
+    @Id
+    @Column(name = "c_author", nullable = false)
+    private String author;
+
+    @Column(name = "c_titles", nullable = false)
+    private long titles;
+
+    @Column(name = "c_copies", nullable = false)
+    private long copies;
+
+    @Column(name = "c_on_loan", nullable = false)
+    private long onLoan;
+}
@@ -1,9 +1,11 @@
 package org.library.app.entity;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
+import org.library.app.cache.CacheRegions;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -12,7 +14,8 @@ import java.util.Set;
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(schema = "public", name = "t_book")
+@Table(schema = "public", name = "t_book", indexes = @Index(name = "idx_book_author", columnList = "c_author"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.BOOK)
 public class BookEntity {
 
     @Id
@@ -28,6 +31,9 @@ public class BookEntity {
     @Column(name = "c_amount", nullable = false)
     private Integer amount;
 
-    @ManyToMany(mappedBy = "borrowedBooks", fetch = FetchType.EAGER)
-    private Set<MemberEntity> members = new HashSet<>();
+    @OneToMany(mappedBy = "book")
+    @SQLRestriction("c_returned_at IS NULL")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<LoanEntity> loans = new HashSet<>();
 }
\ No newline at end of file
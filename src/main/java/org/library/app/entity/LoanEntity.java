@@ -0,0 +1,47 @@
+package org.library.app.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.library.app.cache.CacheRegions;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(schema = "public", name = "t_member_books")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.LOAN)
+public class LoanEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // null once the member is deleted, the loan stays in the history
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id")
+    private MemberEntity member;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "book_id", nullable = false)
+    private BookEntity book;
+
+    @Column(name = "c_borrowed_at", nullable = false)
+    private Instant borrowedAt;
+
+    @Column(name = "c_returned_at")
+    private Instant returnedAt;
+
+    // null for loans taken before due dates existed, those are due borrowedAt + library.loans.period
+    @Column(name = "c_due_at")
+    private Instant dueAt;
+
+    @ColumnDefault("false")
+    @Column(name = "c_overdue", nullable = false)
+    private boolean overdue;
+}
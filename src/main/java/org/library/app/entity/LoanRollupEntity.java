@@ -0,0 +1,37 @@
+package org.library.app.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.library.app.analytics.TimeWindow;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(schema = "public", name = "t_loan_rollup",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"c_granularity", "c_bucket_start"}))
+public class LoanRollupEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "c_granularity", nullable = false)
+    private TimeWindow granularity;
+
+    @Column(name = "c_bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "c_borrows", nullable = false)
+    private long borrows;
+
+    @Column(name = "c_returns", nullable = false)
+    private long returns;
+
+    @Column(name = "c_loan_duration_total", nullable = false)
+    private long loanDurationTotal;
+}
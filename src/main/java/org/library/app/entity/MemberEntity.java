@@ -2,6 +2,10 @@ package org.library.app.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
+import org.library.app.cache.CacheRegions;
 
 import java.sql.Date;
 import java.util.HashSet;
@@ -12,7 +16,10 @@ import java.util.Set;
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(schema = "public", name = "t_member")
+// pages are read in id order, the date and name filters are checked from the index; see also PostgresIndexes
+@Table(schema = "public", name = "t_member",
+        indexes = @Index(name = "idx_member_id_creation_date_name", columnList = "id, c_creation_date, c_name"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.MEMBER)
 public class MemberEntity {
 
     @Id
@@ -25,11 +32,8 @@ public class MemberEntity {
     @Column(name = "c_creation_date", nullable = false)
     Date creationDate;
 
-    @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(
-            name = "t_member_books",
-            joinColumns = @JoinColumn(name = "member_id"),
-            inverseJoinColumns = @JoinColumn(name = "book_id")
-    )
-    private Set<BookEntity> borrowedBooks = new HashSet<>();
+    @OneToMany(mappedBy = "member")
+    @SQLRestriction("c_returned_at IS NULL")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.MEMBER_LOANS)
+    private Set<LoanEntity> loans = new HashSet<>();
 }
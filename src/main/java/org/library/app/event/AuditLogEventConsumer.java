@@ -0,0 +1,24 @@
+package org.library.app.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+public class AuditLogEventConsumer implements LibraryEventConsumer {
+
+    @Override
+    public String name() {
+        return "audit-log";
+    }
+
+    @Override
+    public void onBatch(List<LibraryEvent> events) {
+        if (log.isDebugEnabled()) {
+            events.forEach(event -> log.debug("{} member={} book={} at={}",
+                    event.type(), event.memberId(), event.bookId(), event.timestamp()));
+        }
+    }
+}
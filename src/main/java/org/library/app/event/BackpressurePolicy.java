@@ -0,0 +1,7 @@
+package org.library.app.event;
+
+public enum BackpressurePolicy {
+    BLOCK,
+    DROP_OLDEST,
+    SPILL_TO_DISK
+}
@@ -0,0 +1,313 @@
+package org.library.app.event;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Slots are preallocated as parallel primitive arrays. Only the thread holding writeLock touches the slots
+ * and the spill file, so the buffer behaves as a single-writer ring even when many request threads publish.
+ * Every consumer owns a cursor; BLOCK and SPILL_TO_DISK never overwrite a slot the slowest cursor has not read,
+ * DROP_OLDEST overwrites it and lets the lagging consumer detect the overrun. BLOCK waits at most blockTimeout,
+ * because publishers are request threads finishing a commit; an event still without a slot after that is dropped.
+ * */
+public class EventRingBuffer implements Closeable {
+
+    private static final int SPILL_RECORD_SIZE = Integer.BYTES + 5 * Long.BYTES;
+
+    private static final long BLOCK_PARK_NANOS = 50_000;
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final BackpressurePolicy policy;
+
+    private final long blockTimeoutNanos;
+
+    private final int[] types;
+
+    private final long[] memberIds;
+
+    private final long[] bookIds;
+
+    private final long[] timestamps;
+
+    private final long[] loanDurations;
+
+    private final long[] loanIds;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final AtomicLong claimed = new AtomicLong();
+
+    private final AtomicLong published = new AtomicLong();
+
+    private final List<Cursor> cursors = new CopyOnWriteArrayList<>();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder spilled = new LongAdder();
+
+    private final FileChannel spill;
+
+    private final ByteBuffer spillBuffer = ByteBuffer.allocateDirect(SPILL_RECORD_SIZE);
+
+    private long spillWritePosition;
+
+    private long spillReadPosition;
+
+    private volatile boolean spillPending;
+
+    private volatile boolean closed;
+
+    public EventRingBuffer(int capacity, BackpressurePolicy policy, Duration blockTimeout, Path spillDirectory) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Ring buffer capacity must be at least 2");
+        }
+        if (blockTimeout.isNegative()) {
+            throw new IllegalArgumentException("Ring buffer block timeout must not be negative");
+        }
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.policy = policy;
+        this.types = new int[this.capacity];
+        this.memberIds = new long[this.capacity];
+        this.bookIds = new long[this.capacity];
+        this.timestamps = new long[this.capacity];
+        this.loanDurations = new long[this.capacity];
+        this.loanIds = new long[this.capacity];
+        this.spill = policy == BackpressurePolicy.SPILL_TO_DISK ? openSpill(spillDirectory) : null;
+    }
+
+    public Cursor addCursor(String name) {
+        this.writeLock.lock();
+        try {
+            Cursor cursor = new Cursor(name, this.published.get());
+            this.cursors.add(cursor);
+            return cursor;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    public boolean publish(LibraryEventType type, long memberId, long bookId, long timestamp, long loanDuration,
+                           long loanId) {
+        if (this.closed) {
+            this.dropped.increment();
+            return false;
+        }
+        this.writeLock.lock();
+        try {
+            if (this.spillPending) {
+                moveSpilledEvents();
+                if (this.spillPending) {
+                    appendToSpill(type.ordinal(), memberId, bookId, timestamp, loanDuration, loanId);
+                    return true;
+                }
+            }
+            if (!hasCapacity()) {
+                switch (this.policy) {
+                    case BLOCK -> {
+                        if (!awaitCapacity()) {
+                            this.dropped.increment();
+                            return false;
+                        }
+                    }
+                    case SPILL_TO_DISK -> {
+                        appendToSpill(type.ordinal(), memberId, bookId, timestamp, loanDuration, loanId);
+                        return true;
+                    }
+                    case DROP_OLDEST -> {
+                    }
+                }
+            }
+            write(type.ordinal(), memberId, bookId, timestamp, loanDuration, loanId);
+            return true;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    public int poll(Cursor cursor, int maxBatch, List<LibraryEvent> batch) {
+        long next = cursor.sequence.get();
+        long available = this.published.get();
+        if (available - next > this.capacity) {
+            this.dropped.add(available - this.capacity - next);
+            next = available - this.capacity;
+        }
+        long end = Math.min(available, next + maxBatch);
+        for (long sequence = next; sequence < end; sequence++) {
+            int index = (int) (sequence & this.mask);
+            batch.add(new LibraryEvent(LibraryEventType.ofOrdinal(this.types[index]),
+                    this.memberIds[index], this.bookIds[index], this.timestamps[index], this.loanDurations[index],
+                    this.loanIds[index]));
+        }
+        if (this.policy == BackpressurePolicy.DROP_OLDEST) {
+            VarHandle.acquireFence();
+            long overwrittenBefore = this.claimed.get() - this.capacity;
+            if (overwrittenBefore > next) {
+                int stale = (int) Math.min(overwrittenBefore - next, batch.size());
+                batch.subList(0, stale).clear();
+                this.dropped.add(stale);
+            }
+        }
+        cursor.sequence.set(end);
+        return batch.size();
+    }
+
+    public void drainSpill() {
+        if (this.spillPending && this.writeLock.tryLock()) {
+            try {
+                moveSpilledEvents();
+            } finally {
+                this.writeLock.unlock();
+            }
+        }
+    }
+
+    public long lag(Cursor cursor) {
+        return this.published.get() - cursor.sequence.get();
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+
+    public long published() {
+        return this.published.get();
+    }
+
+    public long dropped() {
+        return this.dropped.sum();
+    }
+
+    public long spilled() {
+        return this.spilled.sum();
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.writeLock.lock();
+        try {
+            if (this.spill != null) {
+                this.spill.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    private boolean hasCapacity() {
+        long slowest = this.published.get();
+        for (Cursor cursor : this.cursors) {
+            slowest = Math.min(slowest, cursor.sequence.get());
+        }
+        return this.published.get() - slowest < this.capacity;
+    }
+
+    private boolean awaitCapacity() {
+        long deadline = System.nanoTime() + this.blockTimeoutNanos;
+        while (!hasCapacity()) {
+            if (this.closed || Thread.currentThread().isInterrupted() || System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    private void write(int type, long memberId, long bookId, long timestamp, long loanDuration, long loanId) {
+        long sequence = this.claimed.getAndIncrement();
+        int index = (int) (sequence & this.mask);
+        this.types[index] = type;
+        this.memberIds[index] = memberId;
+        this.bookIds[index] = bookId;
+        this.timestamps[index] = timestamp;
+        this.loanDurations[index] = loanDuration;
+        this.loanIds[index] = loanId;
+        this.published.set(sequence + 1);
+    }
+
+    private void appendToSpill(int type, long memberId, long bookId, long timestamp, long loanDuration,
+                               long loanId) {
+        try {
+            this.spillBuffer.clear();
+            this.spillBuffer.putInt(type).putLong(memberId).putLong(bookId).putLong(timestamp)
+                    .putLong(loanDuration).putLong(loanId).flip();
+            while (this.spillBuffer.hasRemaining()) {
+                this.spillWritePosition += this.spill.write(this.spillBuffer, this.spillWritePosition);
+            }
+            this.spilled.increment();
+            this.spillPending = true;
+        } catch (IOException e) {
+            this.dropped.increment();
+        }
+    }
+
+    private void moveSpilledEvents() {
+        try {
+            while (this.spillReadPosition < this.spillWritePosition && hasCapacity()) {
+                this.spillBuffer.clear();
+                while (this.spillBuffer.hasRemaining()) {
+                    this.spill.read(this.spillBuffer, this.spillReadPosition + this.spillBuffer.position());
+                }
+                this.spillBuffer.flip();
+                write(this.spillBuffer.getInt(), this.spillBuffer.getLong(), this.spillBuffer.getLong(),
+                        this.spillBuffer.getLong(), this.spillBuffer.getLong(), this.spillBuffer.getLong());
+                this.spillReadPosition += SPILL_RECORD_SIZE;
+            }
+            if (this.spillReadPosition == this.spillWritePosition) {
+                this.spill.truncate(0);
+                this.spillReadPosition = 0;
+                this.spillWritePosition = 0;
+                this.spillPending = false;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FileChannel openSpill(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            return FileChannel.open(Files.createTempFile(directory, "library-events", ".spill"),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static final class Cursor {
+
+        private final String name;
+
+        private final AtomicLong sequence;
+
+        private Cursor(String name, long sequence) {
+            this.name = name;
+            this.sequence = new AtomicLong(sequence);
+        }
+
+        public String name() {
+            return this.name;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.library.app.event;
+
+/*
+ * loanId is the t_member_books row of a BOOK_BORROWED or BOOK_RETURNED event and 0 for the book events.
+ * */
+public record LibraryEvent(LibraryEventType type, long memberId, long bookId, long timestamp, long loanDuration,
+                           long loanId) {
+}
@@ -0,0 +1,104 @@
+package org.library.app.event;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@Slf4j
+@Component
+public class LibraryEventBus {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final EventRingBuffer ringBuffer;
+
+    private final List<LibraryEventConsumer> consumers;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int batchSize;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public LibraryEventBus(List<LibraryEventConsumer> consumers,
+                           MeterRegistry meterRegistry,
+                           @Value("${library.events.capacity:4096}") int capacity,
+                           @Value("${library.events.batch-size:256}") int batchSize,
+                           @Value("${library.events.backpressure:BLOCK}") BackpressurePolicy policy,
+                           @Value("${library.events.block-timeout:100ms}") Duration blockTimeout,
+                           @Value("${library.events.spill-directory:${java.io.tmpdir}}") Path spillDirectory) {
+        this.ringBuffer = new EventRingBuffer(capacity, policy, blockTimeout, spillDirectory);
+        this.consumers = consumers;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        FunctionCounter.builder("library.events.published", this.ringBuffer, EventRingBuffer::published)
+                .register(this.meterRegistry);
+        FunctionCounter.builder("library.events.dropped", this.ringBuffer, EventRingBuffer::dropped)
+                .register(this.meterRegistry);
+        FunctionCounter.builder("library.events.spilled", this.ringBuffer, EventRingBuffer::spilled)
+                .register(this.meterRegistry);
+
+        this.running = true;
+        for (LibraryEventConsumer consumer : this.consumers) {
+            EventRingBuffer.Cursor cursor = this.ringBuffer.addCursor(consumer.name());
+            Gauge.builder("library.events.consumer.lag", cursor, this.ringBuffer::lag)
+                    .tag("consumer", consumer.name())
+                    .register(this.meterRegistry);
+            Thread worker = Thread.ofPlatform()
+                    .name("library-events-" + consumer.name())
+                    .daemon(true)
+                    .unstarted(() -> consume(consumer, cursor));
+            this.workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        for (Thread worker : this.workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        this.ringBuffer.close();
+    }
+
+    public boolean publish(LibraryEventType type, long memberId, long bookId, long timestamp, long loanDuration,
+                           long loanId) {
+        return this.ringBuffer.publish(type, memberId, bookId, timestamp, loanDuration, loanId);
+    }
+
+    private void consume(LibraryEventConsumer consumer, EventRingBuffer.Cursor cursor) {
+        List<LibraryEvent> batch = new ArrayList<>(this.batchSize);
+        while (this.running || this.ringBuffer.lag(cursor) > 0) {
+            batch.clear();
+            if (this.ringBuffer.poll(cursor, this.batchSize, batch) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                consumer.onBatch(batch);
+            } catch (RuntimeException e) {
+                log.error("Event consumer {} failed on a batch of {} events", consumer.name(), batch.size(), e);
+            }
+            this.ringBuffer.drainSpill();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.library.app.event;
+
+import java.util.List;
+
+public interface LibraryEventConsumer {
+
+    String name();
+
+    void onBatch(List<LibraryEvent> events);
+}
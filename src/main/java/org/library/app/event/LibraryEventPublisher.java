@@ -0,0 +1,31 @@
+package org.library.app.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+@RequiredArgsConstructor
+public class LibraryEventPublisher {
+
+    private final LibraryEventBus bus;
+
+    public void publishAfterCommit(LibraryEventType type, long memberId, long bookId) {
+        publishAfterCommit(type, memberId, bookId, System.currentTimeMillis(), 0, 0);
+    }
+
+    public void publishAfterCommit(LibraryEventType type, long memberId, long bookId,
+                                   long timestamp, long loanDuration, long loanId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.bus.publish(type, memberId, bookId, timestamp, loanDuration, loanId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bus.publish(type, memberId, bookId, timestamp, loanDuration, loanId);
+            }
+        });
+    }
+}
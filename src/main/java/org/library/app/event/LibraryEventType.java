@@ -0,0 +1,15 @@
+package org.library.app.event;
+
+public enum LibraryEventType {
+    BOOK_BORROWED,
+    BOOK_RETURNED,
+    BOOK_CREATED,
+    BOOK_UPDATED,
+    BOOK_DELETED;
+
+    private static final LibraryEventType[] VALUES = values();
+
+    public static LibraryEventType ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,16 @@
+package org.library.app.exception;
+
+/*
+ * A background job (a flight recording, a rollup recompute) was asked to start while its previous run is still going.
+ * */
+public class AlreadyRunningException extends LibraryException {
+
+    public AlreadyRunningException(String message) {
+        super(message);
+    }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.ALREADY_RUNNING;
+    }
+}
@@ -1,7 +1,8 @@
 package org.library.app.exception;
 
-public class BookIsOverException extends RuntimeException {
+public class BookIsOverException extends LibraryException {
     public BookIsOverException() {
+        super(LibraryProblem.BOOK_IS_OVER.title());
     }
 
     public BookIsOverException(String message) {
@@ -19,4 +20,9 @@ public class BookIsOverException extends RuntimeException {
     public BookIsOverException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
     }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.BOOK_IS_OVER;
+    }
 }
@@ -0,0 +1,28 @@
+package org.library.app.exception;
+
+public class BookNotAvailableException extends LibraryException {
+    public BookNotAvailableException() {
+        super(LibraryProblem.BOOK_NOT_AVAILABLE.title());
+    }
+
+    public BookNotAvailableException(String message) {
+        super(message);
+    }
+
+    public BookNotAvailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public BookNotAvailableException(Throwable cause) {
+        super(cause);
+    }
+
+    public BookNotAvailableException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.BOOK_NOT_AVAILABLE;
+    }
+}
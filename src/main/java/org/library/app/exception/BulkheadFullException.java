@@ -0,0 +1,28 @@
+package org.library.app.exception;
+
+public class BulkheadFullException extends LibraryException {
+    public BulkheadFullException() {
+        super(LibraryProblem.BULKHEAD_FULL.title());
+    }
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+
+    public BulkheadFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public BulkheadFullException(Throwable cause) {
+        super(cause);
+    }
+
+    public BulkheadFullException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.BULKHEAD_FULL;
+    }
+}
@@ -1,57 +1,56 @@
 package org.library.app.exception;
 
-import org.springframework.http.HttpStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 
+/*
+ * Every error is answered with an RFC 7807 problem whose "code" property is one of LibraryProblem. Domain
+ * failures take the preallocated responses from ProblemResponses. Request validation throws InvalidRequestException;
+ * any other IllegalArgumentException is a fault whose message may come from Spring or the JDK, so it is logged and
+ * answered with a bare internal-error.
+ * */
+@Slf4j
 @ControllerAdvice
+@RequiredArgsConstructor
 public class ExceptionControllerAdvice {
 
-    @ExceptionHandler(NoSuchElementException.class)
-    public ResponseEntity<String> handleNoSuchElementException(NoSuchElementException e) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(e.getMessage());
-    }
+    private final ProblemResponses problemResponses;
 
-    @ExceptionHandler(BookIsOverException.class)
-    public ResponseEntity<String> handleBookIsOverException(BookIsOverException e) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(e.getMessage());
+    @ExceptionHandler(LibraryException.class)
+    public ResponseEntity<byte[]> handleLibraryException(LibraryException e) {
+        return this.problemResponses.of(e.problem(), e.getMessage());
     }
 
-    @ExceptionHandler(MemberAlreadyExistException.class)
-    public ResponseEntity<String> handleMemberAlreadyExistException(MemberAlreadyExistException e) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(e.getMessage());
-    }
-
-    @ExceptionHandler(MemberAlreadyHaveThisBookException.class)
-    public ResponseEntity<String> handleMemberAlreadyHaveThisBookException(MemberAlreadyHaveThisBookException e) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(e.getMessage());
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<byte[]> handleNoSuchElementException(NoSuchElementException e) {
+        return this.problemResponses.of(LibraryProblem.NOT_FOUND, e.getMessage());
     }
 
-    @ExceptionHandler(MemberReachedLimitException.class)
-    public ResponseEntity<String> handleMemberReachedLimitException(MemberReachedLimitException e) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(e.getMessage());
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<byte[]> handleIllegalArgumentException(IllegalArgumentException e) {
+        log.error("Unexpected invalid argument", e);
+        return this.problemResponses.of(LibraryProblem.INTERNAL_ERROR, null);
     }
 
-    @ExceptionHandler(MemberHasBookException.class)
-    public ResponseEntity<String> handleMemberHasBookException(MemberHasBookException e) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(e.getMessage());
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<byte[]> handleQueryTimeoutException(QueryTimeoutException e) {
+        return this.problemResponses.of(LibraryProblem.REPORT_TIMEOUT, null);
     }
 
     @ExceptionHandler(BindException.class)
-    public ResponseEntity<List<String>> handleBindException(BindException e) {
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(e.getAllErrors().stream().map(ObjectError::getDefaultMessage).toList());
+    public ResponseEntity<ProblemDetail> handleBindException(BindException e) {
+        ProblemDetail problemDetail = ProblemResponses.problemDetail(LibraryProblem.VALIDATION_FAILED,
+                LibraryProblem.VALIDATION_FAILED.title());
+        problemDetail.setProperty("errors", e.getAllErrors().stream().map(ObjectError::getDefaultMessage).toList());
+        return ProblemResponses.responseBuilder(LibraryProblem.VALIDATION_FAILED).body(problemDetail);
     }
 }
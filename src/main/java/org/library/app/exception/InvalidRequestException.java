@@ -0,0 +1,21 @@
+package org.library.app.exception;
+
+/*
+ * A request parameter or body the endpoint cannot accept. Only this exception is answered with invalid-request; an
+ * IllegalArgumentException from anywhere else is a fault and its message stays in the log.
+ * */
+public class InvalidRequestException extends LibraryException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.INVALID_REQUEST;
+    }
+}
@@ -0,0 +1,29 @@
+package org.library.app.exception;
+
+/*
+ * Base of the exceptions that describe an expected outcome of a request (the book is out, the member is at the
+ * limit) rather than a fault. They are thrown on a large share of borrow attempts and their trace would only ever
+ * point into the same service method, so by default no stack trace is filled in and suppression is off; the last
+ * constructor still allows both when debugging.
+ * */
+public abstract class LibraryException extends RuntimeException {
+
+    protected LibraryException(String message) {
+        this(message, null);
+    }
+
+    protected LibraryException(String message, Throwable cause) {
+        this(message, cause, false, false);
+    }
+
+    protected LibraryException(Throwable cause) {
+        this(cause == null ? null : cause.toString(), cause);
+    }
+
+    protected LibraryException(String message, Throwable cause, boolean enableSuppression,
+                               boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+
+    public abstract LibraryProblem problem();
+}
@@ -0,0 +1,74 @@
+package org.library.app.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.net.URI;
+
+/*
+ * Stable error codes of the API. The code, type and title of a problem never change once published; the detail
+ * carries the message of the individual failure.
+ * */
+public enum LibraryProblem {
+    BOOK_NOT_AVAILABLE(HttpStatus.NOT_FOUND, "Book not available"),
+    BOOK_IS_OVER(HttpStatus.BAD_REQUEST, "This book amount is over"),
+    MEMBER_ALREADY_EXISTS(HttpStatus.BAD_REQUEST, "Member already exists"),
+    MEMBER_ALREADY_HAS_BOOK(HttpStatus.BAD_REQUEST, "Member have this book"),
+    MEMBER_REACHED_LIMIT(HttpStatus.BAD_REQUEST, "Limit of books is reached"),
+    MEMBER_HAS_BOOKS(HttpStatus.BAD_REQUEST, "Member has books"),
+    NOT_FOUND(HttpStatus.NOT_FOUND, "Not found"),
+    INVALID_REQUEST(HttpStatus.BAD_REQUEST, "Invalid request"),
+    VALIDATION_FAILED(HttpStatus.BAD_REQUEST, "Validation failed"),
+    ALREADY_RUNNING(HttpStatus.CONFLICT, "Already running"),
+    IDEMPOTENCY_KEY_INVALID(HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key"),
+    IDEMPOTENCY_KEY_IN_PROGRESS(HttpStatus.CONFLICT, "Request with this Idempotency-Key is in progress"),
+    IDEMPOTENT_BODY_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large"),
+    IDEMPOTENCY_KEY_REUSED(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key reused for a different request"),
+    TOO_MANY_REQUESTS(HttpStatus.TOO_MANY_REQUESTS, "Too many requests, retry later"),
+    OVERLOADED(HttpStatus.SERVICE_UNAVAILABLE, "Service is overloaded, retry later"),
+    BULKHEAD_FULL(HttpStatus.SERVICE_UNAVAILABLE, "Service is busy, retry later", 1),
+    REPORT_TIMEOUT(HttpStatus.SERVICE_UNAVAILABLE, "Report took too long, retry later"),
+    STATEMENT_BUDGET_EXCEEDED(HttpStatus.INTERNAL_SERVER_ERROR, "SQL statement budget exceeded"),
+    INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error");
+
+    private final HttpStatus status;
+
+    private final String title;
+
+    private final int retryAfterSeconds;
+
+    private final String code;
+
+    private final URI type;
+
+    LibraryProblem(HttpStatus status, String title) {
+        this(status, title, 0);
+    }
+
+    LibraryProblem(HttpStatus status, String title, int retryAfterSeconds) {
+        this.status = status;
+        this.title = title;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.code = name().toLowerCase().replace('_', '-');
+        this.type = URI.create("urn:library:problem:" + this.code);
+    }
+
+    public HttpStatus status() {
+        return this.status;
+    }
+
+    public String title() {
+        return this.title;
+    }
+
+    public int retryAfterSeconds() {
+        return this.retryAfterSeconds;
+    }
+
+    public String code() {
+        return this.code;
+    }
+
+    public URI type() {
+        return this.type;
+    }
+}
@@ -1,7 +1,8 @@
 package org.library.app.exception;
 
-public class MemberAlreadyExistException extends RuntimeException {
+public class MemberAlreadyExistException extends LibraryException {
     public MemberAlreadyExistException() {
+        super(LibraryProblem.MEMBER_ALREADY_EXISTS.title());
     }
 
     public MemberAlreadyExistException(String message) {
@@ -19,4 +20,9 @@ public class MemberAlreadyExistException extends RuntimeException {
     public MemberAlreadyExistException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
     }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.MEMBER_ALREADY_EXISTS;
+    }
 }
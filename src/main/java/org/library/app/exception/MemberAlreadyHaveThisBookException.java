@@ -1,7 +1,8 @@
 package org.library.app.exception;
 
-public class MemberAlreadyHaveThisBookException extends RuntimeException {
+public class MemberAlreadyHaveThisBookException extends LibraryException {
     public MemberAlreadyHaveThisBookException() {
+        super(LibraryProblem.MEMBER_ALREADY_HAS_BOOK.title());
     }
 
     public MemberAlreadyHaveThisBookException(String message) {
@@ -19,4 +20,9 @@ public class MemberAlreadyHaveThisBookException extends RuntimeException {
     public MemberAlreadyHaveThisBookException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
     }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.MEMBER_ALREADY_HAS_BOOK;
+    }
 }
@@ -1,8 +1,8 @@
 package org.library.app.exception;
 
-public class MemberHasBookException extends RuntimeException {
-
+public class MemberHasBookException extends LibraryException {
     public MemberHasBookException() {
+        super(LibraryProblem.MEMBER_HAS_BOOKS.title());
     }
 
     public MemberHasBookException(String message) {
@@ -20,4 +20,9 @@ public class MemberHasBookException extends RuntimeException {
     public MemberHasBookException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
     }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.MEMBER_HAS_BOOKS;
+    }
 }
@@ -1,7 +1,8 @@
 package org.library.app.exception;
 
-public class MemberReachedLimitException extends RuntimeException {
+public class MemberReachedLimitException extends LibraryException {
     public MemberReachedLimitException() {
+        super(LibraryProblem.MEMBER_REACHED_LIMIT.title());
     }
 
     public MemberReachedLimitException(String message) {
@@ -19,4 +20,9 @@ public class MemberReachedLimitException extends RuntimeException {
     public MemberReachedLimitException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
     }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.MEMBER_REACHED_LIMIT;
+    }
 }
@@ -0,0 +1,93 @@
+package org.library.app.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * application/problem+json responses rendered once and handed out again for every failure with the same problem and
+ * detail. Each problem starts with its title as the detail; further details (messages carrying a configured limit,
+ * a bulkhead name) are added on first use, up to MAX_DETAILS_PER_PROBLEM, after which they are rendered per call.
+ * A ResponseEntity is immutable, so one instance can serve concurrent requests.
+ * */
+@Component
+public class ProblemResponses {
+
+    private static final int MAX_DETAILS_PER_PROBLEM = 32;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<LibraryProblem, Map<String, ResponseEntity<byte[]>>> templates =
+            new EnumMap<>(LibraryProblem.class);
+
+    public ProblemResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (LibraryProblem problem : LibraryProblem.values()) {
+            Map<String, ResponseEntity<byte[]>> details = new ConcurrentHashMap<>();
+            details.put(problem.title(), render(problem, problem.title()));
+            this.templates.put(problem, details);
+        }
+    }
+
+    public ResponseEntity<byte[]> of(LibraryProblem problem, String detail) {
+        String key = detail == null ? problem.title() : detail;
+        Map<String, ResponseEntity<byte[]>> details = this.templates.get(problem);
+        ResponseEntity<byte[]> response = details.get(key);
+        if (response == null) {
+            response = render(problem, key);
+            if (details.size() < MAX_DETAILS_PER_PROBLEM) {
+                details.putIfAbsent(key, response);
+            }
+        }
+        return response;
+    }
+
+    /*
+     * For the servlet filters that answer before a handler runs. Headers already set on the response, such as a
+     * computed Retry-After, are kept unless the problem sets them itself.
+     * */
+    public void write(HttpServletResponse response, LibraryProblem problem, String detail) throws IOException {
+        ResponseEntity<byte[]> problemResponse = of(problem, detail);
+        byte[] body = problemResponse.getBody();
+        response.setStatus(problemResponse.getStatusCode().value());
+        problemResponse.getHeaders().forEach((name, values) -> values.forEach(value -> response.setHeader(name, value)));
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    public static ProblemDetail problemDetail(LibraryProblem problem, String detail) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(problem.status(), detail);
+        problemDetail.setType(problem.type());
+        problemDetail.setTitle(problem.title());
+        problemDetail.setProperty("code", problem.code());
+        return problemDetail;
+    }
+
+    public static ResponseEntity.BodyBuilder responseBuilder(LibraryProblem problem) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(problem.status())
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON);
+        if (problem.retryAfterSeconds() > 0) {
+            builder.header(HttpHeaders.RETRY_AFTER, String.valueOf(problem.retryAfterSeconds()));
+        }
+        return builder;
+    }
+
+    private ResponseEntity<byte[]> render(LibraryProblem problem, String detail) {
+        try {
+            return responseBuilder(problem).body(this.objectMapper.writeValueAsBytes(problemDetail(problem, detail)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
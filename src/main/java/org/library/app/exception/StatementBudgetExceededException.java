@@ -0,0 +1,17 @@
+package org.library.app.exception;
+
+/*
+ * A fault rather than an expected outcome, so unlike the other library exceptions it keeps its stack trace: it points
+ * at the code that issued the statement over the budget.
+ * */
+public class StatementBudgetExceededException extends LibraryException {
+
+    public StatementBudgetExceededException(String message) {
+        super(message, null, false, true);
+    }
+
+    @Override
+    public LibraryProblem problem() {
+        return LibraryProblem.STATEMENT_BUDGET_EXCEEDED;
+    }
+}
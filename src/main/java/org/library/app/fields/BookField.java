@@ -0,0 +1,27 @@
+package org.library.app.fields;
+
+public enum BookField implements SparseField {
+
+    TITLE("title", "c_title"),
+    AUTHOR("author", "c_author"),
+    AMOUNT("amount", "c_amount");
+
+    private final String property;
+
+    private final String column;
+
+    BookField(String property, String column) {
+        this.property = property;
+        this.column = column;
+    }
+
+    @Override
+    public String property() {
+        return this.property;
+    }
+
+    @Override
+    public String column() {
+        return this.column;
+    }
+}
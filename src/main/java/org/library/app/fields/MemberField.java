@@ -0,0 +1,26 @@
+package org.library.app.fields;
+
+public enum MemberField implements SparseField {
+
+    NAME("name", "c_name"),
+    CREATION_DATE("creationDate", "c_creation_date");
+
+    private final String property;
+
+    private final String column;
+
+    MemberField(String property, String column) {
+        this.property = property;
+        this.column = column;
+    }
+
+    @Override
+    public String property() {
+        return this.property;
+    }
+
+    @Override
+    public String column() {
+        return this.column;
+    }
+}
@@ -0,0 +1,11 @@
+package org.library.app.fields;
+
+/*
+ * A field a client can ask for with `fields=`: its JSON property and the column it is read from.
+ * */
+public interface SparseField {
+
+    String property();
+
+    String column();
+}
@@ -0,0 +1,79 @@
+package org.library.app.fields;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.library.app.exception.InvalidRequestException;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * Sparse fieldsets: `fields=title,author` names the JSON properties a client wants. The parsed set decides both the
+ * columns a projection selects and, through the Jackson filter FILTER, the properties that are written: a handler
+ * returns body(dto, fieldset) and the application's message converter applies the filter.
+ * */
+public final class SparseFields {
+
+    public static final String PARAMETER = "fields";
+
+    public static final String FILTER = "sparseFields";
+
+    private SparseFields() {
+    }
+
+    /*
+     * null when the parameter is absent, meaning every field; an empty or unknown field name is rejected.
+     * */
+    public static <F extends Enum<F> & SparseField> Set<F> parse(String fields, Class<F> type) {
+        if (fields == null) {
+            return null;
+        }
+        EnumSet<F> selected = EnumSet.noneOf(type);
+        for (String name : fields.split(",")) {
+            String property = name.trim();
+            selected.add(Arrays.stream(type.getEnumConstants())
+                    .filter(field -> field.property().equals(property))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidRequestException("Unknown field '%s', expected one of %s"
+                            .formatted(property, Arrays.stream(type.getEnumConstants())
+                                    .map(SparseField::property).toList()))));
+        }
+        return selected;
+    }
+
+    public static String columns(Set<? extends SparseField> fields) {
+        return fields.stream().map(SparseField::column).collect(Collectors.joining(", "));
+    }
+
+    public static FilterProvider filter(Set<? extends SparseField> fields) {
+        return new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(
+                fields.stream().map(SparseField::property).collect(Collectors.toSet())));
+    }
+
+    /*
+     * Response body that writes only the given fields; with fields null every property is written.
+     * */
+    public static MappingJacksonValue body(Object value, Set<? extends SparseField> fields) {
+        MappingJacksonValue body = new MappingJacksonValue(value);
+        if (fields != null) {
+            body.setFilters(filter(fields));
+        }
+        return body;
+    }
+
+    public static FilterProvider serializeAll() {
+        return new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+    }
+
+    /*
+     * Mixed into the DTOs that support sparse fieldsets, so the DTOs themselves stay free of Jackson annotations.
+     * */
+    @JsonFilter(FILTER)
+    public interface Filtered {
+    }
+}
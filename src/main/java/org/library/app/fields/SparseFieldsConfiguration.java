@@ -0,0 +1,23 @@
+package org.library.app.fields;
+
+import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.MemberDTO;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * Attaches the sparse fieldset filter to BookDTO and MemberDTO on the application's ObjectMapper. Outside of a
+ * request with `fields=` the default filter writes every property, so other serializations are unchanged.
+ * */
+@Configuration
+public class SparseFieldsConfiguration {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sparseFieldsCustomizer() {
+        return builder -> builder
+                .mixIn(BookDTO.class, SparseFields.Filtered.class)
+                .mixIn(MemberDTO.class, SparseFields.Filtered.class)
+                .filters(SparseFields.serializeAll());
+    }
+}
@@ -0,0 +1,300 @@
+package org.library.app.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.library.app.exception.LibraryProblem;
+import org.library.app.exception.ProblemResponses;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * Keys live in a size-bounded cache and expire ttl after the first request that used them. A key is scoped to the
+ * client (the authenticated principal, else the remote address), method and path, so two clients picking the same
+ * key never see each other's responses. That request claims the
+ * key and runs; duplicates arriving while it runs wait on the same future and get its response, so the handler runs
+ * once per key. A 5xx or an exception releases the key, so the next retry runs the request again. The body is held in
+ * memory to fingerprint and replay it, so bodies over max-body-size are rejected with 413 before anything runs.
+ * */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private static final Set<String> NOT_REPLAYED_HEADERS = Set.of(HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase());
+
+    private final Cache<String, Entry> entries;
+
+    private final Duration waitTimeout;
+
+    private final int maxBodySize;
+
+    private final Counter executed;
+
+    private final Counter replayed;
+
+    private final Counter mismatched;
+
+    private final Counter inProgress;
+
+    private final ProblemResponses problemResponses;
+
+    public IdempotencyFilter(MeterRegistry meterRegistry,
+                             ProblemResponses problemResponses,
+                             @Value("${library.idempotency.max-entries:10000}") long maxEntries,
+                             @Value("${library.idempotency.ttl:24h}") Duration ttl,
+                             @Value("${library.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                             @Value("${library.idempotency.max-body-size:1MB}") DataSize maxBodySize) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        this.problemResponses = problemResponses;
+        this.waitTimeout = waitTimeout;
+        this.maxBodySize = Math.toIntExact(maxBodySize.toBytes());
+        this.executed = outcomeCounter(meterRegistry, "executed");
+        this.replayed = outcomeCounter(meterRegistry, "replayed");
+        this.mismatched = outcomeCounter(meterRegistry, "mismatched");
+        this.inProgress = outcomeCounter(meterRegistry, "in-progress");
+        Gauge.builder("library.idempotency.keys", this.entries, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !MUTATING_METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            this.problemResponses.write(response, LibraryProblem.IDEMPOTENCY_KEY_INVALID,
+                    "%s must be 1 to %d characters long".formatted(IDEMPOTENCY_KEY_HEADER, MAX_KEY_LENGTH));
+            return;
+        }
+
+        HttpServletRequest requestToRun;
+        String fingerprint;
+        if (isForm(request)) {
+            requestToRun = request;
+            fingerprint = fingerprint(request, formBody(request));
+        } else {
+            byte[] body = request.getContentLengthLong() > this.maxBodySize ? null
+                    : request.getInputStream().readNBytes(this.maxBodySize + 1);
+            if (body == null || body.length > this.maxBodySize) {
+                this.problemResponses.write(response, LibraryProblem.IDEMPOTENT_BODY_TOO_LARGE, "Requests with %s are limited to %d bytes"
+                        .formatted(IDEMPOTENCY_KEY_HEADER, this.maxBodySize));
+                return;
+            }
+            requestToRun = new CachedBodyRequest(request, body);
+            fingerprint = fingerprint(request, body);
+        }
+
+        String scopedKey = scopedKey(request, key);
+        while (true) {
+            Entry claim = new Entry(fingerprint, new CompletableFuture<>());
+            Entry existing = this.entries.asMap().putIfAbsent(scopedKey, claim);
+            if (existing == null) {
+                execute(scopedKey, claim, requestToRun, response, chain);
+                return;
+            }
+            if (!existing.fingerprint().equals(fingerprint)) {
+                this.mismatched.increment();
+                this.problemResponses.write(response, LibraryProblem.IDEMPOTENCY_KEY_REUSED,
+                        "%s was already used for a different request".formatted(IDEMPOTENCY_KEY_HEADER));
+                return;
+            }
+            try {
+                replay(existing.response().get(this.waitTimeout.toMillis(), TimeUnit.MILLISECONDS), response);
+                this.replayed.increment();
+                return;
+            } catch (TimeoutException e) {
+                this.inProgress.increment();
+                this.problemResponses.write(response, LibraryProblem.IDEMPOTENCY_KEY_IN_PROGRESS,
+                        "A request with this %s is still in progress".formatted(IDEMPOTENCY_KEY_HEADER));
+                return;
+            } catch (ExecutionException e) {
+                // the first attempt failed and released the key, so this duplicate runs the request itself
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException("Interrupted while waiting for a duplicate request", e);
+            }
+        }
+    }
+
+    private void execute(String key, Entry claim, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain chain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+        } catch (Throwable e) {
+            this.entries.asMap().remove(key, claim);
+            claim.response().completeExceptionally(e);
+            throw e;
+        }
+
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : wrapper.getHeaderNames()) {
+            if (!NOT_REPLAYED_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, List.copyOf(wrapper.getHeaders(name)));
+            }
+        }
+        if (wrapper.getContentType() != null) {
+            headers.put(HttpHeaders.CONTENT_TYPE, List.of(wrapper.getContentType()));
+        }
+        IdempotentResponse stored = new IdempotentResponse(wrapper.getStatus(), headers,
+                wrapper.getContentAsByteArray());
+        if (stored.status() >= 500) {
+            this.entries.asMap().remove(key, claim);
+        }
+        claim.response().complete(stored);
+        this.executed.increment();
+        wrapper.copyBodyToResponse();
+    }
+
+    private static void replay(IdempotentResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        stored.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static boolean isForm(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && (contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+                || contentType.startsWith("multipart/"));
+    }
+
+    /*
+     * Form parameters are read through getParameterMap() instead of the input stream, otherwise the container could
+     * no longer parse them for the handler.
+     * */
+    private static byte[] formBody(HttpServletRequest request) {
+        StringBuilder body = new StringBuilder();
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+                body.append(name).append('=').append(String.join(",", values)).append('&'));
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String scopedKey(HttpServletRequest request, String key) {
+        Principal principal = request.getUserPrincipal();
+        String client = principal != null ? "principal:" + principal.getName() : "address:" + request.getRemoteAddr();
+        return "%s %s %s %s".formatted(client, request.getMethod(), request.getRequestURI(), key);
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update("%s %s?%s\n".formatted(request.getMethod(), request.getRequestURI(),
+                    Objects.toString(request.getQueryString(), "")).getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("library.idempotency.requests")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<IdempotentResponse> response) {
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(this.body);
+            return new ServletInputStream() {
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // the whole body is already in memory, so it is available at once and then fully read
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.library.app.idempotency;
+
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.HeaderParameter;
+import org.springdoc.core.customizers.OperationCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.method.HandlerMethod;
+
+@Component
+public class IdempotencyKeyOperationCustomizer implements OperationCustomizer {
+
+    @Override
+    public Operation customize(Operation operation, HandlerMethod handlerMethod) {
+        if (handlerMethod.hasMethodAnnotation(PostMapping.class)
+                || handlerMethod.hasMethodAnnotation(PutMapping.class)
+                || handlerMethod.hasMethodAnnotation(PatchMapping.class)
+                || handlerMethod.hasMethodAnnotation(DeleteMapping.class)) {
+            operation.addParametersItem(new HeaderParameter()
+                    .name(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER)
+                    .required(false)
+                    .description("Унікальний ключ запиту. Повтор запиту з тим самим ключем не виконується вдруге, " +
+                            "а отримує збережену відповідь (з заголовком Idempotent-Replayed). Ключ, використаний " +
+                            "для іншого запиту, вертає 422, повтор під час виконання першого запиту чекає на його " +
+                            "результат або вертає 409. Ключ діє в межах клієнта, методу і шляху")
+                    .schema(new StringSchema().maxLength(255)));
+        }
+        return operation;
+    }
+}
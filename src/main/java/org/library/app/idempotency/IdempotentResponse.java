@@ -0,0 +1,7 @@
+package org.library.app.idempotency;
+
+import java.util.List;
+import java.util.Map;
+
+public record IdempotentResponse(int status, Map<String, List<String>> headers, byte[] body) {
+}
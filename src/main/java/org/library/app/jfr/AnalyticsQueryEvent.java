@@ -0,0 +1,31 @@
+package org.library.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * For queries handed to the analytics bulkhead the event starts on submission, so duration minus database time is
+ * mostly time spent waiting for a bulkhead thread.
+ * */
+@Name("org.library.AnalyticsQuery")
+@Label("Analytics Query")
+@Category({"Library", "Analytics"})
+@Description("A reporting query over books and loans")
+public class AnalyticsQueryEvent extends LibraryOperationEvent {
+
+    @Label("Query")
+    String query;
+
+    @Label("Rows")
+    int rows;
+
+    public AnalyticsQueryEvent(String query) {
+        this.query = query;
+    }
+
+    public void rows(int rows) {
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,31 @@
+package org.library.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.library.Borrow")
+@Label("Borrow Book")
+@Category({"Library", "Loans"})
+@Description("A member borrowing a book, from the first read to the transaction commit")
+public class BorrowEvent extends LibraryOperationEvent {
+
+    @Label("Member Id")
+    long memberId;
+
+    @Label("Book Id")
+    long bookId;
+
+    @Label("Loan Id")
+    long loanId;
+
+    public BorrowEvent(long memberId, long bookId) {
+        this.memberId = memberId;
+        this.bookId = bookId;
+    }
+
+    public void loanId(long loanId) {
+        this.loanId = loanId;
+    }
+}
@@ -0,0 +1,24 @@
+package org.library.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.library.CreateBook")
+@Label("Create Book")
+@Category({"Library", "Books"})
+@Description("Adding a copy of a book, creating the book if its title and author are new")
+public class CreateBookEvent extends LibraryOperationEvent {
+
+    @Label("Book Id")
+    long bookId;
+
+    @Label("Amount")
+    int amount;
+
+    public void book(long bookId, int amount) {
+        this.bookId = bookId;
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,21 @@
+package org.library.app.jfr;
+
+/*
+ * Per-thread running total of nanoseconds spent executing JDBC statements, fed by DatabaseTimeSessionListener.
+ * Readers take the difference of two readings on the same thread.
+ * */
+public final class DatabaseTime {
+
+    private static final ThreadLocal<long[]> NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private DatabaseTime() {
+    }
+
+    public static long nanos() {
+        return NANOS.get()[0];
+    }
+
+    static void add(long nanos) {
+        NANOS.get()[0] += nanos;
+    }
+}
@@ -0,0 +1,34 @@
+package org.library.app.jfr;
+
+import org.hibernate.SessionEventListener;
+
+/*
+ * Registered for every Hibernate session through hibernate.session.events.auto; adds the time of each statement and
+ * batch execution to the thread's DatabaseTime.
+ * */
+public class DatabaseTimeSessionListener implements SessionEventListener {
+
+    private long statementStart;
+
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        this.statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        DatabaseTime.add(System.nanoTime() - this.statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        this.batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        DatabaseTime.add(System.nanoTime() - this.batchStart);
+    }
+}
@@ -0,0 +1,22 @@
+package org.library.app.jfr;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlightRecorderConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer databaseTimeProperties(
+            @Value("${library.jfr.database-time:true}") boolean enabled) {
+        return properties -> {
+            if (enabled) {
+                properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                        DatabaseTimeSessionListener.class.getName());
+            }
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package org.library.app.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/*
+ * Common part of the library's flight recorder events: how the operation ended and how much of its duration was spent
+ * in JDBC statements on the calling thread (see DatabaseTime). Inside a transaction the event is committed from
+ * afterCompletion, so its duration and database time include the flush and the commit. When no recording enables the
+ * event, begin() and finish() cost one isEnabled() check.
+ * */
+@Category("Library")
+@StackTrace(false)
+public abstract class LibraryOperationEvent extends Event {
+
+    public static final String OK = "ok";
+
+    public static final String ROLLED_BACK = "rolled-back";
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Database Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long dbTime;
+
+    /*
+     * Runs the operation as the event: starts it, records the runtime exception that ends the operation and finishes
+     * it, so the event is committed with the surrounding transaction.
+     * */
+    public static <T> T record(LibraryOperationEvent event, Supplier<T> operation) {
+        event.start();
+        try {
+            return operation.get();
+        } catch (RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.finish();
+        }
+    }
+
+    public static void record(LibraryOperationEvent event, Runnable operation) {
+        record(event, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    /*
+     * Starts the event and remembers where the thread's database time stood.
+     * */
+    public void start() {
+        if (isEnabled()) {
+            this.dbTime = -DatabaseTime.nanos();
+            begin();
+        }
+    }
+
+    /*
+     * Records the exception that ended the operation; the event is still only committed by finish().
+     * */
+    public void failed(Throwable error) {
+        this.outcome = error.getClass().getSimpleName();
+    }
+
+    /*
+     * Ends and commits the event once the surrounding transaction completes, or right away when there is none.
+     * */
+    public void finish() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitWith(OK);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                commitWith(status == STATUS_COMMITTED ? OK : ROLLED_BACK);
+            }
+        });
+    }
+
+    /*
+     * Ends and commits the event for work that ran on another thread and timed its own database calls.
+     * */
+    public void finish(long dbTimeNanos, Throwable error) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (error != null) {
+            failed(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        }
+        end();
+        if (shouldCommit()) {
+            this.dbTime = dbTimeNanos;
+            this.outcome = this.outcome == null ? OK : this.outcome;
+            commit();
+        }
+    }
+
+    private void commitWith(String completion) {
+        end();
+        if (shouldCommit()) {
+            this.dbTime += DatabaseTime.nanos();
+            this.outcome = this.outcome == null ? completion : this.outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.library.app.overdue;
+
+import java.util.function.Consumer;
+
+/*
+ * Hashed hierarchical timing wheel: level i has wheelSize buckets of wheelSize^i ticks each, and deadlines beyond the
+ * top level wait in its last bucket until it comes round. Not thread-safe; callers serialize access.
+ * */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+
+    private final int wheelSize;
+
+    private final int levels;
+
+    private final long[] levelTicks;
+
+    private final Timeout<T>[][] buckets;
+
+    private long currentTick;
+
+    private long size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2 || levels < 1
+                || Math.pow(wheelSize, levels) > (double) Long.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Invalid timing wheel settings");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.levelTicks = new long[levels + 1];
+        this.levelTicks[0] = 1;
+        for (int level = 1; level <= levels; level++) {
+            this.levelTicks[level] = this.levelTicks[level - 1] * wheelSize;
+        }
+        this.buckets = new Timeout[levels][wheelSize];
+        for (int level = 0; level < levels; level++) {
+            for (int index = 0; index < wheelSize; index++) {
+                Timeout<T> head = new Timeout<>(null, 0);
+                head.previous = head;
+                head.next = head;
+                this.buckets[level][index] = head;
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /*
+     * A deadline that is already due fires on the next tick.
+     * */
+    public Timeout<T> schedule(T payload, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(payload, Math.max(this.currentTick + 1, ceilDiv(deadlineMillis)));
+        place(timeout);
+        this.size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout.next == null) {
+            return false;
+        }
+        unlink(timeout);
+        this.size--;
+        return true;
+    }
+
+    /*
+     * Moves the clock tick by tick up to nowMillis and hands every timeout that became due to `expired`, in deadline
+     * tick order. Returns the number of expired timeouts.
+     * */
+    public int advanceTo(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / this.tickMillis;
+        int count = 0;
+        while (this.currentTick < targetTick) {
+            this.currentTick++;
+            for (int level = this.levels - 1; level > 0; level--) {
+                if (this.currentTick % this.levelTicks[level] == 0) {
+                    cascade(this.buckets[level][index(this.currentTick, level)]);
+                }
+            }
+            Timeout<T> head = this.buckets[0][index(this.currentTick, 0)];
+            while (head.next != head) {
+                Timeout<T> timeout = head.next;
+                unlink(timeout);
+                this.size--;
+                count++;
+                expired.accept(timeout.payload);
+            }
+        }
+        return count;
+    }
+
+    public long size() {
+        return this.size;
+    }
+
+    public long currentMillis() {
+        return this.currentTick * this.tickMillis;
+    }
+
+    private void cascade(Timeout<T> head) {
+        Timeout<T> timeout = head.next;
+        head.next = head;
+        head.previous = head;
+        while (timeout != head) {
+            Timeout<T> next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - this.currentTick;
+        long tick = timeout.deadlineTick;
+        int level = 0;
+        if (delta >= this.levelTicks[this.levels]) {
+            level = this.levels - 1;
+            tick = this.currentTick + this.levelTicks[this.levels] - 1;
+        } else {
+            while (delta >= this.levelTicks[level + 1]) {
+                level++;
+            }
+        }
+        if (delta <= 0) {
+            // cascaded into the tick being processed
+            tick = this.currentTick;
+        }
+        Timeout<T> head = this.buckets[level][index(tick, level)];
+        timeout.previous = head.previous;
+        timeout.next = head;
+        head.previous.next = timeout;
+        head.previous = timeout;
+    }
+
+    private int index(long tick, int level) {
+        return (int) ((tick / this.levelTicks[level]) % this.wheelSize);
+    }
+
+    private long ceilDiv(long millis) {
+        return Math.floorDiv(millis + this.tickMillis - 1, this.tickMillis);
+    }
+
+    private static <T> void unlink(Timeout<T> timeout) {
+        timeout.previous.next = timeout.next;
+        timeout.next.previous = timeout.previous;
+        timeout.previous = null;
+        timeout.next = null;
+    }
+
+    public static final class Timeout<T> {
+
+        private final T payload;
+
+        private final long deadlineTick;
+
+        private Timeout<T> previous;
+
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T payload() {
+            return this.payload;
+        }
+
+        public boolean pending() {
+            return this.next != null;
+        }
+    }
+}
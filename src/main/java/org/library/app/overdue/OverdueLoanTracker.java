@@ -0,0 +1,256 @@
+package org.library.app.overdue;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.library.app.cache.CacheInvalidationPublisher;
+import org.library.app.cache.CacheRegions;
+import org.library.app.entity.LoanEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Due dates of the open, not yet overdue loans, so finding the expired ones needs no scan of t_member_books. The
+ * UPDATE only marks loans that are still open and not yet overdue, so a late or repeated expiry is harmless, also when
+ * several nodes expire the same loan.
+ * */
+@Slf4j
+@Component
+public class OverdueLoanTracker {
+
+    private static final String OPEN_LOANS = """
+            SELECT id, c_borrowed_at, c_due_at FROM public.t_member_books
+            WHERE c_returned_at IS NULL AND c_overdue = FALSE""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final CacheInvalidationPublisher cacheInvalidation;
+
+    private final Duration loanPeriod;
+
+    private final long tickMillis;
+
+    private final int wheelSize;
+
+    private final int levels;
+
+    private final int batchSize;
+
+    // loan id -> its pending timeout, so that a return can cancel in O(1)
+    private final Map<Long, HierarchicalTimingWheel.Timeout<Long>> scheduled = new HashMap<>();
+
+    private final Counter markedOverdue;
+
+    private HierarchicalTimingWheel<Long> wheel;
+
+    // while a rebuild reads the table, loan id -> due date of each schedule, null for a cancel
+    private Map<Long, Instant> changedDuringRebuild;
+
+    private volatile boolean running;
+
+    private Thread ticker;
+
+    public OverdueLoanTracker(DataSource dataSource,
+                              EntityManagerFactory entityManagerFactory,
+                              CacheInvalidationPublisher cacheInvalidation,
+                              MeterRegistry meterRegistry,
+                              @Value("${library.loans.period:14d}") Duration loanPeriod,
+                              @Value("${library.loans.overdue.tick:1s}") Duration tick,
+                              @Value("${library.loans.overdue.wheel-size:64}") int wheelSize,
+                              @Value("${library.loans.overdue.levels:4}") int levels,
+                              @Value("${library.loans.overdue.batch-size:500}") int batchSize,
+                              @Value("${library.loans.overdue.fetch-size:10000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheInvalidation = cacheInvalidation;
+        this.loanPeriod = loanPeriod;
+        this.tickMillis = tick.toMillis();
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.batchSize = batchSize;
+        this.wheel = new HierarchicalTimingWheel<>(this.tickMillis, wheelSize, levels, System.currentTimeMillis());
+        this.markedOverdue = Counter.builder("library.loans.overdue.marked").register(meterRegistry);
+        Gauge.builder("library.loans.overdue.scheduled", this, OverdueLoanTracker::scheduledCount)
+                .register(meterRegistry);
+    }
+
+    public Instant dueDate(Instant borrowedAt) {
+        return borrowedAt.plus(this.loanPeriod);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        this.running = true;
+        this.ticker = Thread.ofPlatform()
+                .name("loan-overdue-wheel")
+                .daemon(true)
+                .start(this::tick);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        this.running = false;
+        if (this.ticker != null) {
+            this.ticker.interrupt();
+            this.ticker.join(this.tickMillis + 5000);
+        }
+    }
+
+    /*
+     * Replaces the wheel with one holding every open loan that is not overdue yet, taking borrowed_at + loan-period
+     * for rows without a due date. Schedules and cancels committed while the table is read are replayed on top.
+     * */
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            this.changedDuringRebuild = new LinkedHashMap<>();
+        }
+        HierarchicalTimingWheel<Long> rebuilt =
+                new HierarchicalTimingWheel<>(this.tickMillis, this.wheelSize, this.levels, System.currentTimeMillis());
+        Map<Long, HierarchicalTimingWheel.Timeout<Long>> timeouts = new HashMap<>();
+        try {
+            this.jdbcTemplate.query(OPEN_LOANS, (RowCallbackHandler) rs -> {
+                long loanId = rs.getLong(1);
+                Timestamp dueAt = rs.getTimestamp(3);
+                Instant due = dueAt != null ? dueAt.toInstant() : dueDate(rs.getTimestamp(2).toInstant());
+                timeouts.put(loanId, rebuilt.schedule(loanId, due.toEpochMilli()));
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                this.changedDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            this.changedDuringRebuild.forEach((loanId, dueAt) -> {
+                HierarchicalTimingWheel.Timeout<Long> previous = dueAt == null ? timeouts.remove(loanId)
+                        : timeouts.put(loanId, rebuilt.schedule(loanId, dueAt.toEpochMilli()));
+                if (previous != null) {
+                    rebuilt.cancel(previous);
+                }
+            });
+            this.changedDuringRebuild = null;
+            this.wheel = rebuilt;
+            this.scheduled.clear();
+            this.scheduled.putAll(timeouts);
+        }
+        log.info("Overdue wheel rebuilt with {} open loans in {} ms", timeouts.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void scheduleAfterCommit(long loanId, Instant dueAt) {
+        afterCommit(() -> schedule(loanId, dueAt));
+    }
+
+    public void cancelAfterCommit(long loanId) {
+        afterCommit(() -> cancel(loanId));
+    }
+
+    public synchronized void schedule(long loanId, Instant dueAt) {
+        HierarchicalTimingWheel.Timeout<Long> previous =
+                this.scheduled.put(loanId, this.wheel.schedule(loanId, dueAt.toEpochMilli()));
+        if (previous != null) {
+            this.wheel.cancel(previous);
+        }
+        if (this.changedDuringRebuild != null) {
+            this.changedDuringRebuild.put(loanId, dueAt);
+        }
+    }
+
+    public synchronized void cancel(long loanId) {
+        HierarchicalTimingWheel.Timeout<Long> timeout = this.scheduled.remove(loanId);
+        if (timeout != null) {
+            this.wheel.cancel(timeout);
+        }
+        if (this.changedDuringRebuild != null) {
+            this.changedDuringRebuild.put(loanId, null);
+        }
+    }
+
+    public synchronized long scheduledCount() {
+        return this.wheel.size();
+    }
+
+    /*
+     * Advances the wheel to `now` and marks the expired loans overdue. Called by the ticker thread; public so that it
+     * can be driven with a fixed clock.
+     * */
+    public int expire(long nowMillis) {
+        List<Long> expired = new ArrayList<>();
+        synchronized (this) {
+            this.wheel.advanceTo(nowMillis, loanId -> {
+                this.scheduled.remove(loanId);
+                expired.add(loanId);
+            });
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(expired);
+        int marked = 0;
+        for (int from = 0; from < expired.size(); from += this.batchSize) {
+            List<Long> chunk = expired.subList(from, Math.min(expired.size(), from + this.batchSize));
+            marked += this.jdbcTemplate.update("UPDATE public.t_member_books SET c_overdue = TRUE " +
+                    "WHERE c_returned_at IS NULL AND c_overdue = FALSE AND id IN (" +
+                    String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")", chunk.toArray());
+            // the UPDATE bypasses Hibernate, so the local copies go too, not only the other nodes'
+            chunk.forEach(loanId -> {
+                this.entityManagerFactory.getCache().evict(LoanEntity.class, loanId);
+                this.cacheInvalidation.invalidateAfterCommit(CacheRegions.LOAN, loanId);
+            });
+        }
+        this.markedOverdue.increment(marked);
+        return marked;
+    }
+
+    private void tick() {
+        while (this.running) {
+            try {
+                Thread.sleep(this.tickMillis);
+                expire(System.currentTimeMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to mark expired loans overdue", e);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
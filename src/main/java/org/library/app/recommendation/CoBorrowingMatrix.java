@@ -0,0 +1,266 @@
+package org.library.app.recommendation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/*
+ * Symmetric sparse matrix of how often two books were borrowed by the same member. Row i of rows holds the counts
+ * of the book that bookRows maps to i, keyed by the other book's id. To know what a new borrow pairs with, each member
+ * keeps the last historySize distinct books they borrowed, most recent first; a borrow adds one to the pair of the
+ * new book with each of them, a repeated borrow of a book still in the history only moves it to the front. A decay
+ * forgets the history of every member who borrowed nothing since the previous one, so only members active within a
+ * decay interval are kept in memory and in snapshots. Not thread-safe.
+ * */
+public class CoBorrowingMatrix {
+
+    private static final int MAGIC = 0x434F4231;
+
+    private final int historySize;
+
+    private LongIntHashMap bookRows = new LongIntHashMap(1024);
+
+    private final List<LongIntHashMap> rows = new ArrayList<>();
+
+    private LongIntHashMap memberHistories = new LongIntHashMap(1024);
+
+    private final List<long[]> histories = new ArrayList<>();
+
+    // history slots borrowed from, or read from a snapshot, since the last decay
+    private final BitSet activeHistories = new BitSet();
+
+    private long pairs;
+
+    private long decayedAt;
+
+    public CoBorrowingMatrix(int historySize, long decayedAt) {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("History size must be positive");
+        }
+        this.historySize = historySize;
+        this.decayedAt = decayedAt;
+    }
+
+    public void borrowed(long memberId, long bookId) {
+        long[] history = history(memberId);
+        int previous = indexOf(history, bookId);
+        int shifted = previous >= 0 ? previous : history.length - 1;
+        System.arraycopy(history, 0, history, 1, shifted);
+        history[0] = bookId;
+        if (previous >= 0) {
+            return;
+        }
+        for (int i = 1; i < history.length && history[i] != 0; i++) {
+            increment(history[i], bookId);
+            if (increment(bookId, history[i]) == 1) {
+                this.pairs++;
+            }
+        }
+    }
+
+    /*
+     * The books most often borrowed together with bookId, highest count first and lower id first among equal counts.
+     * */
+    public List<Related> related(long bookId, int limit) {
+        int row = this.bookRows.get(bookId, -1);
+        if (row < 0) {
+            return List.of();
+        }
+        long[] topIds = new long[limit];
+        int[] topCounts = new int[limit];
+        int[] size = {0};
+        this.rows.get(row).forEach((other, count) -> {
+            int at = size[0];
+            while (at > 0 && (topCounts[at - 1] < count || topCounts[at - 1] == count && topIds[at - 1] > other)) {
+                at--;
+            }
+            if (at == limit) {
+                return;
+            }
+            int moved = Math.min(size[0], limit - 1) - at;
+            System.arraycopy(topIds, at, topIds, at + 1, moved);
+            System.arraycopy(topCounts, at, topCounts, at + 1, moved);
+            topIds[at] = other;
+            topCounts[at] = count;
+            size[0] = Math.min(size[0] + 1, limit);
+        });
+        List<Related> related = new ArrayList<>(size[0]);
+        for (int i = 0; i < size[0]; i++) {
+            related.add(new Related(topIds[i], topCounts[i]));
+        }
+        return related;
+    }
+
+    /*
+     * Multiplies every count by factor, rounding down, and drops the pairs and rows that reach 0, so pairs that are
+     * not borrowed together again fade out and the matrix stays sparse. The histories of members idle since the last
+     * decay are dropped as well.
+     * */
+    public void decay(double factor, long now) {
+        List<LongIntHashMap> kept = new ArrayList<>();
+        LongIntHashMap keptRows = new LongIntHashMap(this.bookRows.size());
+        long entries = 0;
+        for (int row = 0; row < this.rows.size(); row++) {
+            LongIntHashMap counts = this.rows.get(row);
+            counts.updateValues(count -> (int) (count * factor));
+            entries += counts.size();
+        }
+        this.bookRows.forEach((bookId, row) -> {
+            LongIntHashMap counts = this.rows.get(row);
+            if (counts.size() > 0) {
+                keptRows.put(bookId, kept.size());
+                kept.add(counts);
+            }
+        });
+        this.rows.clear();
+        this.rows.addAll(kept);
+        this.bookRows = keptRows;
+        this.pairs = entries / 2;
+        this.decayedAt = now;
+        dropIdleHistories();
+    }
+
+    public long pairs() {
+        return this.pairs;
+    }
+
+    public int books() {
+        return this.bookRows.size();
+    }
+
+    public int members() {
+        return this.memberHistories.size();
+    }
+
+    public long decayedAt() {
+        return this.decayedAt;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(this.historySize);
+        out.writeLong(this.decayedAt);
+        out.writeInt(this.bookRows.size());
+        IOException[] failure = {null};
+        this.bookRows.forEach((bookId, row) -> {
+            LongIntHashMap counts = this.rows.get(row);
+            write(failure, () -> {
+                out.writeLong(bookId);
+                out.writeInt(counts.size());
+            });
+            counts.forEach((other, count) -> write(failure, () -> {
+                out.writeLong(other);
+                out.writeInt(count);
+            }));
+        });
+        out.writeInt(this.memberHistories.size());
+        this.memberHistories.forEach((memberId, slot) -> write(failure, () -> {
+            out.writeLong(memberId);
+            for (long bookId : this.histories.get(slot)) {
+                out.writeLong(bookId);
+            }
+        }));
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    public static CoBorrowingMatrix readFrom(DataInputStream in, int historySize) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a co-borrowing snapshot");
+        }
+        int storedHistorySize = in.readInt();
+        CoBorrowingMatrix matrix = new CoBorrowingMatrix(historySize, in.readLong());
+        long entries = 0;
+        for (int books = in.readInt(); books > 0; books--) {
+            long bookId = in.readLong();
+            int size = in.readInt();
+            LongIntHashMap counts = new LongIntHashMap(size);
+            for (int i = 0; i < size; i++) {
+                counts.put(in.readLong(), in.readInt());
+            }
+            matrix.bookRows.put(bookId, matrix.rows.size());
+            matrix.rows.add(counts);
+            entries += size;
+        }
+        matrix.pairs = entries / 2;
+        for (int members = in.readInt(); members > 0; members--) {
+            long[] history = matrix.history(in.readLong());
+            for (int i = 0; i < storedHistorySize; i++) {
+                long bookId = in.readLong();
+                if (i < history.length) {
+                    history[i] = bookId;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    private long[] history(long memberId) {
+        int slot = this.memberHistories.get(memberId, -1);
+        if (slot < 0) {
+            slot = this.histories.size();
+            this.memberHistories.put(memberId, slot);
+            this.histories.add(new long[this.historySize]);
+        }
+        this.activeHistories.set(slot);
+        return this.histories.get(slot);
+    }
+
+    private void dropIdleHistories() {
+        int active = this.activeHistories.cardinality();
+        List<long[]> kept = new ArrayList<>(active);
+        LongIntHashMap keptMembers = new LongIntHashMap(Math.max(1024, active));
+        this.memberHistories.forEach((memberId, slot) -> {
+            if (this.activeHistories.get(slot)) {
+                keptMembers.put(memberId, kept.size());
+                kept.add(this.histories.get(slot));
+            }
+        });
+        this.histories.clear();
+        this.histories.addAll(kept);
+        this.memberHistories = keptMembers;
+        this.activeHistories.clear();
+    }
+
+    private int increment(long bookId, long otherId) {
+        int row = this.bookRows.get(bookId, -1);
+        if (row < 0) {
+            row = this.rows.size();
+            this.bookRows.put(bookId, row);
+            this.rows.add(new LongIntHashMap(4));
+        }
+        return this.rows.get(row).addTo(otherId, 1);
+    }
+
+    private static int indexOf(long[] history, long bookId) {
+        for (int i = 0; i < history.length && history[i] != 0; i++) {
+            if (history[i] == bookId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void write(IOException[] failure, IoAction action) {
+        if (failure[0] == null) {
+            try {
+                action.run();
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        }
+    }
+
+    public record Related(long bookId, int count) {
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,348 @@
+package org.library.app.recommendation;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.library.app.event.LibraryEvent;
+import org.library.app.event.LibraryEventConsumer;
+import org.library.app.event.LibraryEventType;
+import org.library.app.exception.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/*
+ * "Members who borrowed this also borrowed" served from a CoBorrowingMatrix in memory. The matrix follows the borrow
+ * events; a maintenance thread decays it every decay-interval and writes it to snapshot-file every
+ * snapshot-interval and on shutdown, through a temporary file and an atomic move. The snapshot ends with the highest
+ * loan id applied to the matrix, replayed or carried by a borrow event. At startup the snapshot is read back and the loans after that id are replayed, or the
+ * matrix is rebuilt from t_member_books in id order when there is no snapshot (or snapshot-file is empty); it is
+ * rebuilt again after a library restore. A replay decays the matrix by the borrow times, as the maintenance thread
+ * would have, and only covers loans borrowed before it started: the borrow events from then on are set aside and
+ * added when the replayed matrix is swapped in. Loans committing out of id order can still be missed: one that commits
+ * after a snapshot already covers a higher id is not replayed at the next start.
+ * */
+@Slf4j
+@Component
+public class CoBorrowingRecommender implements LibraryEventConsumer {
+
+    private static final String LOANS = "SELECT id, member_id, book_id, c_borrowed_at FROM public.t_member_books " +
+            "WHERE member_id IS NOT NULL AND id > ? AND c_borrowed_at < ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int historySize;
+
+    private final long decayIntervalMillis;
+
+    private final double decayFactor;
+
+    private final Path snapshotFile;
+
+    private final long snapshotIntervalMillis;
+
+    private final int maxLimit;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CoBorrowingMatrix matrix;
+
+    // the highest loan id replayed into the matrix or carried by a borrow event applied since
+    private long lastLoanId;
+
+    // while loans are replayed, the borrow events from the replay's cutoff on, which its query leaves out
+    private List<LibraryEvent> borrowedDuringReplay;
+
+    private long replayCutoff;
+
+    private volatile boolean running;
+
+    private Thread maintenance;
+
+    public CoBorrowingRecommender(DataSource dataSource,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${library.co-borrowing.history-size:20}") int historySize,
+                                  @Value("${library.co-borrowing.decay-interval:7d}") Duration decayInterval,
+                                  @Value("${library.co-borrowing.decay-factor:0.5}") double decayFactor,
+                                  @Value("${library.co-borrowing.snapshot-file:}") String snapshotFile,
+                                  @Value("${library.co-borrowing.snapshot-interval:5m}") Duration snapshotInterval,
+                                  @Value("${library.co-borrowing.max-limit:100}") int maxLimit,
+                                  @Value("${library.co-borrowing.fetch-size:10000}") int fetchSize) {
+        if (decayFactor < 0 || decayFactor >= 1) {
+            throw new IllegalArgumentException("Decay factor must be in [0, 1)");
+        }
+        if (!decayInterval.isPositive()) {
+            throw new IllegalArgumentException("Decay interval must be positive");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.historySize = historySize;
+        this.decayIntervalMillis = decayInterval.toMillis();
+        this.decayFactor = decayFactor;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.snapshotIntervalMillis = snapshotInterval.toMillis();
+        this.maxLimit = maxLimit;
+        this.matrix = new CoBorrowingMatrix(historySize, System.currentTimeMillis());
+        Gauge.builder("library.co-borrowing.pairs", this, recommender -> recommender.read(CoBorrowingMatrix::pairs))
+                .register(meterRegistry);
+        Gauge.builder("library.co-borrowing.books", this, recommender -> recommender.read(CoBorrowingMatrix::books))
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "co-borrowing";
+    }
+
+    @Override
+    public void onBatch(List<LibraryEvent> events) {
+        this.lock.writeLock().lock();
+        try {
+            for (LibraryEvent event : events) {
+                if (event.type() == LibraryEventType.BOOK_BORROWED) {
+                    this.matrix.borrowed(event.memberId(), event.bookId());
+                    this.lastLoanId = Math.max(this.lastLoanId, event.loanId());
+                    if (this.borrowedDuringReplay != null && event.timestamp() >= this.replayCutoff) {
+                        this.borrowedDuringReplay.add(event);
+                    }
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public List<CoBorrowingMatrix.Related> related(long bookId, int limit) {
+        if (limit < 1 || limit > this.maxLimit) {
+            throw new InvalidRequestException("Limit must be between 1 and %d".formatted(this.maxLimit));
+        }
+        return read(matrix -> matrix.related(bookId, limit));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!load()) {
+            rebuild();
+        }
+        this.running = true;
+        this.maintenance = Thread.ofPlatform()
+                .name("co-borrowing-maintenance")
+                .daemon(true)
+                .start(this::maintain);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (this.maintenance == null) {
+            return;
+        }
+        this.running = false;
+        this.maintenance.interrupt();
+        this.maintenance.join(TimeUnit.SECONDS.toMillis(5));
+        snapshot();
+    }
+
+    /*
+     * Replays every loan into a new matrix and swaps it in.
+     * */
+    public void rebuild() {
+        long start = System.nanoTime();
+        CoBorrowingMatrix rebuilt = replay(null, 0);
+        log.info("Co-borrowing matrix rebuilt with {} pairs of {} books in {} ms", rebuilt.pairs(), rebuilt.books(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void decay(long now) {
+        this.lock.writeLock().lock();
+        try {
+            this.matrix.decay(this.decayFactor, now);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public void snapshot() {
+        if (this.snapshotFile == null) {
+            return;
+        }
+        Path temporary = this.snapshotFile.resolveSibling(this.snapshotFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(this.snapshotFile.toAbsolutePath().getParent());
+            try (DataOutputStream out =
+                         new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                this.lock.readLock().lock();
+                try {
+                    this.matrix.writeTo(out);
+                    out.writeLong(this.lastLoanId);
+                } finally {
+                    this.lock.readLock().unlock();
+                }
+            }
+            Files.move(temporary, this.snapshotFile, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to write the co-borrowing snapshot {}", this.snapshotFile, e);
+        }
+    }
+
+    private boolean load() {
+        if (this.snapshotFile == null || !Files.exists(this.snapshotFile)) {
+            return false;
+        }
+        CoBorrowingMatrix loaded;
+        long lastLoanId;
+        try (DataInputStream in =
+                     new DataInputStream(new BufferedInputStream(Files.newInputStream(this.snapshotFile)))) {
+            loaded = CoBorrowingMatrix.readFrom(in, this.historySize);
+            lastLoanId = in.readLong();
+        } catch (IOException e) {
+            log.warn("Failed to read the co-borrowing snapshot {}, rebuilding from the loans", this.snapshotFile, e);
+            return false;
+        }
+        replay(loaded, lastLoanId);
+        log.info("Co-borrowing matrix loaded with {} pairs of {} books from {} and the loans after {}",
+                loaded.pairs(), loaded.books(), this.snapshotFile, lastLoanId);
+        return true;
+    }
+
+    /*
+     * Replays the loans after afterLoanId that were borrowed before now into base, or into a new matrix when base is
+     * null, and swaps the result in together with the borrow events consumed meanwhile.
+     * */
+    private CoBorrowingMatrix replay(CoBorrowingMatrix base, long afterLoanId) {
+        long cutoff = System.currentTimeMillis();
+        this.lock.writeLock().lock();
+        try {
+            this.borrowedDuringReplay = new ArrayList<>();
+            this.replayCutoff = cutoff;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        Replay replay = new Replay(base, afterLoanId);
+        try {
+            this.jdbcTemplate.query(LOANS, replay, afterLoanId, timestamp(cutoff));
+        } catch (RuntimeException e) {
+            this.lock.writeLock().lock();
+            try {
+                this.borrowedDuringReplay = null;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        CoBorrowingMatrix replayed = replay.matrix == null
+                ? new CoBorrowingMatrix(this.historySize, cutoff)
+                : replay.decayTo(cutoff);
+        this.lock.writeLock().lock();
+        try {
+            long lastLoanId = replay.lastLoanId;
+            for (LibraryEvent event : this.borrowedDuringReplay) {
+                replayed.borrowed(event.memberId(), event.bookId());
+                lastLoanId = Math.max(lastLoanId, event.loanId());
+            }
+            this.borrowedDuringReplay = null;
+            this.matrix = replayed;
+            this.lastLoanId = lastLoanId;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        return replayed;
+    }
+
+    private static OffsetDateTime timestamp(long epochMillis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private void maintain() {
+        long nextSnapshot = System.currentTimeMillis() + this.snapshotIntervalMillis;
+        while (this.running) {
+            long now = System.currentTimeMillis();
+            long nextDecay = read(CoBorrowingMatrix::decayedAt) + this.decayIntervalMillis;
+            if (now >= nextDecay) {
+                decay(now);
+                continue;
+            }
+            if (now >= nextSnapshot) {
+                snapshot();
+                nextSnapshot = now + this.snapshotIntervalMillis;
+                continue;
+            }
+            try {
+                Thread.sleep(Math.min(nextDecay, nextSnapshot) - now);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private <T> T read(Function<CoBorrowingMatrix, T> query) {
+        this.lock.readLock().lock();
+        try {
+            return query.apply(this.matrix);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Feeds loans in id order into the matrix, first decaying it by decay-factor for every decay-interval that passed
+     * between its last decay and the loan's borrow time.
+     * */
+    private final class Replay implements RowCallbackHandler {
+
+        private CoBorrowingMatrix matrix;
+
+        private long lastLoanId;
+
+        private Replay(CoBorrowingMatrix matrix, long lastLoanId) {
+            this.matrix = matrix;
+            this.lastLoanId = lastLoanId;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long borrowedAt = rs.getObject(4, OffsetDateTime.class).toInstant().toEpochMilli();
+            if (this.matrix == null) {
+                this.matrix = new CoBorrowingMatrix(CoBorrowingRecommender.this.historySize, borrowedAt);
+            }
+            decayTo(borrowedAt).borrowed(rs.getLong(2), rs.getLong(3));
+            this.lastLoanId = rs.getLong(1);
+        }
+
+        private CoBorrowingMatrix decayTo(long time) {
+            long interval = CoBorrowingRecommender.this.decayIntervalMillis;
+            long intervals = (time - this.matrix.decayedAt()) / interval;
+            if (intervals > 0) {
+                this.matrix.decay(Math.pow(CoBorrowingRecommender.this.decayFactor, intervals),
+                        this.matrix.decayedAt() + intervals * interval);
+            }
+            return this.matrix;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.library.app.recommendation;
+
+import java.util.function.IntUnaryOperator;
+
+/*
+ * Open addressing long -> int map with linear probing over two parallel arrays, so an entry costs 12 bytes instead of
+ * a HashMap node with a boxed Long and Integer. Key 0 marks a free slot and cannot be stored, which suits the ids it
+ * is meant for. Entries only leave through updateValues, which rebuilds the arrays, so there are no tombstones.
+ * Not thread-safe.
+ * */
+public class LongIntHashMap {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int mask;
+
+    private int size;
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int get(long key, int missing) {
+        int slot = find(key);
+        return slot < 0 ? missing : this.values[slot];
+    }
+
+    public void put(long key, int value) {
+        int slot = insertionSlot(key);
+        this.values[slot] = value;
+    }
+
+    /*
+     * Adds delta to the value of key, treating a missing key as 0, and returns the new value.
+     * */
+    public int addTo(long key, int delta) {
+        int slot = insertionSlot(key);
+        return this.values[slot] += delta;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            if (this.keys[slot] != 0) {
+                consumer.accept(this.keys[slot], this.values[slot]);
+            }
+        }
+    }
+
+    /*
+     * Replaces every value with operator(value) and drops the entries that end up at 0 or below, then shrinks the
+     * arrays to fit the remaining entries.
+     * */
+    public void updateValues(IntUnaryOperator operator) {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        int kept = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                oldValues[slot] = operator.applyAsInt(oldValues[slot]);
+                if (oldValues[slot] > 0) {
+                    kept++;
+                }
+            }
+        }
+        allocate(capacityFor(kept));
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0 && oldValues[slot] > 0) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private int find(long key) {
+        for (int slot = home(key); ; slot = (slot + 1) & this.mask) {
+            if (this.keys[slot] == key) {
+                return slot;
+            }
+            if (this.keys[slot] == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private int insertionSlot(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 cannot be stored");
+        }
+        int slot = home(key);
+        while (this.keys[slot] != 0) {
+            if (this.keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        if ((this.size + 1) * 3 > this.keys.length * 2) {
+            grow();
+            return insertionSlot(key);
+        }
+        this.keys[slot] = key;
+        this.size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        allocate(oldKeys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.size = 0;
+    }
+
+    private int home(long key) {
+        long hash = key * GOLDEN_RATIO;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    // the smallest power of two that keeps expectedSize entries under the 2/3 load factor
+    private static int capacityFor(int expectedSize) {
+        int capacity = 4;
+        while (capacity * 2 < expectedSize * 3) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,62 @@
+package org.library.app.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.library.app.entity.AuthorStatsEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AuthorStatsRepository extends CrudRepository<AuthorStatsEntity, String> {
+
+    @Modifying
+    @Query("UPDATE AuthorStatsEntity a SET a.titles = a.titles + :titles, a.copies = a.copies + :copies, " +
+            "a.onLoan = a.onLoan + :onLoan WHERE a.author = :author")
+    int increment(@Param("author") String author, @Param("titles") long titles, @Param("copies") long copies,
+                  @Param("onLoan") long onLoan);
+
+    /*
+     * Creates the author's row with zero totals unless it exists or another transaction is inserting it; in the
+     * latter case it waits for that transaction instead of failing on the primary key, so the increment that follows
+     * always finds the row. The query space keeps Hibernate from evicting every cached entity after it.
+     * */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "t_author_stats"))
+    @Query(value = "INSERT INTO public.t_author_stats (c_author, c_titles, c_copies, c_on_loan) " +
+            "VALUES (:author, 0, 0, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("author") String author);
+
+    @Modifying
+    @Query("DELETE FROM AuthorStatsEntity a WHERE a.author = :author AND a.titles <= 0")
+    int deleteIfEmpty(@Param("author") String author);
+
+    List<AuthorStatsEntity> findByAuthorGreaterThanOrderByAuthor(String afterAuthor, Limit limit);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "t_author_stats"))
+    @Query(value = "DELETE FROM public.t_author_stats", nativeQuery = true)
+    void deleteAllStats();
+
+    /*
+     * Skips the authors another node inserted meanwhile, so two nodes filling an empty table at startup do not fail
+     * on the primary key.
+     * */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "t_author_stats"))
+    @Query(value = """
+            INSERT INTO public.t_author_stats (c_author, c_titles, c_copies, c_on_loan)
+            SELECT b.c_author, COUNT(*), SUM(b.c_amount + COALESCE(l.on_loan, 0)), SUM(COALESCE(l.on_loan, 0))
+            FROM public.t_book b
+            LEFT JOIN (SELECT book_id, COUNT(*) AS on_loan FROM public.t_member_books
+                       WHERE c_returned_at IS NULL GROUP BY book_id) l ON l.book_id = b.id
+            GROUP BY b.c_author
+            ON CONFLICT DO NOTHING""", nativeQuery = true)
+    int insertFromBooks();
+}
@@ -0,0 +1,44 @@
+package org.library.app.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/*
+ * Borrowed-book reports over t_member_books, run on the analytics connection pool rather than through JPA (whose
+ * EntityManager is bound to the main pool). Every statement carries the configured query timeout.
+ * */
+@Repository
+public class BorrowedBooksReportRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BorrowedBooksReportRepository(
+            @Qualifier("analyticsDataSource") DataSource dataSource,
+            @Value("${library.bulkhead.analytics.statement-timeout:5s}") Duration statementTimeout) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setQueryTimeout((int) Math.max(1, statementTimeout.toSeconds()));
+    }
+
+    public List<String> findDistinctBorrowedBookTitles() {
+        return this.jdbcTemplate.queryForList("""
+                SELECT DISTINCT b.c_title
+                FROM public.t_member_books l
+                JOIN public.t_book b ON b.id = l.book_id
+                WHERE l.c_returned_at IS NULL""", String.class);
+    }
+
+    public List<Object[]> findDistinctBorrowedBooksAndCounts() {
+        return this.jdbcTemplate.query("""
+                SELECT b.c_title, COUNT(DISTINCT b.id)
+                FROM public.t_member_books l
+                JOIN public.t_book b ON b.id = l.book_id
+                WHERE l.c_returned_at IS NULL
+                GROUP BY b.c_title""", (rs, rowNum) -> new Object[]{rs.getString(1), rs.getLong(2)});
+    }
+}
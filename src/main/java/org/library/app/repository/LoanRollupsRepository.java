@@ -0,0 +1,42 @@
+package org.library.app.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.library.app.analytics.TimeWindow;
+import org.library.app.entity.LoanRollupEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface LoanRollupsRepository extends CrudRepository<LoanRollupEntity, Long> {
+
+    /*
+     * Creates the bucket with zero totals unless a row exists or a concurrent transaction is inserting it; in the
+     * latter case it waits for that transaction instead of failing on the unique bucket, so the increment that
+     * follows always finds the row. The query space keeps Hibernate from evicting every cached entity after it.
+     * */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "t_loan_rollup"))
+    @Query(value = "INSERT INTO public.t_loan_rollup " +
+            "(c_granularity, c_bucket_start, c_borrows, c_returns, c_loan_duration_total) " +
+            "VALUES (:granularity, :bucketStart, 0, 0, 0) ON CONFLICT DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("granularity") String granularity, @Param("bucketStart") Instant bucketStart);
+
+    @Modifying
+    @Query("UPDATE LoanRollupEntity r SET r.borrows = r.borrows + :borrows, r.returns = r.returns + :returns, " +
+            "r.loanDurationTotal = r.loanDurationTotal + :loanDuration " +
+            "WHERE r.granularity = :granularity AND r.bucketStart = :bucketStart")
+    int increment(@Param("granularity") TimeWindow granularity, @Param("bucketStart") Instant bucketStart,
+                  @Param("borrows") long borrows, @Param("returns") long returns,
+                  @Param("loanDuration") long loanDuration);
+
+    List<LoanRollupEntity> findByGranularityAndBucketStartBetweenOrderByBucketStart(
+            TimeWindow granularity, Instant from, Instant to);
+}
@@ -0,0 +1,30 @@
+package org.library.app.repository;
+
+import org.library.app.entity.LoanEntity;
+import org.library.app.repository.projection.OverdueLoan;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LoansRepository extends CrudRepository<LoanEntity, Long> {
+
+    boolean existsByMemberIdAndReturnedAtIsNull(Long memberId);
+
+    long countByBookIdAndReturnedAtIsNull(Long bookId);
+
+    @Modifying
+    @Query("UPDATE LoanEntity l SET l.member = NULL WHERE l.member.id = :memberId")
+    void detachMember(@Param("memberId") Long memberId);
+
+    @Query("""
+            SELECT new org.library.app.repository.projection.OverdueLoan(l.id, b.id, b.title, b.author, l.borrowedAt, l.dueAt)
+            FROM LoanEntity l JOIN l.book b
+            WHERE l.member.id = :memberId AND l.returnedAt IS NULL AND l.overdue = TRUE
+            ORDER BY l.dueAt, l.id""")
+    List<OverdueLoan> findOverdueByMemberId(@Param("memberId") Long memberId);
+}
@@ -0,0 +1,60 @@
+package org.library.app.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.library.app.repository.projection.MemberSummary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/*
+ * Member pages in id order after an id cursor. Only the filters a request supplies go into the WHERE clause, so the
+ * unfiltered page is the id range scan alone and the planner never sees a catch-all date range or LIKE '%'.
+ * */
+@Repository
+public class MemberPageRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public List<MemberSummary> findPage(long afterId, LocalDate createdFrom, LocalDate createdTo, String namePrefix,
+                                        int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT new org.library.app.repository.projection.MemberSummary(" +
+                "m.id, m.name, m.creationDate) FROM MemberEntity m WHERE m.id > :afterId");
+        if (createdFrom != null) {
+            jpql.append(" AND m.creationDate >= :createdFrom");
+        }
+        if (createdTo != null) {
+            jpql.append(" AND m.creationDate <= :createdTo");
+        }
+        if (namePrefix != null) {
+            jpql.append(" AND m.name LIKE :namePattern ESCAPE '\\'");
+        }
+        TypedQuery<MemberSummary> query = this.entityManager
+                .createQuery(jpql.append(" ORDER BY m.id").toString(), MemberSummary.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit);
+        if (createdFrom != null) {
+            query.setParameter("createdFrom", Date.valueOf(createdFrom));
+        }
+        if (createdTo != null) {
+            query.setParameter("createdTo", Date.valueOf(createdTo));
+        }
+        if (namePrefix != null) {
+            query.setParameter("namePattern", namePattern(namePrefix));
+        }
+        return query.getResultList();
+    }
+
+    /*
+     * LIKE pattern matching names that start with the prefix, with its wildcards and escape character escaped.
+     * */
+    public static String namePattern(String namePrefix) {
+        return namePrefix.replaceAll("([\\\\%_])", "\\\\$1") + "%";
+    }
+}
@@ -1,29 +1,48 @@
 package org.library.app.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.library.app.entity.BookEntity;
 import org.library.app.entity.MemberEntity;
+import org.library.app.repository.projection.MemberLoanRow;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface MembersRepository extends CrudRepository<MemberEntity, Long> {
 
     boolean existsByName(String name);
 
-    boolean existsByIdAndBorrowedBooksIsEmpty(Long id);
-
-    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END " +
-            "FROM BookEntity b JOIN b.members m " +
-            "WHERE b.id = :bookId AND m.id = :memberId")
-    boolean existsByBookIdAndMemberId(@Param("bookId") Long bookId, @Param("memberId") Long memberId);
+    <S extends MemberEntity> S saveAndFlush(S entity);
 
     Optional<MemberEntity> findByName(String name);
 
-    @Query("SELECT b FROM BookEntity b JOIN b.members m WHERE m.name = :memberName")
+    @Query("SELECT l.book FROM LoanEntity l WHERE l.member.name = :memberName AND l.returnedAt IS NULL")
     List<BookEntity> findBooksBorrowedByMemberName(@Param("memberName") String memberName);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new org.library.app.repository.projection.MemberLoanRow(" +
+            "m.id, m.name, m.creationDate, b.id, b.title, b.author, l.borrowedAt) " +
+            "FROM MemberEntity m " +
+            "LEFT JOIN LoanEntity l ON l.member = m AND l.returnedAt IS NULL " +
+            "LEFT JOIN l.book b " +
+            "ORDER BY m.id, l.id")
+    Stream<MemberLoanRow> streamMembersWithOpenLoans();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m.name FROM MemberEntity m")
+    Stream<String> streamAllNames();
 }
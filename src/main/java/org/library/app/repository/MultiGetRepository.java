@@ -0,0 +1,57 @@
+package org.library.app.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.library.app.exception.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * Loads entities for a list of ids through Hibernate's multi-id loader: ids already in the persistence context or the
+ * second-level cache are resolved there, the rest are read with one `id IN (...)` (or `= ANY(?)`) statement per
+ * chunk of batchSize ids, and the result lines up with the ids, holding null where an entity does not exist.
+ * Callers pass the ids through distinctIds first.
+ * */
+@Repository
+public class MultiGetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int batchSize;
+
+    private final int maxIds;
+
+    public MultiGetRepository(@Value("${library.multi-get.batch-size:500}") int batchSize,
+                              @Value("${library.multi-get.max-ids:1000}") int maxIds) {
+        this.batchSize = batchSize;
+        this.maxIds = maxIds;
+    }
+
+    /*
+     * The requested ids without nulls and repeats, in request order; between 1 and max-ids of them are accepted.
+     * */
+    public List<Long> distinctIds(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty() || distinctIds.size() > this.maxIds) {
+            throw new InvalidRequestException("Between 1 and %d ids are expected".formatted(this.maxIds));
+        }
+        return distinctIds;
+    }
+
+    @Transactional(readOnly = true)
+    public <T> List<T> findAllByIdInOrder(Class<T> entityType, List<Long> ids) {
+        return this.entityManager.unwrap(Session.class)
+                .byMultipleIds(entityType)
+                .with(CacheMode.NORMAL)
+                .withBatchSize(this.batchSize)
+                .enableOrderedReturn(true)
+                .multiLoad(ids);
+    }
+}
@@ -0,0 +1,42 @@
+package org.library.app.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/*
+ * Indexes that an @Index cannot declare because they need a PostgreSQL operator class. The unique index on c_name
+ * follows the database collation, which LIKE 'prefix%' cannot use outside the C locale; text_pattern_ops compares
+ * byte-wise so the namePrefix filters of the member pages become a range scan. On other databases nothing is created.
+ * */
+@Slf4j
+@Component
+public class PostgresIndexes {
+
+    private static final String[] STATEMENTS = {
+            "CREATE INDEX IF NOT EXISTS idx_member_name_pattern ON public.t_member (c_name text_pattern_ops)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresIndexes(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void create() {
+        String database = this.jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(database)) {
+            for (String statement : STATEMENTS) {
+                this.jdbcTemplate.execute(statement);
+            }
+            log.info("PostgreSQL specific indexes are in place");
+        }
+    }
+}
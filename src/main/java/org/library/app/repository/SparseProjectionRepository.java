@@ -0,0 +1,92 @@
+package org.library.app.repository;
+
+import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.MemberDTO;
+import org.library.app.fields.BookField;
+import org.library.app.fields.MemberField;
+import org.library.app.fields.SparseFields;
+import org.library.app.repository.projection.MemberSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+ * Reads books and members selecting only the columns of a sparse fieldset. Column names come from the BookField and
+ * MemberField constants, never from the request, so they can be put into the statement text; the fields that were
+ * not asked for stay null in the returned DTOs.
+ * */
+@Repository
+public class SparseProjectionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SparseProjectionRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public List<BookDTO> findAllBooks(Set<BookField> fields) {
+        return this.jdbcTemplate.query("SELECT %s FROM public.t_book ORDER BY id"
+                .formatted(SparseFields.columns(fields)), bookMapper(fields));
+    }
+
+    public Optional<BookDTO> findBookById(long id, Set<BookField> fields) {
+        return this.jdbcTemplate.query("SELECT %s FROM public.t_book WHERE id = ?"
+                .formatted(SparseFields.columns(fields)), bookMapper(fields), id).stream().findFirst();
+    }
+
+    public Optional<MemberDTO> findMemberById(long id, Set<MemberField> fields) {
+        return this.jdbcTemplate.query("SELECT %s FROM public.t_member WHERE id = ?"
+                        .formatted(SparseFields.columns(fields)),
+                (rs, rowNum) -> new MemberDTO(
+                        fields.contains(MemberField.NAME) ? rs.getString(MemberField.NAME.column()) : null,
+                        fields.contains(MemberField.CREATION_DATE)
+                                ? rs.getDate(MemberField.CREATION_DATE.column()) : null),
+                id).stream().findFirst();
+    }
+
+    /*
+     * Same page as MemberPageRepository.findPage, with only the supplied filters in the WHERE clause; the id is
+     * always read because it is the cursor.
+     * */
+    public List<MemberSummary> findMembersPage(long afterId, LocalDate createdFrom, LocalDate createdTo,
+                                               String namePrefix, int limit, Set<MemberField> fields) {
+        StringBuilder sql = new StringBuilder("SELECT id, %s FROM public.t_member WHERE id > ?"
+                .formatted(SparseFields.columns(fields)));
+        List<Object> args = new ArrayList<>(5);
+        args.add(afterId);
+        if (createdFrom != null) {
+            sql.append(" AND c_creation_date >= ?");
+            args.add(Date.valueOf(createdFrom));
+        }
+        if (createdTo != null) {
+            sql.append(" AND c_creation_date <= ?");
+            args.add(Date.valueOf(createdTo));
+        }
+        if (namePrefix != null) {
+            sql.append(" AND c_name LIKE ? ESCAPE '\\'");
+            args.add(MemberPageRepository.namePattern(namePrefix));
+        }
+        args.add(limit);
+        return this.jdbcTemplate.query(sql.append(" ORDER BY id LIMIT ?").toString(),
+                (rs, rowNum) -> new MemberSummary(rs.getLong("id"),
+                        fields.contains(MemberField.NAME) ? rs.getString(MemberField.NAME.column()) : null,
+                        fields.contains(MemberField.CREATION_DATE)
+                                ? rs.getDate(MemberField.CREATION_DATE.column()) : null),
+                args.toArray());
+    }
+
+    private static RowMapper<BookDTO> bookMapper(Set<BookField> fields) {
+        return (rs, rowNum) -> new BookDTO(
+                fields.contains(BookField.TITLE) ? rs.getString(BookField.TITLE.column()) : null,
+                fields.contains(BookField.AUTHOR) ? rs.getString(BookField.AUTHOR.column()) : null,
+                fields.contains(BookField.AMOUNT) ? rs.getObject(BookField.AMOUNT.column(), Integer.class) : null);
+    }
+}
@@ -0,0 +1,8 @@
+package org.library.app.repository.projection;
+
+import java.time.Instant;
+import java.util.Date;
+
+public record MemberLoanRow(Long memberId, String memberName, Date creationDate,
+                            Long bookId, String title, String author, Instant borrowedAt) {
+}
@@ -0,0 +1,6 @@
+package org.library.app.repository.projection;
+
+import java.util.Date;
+
+public record MemberSummary(Long id, String name, Date creationDate) {
+}
@@ -0,0 +1,6 @@
+package org.library.app.repository.projection;
+
+import java.time.Instant;
+
+public record OverdueLoan(Long loanId, Long bookId, String title, String author, Instant borrowedAt, Instant dueAt) {
+}
@@ -0,0 +1,95 @@
+package org.library.app.service;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.library.app.controller.dto.AuthorDTO;
+import org.library.app.controller.dto.AuthorsPageDTO;
+import org.library.app.controller.dto.BookByIdDTO;
+import org.library.app.entity.AuthorStatsEntity;
+import org.library.app.repository.AuthorStatsRepository;
+import org.library.app.repository.BooksRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+ * Authors and their totals from t_author_stats, and their books through idx_book_author, so neither reads more than
+ * the rows it returns. The book and loan operations call record() in their own transaction; rebuild() recomputes the
+ * whole table from t_book and t_member_books for the writes that bypass them (restore, data generation) and fills it
+ * at startup when it is still empty.
+ * */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuthorService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final AuthorStatsRepository statsRepository;
+
+    private final BooksRepository booksRepository;
+
+    public AuthorsPageDTO getAuthorsPage(String afterAuthor, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        List<AuthorStatsEntity> authors = this.statsRepository.findByAuthorGreaterThanOrderByAuthor(
+                afterAuthor == null ? "" : afterAuthor, Limit.of(pageSize + 1));
+        String nextAfter = authors.size() > pageSize ? authors.get(pageSize - 1).getAuthor() : null;
+        return new AuthorsPageDTO(authors.stream()
+                .limit(pageSize)
+                .map(author -> new AuthorDTO(author.getAuthor(), author.getTitles(), author.getCopies(),
+                        author.getOnLoan()))
+                .toList(), nextAfter);
+    }
+
+    public List<BookByIdDTO> getBooksByAuthor(String author) {
+        List<BookByIdDTO> books = this.booksRepository.findByAuthorOrderByTitleAscIdAsc(author).stream()
+                .map(book -> new BookByIdDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getAmount()))
+                .toList();
+        if (books.isEmpty()) {
+            throw new NoSuchElementException("Author not found");
+        }
+        return books;
+    }
+
+    /*
+     * Adds the deltas to the author's totals, creating the row for a new author and dropping it once the author has
+     * no titles left. Must run in the transaction that changes the books or loans. Two nodes may add the first book
+     * of an author at once; ON CONFLICT DO UPDATE would do this in one statement but H2 only accepts
+     * ON CONFLICT DO NOTHING. Only a new title can be an author's first, so the other changes skip the insert unless
+     * the row is missing.
+     * */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void record(String author, long titles, long copies, long onLoan) {
+        if (titles > 0) {
+            this.statsRepository.insertIfAbsent(author);
+        }
+        if (this.statsRepository.increment(author, titles, copies, onLoan) == 0) {
+            this.statsRepository.insertIfAbsent(author);
+            this.statsRepository.increment(author, titles, copies, onLoan);
+        }
+        if (titles < 0) {
+            this.statsRepository.deleteIfEmpty(author);
+        }
+    }
+
+    @Transactional
+    public void rebuild() {
+        long start = System.nanoTime();
+        this.statsRepository.deleteAllStats();
+        int authors = this.statsRepository.insertFromBooks();
+        log.info("Author totals rebuilt for {} authors in {} ms", authors, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (this.statsRepository.count() == 0 && this.booksRepository.count() > 0) {
+            rebuild();
+        }
+    }
+}
@@ -2,17 +2,45 @@ package org.library.app.service;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.library.app.analytics.SpaceSavingSketch;
+import org.library.app.analytics.TimeWindow;
+import org.library.app.analytics.TopBorrowedBooksTracker;
+import org.library.app.bulkhead.Bulkhead;
+import org.library.app.cache.CacheInvalidationPublisher;
+import org.library.app.cache.CacheRegions;
+import org.library.app.controller.dto.BookByIdDTO;
 import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.BooksByIdsDTO;
+import org.library.app.controller.dto.RelatedBookDTO;
+import org.library.app.controller.dto.TopBookDTO;
+import org.library.app.controller.dto.TopBooksDTO;
 import org.library.app.controller.payload.NewBookPayload;
 import org.library.app.entity.BookEntity;
+import org.library.app.event.LibraryEventPublisher;
+import org.library.app.event.LibraryEventType;
 import org.library.app.exception.BookIsOverException;
+import org.library.app.fields.BookField;
+import org.library.app.jfr.AnalyticsQueryEvent;
+import org.library.app.jfr.CreateBookEvent;
+import org.library.app.jfr.LibraryOperationEvent;
+import org.library.app.recommendation.CoBorrowingRecommender;
 import org.library.app.repository.BooksRepository;
+import org.library.app.repository.BorrowedBooksReportRepository;
+import org.library.app.repository.LoansRepository;
+import org.library.app.repository.MultiGetRepository;
+import org.library.app.repository.SparseProjectionRepository;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -22,6 +50,26 @@ public class BooksService {
 
     private final BooksRepository repository;
 
+    private final LibraryEventPublisher eventPublisher;
+
+    private final TopBorrowedBooksTracker topBorrowedBooksTracker;
+
+    private final BorrowedBooksReportRepository reportRepository;
+
+    private final Bulkhead analyticsBulkhead;
+
+    private final CacheInvalidationPublisher cacheInvalidation;
+
+    private final MultiGetRepository multiGetRepository;
+
+    private final SparseProjectionRepository sparseProjectionRepository;
+
+    private final CoBorrowingRecommender coBorrowingRecommender;
+
+    private final AuthorService authorService;
+
+    private final LoansRepository loansRepository;
+
     public List<BookDTO> getAllBooks() {
         Iterable<BookEntity> bookEntities = this.repository.findAll();
         return StreamSupport.stream(bookEntities.spliterator(), false)
@@ -29,6 +77,40 @@ public class BooksService {
                 .collect(Collectors.toList());
     }
 
+    /*
+     * Books in the order of the distinct requested ids; ids without a book are listed in `missing`.
+     * */
+    public BooksByIdsDTO getBooksByIds(List<Long> ids) {
+        List<Long> distinctIds = this.multiGetRepository.distinctIds(ids);
+        List<BookEntity> entities = this.multiGetRepository.findAllByIdInOrder(BookEntity.class, distinctIds);
+        List<BookByIdDTO> books = new ArrayList<>(entities.size());
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            BookEntity entity = entities.get(i);
+            if (entity == null) {
+                missing.add(distinctIds.get(i));
+            } else {
+                books.add(new BookByIdDTO(entity.getId(), entity.getTitle(), entity.getAuthor(), entity.getAmount()));
+            }
+        }
+        return new BooksByIdsDTO(books, missing);
+    }
+
+    /*
+     * Selects only the columns of the fieldset; the full list is served from the BookCatalog instead.
+     * */
+    public List<BookDTO> getAllBooks(Set<BookField> fields) {
+        return this.sparseProjectionRepository.findAllBooks(fields);
+    }
+
+    public BookDTO getBookById(Long id, Set<BookField> fields) {
+        if (fields == null) {
+            return getBookById(id);
+        }
+        return this.sparseProjectionRepository.findBookById(id, fields)
+                .orElseThrow(() -> new NoSuchElementException("Book not found"));
+    }
+
     public BookDTO getBookById(Long id) {
         return repository.findById(id)
                 .map(entity ->
@@ -38,27 +120,43 @@ public class BooksService {
 
     @Transactional
     public BookDTO createBook(NewBookPayload bookPayload) {
-        this.repository.findByTitleAndAuthor(bookPayload.title(), bookPayload.author())
-                .ifPresentOrElse(bookEntity -> {
-                            bookEntity.setAmount(bookEntity.getAmount() + 1);
-                            repository.save(bookEntity);
-                        }, () -> repository.save(new BookEntity(
-                                null, bookPayload.title(), bookPayload.author(), 1, new HashSet<>())
-                        )
-                );
-
-        return new BookDTO(bookPayload.title(), bookPayload.author(),
-                this.repository.findByTitleAndAuthor(bookPayload.title(), bookPayload.author()).get().getAmount()
-        );
+        CreateBookEvent event = new CreateBookEvent();
+        return LibraryOperationEvent.record(event, () -> {
+            this.repository.findByTitleAndAuthor(bookPayload.title(), bookPayload.author())
+                    .ifPresentOrElse(bookEntity -> {
+                                bookEntity.setAmount(bookEntity.getAmount() + 1);
+                                repository.save(bookEntity);
+                                authorService.record(bookPayload.author(), 0, 1, 0);
+                            }, () -> {
+                                repository.save(new BookEntity(
+                                        null, bookPayload.title(), bookPayload.author(), 1, new HashSet<>()));
+                                authorService.record(bookPayload.author(), 1, 1, 0);
+                            }
+                    );
+
+            BookEntity book = this.repository.findByTitleAndAuthor(bookPayload.title(), bookPayload.author()).get();
+            event.book(book.getId(), book.getAmount());
+            this.eventPublisher.publishAfterCommit(LibraryEventType.BOOK_CREATED, 0, book.getId());
+            this.cacheInvalidation.invalidateAfterCommit(CacheRegions.BOOK, book.getId());
+            return new BookDTO(bookPayload.title(), bookPayload.author(), book.getAmount());
+        });
     }
 
     @Transactional
     public void updateBook(Long id, NewBookPayload bookPayload) {
         this.repository.findById(id)
                 .ifPresentOrElse(book -> {
+                    String previousAuthor = book.getAuthor();
                     book.setTitle(bookPayload.title());
                     book.setAuthor(bookPayload.author());
                     repository.save(book);
+                    if (!previousAuthor.equals(bookPayload.author())) {
+                        long onLoan = loansRepository.countByBookIdAndReturnedAtIsNull(id);
+                        authorService.record(previousAuthor, -1, -(book.getAmount() + onLoan), -onLoan);
+                        authorService.record(bookPayload.author(), 1, book.getAmount() + onLoan, onLoan);
+                    }
+                    eventPublisher.publishAfterCommit(LibraryEventType.BOOK_UPDATED, 0, id);
+                    cacheInvalidation.invalidateAfterCommit(CacheRegions.BOOK, id);
                 }, () -> {
                     throw new NoSuchElementException("Book not found");
                 });
@@ -71,6 +169,9 @@ public class BooksService {
                     if (book.getAmount() > 0) {
                         book.setAmount(book.getAmount() - 1);
                         repository.save(book);
+                        authorService.record(book.getAuthor(), 0, -1, 0);
+                        eventPublisher.publishAfterCommit(LibraryEventType.BOOK_DELETED, 0, id);
+                        cacheInvalidation.invalidateAfterCommit(CacheRegions.BOOK, id);
                     } else {
                         throw new BookIsOverException("This book amount is over");
                     }
@@ -79,13 +180,64 @@ public class BooksService {
                 });
     }
 
-    public List<String> getAllDistinctBorrowedBooks() {
-        return this.repository.findDistinctBorrowedBookTitles();
+    public CompletableFuture<List<String>> getAllDistinctBorrowedBooks() {
+        return analyticsQuery("distinct-borrowed-books", this.reportRepository::findDistinctBorrowedBookTitles);
+    }
+
+    public CompletableFuture<List<String>> getAllBorrowedBooksAndCountWasBorrowed() {
+        return analyticsQuery("borrowed-books-counts", this.reportRepository::findDistinctBorrowedBooksAndCounts)
+                .thenApply(books -> books.stream()
+                        .map(book -> "Book name: " + book[0].toString() + ", Book count that borrowed: " + book[1].toString())
+                        .toList());
+    }
+
+    /*
+     * Runs a report on the analytics bulkhead; everything the report repository does is JDBC, so its whole run counts
+     * as the event's database time.
+     * */
+    private <T> CompletableFuture<List<T>> analyticsQuery(String name, Supplier<List<T>> query) {
+        AnalyticsQueryEvent event = new AnalyticsQueryEvent(name);
+        event.start();
+        long[] dbTime = new long[1];
+        return this.analyticsBulkhead.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                return query.get();
+            } finally {
+                dbTime[0] = System.nanoTime() - start;
+            }
+        }).whenComplete((rows, error) -> {
+            if (rows != null) {
+                event.rows(rows.size());
+            }
+            event.finish(dbTime[0], error);
+        });
+    }
+
+    public TopBooksDTO getTopBorrowedBooks(TimeWindow window, int limit) {
+        AnalyticsQueryEvent event = new AnalyticsQueryEvent("top-borrowed-books");
+        return LibraryOperationEvent.record(event, () -> {
+            TopBorrowedBooksTracker.WindowTop top =
+                    this.topBorrowedBooksTracker.top(window, limit, System.currentTimeMillis());
+            Map<Long, String> titles = StreamSupport.stream(this.repository.findAllById(
+                            top.entries().stream().map(SpaceSavingSketch.Entry::item).toList()).spliterator(), false)
+                    .collect(Collectors.toMap(BookEntity::getId, BookEntity::getTitle));
+            event.rows(top.entries().size());
+            return new TopBooksDTO(window.name(), Instant.ofEpochMilli(top.start()), Instant.ofEpochMilli(top.end()),
+                    top.total(), top.maxError(),
+                    top.entries().stream()
+                            .map(entry -> new TopBookDTO(entry.item(), titles.get(entry.item()), entry.count(), entry.error()))
+                            .toList());
+        });
     }
 
-    public List<String> getAllBorrowedBooksAndCountWasBorrowed() {
-        return this.repository.findDistinctBorrowedBooksAndCounts()
-                .stream().map(book -> "Book name: " + book[0].toString() + ", Book count that borrowed: " + book[1].toString())
+    /*
+     * Served from memory only: a book id that was never borrowed together with another book, or does not exist, gets
+     * an empty list.
+     * */
+    public List<RelatedBookDTO> getRelatedBooks(long bookId, int limit) {
+        return this.coBorrowingRecommender.related(bookId, limit).stream()
+                .map(related -> new RelatedBookDTO(related.bookId(), related.count()))
                 .toList();
     }
 }
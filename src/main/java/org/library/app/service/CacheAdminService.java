@@ -0,0 +1,57 @@
+package org.library.app.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.library.app.cache.CacheRegions;
+import org.library.app.controller.dto.CacheRegionStatsDTO;
+import org.springframework.stereotype.Service;
+
+import javax.cache.CacheManager;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/*
+ * Hits, misses and puts are Hibernate's view of the region (a soft-locked entry counts as a miss).
+ * Evictions are only known to the cache itself and are read from its JCache statistics MBean.
+ * */
+@Service
+@RequiredArgsConstructor
+public class CacheAdminService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final CacheManager secondLevelCacheManager;
+
+    public List<CacheRegionStatsDTO> getRegionStatistics() {
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return CacheRegions.ALL.stream()
+                .map(region -> {
+                    CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+                    long hits = regionStatistics.getHitCount();
+                    long misses = regionStatistics.getMissCount();
+                    return new CacheRegionStatsDTO(region, hits, misses,
+                            hits + misses == 0 ? null : (double) hits / (hits + misses),
+                            regionStatistics.getPutCount(), evictions(region));
+                })
+                .toList();
+    }
+
+    private long evictions(String region) {
+        try {
+            ObjectName name = new ObjectName("javax.cache:type=CacheStatistics,CacheManager=%s,Cache=%s".formatted(
+                    sanitize(this.secondLevelCacheManager.getURI().toString()), sanitize(region)));
+            return (Long) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "CacheEvictions");
+        } catch (JMException e) {
+            return -1;
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[,:=\n]", ".");
+    }
+}
@@ -0,0 +1,154 @@
+package org.library.app.service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.library.app.controller.dto.FlightRecordingDTO;
+import org.library.app.exception.AlreadyRunningException;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.jfr.AnalyticsQueryEvent;
+import org.library.app.jfr.BorrowEvent;
+import org.library.app.jfr.CreateBookEvent;
+import org.library.app.jfr.ReturnEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+ * At most one flight recording at a time, bounded in length by max-duration and on disk by max-size, written to a
+ * file under library.jfr.directory when it stops - on request or when its duration runs out. The JDK settings named by
+ * library.jfr.settings ("default" costs about 1% CPU, "profile" adds allocation and lock profiling) are combined with
+ * the library's own events. Every recording gets a file of its own; stopping hands that file over to the caller, who
+ * deletes it once it is downloaded, so a recording started meanwhile never touches it. A recording that ran out and
+ * was never stopped is deleted when the next one starts.
+ * */
+@Slf4j
+@Service
+public class FlightRecordingService {
+
+    private static final List<Class<? extends Event>> LIBRARY_EVENTS =
+            List.of(BorrowEvent.class, ReturnEvent.class, CreateBookEvent.class, AnalyticsQueryEvent.class);
+
+    private final Path directory;
+
+    private final String settings;
+
+    private final Duration defaultDuration;
+
+    private final Duration maxDuration;
+
+    private final DataSize maxSize;
+
+    private Recording recording;
+
+    private Path file;
+
+    public FlightRecordingService(@Value("${library.jfr.directory:${java.io.tmpdir}/library-jfr}") Path directory,
+                                  @Value("${library.jfr.settings:default}") String settings,
+                                  @Value("${library.jfr.default-duration:60s}") Duration defaultDuration,
+                                  @Value("${library.jfr.max-duration:15m}") Duration maxDuration,
+                                  @Value("${library.jfr.max-size:256MB}") DataSize maxSize) {
+        this.directory = directory;
+        this.settings = settings;
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+    }
+
+    public synchronized FlightRecordingDTO start(Duration duration) throws IOException {
+        Duration length = duration == null ? this.defaultDuration : duration;
+        if (length.isNegative() || length.isZero() || length.compareTo(this.maxDuration) > 0) {
+            throw new InvalidRequestException("Recording duration must be between 1s and %ds"
+                    .formatted(this.maxDuration.toSeconds()));
+        }
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Flight recorder is not available in this JVM");
+        }
+        if (this.recording != null && this.recording.getState() == RecordingState.RUNNING) {
+            throw new AlreadyRunningException("A flight recording is already running");
+        }
+        discard();
+
+        Files.createDirectories(this.directory);
+        Recording started = new Recording(configuration());
+        LIBRARY_EVENTS.forEach(started::enable);
+        started.setName("library");
+        started.setToDisk(true);
+        started.setDuration(length);
+        started.setMaxAge(length);
+        started.setMaxSize(this.maxSize.toBytes());
+        Path destination = Files.createTempFile(this.directory, "library-", ".jfr");
+        started.setDestination(destination);
+        started.start();
+        this.recording = started;
+        this.file = destination;
+        log.info("Flight recording started: {} for {}", destination, length);
+        return describe();
+    }
+
+    public synchronized FlightRecordingDTO status() {
+        if (this.recording == null) {
+            throw new NoSuchElementException("No flight recording");
+        }
+        return describe();
+    }
+
+    /*
+     * Stops the recording if it is still running and returns the finished file, which from now on belongs to the
+     * caller.
+     * */
+    public synchronized Path stop() {
+        if (this.recording == null) {
+            throw new NoSuchElementException("No flight recording");
+        }
+        if (this.recording.getState() == RecordingState.RUNNING) {
+            this.recording.stop();
+        }
+        this.recording.close();
+        Path stopped = this.file;
+        this.recording = null;
+        this.file = null;
+        log.info("Flight recording stopped: {}", stopped);
+        return stopped;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        discard();
+    }
+
+    private void discard() throws IOException {
+        if (this.recording != null) {
+            this.recording.close();
+            Files.deleteIfExists(this.file);
+            this.recording = null;
+            this.file = null;
+        }
+    }
+
+    private Configuration configuration() throws IOException {
+        try {
+            return Configuration.getConfiguration(this.settings);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid flight recorder settings " + this.settings, e);
+        }
+    }
+
+    private FlightRecordingDTO describe() {
+        return new FlightRecordingDTO(this.file.getFileName().toString(), this.recording.getState().name(),
+                this.recording.getStartTime(), this.recording.getDuration().toSeconds(), this.recording.getMaxSize(),
+                this.recording.getSize());
+    }
+}
@@ -0,0 +1,306 @@
+package org.library.app.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.library.app.analytics.LoanRollupRecomputer;
+import org.library.app.bloom.MemberNameFilter;
+import org.library.app.cache.CacheInvalidationPublisher;
+import org.library.app.controller.dto.SnapshotDTO;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.overdue.OverdueLoanTracker;
+import org.library.app.recommendation.CoBorrowingRecommender;
+import org.library.app.snapshot.BookRecord;
+import org.library.app.snapshot.LoanRecord;
+import org.library.app.snapshot.MemberRecord;
+import org.library.app.snapshot.SnapshotFormat;
+import org.library.app.snapshot.SnapshotFormatException;
+import org.library.app.snapshot.SnapshotReader;
+import org.library.app.snapshot.SnapshotWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/*
+ * Snapshot and restore of books, members and loans in the binary format described by SnapshotFormat. Both sides use
+ * plain JDBC on the main pool: the snapshot streams each table with a large fetch size inside one repeatable-read
+ * transaction, so the three sections and their counts are mutually consistent; the restore replaces the three tables
+ * with batched inserts and recomputes the author totals in one transaction, which rolls back if the file turns out
+ * to be corrupt. Afterwards the second-level cache, the member name filter and the co-borrowing matrix are rebuilt
+ * from the restored rows and a loan rollup recompute is started. Due dates and overdue flags are restored as they
+ * were; only loans from a version 1 file, which has neither, are due borrowedAt + loan period and marked by the
+ * rebuilt overdue wheel on its next tick.
+ * */
+@Slf4j
+@Service
+public class LibrarySnapshotService {
+
+    private static final Pattern FILE_NAME = Pattern.compile("^[\\w-]+\\.snap$");
+
+    private static final String INSERT_BOOK =
+            "INSERT INTO public.t_book (id, c_title, c_author, c_amount) VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_MEMBER =
+            "INSERT INTO public.t_member (id, c_name, c_creation_date) VALUES (?, ?, ?)";
+
+    private static final String INSERT_LOAN = "INSERT INTO public.t_member_books " +
+            "(id, member_id, book_id, c_borrowed_at, c_returned_at, c_due_at, c_overdue) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final List<String> TABLES_IN_INSERT_ORDER =
+            List.of("public.t_book", "public.t_member", "public.t_member_books");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate snapshotTransaction;
+
+    private final TransactionTemplate restoreTransaction;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final MemberNameFilter memberNameFilter;
+
+    private final CacheInvalidationPublisher cacheInvalidation;
+
+    private final OverdueLoanTracker overdueLoanTracker;
+
+    private final CoBorrowingRecommender coBorrowingRecommender;
+
+    private final AuthorService authorService;
+
+    private final LoanRollupRecomputer loanRollupRecomputer;
+
+    private final Path directory;
+
+    private final int batchSize;
+
+    public LibrarySnapshotService(DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  EntityManagerFactory entityManagerFactory,
+                                  MemberNameFilter memberNameFilter,
+                                  CacheInvalidationPublisher cacheInvalidation,
+                                  OverdueLoanTracker overdueLoanTracker,
+                                  CoBorrowingRecommender coBorrowingRecommender,
+                                  AuthorService authorService,
+                                  LoanRollupRecomputer loanRollupRecomputer,
+                                  @Value("${library.snapshot.directory:${java.io.tmpdir}/library-snapshots}")
+                                  Path directory,
+                                  @Value("${library.snapshot.fetch-size:10000}") int fetchSize,
+                                  @Value("${library.snapshot.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.restoreTransaction = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.memberNameFilter = memberNameFilter;
+        this.cacheInvalidation = cacheInvalidation;
+        this.overdueLoanTracker = overdueLoanTracker;
+        this.coBorrowingRecommender = coBorrowingRecommender;
+        this.authorService = authorService;
+        this.loanRollupRecomputer = loanRollupRecomputer;
+        this.directory = directory;
+        this.batchSize = batchSize;
+    }
+
+    public SnapshotDTO createSnapshot() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(this.directory);
+        long createdAt = System.currentTimeMillis();
+        String fileName = "library-" + createdAt + ".snap";
+        Path temporary = this.directory.resolve(fileName + ".tmp");
+        long[] counts = new long[3];
+        long bytes;
+        try (SnapshotWriter writer = new SnapshotWriter(temporary, createdAt)) {
+            this.snapshotTransaction.executeWithoutResult(status -> {
+                try {
+                    counts[0] = beginSection(writer, SnapshotFormat.SECTION_BOOKS, "public.t_book");
+                    this.jdbcTemplate.query("SELECT id, c_title, c_author, c_amount FROM public.t_book",
+                            (RowCallbackHandler) rs -> {
+                                BookRecord book = new BookRecord(rs.getLong(1), rs.getString(2), rs.getString(3),
+                                        rs.getInt(4));
+                                unchecked(() -> writer.write(book));
+                            });
+                    counts[1] = beginSection(writer, SnapshotFormat.SECTION_MEMBERS, "public.t_member");
+                    this.jdbcTemplate.query("SELECT id, c_name, c_creation_date FROM public.t_member",
+                            (RowCallbackHandler) rs -> {
+                                MemberRecord member = new MemberRecord(rs.getLong(1), rs.getString(2),
+                                        rs.getObject(3, LocalDate.class));
+                                unchecked(() -> writer.write(member));
+                            });
+                    counts[2] = beginSection(writer, SnapshotFormat.SECTION_LOANS, "public.t_member_books");
+                    this.jdbcTemplate.query("SELECT id, member_id, book_id, c_borrowed_at, c_returned_at, " +
+                            "c_due_at, c_overdue FROM public.t_member_books", (RowCallbackHandler) rs -> {
+                        OffsetDateTime returnedAt = rs.getObject(5, OffsetDateTime.class);
+                        OffsetDateTime dueAt = rs.getObject(6, OffsetDateTime.class);
+                        LoanRecord loan = new LoanRecord(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                                rs.getObject(4, OffsetDateTime.class).toInstant(),
+                                returnedAt == null ? null : returnedAt.toInstant(),
+                                dueAt == null ? null : dueAt.toInstant(), rs.getBoolean(7));
+                        unchecked(() -> writer.write(loan));
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            bytes = writer.finish();
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temporary);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, this.directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+        SnapshotDTO snapshot = new SnapshotDTO(fileName, counts[0], counts[1], counts[2], bytes,
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("Library snapshot written: {}", snapshot);
+        return snapshot;
+    }
+
+    public SnapshotDTO restoreSnapshot(String fileName) throws IOException {
+        long start = System.nanoTime();
+        Path file = resolveSnapshot(fileName);
+        long[] counts = new long[3];
+        try (SnapshotReader reader = new SnapshotReader(file)) {
+            this.restoreTransaction.executeWithoutResult(status -> {
+                try {
+                    clearTables();
+                    counts[0] = load(reader::readBooks, INSERT_BOOK, (ps, book) -> {
+                        ps.setLong(1, book.id());
+                        ps.setString(2, book.title());
+                        ps.setString(3, book.author());
+                        ps.setInt(4, book.amount());
+                    });
+                    counts[1] = load(reader::readMembers, INSERT_MEMBER, (ps, member) -> {
+                        ps.setLong(1, member.id());
+                        ps.setString(2, member.name());
+                        ps.setObject(3, member.creationDate());
+                    });
+                    counts[2] = load(reader::readLoans, INSERT_LOAN, (ps, loan) -> {
+                        ps.setLong(1, loan.id());
+                        ps.setObject(2, loan.memberId() == 0 ? null : loan.memberId(), Types.BIGINT);
+                        ps.setLong(3, loan.bookId());
+                        ps.setObject(4, OffsetDateTime.ofInstant(loan.borrowedAt(), ZoneOffset.UTC));
+                        ps.setObject(5, loan.returnedAt() == null ? null
+                                : OffsetDateTime.ofInstant(loan.returnedAt(), ZoneOffset.UTC));
+                        ps.setObject(6, loan.dueAt() == null ? null
+                                : OffsetDateTime.ofInstant(loan.dueAt(), ZoneOffset.UTC));
+                        ps.setBoolean(7, loan.overdue());
+                    });
+                    reader.finish();
+                    TABLES_IN_INSERT_ORDER.forEach(this::restartIdentity);
+                    this.authorService.rebuild();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof SnapshotFormatException formatException) {
+                throw new InvalidRequestException(formatException.getMessage(), formatException);
+            }
+            throw e.getCause();
+        } catch (SnapshotFormatException e) {
+            throw new InvalidRequestException(e.getMessage(), e);
+        }
+        this.entityManagerFactory.getCache().evictAll();
+        this.memberNameFilter.rebuild();
+        this.cacheInvalidation.invalidateAll();
+        this.overdueLoanTracker.rebuild();
+        this.coBorrowingRecommender.rebuild();
+        this.loanRollupRecomputer.recomputeAfterBulkWrite();
+        SnapshotDTO snapshot = new SnapshotDTO(fileName, counts[0], counts[1], counts[2], Files.size(file),
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("Library snapshot restored: {}", snapshot);
+        return snapshot;
+    }
+
+    public Path resolveSnapshot(String fileName) {
+        if (!FILE_NAME.matcher(fileName).matches()) {
+            throw new InvalidRequestException("Invalid snapshot file name");
+        }
+        Path file = this.directory.resolve(fileName);
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchElementException("Snapshot not found");
+        }
+        return file;
+    }
+
+    private long beginSection(SnapshotWriter writer, byte section, String table) throws IOException {
+        Long count = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        writer.beginSection(section, count);
+        return count;
+    }
+
+    private static void unchecked(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void clearTables() {
+        String database = this.jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(database)) {
+            this.jdbcTemplate.execute("TRUNCATE TABLE " + String.join(", ", TABLES_IN_INSERT_ORDER.reversed()));
+        } else {
+            TABLES_IN_INSERT_ORDER.reversed().forEach(table -> this.jdbcTemplate.execute("DELETE FROM " + table));
+        }
+    }
+
+    private <T> long load(SectionReader<T> section, String sql, ParameterizedPreparedStatementSetter<T> setter)
+            throws IOException {
+        List<T> batch = new ArrayList<>(this.batchSize);
+        long count = section.read(record -> {
+            batch.add(record);
+            if (batch.size() == this.batchSize) {
+                this.jdbcTemplate.batchUpdate(sql, batch, this.batchSize, setter);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(sql, batch, this.batchSize, setter);
+        }
+        return count;
+    }
+
+    private void restartIdentity(String table) {
+        Long next = this.jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+        this.jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+
+        void run() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface SectionReader<T> {
+
+        long read(Consumer<T> consumer) throws IOException;
+    }
+}
@@ -0,0 +1,68 @@
+package org.library.app.service;
+
+import lombok.RequiredArgsConstructor;
+import org.library.app.analytics.LoanRollupRecomputer;
+import org.library.app.analytics.LoanRollupUpdater;
+import org.library.app.analytics.TimeWindow;
+import org.library.app.controller.dto.LoanRollupDTO;
+import org.library.app.controller.dto.LoanRollupRecomputeDTO;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.jfr.AnalyticsQueryEvent;
+import org.library.app.jfr.LibraryOperationEvent;
+import org.library.app.repository.LoanRollupsRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class LoanAnalyticsService {
+
+    private static final int DEFAULT_BUCKETS = 24;
+
+    private static final int MAX_BUCKETS = 1000;
+
+    private final LoanRollupsRepository repository;
+
+    private final LoanRollupRecomputer recomputer;
+
+    public List<LoanRollupDTO> getLoanRollups(TimeWindow granularity, Instant from, Instant to) {
+        AnalyticsQueryEvent event = new AnalyticsQueryEvent("loan-rollups");
+        return LibraryOperationEvent.record(event, () -> {
+            List<LoanRollupDTO> rollups = findLoanRollups(granularity, from, to);
+            event.rows(rollups.size());
+            return rollups;
+        });
+    }
+
+    public LoanRollupRecomputeDTO startRecompute() {
+        return toDTO(this.recomputer.start());
+    }
+
+    public LoanRollupRecomputeDTO getRecomputeProgress() {
+        return toDTO(this.recomputer.progress());
+    }
+
+    private List<LoanRollupDTO> findLoanRollups(TimeWindow granularity, Instant from, Instant to) {
+        if (!LoanRollupUpdater.GRANULARITIES.contains(granularity)) {
+            throw new InvalidRequestException("Loan rollups are kept only for " + LoanRollupUpdater.GRANULARITIES);
+        }
+        Instant end = to != null ? to : Instant.now();
+        long bucketMillis = granularity.end(0) - granularity.start(0);
+        Instant earliest = end.minusMillis(bucketMillis * MAX_BUCKETS);
+        Instant start = from == null ? end.minusMillis(bucketMillis * DEFAULT_BUCKETS)
+                : from.isBefore(earliest) ? earliest : from;
+        return this.repository.findByGranularityAndBucketStartBetweenOrderByBucketStart(granularity,
+                        Instant.ofEpochMilli(granularity.start(start.toEpochMilli())), end)
+                .stream()
+                .map(rollup -> new LoanRollupDTO(rollup.getBucketStart(), rollup.getBorrows(), rollup.getReturns(),
+                        rollup.getReturns() == 0 ? null : rollup.getLoanDurationTotal() / 1000.0 / rollup.getReturns()))
+                .toList();
+    }
+
+    private static LoanRollupRecomputeDTO toDTO(LoanRollupRecomputer.Progress progress) {
+        return new LoanRollupRecomputeDTO(progress.state().name(), progress.startedAt(), progress.finishedAt(),
+                progress.chunks(), progress.chunksScanned(), progress.loans(), progress.buckets(), progress.error());
+    }
+}
@@ -0,0 +1,122 @@
+package org.library.app.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.library.app.controller.dto.MemberExportDTO;
+import org.library.app.repository.MembersRepository;
+import org.library.app.repository.projection.MemberLoanRow;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+@Service
+public class MemberExportService {
+
+    private static final String CSV_HEADER = "member_id,member_name,creation_date,book_id,title,author,borrowed_at";
+
+    private final MembersRepository repository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ObjectWriter memberWriter;
+
+    public MemberExportService(MembersRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.memberWriter = objectMapper.writerFor(MemberExportDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void exportMembers(ExportFormat format, OutputStream out) throws IOException {
+        try {
+            this.readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<MemberLoanRow> rows = this.repository.streamMembersWithOpenLoans()) {
+                    if (format == ExportFormat.CSV) {
+                        writeCsv(rows.iterator(), out);
+                    } else {
+                        writeNdjson(rows.iterator(), out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeCsv(Iterator<MemberLoanRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            MemberLoanRow row = rows.next();
+            writer.write(csv(row.memberId()));
+            writer.write(',');
+            writer.write(csv(row.memberName()));
+            writer.write(',');
+            writer.write(csv(row.creationDate()));
+            writer.write(',');
+            writer.write(csv(row.bookId()));
+            writer.write(',');
+            writer.write(csv(row.title()));
+            writer.write(',');
+            writer.write(csv(row.author()));
+            writer.write(',');
+            writer.write(csv(row.borrowedAt()));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private void writeNdjson(Iterator<MemberLoanRow> rows, OutputStream out) throws IOException {
+        JsonGenerator generator = this.memberWriter.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        MemberLoanRow member = null;
+        List<MemberExportDTO.Loan> loans = new ArrayList<>();
+        while (rows.hasNext()) {
+            MemberLoanRow row = rows.next();
+            if (member != null && !member.memberId().equals(row.memberId())) {
+                writeMember(generator, member, loans);
+                loans.clear();
+            }
+            member = row;
+            if (row.bookId() != null) {
+                loans.add(new MemberExportDTO.Loan(row.bookId(), row.title(), row.author(), row.borrowedAt()));
+            }
+        }
+        if (member != null) {
+            writeMember(generator, member, loans);
+        }
+        generator.flush();
+    }
+
+    private void writeMember(JsonGenerator generator, MemberLoanRow member, List<MemberExportDTO.Loan> loans)
+            throws IOException {
+        this.memberWriter.writeValue(generator,
+                new MemberExportDTO(member.memberId(), member.memberName(), member.creationDate(), loans));
+        generator.writeRaw('\n');
+    }
+
+    private static String csv(Object value) {
+        String text = Objects.toString(value, "");
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
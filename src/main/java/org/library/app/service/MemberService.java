@@ -2,32 +2,62 @@ package org.library.app.service;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.library.app.bloom.MemberNameFilter;
+import org.library.app.cache.CacheInvalidationPublisher;
+import org.library.app.cache.CacheRegions;
 import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.MemberByIdDTO;
 import org.library.app.controller.dto.MemberDTO;
+import org.library.app.controller.dto.MembersByIdsDTO;
+import org.library.app.controller.dto.MembersPageDTO;
+import org.library.app.controller.dto.OverdueLoanDTO;
 import org.library.app.controller.payload.NewMemberPayload;
 import org.library.app.entity.BookEntity;
+import org.library.app.entity.LoanEntity;
 import org.library.app.entity.MemberEntity;
+import org.library.app.event.LibraryEventPublisher;
+import org.library.app.event.LibraryEventType;
+import org.library.app.exception.BookNotAvailableException;
 import org.library.app.exception.MemberAlreadyExistException;
 import org.library.app.exception.MemberAlreadyHaveThisBookException;
 import org.library.app.exception.MemberHasBookException;
 import org.library.app.exception.MemberReachedLimitException;
+import org.library.app.fields.MemberField;
+import org.library.app.jfr.BorrowEvent;
+import org.library.app.jfr.LibraryOperationEvent;
+import org.library.app.jfr.ReturnEvent;
+import org.library.app.overdue.OverdueLoanTracker;
 import org.library.app.repository.BooksRepository;
+import org.library.app.repository.LoansRepository;
+import org.library.app.repository.MemberPageRepository;
 import org.library.app.repository.MembersRepository;
+import org.library.app.repository.MultiGetRepository;
+import org.library.app.repository.SparseProjectionRepository;
+import org.library.app.repository.projection.MemberSummary;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.sql.Date;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class MemberService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
     @Value("${member.max.book.limit}")
     private int bookLimit;
 
@@ -35,11 +65,44 @@ public class MemberService {
 
     private final BooksRepository booksRepository;
 
-    public List<MemberDTO> getAllMembers() {
-        Iterable<MemberEntity> members = repository.findAll();
-        return StreamSupport.stream(members.spliterator(), false)
-                .map(member -> new MemberDTO(member.getName(), member.getCreationDate()))
-                .collect(Collectors.toList());
+    private final LoansRepository loansRepository;
+
+    private final LibraryEventPublisher eventPublisher;
+
+    private final MemberNameFilter memberNameFilter;
+
+    private final CacheInvalidationPublisher cacheInvalidation;
+
+    private final OverdueLoanTracker overdueLoanTracker;
+
+    private final MultiGetRepository multiGetRepository;
+
+    private final SparseProjectionRepository sparseProjectionRepository;
+
+    private final MemberPageRepository memberPageRepository;
+
+    private final AuthorService authorService;
+
+    public MembersPageDTO getMembersPage(long afterId, int size, LocalDate createdFrom, LocalDate createdTo,
+                                         String namePrefix) {
+        return getMembersPage(afterId, size, createdFrom, createdTo, namePrefix, null);
+    }
+
+    /*
+     * With a fieldset only its columns are selected (plus the id for the cursor); null means all fields.
+     * */
+    public MembersPageDTO getMembersPage(long afterId, int size, LocalDate createdFrom, LocalDate createdTo,
+                                         String namePrefix, Set<MemberField> fields) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        List<MemberSummary> members = fields == null
+                ? this.memberPageRepository.findPage(afterId, createdFrom, createdTo, namePrefix, pageSize + 1)
+                : this.sparseProjectionRepository.findMembersPage(afterId, createdFrom, createdTo, namePrefix,
+                        pageSize + 1, fields);
+        Long nextAfterId = members.size() > pageSize ? members.get(pageSize - 1).id() : null;
+        return new MembersPageDTO(members.stream()
+                .limit(pageSize)
+                .map(member -> new MemberDTO(member.name(), member.creationDate()))
+                .toList(), nextAfterId);
     }
 
     public MemberDTO getMemberById(Long id) {
@@ -48,6 +111,33 @@ public class MemberService {
                 .orElseThrow(() -> new NoSuchElementException("Member not found"));
     }
 
+    public MemberDTO getMemberById(Long id, Set<MemberField> fields) {
+        if (fields == null) {
+            return getMemberById(id);
+        }
+        return this.sparseProjectionRepository.findMemberById(id, fields)
+                .orElseThrow(() -> new NoSuchElementException("Member not found"));
+    }
+
+    /*
+     * Members in the order of the distinct requested ids; ids without a member are listed in `missing`.
+     * */
+    public MembersByIdsDTO getMembersByIds(List<Long> ids) {
+        List<Long> distinctIds = this.multiGetRepository.distinctIds(ids);
+        List<MemberEntity> entities = this.multiGetRepository.findAllByIdInOrder(MemberEntity.class, distinctIds);
+        List<MemberByIdDTO> members = new ArrayList<>(entities.size());
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            MemberEntity entity = entities.get(i);
+            if (entity == null) {
+                missing.add(distinctIds.get(i));
+            } else {
+                members.add(new MemberByIdDTO(entity.getId(), entity.getName(), entity.getCreationDate()));
+            }
+        }
+        return new MembersByIdsDTO(members, missing);
+    }
+
     public List<BookDTO> retrieveAllBookByMemberName(String name) {
         this.repository.findByName(name)
                 .orElseThrow(() -> new NoSuchElementException("Member by name not found"));
@@ -55,13 +145,18 @@ public class MemberService {
                 .stream().map(book -> new BookDTO(book.getTitle(), book.getAuthor(), book.getAmount())).toList();
     }
 
+    /*
+     * The name filter only answers "certainly free"; a name it cannot rule out is checked in the database, and a
+     * concurrent insert of the same name is still caught by the unique constraint on c_name.
+     * */
     @Transactional
     public MemberDTO createMember(NewMemberPayload memberDTO) {
-        if (repository.existsByName(memberDTO.name())) {
+        if (nameTaken(memberDTO.name())) {
             throw new MemberAlreadyExistException("Member already exists");
         }
-        MemberEntity member = repository.save(
+        MemberEntity member = saveAndFlush(
                 new MemberEntity(null, memberDTO.name(), Date.valueOf(LocalDate.now()), new HashSet<>()));
+        this.memberNameFilter.added(member.getName());
         return new MemberDTO(member.getName(), member.getCreationDate());
     }
 
@@ -69,11 +164,18 @@ public class MemberService {
     public void updateMember(NewMemberPayload payload, Long memberId) {
         repository.findById(memberId)
                 .ifPresentOrElse(member -> {
-                    if (!member.getName().equals(payload.name()) && repository.existsByName(payload.name())) {
+                    String oldName = member.getName();
+                    if (oldName.equals(payload.name())) {
+                        return;
+                    }
+                    if (nameTaken(payload.name())) {
                         throw new MemberAlreadyExistException("Member already exists");
                     }
                     member.setName(payload.name());
-                    this.repository.save(member);
+                    saveAndFlush(member);
+                    this.memberNameFilter.added(payload.name());
+                    this.memberNameFilter.removed(oldName);
+                    this.cacheInvalidation.invalidateAfterCommit(CacheRegions.MEMBER, memberId);
                 }, () -> {
                     throw new NoSuchElementException("Member not found");
                 });
@@ -81,51 +183,125 @@ public class MemberService {
 
     @Transactional
     public void deleteMember(Long memberId) {
-        repository.findById(memberId).orElseThrow(() -> new NoSuchElementException("Member not found"));
-        if (this.repository.existsByIdAndBorrowedBooksIsEmpty(memberId)) {
-            this.repository.deleteById(memberId);
-        } else {
+        MemberEntity member = repository.findById(memberId)
+                .orElseThrow(() -> new NoSuchElementException("Member not found"));
+        if (this.loansRepository.existsByMemberIdAndReturnedAtIsNull(memberId)) {
             throw new MemberHasBookException("Member has books");
         }
+        this.loansRepository.detachMember(memberId);
+        this.repository.deleteById(memberId);
+        this.memberNameFilter.removed(member.getName());
+        this.cacheInvalidation.invalidateAfterCommit(CacheRegions.MEMBER, memberId);
+        this.cacheInvalidation.invalidateAfterCommit(CacheRegions.MEMBER_LOANS, memberId);
     }
 
+    /*
+     * Member, its open loans and the book are read through the second-level cache, so a warm borrow only
+     * writes the book amount and the new loan.
+     * */
     @Transactional
     public BookDTO memberBorrowBook(Long memberId, Long bookId) {
-        if (this.repository.existsByBookIdAndMemberId(bookId, memberId)) {
-            throw new MemberAlreadyHaveThisBookException("Member have this book");
-        }
+        BorrowEvent event = new BorrowEvent(memberId, bookId);
+        return LibraryOperationEvent.record(event, () -> borrowBook(memberId, bookId, event));
+    }
+
+    private BookDTO borrowBook(Long memberId, Long bookId, BorrowEvent event) {
         MemberEntity memberEntity = this.repository
                 .findById(memberId).orElseThrow(() -> new NoSuchElementException("Member not found"));
 
-        if (memberEntity.getBorrowedBooks().size() >= bookLimit) {
+        if (findOpenLoan(memberEntity, bookId).isPresent()) {
+            throw new MemberAlreadyHaveThisBookException("Member have this book");
+        }
+        if (memberEntity.getLoans().size() >= bookLimit) {
             throw new MemberReachedLimitException("Limit of books is %s".formatted(bookLimit));
         }
 
-        BookEntity bookEntity = this.booksRepository.findByIdAndAmountGreaterThan(bookId, 0)
-                .orElseThrow(() -> new NoSuchElementException("Book not available"));
+        BookEntity bookEntity = this.booksRepository.findById(bookId)
+                .filter(book -> book.getAmount() > 0)
+                .orElseThrow(() -> new BookNotAvailableException("Book not available"));
 
         bookEntity.setAmount(bookEntity.getAmount() - 1);
-        bookEntity.getMembers().remove(memberEntity);
         this.booksRepository.save(bookEntity);
+        this.authorService.record(bookEntity.getAuthor(), 0, 0, 1);
 
-        memberEntity.getBorrowedBooks().add(bookEntity);
-        this.repository.save(memberEntity);
+        Instant borrowedAt = Instant.now();
+        Instant dueAt = this.overdueLoanTracker.dueDate(borrowedAt);
+        LoanEntity loan = new LoanEntity(null, memberEntity, bookEntity, borrowedAt, null, dueAt, false);
+        this.loansRepository.save(loan);
+        this.overdueLoanTracker.scheduleAfterCommit(loan.getId(), dueAt);
+        event.loanId(loan.getId());
 
+        this.eventPublisher.publishAfterCommit(LibraryEventType.BOOK_BORROWED, memberId, bookId,
+                borrowedAt.toEpochMilli(), 0, loan.getId());
+        this.cacheInvalidation.invalidateAfterCommit(CacheRegions.BOOK, bookId);
+        this.cacheInvalidation.invalidateAfterCommit(CacheRegions.MEMBER_LOANS, memberId);
         return new BookDTO(bookEntity.getTitle(), bookEntity.getAuthor(), bookEntity.getAmount());
     }
 
     @Transactional
     public void memberReturnBook(Long memberId, Long bookId) {
-        MemberEntity memberEntity = this.repository
-                .findById(memberId).orElseThrow(() -> new NoSuchElementException("Member not found"));
+        ReturnEvent event = new ReturnEvent(memberId, bookId);
+        LibraryOperationEvent.record(event, () -> returnBook(memberId, bookId, event));
+    }
+
+    private void returnBook(Long memberId, Long bookId, ReturnEvent event) {
+        MemberEntity memberEntity = this.repository.findById(memberId)
+                .orElseThrow(() -> new NoSuchElementException("Member not found"));
         BookEntity bookEntity = this.booksRepository.findById(bookId)
                 .orElseThrow(() -> new NoSuchElementException("Book not found"));
+        LoanEntity loan = findOpenLoan(memberEntity, bookId)
+                .orElseThrow(() -> new NoSuchElementException("Loan not found"));
+
+        event.loanId(loan.getId());
 
         bookEntity.setAmount(bookEntity.getAmount() + 1);
-        bookEntity.getMembers().remove(memberEntity);
         this.booksRepository.save(bookEntity);
+        this.authorService.record(bookEntity.getAuthor(), 0, 0, -1);
+
+        Instant returnedAt = Instant.now();
+        loan.setReturnedAt(returnedAt);
+        // the row stays in t_member_books, so the cached open-loans collection has to be dirtied explicitly
+        memberEntity.getLoans().remove(loan);
+        this.loansRepository.save(loan);
+
+        this.eventPublisher.publishAfterCommit(LibraryEventType.BOOK_RETURNED, memberId, bookId,
+                returnedAt.toEpochMilli(), Duration.between(loan.getBorrowedAt(), returnedAt).toMillis(),
+                loan.getId());
+        this.cacheInvalidation.invalidateAfterCommit(CacheRegions.BOOK, bookId);
+        this.cacheInvalidation.invalidateAfterCommit(CacheRegions.MEMBER_LOANS, memberId);
+        this.cacheInvalidation.invalidateAfterCommit(CacheRegions.LOAN, loan.getId());
+        this.overdueLoanTracker.cancelAfterCommit(loan.getId());
+    }
+
+    public List<OverdueLoanDTO> getOverdueLoans(Long memberId) {
+        if (!this.repository.existsById(memberId)) {
+            throw new NoSuchElementException("Member not found");
+        }
+        return this.loansRepository.findOverdueByMemberId(memberId).stream()
+                .map(loan -> new OverdueLoanDTO(loan.bookId(), loan.title(), loan.author(), loan.borrowedAt(),
+                        loan.dueAt() != null ? loan.dueAt() : this.overdueLoanTracker.dueDate(loan.borrowedAt())))
+                .toList();
+    }
+
+    private boolean nameTaken(String name) {
+        return this.memberNameFilter.mightExist(name) && this.repository.existsByName(name);
+    }
+
+    private MemberEntity saveAndFlush(MemberEntity member) {
+        try {
+            return this.repository.saveAndFlush(member);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getMostSpecificCause() instanceof SQLException sqlException
+                    && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                throw new MemberAlreadyExistException("Member already exists", e);
+            }
+            throw e;
+        }
+    }
 
-        memberEntity.getBorrowedBooks().remove(bookEntity);
-        this.repository.save(memberEntity);
+    private static Optional<LoanEntity> findOpenLoan(MemberEntity member, Long bookId) {
+        return member.getLoans().stream()
+                .filter(loan -> loan.getBook().getId().equals(bookId))
+                .findFirst();
     }
 }
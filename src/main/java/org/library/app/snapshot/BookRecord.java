@@ -0,0 +1,4 @@
+package org.library.app.snapshot;
+
+public record BookRecord(long id, String title, String author, int amount) {
+}
@@ -0,0 +1,10 @@
+package org.library.app.snapshot;
+
+import java.time.Instant;
+
+/*
+ * dueAt is null for a loan taken before due dates existed; a version 1 snapshot carries neither dueAt nor overdue.
+ * */
+public record LoanRecord(long id, long memberId, long bookId, Instant borrowedAt, Instant returnedAt, Instant dueAt,
+                         boolean overdue) {
+}
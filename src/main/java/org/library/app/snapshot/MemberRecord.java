@@ -0,0 +1,6 @@
+package org.library.app.snapshot;
+
+import java.time.LocalDate;
+
+public record MemberRecord(long id, String name, LocalDate creationDate) {
+}
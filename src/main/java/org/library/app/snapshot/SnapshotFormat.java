@@ -0,0 +1,41 @@
+package org.library.app.snapshot;
+
+/*
+ * Layout of a library snapshot file, all numbers big-endian:
+ *
+ *   header   int magic "LSNP", short version, short reserved (0), long createdAt (epoch millis)
+ *   books    byte SECTION_BOOKS,   long count, count * (long id, int amount, string title, string author)
+ *   members  byte SECTION_MEMBERS, long count, count * (long id, int creationDate (epoch day), string name)
+ *   loans    byte SECTION_LOANS,   long count, count * (long id, long memberId, long bookId, instant borrowedAt,
+ *                                                       byte hasReturnedAt, [instant returnedAt],
+ *                                                       byte hasDueAt, [instant dueAt], byte overdue)
+ *   trailer  int magic "LEND", int CRC32C of every byte before the trailer
+ *
+ * string is int length + UTF-8 bytes, instant is long epoch second + int nano; memberId 0 marks a loan of a deleted
+ * member. A reader must reject any version it does not know; fields are only ever appended to a record together with
+ * a version bump. Version 1 loans end after returnedAt; version 2 appended the due date and the overdue flag, and
+ * version 1 files are still read.
+ * */
+public final class SnapshotFormat {
+
+    public static final int MAGIC = 0x4C534E50;
+
+    public static final int TRAILER_MAGIC = 0x4C454E44;
+
+    public static final short VERSION = 2;
+
+    public static final short FIRST_VERSION = 1;
+
+    public static final byte SECTION_BOOKS = 1;
+
+    public static final byte SECTION_MEMBERS = 2;
+
+    public static final byte SECTION_LOANS = 3;
+
+    public static final int HEADER_BYTES = 4 + 2 + 2 + 8;
+
+    public static final int TRAILER_BYTES = 4 + 4;
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,10 @@
+package org.library.app.snapshot;
+
+import java.io.IOException;
+
+public class SnapshotFormatException extends IOException {
+
+    public SnapshotFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,210 @@
+package org.library.app.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/*
+ * Mirror of SnapshotWriter: refills one direct buffer from the FileChannel and decodes records straight out of it.
+ * Sections are read in file order. The checksum is accumulated while reading, so a corrupt file is only detected by
+ * finish(); callers that load the records somewhere must do so in a way they can roll back.
+ * */
+public class SnapshotReader implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    private final CRC32C crc = new CRC32C();
+
+    private final long checkedBytes;
+
+    private long position;
+
+    private final long createdAt;
+
+    private final short version;
+
+    private byte nextSection = SnapshotFormat.SECTION_BOOKS;
+
+    public SnapshotReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.checkedBytes = this.channel.size() - SnapshotFormat.TRAILER_BYTES;
+        if (this.checkedBytes < SnapshotFormat.HEADER_BYTES) {
+            this.channel.close();
+            throw new SnapshotFormatException("File is too short to be a snapshot");
+        }
+        this.buffer.limit(0);
+        try {
+            require(SnapshotFormat.HEADER_BYTES);
+            if (this.buffer.getInt() != SnapshotFormat.MAGIC) {
+                throw new SnapshotFormatException("Not a library snapshot");
+            }
+            this.version = this.buffer.getShort();
+            if (this.version < SnapshotFormat.FIRST_VERSION || this.version > SnapshotFormat.VERSION) {
+                throw new SnapshotFormatException("Unsupported snapshot version " + this.version);
+            }
+            this.buffer.getShort();
+            this.createdAt = this.buffer.getLong();
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    public long createdAt() {
+        return this.createdAt;
+    }
+
+    public short version() {
+        return this.version;
+    }
+
+    public long readBooks(Consumer<BookRecord> consumer) throws IOException {
+        long count = beginSection(SnapshotFormat.SECTION_BOOKS);
+        for (long i = 0; i < count; i++) {
+            require(8 + 4);
+            long id = this.buffer.getLong();
+            int amount = this.buffer.getInt();
+            consumer.accept(new BookRecord(id, getString(), getString(), amount));
+        }
+        return count;
+    }
+
+    public long readMembers(Consumer<MemberRecord> consumer) throws IOException {
+        long count = beginSection(SnapshotFormat.SECTION_MEMBERS);
+        for (long i = 0; i < count; i++) {
+            require(8 + 4);
+            long id = this.buffer.getLong();
+            LocalDate creationDate = LocalDate.ofEpochDay(this.buffer.getInt());
+            consumer.accept(new MemberRecord(id, getString(), creationDate));
+        }
+        return count;
+    }
+
+    public long readLoans(Consumer<LoanRecord> consumer) throws IOException {
+        long count = beginSection(SnapshotFormat.SECTION_LOANS);
+        for (long i = 0; i < count; i++) {
+            require(8 + 8 + 8 + 12 + 1);
+            long id = this.buffer.getLong();
+            long memberId = this.buffer.getLong();
+            long bookId = this.buffer.getLong();
+            Instant borrowedAt = getInstant();
+            Instant returnedAt = getOptionalInstant();
+            Instant dueAt = null;
+            boolean overdue = false;
+            if (this.version >= 2) {
+                require(1);
+                dueAt = getOptionalInstant();
+                require(1);
+                overdue = this.buffer.get() != 0;
+            }
+            consumer.accept(new LoanRecord(id, memberId, bookId, borrowedAt, returnedAt, dueAt, overdue));
+        }
+        return count;
+    }
+
+    /*
+     * Checks that every section was read, nothing but the trailer is left and the checksum matches.
+     * */
+    public void finish() throws IOException {
+        if (this.nextSection != SnapshotFormat.SECTION_LOANS + 1) {
+            throw new IllegalStateException("Snapshot sections were not all read");
+        }
+        if (this.position - this.buffer.remaining() != this.checkedBytes) {
+            throw new SnapshotFormatException("Unexpected data after the last section");
+        }
+        require(SnapshotFormat.TRAILER_BYTES);
+        if (this.buffer.getInt() != SnapshotFormat.TRAILER_MAGIC || this.buffer.getInt() != (int) this.crc.getValue()) {
+            throw new SnapshotFormatException("Snapshot checksum mismatch");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private long beginSection(byte section) throws IOException {
+        if (section != this.nextSection) {
+            throw new IllegalStateException("Section %d cannot be read here".formatted(section));
+        }
+        require(1 + 8);
+        byte tag = this.buffer.get();
+        if (tag != section) {
+            throw new SnapshotFormatException("Expected section %d but found %d".formatted(section, tag));
+        }
+        long count = this.buffer.getLong();
+        if (count < 0) {
+            throw new SnapshotFormatException("Negative record count in section " + section);
+        }
+        this.nextSection = (byte) (section + 1);
+        return count;
+    }
+
+    private String getString() throws IOException {
+        require(4);
+        int length = this.buffer.getInt();
+        if (length < 0) {
+            throw new SnapshotFormatException("Negative string length");
+        }
+        if (length <= this.buffer.capacity()) {
+            require(length);
+            String value = StandardCharsets.UTF_8.decode(this.buffer.slice(this.buffer.position(), length)).toString();
+            this.buffer.position(this.buffer.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            require(1);
+            int chunk = Math.min(length - offset, this.buffer.remaining());
+            this.buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // expects the presence byte to be buffered already
+    private Instant getOptionalInstant() throws IOException {
+        if (this.buffer.get() == 0) {
+            return null;
+        }
+        require(12);
+        return getInstant();
+    }
+
+    private Instant getInstant() {
+        return Instant.ofEpochSecond(this.buffer.getLong(), this.buffer.getInt());
+    }
+
+    private void require(int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes) {
+            return;
+        }
+        this.buffer.compact();
+        while (this.buffer.position() < bytes) {
+            int start = this.buffer.position();
+            int read = this.channel.read(this.buffer);
+            if (read < 0) {
+                throw new SnapshotFormatException("Snapshot is truncated");
+            }
+            long checked = Math.max(0, Math.min(read, this.checkedBytes - this.position));
+            if (checked > 0) {
+                this.crc.update(this.buffer.duplicate().position(start).limit(start + (int) checked));
+            }
+            this.position += read;
+        }
+        this.buffer.flip();
+    }
+}
@@ -0,0 +1,152 @@
+package org.library.app.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/*
+ * Encodes records into one direct buffer and hands the buffer to the FileChannel whenever it fills up, so the only
+ * copy made is the one into the buffer. Sections must be written in file order with the exact number of records
+ * announced by beginSection; finish() writes the trailer and forces the file to disk.
+ * */
+public class SnapshotWriter implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    private final CRC32C crc = new CRC32C();
+
+    private byte nextSection = SnapshotFormat.SECTION_BOOKS;
+
+    private byte section;
+
+    private long remaining;
+
+    private long bytesWritten;
+
+    public SnapshotWriter(Path file, long createdAt) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.buffer.putInt(SnapshotFormat.MAGIC)
+                .putShort(SnapshotFormat.VERSION)
+                .putShort((short) 0)
+                .putLong(createdAt);
+    }
+
+    public void beginSection(byte section, long count) throws IOException {
+        if (this.remaining != 0 || section != this.nextSection) {
+            throw new IllegalStateException("Section %d cannot start here".formatted(section));
+        }
+        ensure(1 + 8);
+        this.buffer.put(section).putLong(count);
+        this.section = section;
+        this.nextSection = (byte) (section + 1);
+        this.remaining = count;
+    }
+
+    public void write(BookRecord book) throws IOException {
+        record(SnapshotFormat.SECTION_BOOKS);
+        ensure(8 + 4);
+        this.buffer.putLong(book.id()).putInt(book.amount());
+        putString(book.title());
+        putString(book.author());
+    }
+
+    public void write(MemberRecord member) throws IOException {
+        record(SnapshotFormat.SECTION_MEMBERS);
+        ensure(8 + 4);
+        this.buffer.putLong(member.id()).putInt(Math.toIntExact(member.creationDate().toEpochDay()));
+        putString(member.name());
+    }
+
+    public void write(LoanRecord loan) throws IOException {
+        record(SnapshotFormat.SECTION_LOANS);
+        ensure(8 + 8 + 8 + 12 + 1 + 12 + 1 + 12 + 1);
+        this.buffer.putLong(loan.id()).putLong(loan.memberId()).putLong(loan.bookId());
+        putInstant(loan.borrowedAt());
+        putOptionalInstant(loan.returnedAt());
+        putOptionalInstant(loan.dueAt());
+        this.buffer.put((byte) (loan.overdue() ? 1 : 0));
+    }
+
+    /*
+     * Returns the size of the finished file in bytes.
+     * */
+    public long finish() throws IOException {
+        if (this.remaining != 0 || this.nextSection != SnapshotFormat.SECTION_LOANS + 1) {
+            throw new IllegalStateException("Snapshot is incomplete");
+        }
+        flush();
+        this.buffer.putInt(SnapshotFormat.TRAILER_MAGIC).putInt((int) this.crc.getValue());
+        this.buffer.flip();
+        writeFully();
+        this.channel.force(true);
+        return this.bytesWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private void record(byte section) {
+        if (this.section != section || this.remaining == 0) {
+            throw new IllegalStateException("More records than announced for section %d".formatted(section));
+        }
+        this.remaining--;
+    }
+
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(4);
+        this.buffer.putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int chunk = Math.min(bytes.length - offset, this.buffer.remaining());
+            this.buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    private void putOptionalInstant(Instant instant) {
+        if (instant == null) {
+            this.buffer.put((byte) 0);
+        } else {
+            this.buffer.put((byte) 1);
+            putInstant(instant);
+        }
+    }
+
+    private void putInstant(Instant instant) {
+        this.buffer.putLong(instant.getEpochSecond()).putInt(instant.getNano());
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        this.crc.update(this.buffer.duplicate());
+        writeFully();
+        this.buffer.clear();
+    }
+
+    private void writeFully() throws IOException {
+        while (this.buffer.hasRemaining()) {
+            this.bytesWritten += this.channel.write(this.buffer);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.library.app.sqlbudget;
+
+import org.library.app.exception.StatementBudgetExceededException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * The SQL statements Hibernate prepares on one request thread, counted against the budget of the endpoint being
+ * served. Only the first maxRecorded statements are kept for the log. In enforcing mode the statement that goes one
+ * over the budget fails; later ones are let through so the error can still be handled and rendered.
+ * */
+public final class StatementBudget {
+
+    private static final ThreadLocal<StatementBudget> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+
+    private final int limit;
+
+    private final boolean enforce;
+
+    private final int maxRecorded;
+
+    private final List<String> statements = new ArrayList<>();
+
+    private int count;
+
+    private StatementBudget(String endpoint, int limit, boolean enforce, int maxRecorded) {
+        this.endpoint = endpoint;
+        this.limit = limit;
+        this.enforce = enforce;
+        this.maxRecorded = maxRecorded;
+    }
+
+    public static StatementBudget open(String endpoint, int limit, boolean enforce, int maxRecorded) {
+        StatementBudget budget = new StatementBudget(endpoint, limit, enforce, maxRecorded);
+        CURRENT.set(budget);
+        return budget;
+    }
+
+    static void record(String sql) {
+        StatementBudget budget = CURRENT.get();
+        if (budget != null) {
+            budget.add(sql);
+        }
+    }
+
+    public void close() {
+        CURRENT.remove();
+    }
+
+    public String endpoint() {
+        return this.endpoint;
+    }
+
+    public int limit() {
+        return this.limit;
+    }
+
+    public int count() {
+        return this.count;
+    }
+
+    public boolean exceeded() {
+        return this.count > this.limit;
+    }
+
+    public List<String> statements() {
+        return this.statements;
+    }
+
+    private void add(String sql) {
+        if (++this.count <= this.maxRecorded) {
+            this.statements.add(sql);
+        }
+        if (this.enforce && this.count == this.limit + 1) {
+            throw new StatementBudgetExceededException("%s exceeded its budget of %d SQL statements"
+                    .formatted(this.endpoint, this.limit));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.library.app.sqlbudget;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+@Configuration
+public class StatementBudgetConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementBudgetProperties(
+            @Value("${library.sql-budget.mode:LOG}") StatementBudgetMode mode) {
+        return properties -> {
+            if (mode != StatementBudgetMode.OFF) {
+                StatementInspector configured = configuredInspector(
+                        properties.get(AvailableSettings.STATEMENT_INSPECTOR));
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementBudgetInspector(configured));
+            }
+        };
+    }
+
+    /*
+     * An inspector set through spring.jpa.properties arrives as an instance, a class or a class name.
+     * */
+    private static StatementInspector configuredInspector(Object setting) {
+        if (setting == null || setting instanceof StatementInspector) {
+            return (StatementInspector) setting;
+        }
+        Class<?> type = setting instanceof Class<?> inspectorClass ? inspectorClass
+                : ClassUtils.resolveClassName(setting.toString(), StatementBudgetConfiguration.class.getClassLoader());
+        return (StatementInspector) BeanUtils.instantiateClass(type);
+    }
+}
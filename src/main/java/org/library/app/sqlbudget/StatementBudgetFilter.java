@@ -0,0 +1,135 @@
+package org.library.app.sqlbudget;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Gives every API request a budget of SQL statements: the first "METHOD /path/pattern=N" entry of
+ * library.sql-budget.endpoints that matches, otherwise the default. The statements of every request are recorded in
+ * the library.sql.statements summary tagged with the endpoint. A request that goes over is logged with the
+ * statements it ran and counted in library.sql.budget.exceeded tagged with the endpoint; in ENFORCE mode (tests and
+ * development) it also fails with StatementBudgetExceededException. Statements run by JdbcTemplate repositories or on
+ * other threads, such as the analytics bulkhead, are not counted.
+ * */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 200)
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    private static final String DEFAULT_ENDPOINT = "default";
+
+    private final StatementBudgetMode mode;
+
+    private final int defaultBudget;
+
+    private final int maxLoggedStatements;
+
+    private final List<Rule> rules;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Map<String, Meters> meters = new HashMap<>();
+
+    public StatementBudgetFilter(MeterRegistry meterRegistry,
+                                 @Value("${library.sql-budget.mode:LOG}") StatementBudgetMode mode,
+                                 @Value("${library.sql-budget.default:20}") int defaultBudget,
+                                 @Value("${library.sql-budget.max-logged-statements:50}") int maxLoggedStatements,
+                                 @Value("${library.sql-budget.endpoints:}") List<String> endpoints) {
+        this.mode = mode;
+        this.defaultBudget = defaultBudget;
+        this.maxLoggedStatements = maxLoggedStatements;
+        this.rules = endpoints.stream()
+                .map(String::trim)
+                .filter(endpoint -> !endpoint.isBlank())
+                .map(Rule::parse)
+                .toList();
+        for (String endpoint : this.rules.stream().map(Rule::endpoint).toList()) {
+            this.meters.put(endpoint, Meters.register(meterRegistry, endpoint));
+        }
+        this.meters.put(DEFAULT_ENDPOINT, Meters.register(meterRegistry, DEFAULT_ENDPOINT));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return this.mode == StatementBudgetMode.OFF || !request.getRequestURI().startsWith("/library-api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Rule rule = match(request);
+        StatementBudget budget = StatementBudget.open(rule == null ? DEFAULT_ENDPOINT : rule.endpoint(),
+                rule == null ? this.defaultBudget : rule.budget(), this.mode == StatementBudgetMode.ENFORCE,
+                this.maxLoggedStatements);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            budget.close();
+            Meters endpointMeters = this.meters.get(budget.endpoint());
+            endpointMeters.statements().record(budget.count());
+            if (budget.exceeded()) {
+                endpointMeters.exceeded().increment();
+                log.warn("{} {} ran {} SQL statements, over the budget of {} for {}:\n  {}", request.getMethod(),
+                        request.getRequestURI(), budget.count(), budget.limit(), budget.endpoint(),
+                        String.join("\n  ", budget.statements()));
+            }
+        }
+    }
+
+    private Rule match(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        for (Rule rule : this.rules) {
+            if (rule.method().equals(request.getMethod()) && this.pathMatcher.match(rule.pattern(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private record Meters(DistributionSummary statements, Counter exceeded) {
+
+        static Meters register(MeterRegistry meterRegistry, String endpoint) {
+            return new Meters(
+                    DistributionSummary.builder("library.sql.statements")
+                            .tag("endpoint", endpoint)
+                            .register(meterRegistry),
+                    Counter.builder("library.sql.budget.exceeded")
+                            .tag("endpoint", endpoint)
+                            .register(meterRegistry));
+        }
+    }
+
+    private record Rule(String method, String pattern, int budget) {
+
+        static Rule parse(String entry) {
+            int space = entry.indexOf(' ');
+            int equals = entry.lastIndexOf('=');
+            if (space < 1 || equals < space) {
+                throw new IllegalArgumentException("Expected METHOD /path=budget, got '%s'".formatted(entry));
+            }
+            return new Rule(entry.substring(0, space).trim(), entry.substring(space + 1, equals).trim(),
+                    Integer.parseInt(entry.substring(equals + 1).trim()));
+        }
+
+        String endpoint() {
+            return this.method + " " + this.pattern;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.library.app.sqlbudget;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*
+ * Counts every statement Hibernate prepares against the current request's StatementBudget, after handing it to the
+ * inspector that was configured before, if any.
+ * */
+public class StatementBudgetInspector implements StatementInspector {
+
+    private final StatementInspector delegate;
+
+    public StatementBudgetInspector(StatementInspector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String inspected = this.delegate == null ? sql : this.delegate.inspect(sql);
+        StatementBudget.record(inspected == null ? sql : inspected);
+        return inspected;
+    }
+}
@@ -0,0 +1,7 @@
+package org.library.app.sqlbudget;
+
+public enum StatementBudgetMode {
+    OFF,
+    LOG,
+    ENFORCE
+}
@@ -0,0 +1,62 @@
+package org.library.app.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void tryAcquire_LimitReached_RejectsUntilReleased() {
+        var limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(FAST, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void release_FastUnderLoad_IncreasesLimit() {
+        var limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, 2.0, 0.5);
+
+        for (int i = 0; i < 200; i++) {
+            while (limiter.tryAcquire()) {
+                // fill the limit so that growth is justified
+            }
+            limiter.release(FAST, false);
+        }
+
+        assertEquals(8, limiter.limit());
+    }
+
+    @Test
+    void release_LatencyAboveBaselineOrFailure_DecreasesLimitDownToMinimum() {
+        var limiter = new AdaptiveConcurrencyLimiter(16, 2, 32, 2.0, 0.5);
+        limiter.tryAcquire();
+        limiter.release(FAST, false);
+
+        limiter.tryAcquire();
+        limiter.release(SLOW, false);
+        assertEquals(8, limiter.limit());
+
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertEquals(4, limiter.limit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, true);
+        }
+        assertEquals(2, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+}
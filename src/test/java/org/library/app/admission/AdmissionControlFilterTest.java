@@ -0,0 +1,116 @@
+package org.library.app.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.library.app.exception.ProblemResponses;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    final AtomicInteger executions = new AtomicInteger();
+
+    final FilterChain chain = (request, response) -> this.executions.incrementAndGet();
+
+    @Test
+    void doFilter_MemberOverItsRate_Returns429WithRetryAfterAndLeavesOtherMembersAlone() throws Exception {
+        var filter = filter(2, 1000, 100);
+
+        assertEquals(200, perform(filter, "/library-api/members/1/book/1").getStatus());
+        assertEquals(200, perform(filter, "/library-api/members/1/book/2").getStatus());
+        var shed = perform(filter, "/library-api/members/1/book/3");
+        var otherMember = perform(filter, "/library-api/members/2/book/1");
+
+        assertEquals(429, shed.getStatus());
+        assertEquals("100", shed.getHeader("Retry-After"));
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON_VALUE, shed.getContentType());
+        assertTrue(shed.getContentAsString().contains("\"code\":\"too-many-requests\""));
+        assertEquals(200, otherMember.getStatus());
+        assertEquals(3, this.executions.get());
+        assertEquals(1, this.meterRegistry.get("library.admission.shed")
+                .tag("reason", "client-rate").counter().count());
+        assertEquals(3, this.meterRegistry.get("library.admission.admitted").counter().count());
+    }
+
+    @Test
+    void doFilter_GlobalRateExhausted_Returns503() throws Exception {
+        var filter = filter(1000, 2, 100);
+
+        perform(filter, "/library-api/books/list");
+        perform(filter, "/library-api/books/list");
+        var shed = perform(filter, "/library-api/books/list");
+
+        assertEquals(503, shed.getStatus());
+        assertNotNull(shed.getHeader("Retry-After"));
+        assertTrue(shed.getContentAsString().contains("\"code\":\"overloaded\""));
+        assertEquals(2, this.executions.get());
+    }
+
+    @Test
+    void doFilter_ConcurrencyLimitReached_Returns503InsteadOfQueueing() throws Exception {
+        var filter = filter(1000, 1000, 1);
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        FilterChain blocking = (request, response) -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            var inFlight = executor.submit(() -> {
+                var response = new MockHttpServletResponse();
+                filter.doFilter(new MockHttpServletRequest("GET", "/library-api/books/list"), response, blocking);
+                return response;
+            });
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            var shed = perform(filter, "/library-api/books/list");
+            release.countDown();
+
+            assertEquals(503, shed.getStatus());
+            assertEquals("1", shed.getHeader("Retry-After"));
+            assertEquals(200, inFlight.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(200, perform(filter, "/library-api/books/list").getStatus());
+    }
+
+    @Test
+    void doFilter_ExcludedPath_NeverShed() throws Exception {
+        var filter = filter(1, 1, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, perform(filter, "/library-api/admin/cache").getStatus());
+        }
+        assertEquals(5, this.executions.get());
+    }
+
+    private AdmissionControlFilter filter(int clientBurst, int globalBurst, int concurrencyLimit) {
+        return new AdmissionControlFilter(this.meterRegistry,
+                new ProblemResponses(Jackson2ObjectMapperBuilder.json().build()), true, 0.01, clientBurst, 1000, 0.01, globalBurst,
+                concurrencyLimit, 1, concurrencyLimit, 2.0, 0.9, List.of("/library-api/admin/**"));
+    }
+
+    private MockHttpServletResponse perform(AdmissionControlFilter filter, String path) throws Exception {
+        var response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", path), response, this.chain);
+        return response;
+    }
+}
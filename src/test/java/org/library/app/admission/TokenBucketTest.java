@@ -0,0 +1,65 @@
+package org.library.app.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_BurstExhausted_ReturnsWaitUntilNextPermit() {
+        var bucket = new TokenBucket(10, 3);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+
+        assertEquals(SECOND / 10, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now + SECOND / 10));
+    }
+
+    @Test
+    void tryAcquire_IdleLongerThanBurst_DoesNotAccumulateMoreThanBurst() {
+        var bucket = new TokenBucket(1, 2);
+        long now = 1_000 * SECOND;
+        bucket.tryAcquire(now);
+
+        long later = now + 60 * SECOND;
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(0, bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later) > 0);
+    }
+
+    @Test
+    void tryAcquire_ConcurrentCallers_AdmitsExactlyBurst() throws Exception {
+        var bucket = new TokenBucket(0.001, 100);
+        var admitted = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        long now = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        if (bucket.tryAcquire(now) == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertEquals(100, admitted.get());
+    }
+}
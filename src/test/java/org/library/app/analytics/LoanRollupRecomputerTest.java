@@ -0,0 +1,200 @@
+package org.library.app.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.library.app.controller.payload.NewBookPayload;
+import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.entity.LoanRollupEntity;
+import org.library.app.event.LibraryEvent;
+import org.library.app.event.LibraryEventType;
+import org.library.app.repository.BooksRepository;
+import org.library.app.repository.LoanRollupsRepository;
+import org.library.app.repository.MembersRepository;
+import org.library.app.service.BooksService;
+import org.library.app.service.MemberService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loan-rollup-recompute;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+                "DEFAULT_NULL_ORDERING=HIGH;INIT=CREATE SCHEMA IF NOT EXISTS public",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "library.analytics.recompute.chunk-size=2"})
+class LoanRollupRecomputerTest {
+
+    private static final Instant HOUR = Instant.parse("2024-06-05T12:00:00Z");
+
+    @Autowired
+    LoanRollupRecomputer recomputer;
+
+    @Autowired
+    LoanRollupUpdater updater;
+
+    @Autowired
+    LoanRollupsRepository repository;
+
+    @Autowired
+    BooksService booksService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Autowired
+    MembersRepository membersRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("analyticsDataSource")
+    DataSource dataSource;
+
+    @Test
+    void start_CountersDrifted_RestoresTotalsOfEveryLoanInChunks() throws InterruptedException {
+        Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        this.booksService.createBook(new NewBookPayload("Recomputed", "Rollup Author"));
+        this.booksService.createBook(new NewBookPayload("Recomputed", "Rollup Author"));
+        this.booksService.createBook(new NewBookPayload("Rescanned", "Rollup Author"));
+        this.memberService.createMember(new NewMemberPayload("Rollup Reader"));
+        this.memberService.createMember(new NewMemberPayload("Rollup Writer"));
+        long reader = this.membersRepository.findByName("Rollup Reader").orElseThrow().getId();
+        long writer = this.membersRepository.findByName("Rollup Writer").orElseThrow().getId();
+        long recomputed = this.booksRepository.findByTitleAndAuthor("Recomputed", "Rollup Author")
+                .orElseThrow().getId();
+        long rescanned = this.booksRepository.findByTitleAndAuthor("Rescanned", "Rollup Author")
+                .orElseThrow().getId();
+
+        this.memberService.memberBorrowBook(reader, recomputed);
+        this.memberService.memberBorrowBook(reader, rescanned);
+        this.memberService.memberBorrowBook(writer, recomputed);
+        this.memberService.memberReturnBook(reader, recomputed);
+        this.memberService.memberReturnBook(reader, rescanned);
+        this.memberService.memberBorrowBook(reader, rescanned);
+        List<LoanRollupEntity> incremental = awaitRollups(today, 4, 2);
+        this.jdbcTemplate.update("UPDATE public.t_loan_rollup SET c_borrows = c_borrows + 100, c_returns = 0");
+
+        this.recomputer.start();
+        LoanRollupRecomputer.Progress progress = awaitRecompute();
+
+        assertEquals(LoanRollupRecomputer.State.COMPLETED, progress.state());
+        assertEquals(4, progress.loans());
+        assertEquals(2, progress.chunks());
+        assertEquals(2, progress.chunksScanned());
+        assertEquals(describe(incremental), describe(rollupsFrom(today)));
+    }
+
+    @Test
+    void recompute_CountersDrifted_ReturnsOnceTheRollupsAreCorrected() {
+        this.updater.onBatch(List.of(borrowed(HOUR)));
+
+        LoanRollupRecomputer.Progress progress = this.recomputer.recompute();
+
+        assertEquals(LoanRollupRecomputer.State.COMPLETED, progress.state());
+        assertEquals(progress, this.recomputer.progress());
+        assertTrue(this.repository.findByGranularityAndBucketStartBetweenOrderByBucketStart(
+                TimeWindow.HOUR, HOUR, HOUR).isEmpty());
+    }
+
+    @Test
+    void correct_IncrementsAfterRollupsWereRead_KeptOnTopOfScannedTotals() {
+        LoanRollupTotals scanned = new LoanRollupTotals();
+        scanned.borrowed(HOUR.toEpochMilli());
+        scanned.returned(HOUR.plusSeconds(60).toEpochMilli(), 1_000);
+        this.updater.onBatch(List.of(borrowed(HOUR), borrowed(HOUR), borrowed(HOUR)));
+        LoanRollupTotals rollups = this.updater.rollups();
+
+        // another node's borrow after the read
+        this.updater.onBatch(List.of(borrowed(HOUR.plusSeconds(1800))));
+        int buckets = this.updater.correct(scanned.minus(rollups));
+
+        assertTrue(buckets >= 2);
+        for (TimeWindow granularity : LoanRollupUpdater.GRANULARITIES) {
+            Instant bucketStart = Instant.ofEpochMilli(granularity.start(HOUR.toEpochMilli()));
+            LoanRollupEntity rollup = this.repository.findByGranularityAndBucketStartBetweenOrderByBucketStart(
+                    granularity, bucketStart, bucketStart).get(0);
+            assertEquals(2, rollup.getBorrows());
+            assertEquals(1, rollup.getReturns());
+            assertEquals(1_000, rollup.getLoanDurationTotal());
+        }
+    }
+
+    @Test
+    void correct_BucketWithoutLoans_Dropped() {
+        Instant empty = HOUR.minus(30, ChronoUnit.DAYS);
+        this.updater.onBatch(List.of(borrowed(empty),
+                new LibraryEvent(LibraryEventType.BOOK_RETURNED, 1, 2, empty.toEpochMilli(), 30, 0)));
+
+        this.updater.correct(new LoanRollupTotals().minus(this.updater.rollups()));
+
+        assertTrue(this.repository.findByGranularityAndBucketStartBetweenOrderByBucketStart(
+                TimeWindow.HOUR, empty, empty).isEmpty());
+    }
+
+    @Test
+    void constructor_ConnectionsNotBelowAnalyticsPool_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoanRollupRecomputer(this.dataSource, this.updater, 10, 2, 2));
+    }
+
+    private static LibraryEvent borrowed(Instant at) {
+        return new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 2, at.toEpochMilli(), 0, 0);
+    }
+
+    private List<LoanRollupEntity> awaitRollups(Instant day, long borrows, long returns) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        List<LoanRollupEntity> rollups = rollupsFrom(day);
+        while (!counted(rollups, borrows, returns) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            rollups = rollupsFrom(day);
+        }
+        assertTrue(counted(rollups, borrows, returns));
+        return rollups;
+    }
+
+    private LoanRollupRecomputer.Progress awaitRecompute() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        LoanRollupRecomputer.Progress progress = this.recomputer.progress();
+        while (progress.state() == LoanRollupRecomputer.State.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            progress = this.recomputer.progress();
+        }
+        return progress;
+    }
+
+    private List<LoanRollupEntity> rollupsFrom(Instant day) {
+        Instant end = day.plus(2, ChronoUnit.DAYS);
+        return LoanRollupUpdater.GRANULARITIES.stream()
+                .flatMap(granularity -> this.repository
+                        .findByGranularityAndBucketStartBetweenOrderByBucketStart(granularity, day, end).stream())
+                .toList();
+    }
+
+    private static boolean counted(List<LoanRollupEntity> rollups, long borrows, long returns) {
+        return LoanRollupUpdater.GRANULARITIES.stream().allMatch(granularity -> {
+            List<LoanRollupEntity> buckets = rollups.stream()
+                    .filter(rollup -> rollup.getGranularity() == granularity)
+                    .toList();
+            return buckets.stream().mapToLong(LoanRollupEntity::getBorrows).sum() == borrows
+                    && buckets.stream().mapToLong(LoanRollupEntity::getReturns).sum() == returns;
+        });
+    }
+
+    private static List<String> describe(List<LoanRollupEntity> rollups) {
+        return rollups.stream()
+                .map(rollup -> "%s %s %d %d %d".formatted(rollup.getGranularity(), rollup.getBucketStart(),
+                        rollup.getBorrows(), rollup.getReturns(), rollup.getLoanDurationTotal()))
+                .toList();
+    }
+}
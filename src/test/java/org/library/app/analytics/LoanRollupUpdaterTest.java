@@ -0,0 +1,78 @@
+package org.library.app.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.event.LibraryEvent;
+import org.library.app.event.LibraryEventType;
+import org.library.app.repository.LoanRollupsRepository;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanRollupUpdaterTest {
+
+    private static final Instant HOUR = Instant.parse("2024-06-05T12:00:00Z");
+
+    private static final Instant DAY = Instant.parse("2024-06-05T00:00:00Z");
+
+    @Mock
+    LoanRollupsRepository repository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    DataSource dataSource;
+
+    LoanRollupUpdater updater;
+
+    @BeforeEach
+    void setUp() {
+        this.updater = new LoanRollupUpdater(this.repository, new TransactionTemplate(this.transactionManager),
+                this.dataSource);
+    }
+
+    @Test
+    void onBatch_LoanEvents_IncrementsHourAndDayBuckets() {
+        this.updater.onBatch(List.of(
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 1, HOUR.plusSeconds(10).toEpochMilli(), 0, 0),
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 2, 1, HOUR.plusSeconds(20).toEpochMilli(), 0, 0),
+                new LibraryEvent(LibraryEventType.BOOK_RETURNED, 1, 1, HOUR.plusSeconds(30).toEpochMilli(), 5_000, 0),
+                new LibraryEvent(LibraryEventType.BOOK_CREATED, 0, 2, HOUR.plusSeconds(40).toEpochMilli(), 0, 0)
+        ));
+
+        verify(this.repository).insertIfAbsent("HOUR", HOUR);
+        verify(this.repository).increment(TimeWindow.HOUR, HOUR, 2, 1, 5_000);
+        verify(this.repository).insertIfAbsent("DAY", DAY);
+        verify(this.repository).increment(TimeWindow.DAY, DAY, 2, 1, 5_000);
+        verifyNoMoreInteractions(this.repository);
+    }
+
+    @Test
+    void onBatch_BucketMissing_CreatesBucketBeforeIncrementing() {
+        this.updater.onBatch(List.of(
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 1, HOUR.toEpochMilli(), 0, 0)));
+
+        InOrder inOrder = inOrder(this.repository);
+        inOrder.verify(this.repository).insertIfAbsent("HOUR", HOUR);
+        inOrder.verify(this.repository).increment(TimeWindow.HOUR, HOUR, 1, 0, 0);
+    }
+
+    @Test
+    void onBatch_NoLoanEvents_DoesNothing() {
+        this.updater.onBatch(List.of(
+                new LibraryEvent(LibraryEventType.BOOK_UPDATED, 0, 1, HOUR.toEpochMilli(), 0, 0)));
+
+        verifyNoInteractions(this.repository, this.transactionManager);
+    }
+}
@@ -0,0 +1,137 @@
+package org.library.app.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void top_ZipfStream_CountsBoundExactCounts() {
+        var sketch = new SpaceSavingSketch(100);
+        var exact = new HashMap<Long, Long>();
+        var random = new Random(42);
+        double[] cumulative = zipf(1_000, 1.1);
+        for (int i = 0; i < 100_000; i++) {
+            long item = sample(cumulative, random.nextDouble());
+            sketch.offer(item);
+            exact.merge(item, 1L, Long::sum);
+        }
+
+        assertEquals(100_000, sketch.total());
+        assertTrue(sketch.maxError() <= sketch.total() / sketch.capacity());
+        for (var entry : sketch.top(100)) {
+            long trueCount = exact.get(entry.item());
+            assertTrue(entry.count() >= trueCount);
+            assertTrue(entry.count() - entry.error() <= trueCount);
+        }
+
+        var exactTop = exact.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(10).map(Map.Entry::getKey).toList();
+        assertEquals(exactTop, sketch.top(10).stream().map(SpaceSavingSketch.Entry::item).toList());
+    }
+
+    @Test
+    void top_MergedSketches_CountsBoundExactCounts() {
+        var sketches = new ArrayList<SpaceSavingSketch>();
+        var exact = new HashMap<Long, Long>();
+        var random = new Random(7);
+        double[] cumulative = zipf(1_000, 1.1);
+        for (int slice = 0; slice < 12; slice++) {
+            var sketch = new SpaceSavingSketch(50);
+            for (int i = 0; i < 5_000; i++) {
+                long item = sample(cumulative, random.nextDouble());
+                sketch.offer(item);
+                exact.merge(item, 1L, Long::sum);
+            }
+            sketches.add(sketch);
+        }
+
+        List<SpaceSavingSketch.Entry> top = SpaceSavingSketch.top(sketches, 50);
+
+        for (var entry : top) {
+            long trueCount = exact.getOrDefault(entry.item(), 0L);
+            assertTrue(entry.count() >= trueCount);
+            assertTrue(entry.count() - entry.error() <= trueCount);
+        }
+        var exactTop = exact.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(5).map(Map.Entry::getKey).toList();
+        assertEquals(exactTop, top.stream().limit(5).map(SpaceSavingSketch.Entry::item).toList());
+    }
+
+    @Test
+    void top_HeavyHitter_AlwaysReported() {
+        var sketch = new SpaceSavingSketch(10);
+        for (long i = 0; i < 1_000; i++) {
+            sketch.offer(i);
+            if (i % 5 == 0) {
+                sketch.offer(-1);
+            }
+        }
+
+        var top = sketch.top(1).get(0);
+
+        assertEquals(-1, top.item());
+        assertTrue(top.count() - top.error() <= 200);
+        assertTrue(top.count() >= 200);
+    }
+
+    @Test
+    void top_FewerItemsThanCapacity_CountsAreExact() {
+        var sketch = new SpaceSavingSketch(10);
+        sketch.offer(1);
+        sketch.offer(2);
+        sketch.offer(2);
+        sketch.offer(3);
+        sketch.offer(3);
+        sketch.offer(3);
+
+        var top = sketch.top(2);
+
+        assertEquals(new SpaceSavingSketch.Entry(3, 3, 0), top.get(0));
+        assertEquals(new SpaceSavingSketch.Entry(2, 2, 0), top.get(1));
+        assertEquals(0, sketch.maxError());
+    }
+
+    @Test
+    void clear_ResetsSketch() {
+        var sketch = new SpaceSavingSketch(2);
+        sketch.offer(1);
+        sketch.offer(2);
+        sketch.offer(3);
+
+        sketch.clear();
+        sketch.offer(4);
+
+        assertEquals(1, sketch.total());
+        assertEquals(1, sketch.top(10).size());
+        assertEquals(4, sketch.top(10).get(0).item());
+    }
+
+    private static double[] zipf(int items, double exponent) {
+        double[] cumulative = new double[items];
+        double sum = 0;
+        for (int i = 0; i < items; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < items; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static long sample(double[] cumulative, double value) {
+        int index = Arrays.binarySearch(cumulative, value);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,94 @@
+package org.library.app.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.library.app.event.LibraryEvent;
+import org.library.app.event.LibraryEventType;
+import org.library.app.exception.InvalidRequestException;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopBorrowedBooksTrackerTest {
+
+    private static final long NOON = Instant.parse("2024-06-05T12:00:00Z").toEpochMilli();
+
+    @Test
+    void top_OnlyBorrowEventsCounted() {
+        var tracker = new TopBorrowedBooksTracker(16);
+        tracker.onBatch(List.of(
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 7, NOON, 0, 0),
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 2, 7, NOON + 1, 0, 0),
+                new LibraryEvent(LibraryEventType.BOOK_RETURNED, 1, 7, NOON + 2, 0, 0),
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 8, NOON + 3, 0, 0)
+        ));
+
+        var top = tracker.top(TimeWindow.HOUR, 10, NOON + 10);
+
+        assertEquals(3, top.total());
+        assertEquals(List.of(new SpaceSavingSketch.Entry(7, 2, 0), new SpaceSavingSketch.Entry(8, 1, 0)),
+                top.entries());
+        assertEquals(Instant.parse("2024-06-05T11:05:00Z").toEpochMilli(), top.start());
+        assertEquals(Instant.parse("2024-06-05T12:05:00Z").toEpochMilli(), top.end());
+    }
+
+    @Test
+    void top_BorrowsBeforeHourBoundary_StillInTrailingHour() {
+        var tracker = new TopBorrowedBooksTracker(16);
+        long beforeBoundary = Instant.parse("2024-06-05T12:58:00Z").toEpochMilli();
+        tracker.onBatch(List.of(
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 7, beforeBoundary, 0, 0),
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 2, 7, beforeBoundary + 120_000, 0, 0)));
+
+        var top = tracker.top(TimeWindow.HOUR, 10, Instant.parse("2024-06-05T13:01:00Z").toEpochMilli());
+
+        assertEquals(2, top.total());
+        assertEquals(List.of(new SpaceSavingSketch.Entry(7, 2, 0)), top.entries());
+    }
+
+    @Test
+    void top_BorrowsOlderThanWindow_Dropped() {
+        var tracker = new TopBorrowedBooksTracker(16);
+        tracker.onBatch(List.of(new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 7, NOON, 0, 0)));
+        long later = Instant.parse("2024-06-05T13:15:00Z").toEpochMilli();
+
+        var hour = tracker.top(TimeWindow.HOUR, 10, later);
+        var day = tracker.top(TimeWindow.DAY, 10, later);
+
+        assertEquals(0, hour.total());
+        assertTrue(hour.entries().isEmpty());
+        assertEquals(1, day.total());
+    }
+
+    @Test
+    void top_RingComesRoundToSlice_OldSliceCleared() {
+        var tracker = new TopBorrowedBooksTracker(16);
+        long nextHour = NOON + 3_600_000;
+        tracker.onBatch(List.of(
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 7, NOON, 0, 0),
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 8, nextHour, 0, 0),
+                new LibraryEvent(LibraryEventType.BOOK_BORROWED, 2, 7, NOON + 60_000, 0, 0)));
+
+        var top = tracker.top(TimeWindow.HOUR, 10, nextHour);
+
+        assertEquals(1, top.total());
+        assertEquals(List.of(new SpaceSavingSketch.Entry(8, 1, 0)), top.entries());
+    }
+
+    @Test
+    void start_WeekWindow_AlignedToMonday() {
+        assertEquals(Instant.parse("2024-06-03T00:00:00Z").toEpochMilli(), TimeWindow.WEEK.start(NOON));
+        assertEquals(Instant.parse("2024-06-10T00:00:00Z").toEpochMilli(),
+                TimeWindow.WEEK.end(TimeWindow.WEEK.start(NOON)));
+    }
+
+    @Test
+    void top_LimitOutsideCapacity_Throws() {
+        var tracker = new TopBorrowedBooksTracker(16);
+
+        assertThrows(InvalidRequestException.class, () -> tracker.top(TimeWindow.HOUR, -1, NOON));
+        assertThrows(InvalidRequestException.class, () -> tracker.top(TimeWindow.HOUR, 0, NOON));
+        assertThrows(InvalidRequestException.class, () -> tracker.top(TimeWindow.HOUR, 17, NOON));
+    }
+}
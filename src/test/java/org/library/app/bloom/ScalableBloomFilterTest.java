@@ -0,0 +1,44 @@
+package org.library.app.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void mightContain_AfterGrowingPastInitialCapacity_HasNoFalseNegatives() {
+        var filter = new ScalableBloomFilter(100, 0.01, 2, 0.5);
+
+        IntStream.range(0, 5_000).forEach(i -> filter.put("member-" + i));
+
+        assertTrue(filter.sliceCount() > 1);
+        assertTrue(filter.size() > 4_900 && filter.size() <= 5_000);
+        IntStream.range(0, 5_000).forEach(i -> assertTrue(filter.mightContain("member-" + i)));
+    }
+
+    @Test
+    void mightContain_UnknownElements_StaysUnderConfiguredFalsePositiveRate() {
+        var filter = new ScalableBloomFilter(1_000, 0.01, 2, 0.5);
+        IntStream.range(0, 20_000).forEach(i -> filter.put("member-" + i));
+
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("stranger-" + i))
+                .count();
+
+        assertTrue(falsePositives < 1_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void put_DuplicateElement_IsCountedOnce() {
+        var filter = new ScalableBloomFilter(10, 0.01, 2, 0.5);
+
+        filter.put("Alice");
+        filter.put("Alice");
+
+        assertEquals(1, filter.size());
+        assertFalse(filter.mightContain("Bob"));
+    }
+}
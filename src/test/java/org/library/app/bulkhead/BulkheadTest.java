@@ -0,0 +1,66 @@
+package org.library.app.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.library.app.exception.BulkheadFullException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void supplyAsync_ThreadsAndQueueFull_FailsFastAndCountsRejection() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        try (var bulkhead = new Bulkhead("reports", 1, 1, this.meterRegistry)) {
+            var running = bulkhead.supplyAsync(() -> {
+                started.countDown();
+                await(release);
+                return "first";
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            var queued = bulkhead.supplyAsync(() -> "second");
+
+            var rejected = bulkhead.supplyAsync(() -> "third");
+
+            var exception = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(BulkheadFullException.class, exception.getCause());
+            assertEquals(1.0, bulkhead.saturation());
+            assertEquals(1, this.meterRegistry.get("library.bulkhead.rejected")
+                    .tag("bulkhead", "reports").counter().count());
+            assertEquals(1, this.meterRegistry.get("library.bulkhead.executor.queued")
+                    .tag("name", "reports").gauge().value());
+
+            release.countDown();
+            assertEquals("first", running.get(5, TimeUnit.SECONDS));
+            assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void supplyAsync_TaskThrows_CompletesExceptionallyWithoutRejection() {
+        try (var bulkhead = new Bulkhead("reports", 1, 1, this.meterRegistry)) {
+            var result = bulkhead.supplyAsync(() -> {
+                throw new IllegalStateException("boom");
+            });
+
+            var exception = assertThrows(CompletionException.class, result::join);
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+            assertEquals(0, this.meterRegistry.get("library.bulkhead.rejected").counter().count());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.library.app.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.library.app.controller.dto.CacheRegionStatsDTO;
+import org.library.app.controller.payload.NewBookPayload;
+import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.repository.BooksRepository;
+import org.library.app.repository.MembersRepository;
+import org.library.app.service.BooksService;
+import org.library.app.service.CacheAdminService;
+import org.library.app.service.MemberService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * SQL statements per borrow + return with every request missing the second-level cache (same as running without
+ * it) against a warm cache. Statements are counted per thread, so writes done by the event consumers in the
+ * background are not included.
+ * */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:borrow-path;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+                "DEFAULT_NULL_ORDERING=HIGH;INIT=CREATE SCHEMA IF NOT EXISTS public",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "org.library.app.cache.BorrowPathRoundTripsTest$CountingStatementInspector"})
+class BorrowPathRoundTripsTest {
+
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    BooksService booksService;
+
+    @Autowired
+    MembersRepository membersRepository;
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Autowired
+    CacheAdminService cacheAdminService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void borrowAndReturn_WarmCache_NeedsFewerStatementsThanCold() {
+        this.memberService.createMember(new NewMemberPayload("Reader"));
+        this.booksService.createBook(new NewBookPayload("Title", "Author"));
+        long memberId = this.membersRepository.findByName("Reader").orElseThrow().getId();
+        long bookId = this.booksRepository.findByTitleAndAuthor("Title", "Author").orElseThrow().getId();
+
+        long coldStatements = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            CountingStatementInspector.reset();
+            this.entityManagerFactory.getCache().evictAll();
+            this.memberService.memberBorrowBook(memberId, bookId);
+            this.entityManagerFactory.getCache().evictAll();
+            this.memberService.memberReturnBook(memberId, bookId);
+            coldStatements += CountingStatementInspector.count();
+        }
+
+        long warmStatements = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            CountingStatementInspector.reset();
+            this.memberService.memberBorrowBook(memberId, bookId);
+            this.memberService.memberReturnBook(memberId, bookId);
+            warmStatements += CountingStatementInspector.count();
+        }
+
+        assertTrue(warmStatements < coldStatements);
+        assertEquals(1, this.booksRepository.findById(bookId).orElseThrow().getAmount());
+
+        CacheRegionStatsDTO memberRegion = this.cacheAdminService.getRegionStatistics().stream()
+                .filter(region -> region.region().equals(CacheRegions.MEMBER))
+                .findFirst().orElseThrow();
+        assertTrue(memberRegion.hits() >= ROUNDS);
+        assertNotNull(memberRegion.hitRatio());
+        assertEquals(0, memberRegion.evictions());
+    }
+
+    public static class CountingStatementInspector implements StatementInspector {
+
+        private static final ThreadLocal<int[]> STATEMENTS = ThreadLocal.withInitial(() -> new int[1]);
+
+        static void reset() {
+            STATEMENTS.get()[0] = 0;
+        }
+
+        static int count() {
+            return STATEMENTS.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.get()[0]++;
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.library.app.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.app.LibraryApplication;
+import org.library.app.controller.payload.NewBookPayload;
+import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.entity.BookEntity;
+import org.library.app.entity.MemberEntity;
+import org.library.app.exception.MemberAlreadyHaveThisBookException;
+import org.library.app.repository.BooksRepository;
+import org.library.app.repository.MembersRepository;
+import org.library.app.service.BooksService;
+import org.library.app.service.MemberService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Two application contexts play two nodes behind a load balancer: one database, one second-level cache each, and
+ * the in-JVM transport standing in for LISTEN/NOTIFY.
+ * */
+class CacheInvalidationAcrossContextsTest {
+
+    private static final Duration AWAIT_TIMEOUT = Duration.ofSeconds(5);
+
+    ConfigurableApplicationContext nodeA;
+
+    ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    void startNodes() {
+        String database = UUID.randomUUID().toString();
+        this.nodeA = startNode(database);
+        this.nodeB = startNode(database);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        this.nodeB.close();
+        this.nodeA.close();
+    }
+
+    @Test
+    void memberBorrowBook_OnOtherNode_EvictsBookAndOpenLoansFromThisNodesCache() throws InterruptedException {
+        this.nodeA.getBean(MemberService.class).createMember(new NewMemberPayload("Reader"));
+        this.nodeA.getBean(BooksService.class).createBook(new NewBookPayload("Dune", "Herbert"));
+        this.nodeA.getBean(BooksService.class).createBook(new NewBookPayload("Emma", "Austen"));
+        long memberId = this.nodeA.getBean(MembersRepository.class).findByName("Reader").orElseThrow().getId();
+        long dune = this.nodeA.getBean(BooksRepository.class).findByTitleAndAuthor("Dune", "Herbert")
+                .orElseThrow().getId();
+        long emma = this.nodeA.getBean(BooksRepository.class).findByTitleAndAuthor("Emma", "Austen")
+                .orElseThrow().getId();
+
+        MemberService memberServiceB = this.nodeB.getBean(MemberService.class);
+        memberServiceB.memberBorrowBook(memberId, emma);
+        assertEquals(1, this.nodeB.getBean(BooksService.class).getBookById(dune).amount());
+        var cacheB = this.nodeB.getBean(EntityManagerFactory.class).getCache();
+        assertTrue(cacheB.contains(BookEntity.class, dune));
+        assertTrue(cacheB.contains(MemberEntity.class, memberId));
+
+        this.nodeA.getBean(MemberService.class).memberBorrowBook(memberId, dune);
+
+        await(() -> !cacheB.contains(BookEntity.class, dune));
+        assertEquals(0, this.nodeB.getBean(BooksService.class).getBookById(dune).amount());
+        assertThrows(MemberAlreadyHaveThisBookException.class, () -> memberServiceB.memberBorrowBook(memberId, dune));
+        assertTrue(cacheB.contains(MemberEntity.class, memberId));
+    }
+
+    @Test
+    void invalidateAll_OnOtherNode_FlushesThisNodesCache() throws InterruptedException {
+        this.nodeA.getBean(BooksService.class).createBook(new NewBookPayload("Dune", "Herbert"));
+        long dune = this.nodeA.getBean(BooksRepository.class).findByTitleAndAuthor("Dune", "Herbert")
+                .orElseThrow().getId();
+        this.nodeB.getBean(BooksService.class).getBookById(dune);
+        var cacheB = this.nodeB.getBean(EntityManagerFactory.class).getCache();
+        assertTrue(cacheB.contains(BookEntity.class, dune));
+
+        this.nodeA.getBean(CacheInvalidationPublisher.class).invalidateAll();
+
+        await(() -> !cacheB.contains(BookEntity.class, dune));
+    }
+
+    private static ConfigurableApplicationContext startNode(String database) {
+        return new SpringApplicationBuilder(LibraryApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;" +
+                                "DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;" +
+                                "INIT=CREATE SCHEMA IF NOT EXISTS public",
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.jpa.show-sql=false",
+                        "library.cache.invalidation.transport=in-jvm",
+                        "library.cache.invalidation.channel=cache-invalidation-test",
+                        "library.cache.invalidation.batch-window=1ms")
+                .run();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + AWAIT_TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within " + AWAIT_TIMEOUT);
+            Thread.sleep(10);
+        }
+    }
+}
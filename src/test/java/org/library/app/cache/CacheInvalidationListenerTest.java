@@ -0,0 +1,110 @@
+package org.library.app.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.entity.BookEntity;
+import org.library.app.entity.LoanEntity;
+import org.library.app.entity.MemberEntity;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationListenerTest {
+
+    @Mock
+    EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    SessionFactory sessionFactory;
+
+    @Mock
+    Cache cache;
+
+    @Mock
+    CacheInvalidationPublisher publisher;
+
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    CacheInvalidationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        doReturn("self").when(this.publisher).nodeId();
+        this.listener = new CacheInvalidationListener(CacheInvalidationTransport.disabled(), this.publisher,
+                this.entityManagerFactory, List.of(), this.meterRegistry);
+    }
+
+    @Test
+    void encodeAndDecode_KeysInSeveralRegions_RoundTrip() {
+        var message = new CacheInvalidationMessage("a1", 42, false,
+                Map.of(CacheRegions.BOOK, Set.of(1L, 2L), CacheRegions.MEMBER_LOANS, Set.of(7L)));
+
+        var decoded = CacheInvalidationMessage.decode(message.encode());
+
+        assertEquals("a1", decoded.node());
+        assertEquals(42, decoded.sequence());
+        assertFalse(decoded.flushAll());
+        assertEquals(message.keys(), decoded.keys());
+        assertTrue(CacheInvalidationMessage.decode("a1|43|*").flushAll());
+        assertThrows(IllegalArgumentException.class, () -> CacheInvalidationMessage.decode("a1|44|x=1"));
+    }
+
+    @Test
+    void onMessages_ConsecutiveSequences_EvictsKeysOfAllMessagesInOneBatch() {
+        doReturn(this.sessionFactory).when(this.entityManagerFactory).unwrap(SessionFactory.class);
+        doReturn(this.cache).when(this.sessionFactory).getCache();
+
+        this.listener.onMessages(List.of("a1|1|b=1,2;ml=5", "a1|2|b=2;l=9;m=3", "self|8|b=100"));
+
+        verify(this.cache).evictEntityData(BookEntity.class, 1L);
+        verify(this.cache).evictEntityData(BookEntity.class, 2L);
+        verify(this.cache).evictCollectionData(MemberEntity.class.getName() + ".loans", 5L);
+        verify(this.cache).evictEntityData(LoanEntity.class, 9L);
+        verify(this.cache).evictEntityData(MemberEntity.class, 3L);
+        verifyNoMoreInteractions(this.cache);
+        assertEquals(2, this.meterRegistry.get("library.cache.invalidation.received").counter().count());
+        assertEquals(5, this.meterRegistry.get("library.cache.invalidation.evicted").counter().count());
+    }
+
+    @Test
+    void onMessages_SequenceGap_FlushesWholeCache() {
+        doReturn(this.sessionFactory).when(this.entityManagerFactory).unwrap(SessionFactory.class);
+        doReturn(this.cache).when(this.sessionFactory).getCache();
+        this.listener.onMessages(List.of("a1|1|b=1"));
+        this.listener.onMessages(List.of("b2|10|b=2"));
+
+        this.listener.onMessages(List.of("a1|3|b=3"));
+
+        verify(this.cache).evictAllRegions();
+        verify(this.cache, never()).evictEntityData(BookEntity.class, 3L);
+        assertEquals(1, this.meterRegistry.get("library.cache.invalidation.flushes")
+                .tag("reason", "gap").counter().count());
+    }
+
+    @Test
+    void onMessagesLost_ForgetsSequencesAndFlushes() {
+        doReturn(this.sessionFactory).when(this.entityManagerFactory).unwrap(SessionFactory.class);
+        doReturn(this.cache).when(this.sessionFactory).getCache();
+        this.listener.onMessages(List.of("a1|1|b=1"));
+
+        this.listener.onMessagesLost();
+        this.listener.onMessages(List.of("a1|5|b=5"));
+
+        verify(this.cache, times(1)).evictAllRegions();
+        verify(this.cache).evictEntityData(BookEntity.class, 5L);
+        assertEquals(1, this.meterRegistry.get("library.cache.invalidation.flushes")
+                .tag("reason", "lost").counter().count());
+    }
+}
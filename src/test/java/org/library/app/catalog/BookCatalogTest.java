@@ -0,0 +1,109 @@
+package org.library.app.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.cache.CacheRegions;
+import org.library.app.controller.dto.BookDTO;
+import org.library.app.entity.BookEntity;
+import org.library.app.repository.BooksRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookCatalogTest {
+
+    @Mock
+    BooksRepository repository;
+
+    final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    BookCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        this.catalog = new BookCatalog(this.repository, this.objectMapper, this.meterRegistry);
+    }
+
+    @Test
+    void current_NothingChanged_ReturnsSameGenerationWithoutQueries() throws Exception {
+        doReturn(List.of(book(1, "Книжка \"1\"", 2), book(2, "Book 2", 0))).when(this.repository).findAll();
+
+        var first = this.catalog.current();
+        var second = this.catalog.current();
+
+        assertSame(first, second);
+        assertEquals(this.objectMapper.writeValueAsString(List.of(
+                        new BookDTO("Книжка \"1\"", "Author", 2), new BookDTO("Book 2", "Author", 0))),
+                body(first));
+        assertEquals(body(first).getBytes(StandardCharsets.UTF_8).length, first.contentLength());
+        verify(this.repository).findAll();
+        verifyNoMoreInteractions(this.repository);
+    }
+
+    @Test
+    void current_OneBookInvalidated_RerendersOnlyThatBook() throws Exception {
+        doReturn(List.of(book(1, "Book 1", 2), book(2, "Book 2", 1))).when(this.repository).findAll();
+        var first = this.catalog.current();
+        doReturn(List.of(book(2, "Book 2", 0))).when(this.repository).findAllById(Set.of(2L));
+
+        this.catalog.invalidate(CacheRegions.MEMBER, Set.of(1L));
+        assertSame(first, this.catalog.current());
+        this.catalog.invalidate(CacheRegions.BOOK, Set.of(2L));
+        var second = this.catalog.current();
+
+        assertEquals(first.number() + 1, second.number());
+        assertEquals(this.objectMapper.writeValueAsString(List.of(
+                new BookDTO("Book 1", "Author", 2), new BookDTO("Book 2", "Author", 0))), body(second));
+        assertEquals(3, this.meterRegistry.get("library.catalog.fragments.rendered").counter().count());
+    }
+
+    @Test
+    void gzip_SameGeneration_CompressedOnce() {
+        doReturn(List.of(book(1, "Book 1", 2))).when(this.repository).findAll();
+        var generation = this.catalog.current();
+
+        assertSame(generation.gzip(), generation.gzip());
+
+        this.catalog.invalidateAll();
+        assertNotSame(generation, this.catalog.current());
+        verify(this.repository, times(2)).findAll();
+    }
+
+    @Test
+    void acceptsGzip_AcceptEncodingTokensAndQValues_MatchedPerCoding() {
+        assertTrue(BookCatalog.acceptsGzip("gzip, deflate"));
+        assertTrue(BookCatalog.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(BookCatalog.acceptsGzip("x-gzip"));
+        assertTrue(BookCatalog.acceptsGzip("br, *;q=0.1"));
+        assertFalse(BookCatalog.acceptsGzip(null));
+        assertFalse(BookCatalog.acceptsGzip("gzip;q=0"));
+        assertFalse(BookCatalog.acceptsGzip("gzip; q=0.000, *"));
+        assertFalse(BookCatalog.acceptsGzip("x-gzip-foo, deflate"));
+        assertFalse(BookCatalog.acceptsGzip("identity, *;q=0"));
+    }
+
+    private static BookEntity book(long id, String title, int amount) {
+        return new BookEntity(id, title, "Author", amount, new HashSet<>());
+    }
+
+    private static String body(BookCatalog.Generation generation) throws Exception {
+        var out = new ByteArrayOutputStream();
+        generation.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
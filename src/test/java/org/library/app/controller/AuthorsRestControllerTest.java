@@ -0,0 +1,77 @@
+package org.library.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.controller.dto.AuthorDTO;
+import org.library.app.controller.dto.AuthorsPageDTO;
+import org.library.app.controller.dto.BookByIdDTO;
+import org.library.app.service.AuthorService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthorsRestControllerTest {
+
+    @Mock
+    AuthorService service;
+
+    @InjectMocks
+    AuthorsRestController controller;
+
+    @Test
+    void getAuthors_MorePagesLeft_ReturnsNextLink() {
+        var authors = List.of(new AuthorDTO("Іван Франко", 2, 5, 1), new AuthorDTO("Леся Українка", 1, 3, 0));
+        doReturn(new AuthorsPageDTO(authors, "Леся Українка")).when(this.service).getAuthorsPage(null, 2);
+
+        var result = this.controller.getAuthors(null, 2, UriComponentsBuilder.fromUriString("http://localhost"));
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(authors, result.getBody());
+        assertEquals("<http://localhost/library-api/authors?after=%D0%9B%D0%B5%D1%81%D1%8F%20%D0%A3%D0%BA%D1%80" +
+                        "%D0%B0%D1%97%D0%BD%D0%BA%D0%B0&size=2>; rel=\"next\"",
+                result.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    void getAuthors_LastPage_ReturnsNoLink() {
+        var authors = List.of(new AuthorDTO("Тарас Шевченко", 3, 3, 2));
+        doReturn(new AuthorsPageDTO(authors, null)).when(this.service).getAuthorsPage("Леся Українка", 2);
+
+        var result = this.controller.getAuthors("Леся Українка", 2,
+                UriComponentsBuilder.fromUriString("http://localhost"));
+
+        assertEquals(authors, result.getBody());
+        assertNull(result.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    void getBooksByAuthor_ReturnsBooks() {
+        var books = List.of(new BookByIdDTO(1L, "Кобзар", "Тарас Шевченко", 2));
+        doReturn(books).when(this.service).getBooksByAuthor("Тарас Шевченко");
+
+        var result = this.controller.getBooksByAuthor("Тарас Шевченко");
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(books, result.getBody());
+    }
+
+    @Test
+    void getBooksByAuthor_AuthorNotFound_NoSuchElementException() {
+        doThrow(new NoSuchElementException("Author not found")).when(this.service).getBooksByAuthor("Невідомий");
+
+        var exception = assertThrows(NoSuchElementException.class,
+                () -> this.controller.getBooksByAuthor("Невідомий"));
+
+        assertEquals("Author not found", exception.getMessage());
+    }
+}
@@ -1,22 +1,46 @@
 package org.library.app.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.analytics.TimeWindow;
+import org.library.app.catalog.BookCatalog;
+import org.library.app.controller.dto.BookByIdDTO;
 import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.BooksByIdsDTO;
+import org.library.app.controller.dto.RelatedBookDTO;
+import org.library.app.controller.dto.TopBookDTO;
+import org.library.app.controller.dto.TopBooksDTO;
 import org.library.app.controller.payload.NewBookPayload;
+import org.library.app.entity.BookEntity;
 import org.library.app.exception.BookIsOverException;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.fields.BookField;
+import org.library.app.fields.SparseFieldsConfiguration;
+import org.library.app.repository.BooksRepository;
 import org.library.app.service.BooksService;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.MapBindingResult;
 
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,48 +54,121 @@ class BooksRestControllerTest {
     @InjectMocks
     BooksRestController controller;
 
-    @Test
-    void getAllBooks_ReturnsBookList() {
-        doReturn(List.of(
-                        new BookDTO("Effective Java", "Joshua Bloch", 5),
-                        new BookDTO("Clean Code", "Robert C. Martin", 3),
-                        new BookDTO("Spring in Action", "Craig Walls", 7)
-                )
-        ).when(this.service).getAllBooks();
-
-        var result = this.controller.getAllBooks();
+    final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
 
+    @Test
+    void getAllBooks_ReturnsBookListRenderedFromCatalog() throws Exception {
+        var controller = new BooksRestController(this.service, catalogOf(
+                new BookEntity(1L, "Effective Java", "Joshua Bloch", 5, new HashSet<>()),
+                new BookEntity(2L, "Clean Code", "Robert C. Martin", 3, new HashSet<>()),
+                new BookEntity(3L, "Spring in Action", "Craig Walls", 7, new HashSet<>())));
+        var response = new MockHttpServletResponse();
+
+        controller.getAllBooks(null, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertEquals(response.getContentAsByteArray().length, response.getContentLength());
         assertEquals(List.of(
                 new BookDTO("Effective Java", "Joshua Bloch", 5),
                 new BookDTO("Clean Code", "Robert C. Martin", 3),
                 new BookDTO("Spring in Action", "Craig Walls", 7)
-        ), result.getBody());
+        ), this.objectMapper.readValue(response.getContentAsByteArray(), new TypeReference<List<BookDTO>>() {
+        }));
+        verifyNoInteractions(this.service);
+    }
+
+    @Test
+    void getAllBooks_ClientAcceptsGzip_ReturnsCompressedCatalog() throws Exception {
+        var controller = new BooksRestController(this.service, catalogOf(
+                new BookEntity(1L, "Effective Java", "Joshua Bloch", 5, new HashSet<>())));
+        var plain = new MockHttpServletResponse();
+        var compressed = new MockHttpServletResponse();
+
+        controller.getAllBooks(null, plain);
+        controller.getAllBooks("gzip, deflate", compressed);
+
+        assertEquals("gzip", compressed.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, compressed.getHeader(HttpHeaders.VARY));
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(compressed.getContentAsByteArray()))) {
+            assertArrayEquals(plain.getContentAsByteArray(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void getAllBooksWithFields_FieldsRequested_ReturnsOnlyRequestedFieldsFromProjection() throws Exception {
+        var builder = Jackson2ObjectMapperBuilder.json();
+        new SparseFieldsConfiguration().sparseFieldsCustomizer().customize(builder);
+        var objectMapper = builder.build();
+        doReturn(List.of(new BookDTO("Effective Java", null, null), new BookDTO("Clean Code", null, null)))
+                .when(this.service).getAllBooks(EnumSet.of(BookField.TITLE));
+
+        var result = this.controller.getAllBooksWithFields("title");
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("[{\"title\":\"Effective Java\"},{\"title\":\"Clean Code\"}]",
+                objectMapper.writer(result.getBody().getFilters()).writeValueAsString(result.getBody().getValue()));
+    }
+
+    @Test
+    void getAllBooksWithFields_UnknownField_ThrowsInvalidRequestException() {
+        var exception = assertThrows(InvalidRequestException.class,
+                () -> this.controller.getAllBooksWithFields("title,isbn"));
+
+        assertEquals("Unknown field 'isbn', expected one of [title, author, amount]", exception.getMessage());
+        verifyNoInteractions(this.service);
+    }
+
+    private BookCatalog catalogOf(BookEntity... books) {
+        BooksRepository repository = mock(BooksRepository.class);
+        doReturn(List.of(books)).when(repository).findAll();
+        return new BookCatalog(repository, this.objectMapper, new SimpleMeterRegistry());
     }
 
     @Test
     void getBookById_BookExists_ReturnsBook() {
         var book = new BookDTO("Effective Java", "Joshua Bloch", 5);
 
-        doReturn(book).when(this.service).getBookById(1L);
-        var result = this.controller.getBookById(1L);
+        doReturn(book).when(this.service).getBookById(1L, null);
+        var result = this.controller.getBookById(1L, null);
 
-        assertEquals(book, result.getBody());
+        assertEquals(book, result.getBody().getValue());
+        assertNull(result.getBody().getFilters());
     }
 
     @Test
     void getBookById_BookDoesNotExists_NoSuchElementException() {
-        doThrow(new NoSuchElementException("Book not found")).when(this.service).getBookById(1L);
-        var exception = assertThrows(NoSuchElementException.class, () -> this.controller.getBookById(1L));
+        doThrow(new NoSuchElementException("Book not found")).when(this.service).getBookById(1L, null);
+        var exception = assertThrows(NoSuchElementException.class, () -> this.controller.getBookById(1L, null));
         assertEquals("Book not found", exception.getMessage());
     }
 
+    @Test
+    void getBooksByIds_ReturnsBooksAndMissingIds() {
+        var books = new BooksByIdsDTO(List.of(new BookByIdDTO(1L, "Effective Java", "Joshua Bloch", 5)), List.of(2L));
+        doReturn(books).when(this.service).getBooksByIds(List.of(1L, 2L));
+
+        var result = this.controller.getBooksByIds(List.of(1L, 2L));
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(books, result.getBody());
+    }
+
+    @Test
+    void getBooksByIds_NoIds_ThrowsInvalidRequestException() {
+        doThrow(new InvalidRequestException("Between 1 and 1000 ids are expected"))
+                .when(this.service).getBooksByIds(List.of());
+
+        assertThrows(InvalidRequestException.class, () -> this.controller.getBooksByIds(List.of()));
+    }
+
     @Test
     void getAllBorrowedBooksAndCountWasBorrowed_ReturnsListOfStrings() {
-        doReturn(List.of(
+        doReturn(CompletableFuture.completedFuture(List.of(
                 "Book name: Effective Java, Book count that borrowed: 3"
-        )).when(this.service).getAllBorrowedBooksAndCountWasBorrowed();
+        ))).when(this.service).getAllBorrowedBooksAndCountWasBorrowed();
 
-        var result = this.controller.getAllBorrowedBooksAndCountWasBorrowed();
+        var result = this.controller.getAllBorrowedBooksAndCountWasBorrowed().join();
 
         assertEquals(List.of(
                 "Book name: Effective Java, Book count that borrowed: 3"
@@ -80,11 +177,11 @@ class BooksRestControllerTest {
 
     @Test
     void getAllDistinctBorrowedBooks_ReturnsListOfStrings() {
-        doReturn(List.of(
+        doReturn(CompletableFuture.completedFuture(List.of(
                 "Effective Java", "Joshua Bloch", "Robert C. Martin"
-        )).when(this.service).getAllDistinctBorrowedBooks();
+        ))).when(this.service).getAllDistinctBorrowedBooks();
 
-        var result = this.controller.getAllDistinctBorrowedBooks();
+        var result = this.controller.getAllDistinctBorrowedBooks().join();
 
         assertEquals(List.of(
                 "Effective Java", "Joshua Bloch", "Robert C. Martin"
@@ -188,4 +285,27 @@ class BooksRestControllerTest {
 
         assertEquals("This book amount is over", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getRelatedBooks_ReturnsRelatedBooks() {
+        var related = List.of(new RelatedBookDTO(7L, 4));
+        doReturn(related).when(this.service).getRelatedBooks(1L, 5);
+
+        var result = this.controller.getRelatedBooks(1L, 5);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(related, result.getBody());
+    }
+
+    @Test
+    void getTopBorrowedBooks_ReturnsTopBooks() {
+        var top = new TopBooksDTO("DAY", Instant.EPOCH, Instant.EPOCH.plusSeconds(86_400), 4, 0,
+                List.of(new TopBookDTO(1L, "Effective Java", 4, 0)));
+        doReturn(top).when(this.service).getTopBorrowedBooks(TimeWindow.DAY, 20);
+
+        var result = this.controller.getTopBorrowedBooks(TimeWindow.DAY, 20);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(top, result.getBody());
+    }
+}
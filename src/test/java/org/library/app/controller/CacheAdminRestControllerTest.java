@@ -0,0 +1,36 @@
+package org.library.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.controller.dto.CacheRegionStatsDTO;
+import org.library.app.service.CacheAdminService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheAdminRestControllerTest {
+
+    @Mock
+    CacheAdminService service;
+
+    @InjectMocks
+    CacheAdminRestController controller;
+
+    @Test
+    void getRegionStatistics_ReturnsStatisticsPerRegion() {
+        var statistics = List.of(new CacheRegionStatsDTO("book", 9, 1, 0.9, 1, 0));
+        doReturn(statistics).when(this.service).getRegionStatistics();
+
+        var result = this.controller.getRegionStatistics();
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(statistics, result.getBody());
+    }
+}
@@ -0,0 +1,74 @@
+package org.library.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.library.app.controller.dto.FlightRecordingDTO;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.service.FlightRecordingService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlightRecordingAdminRestControllerTest {
+
+    @Mock
+    FlightRecordingService service;
+
+    @InjectMocks
+    FlightRecordingAdminRestController controller;
+
+    @Test
+    void startRecording_SimpleDuration_StartsBoundedRecording() throws Exception {
+        var recording = new FlightRecordingDTO("library-1.jfr", "RUNNING", Instant.EPOCH, 30, 1024, 0);
+        doReturn(recording).when(this.service).start(Duration.ofSeconds(30));
+
+        var result = this.controller.startRecording("30s");
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(recording, result.getBody());
+    }
+
+    @Test
+    void startRecording_InvalidDuration_ThrowsInvalidRequestException() {
+        assertThrows(InvalidRequestException.class, () -> this.controller.startRecording("soon"));
+        verifyNoInteractions(this.service);
+    }
+
+    @Test
+    void stopRecording_ReturnsFileAsAttachment(@TempDir Path directory) throws Exception {
+        Path file = Files.write(directory.resolve("library-1.jfr"), new byte[]{1, 2, 3, 4});
+        doReturn(file).when(this.service).stop();
+
+        var result = this.controller.stopRecording();
+
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, result.getHeaders().getContentType());
+        assertEquals("attachment; filename=\"library-1.jfr\"",
+                result.getHeaders().getFirst("Content-Disposition"));
+        assertEquals(4, result.getBody().contentLength());
+    }
+
+    @Test
+    void stopRecording_BodyRead_DeletesFile(@TempDir Path directory) throws Exception {
+        Path file = Files.write(directory.resolve("library-1.jfr"), new byte[]{1, 2, 3, 4});
+        doReturn(file).when(this.service).stop();
+
+        var result = this.controller.stopRecording();
+        try (var body = result.getBody().getInputStream()) {
+            assertArrayEquals(new byte[]{1, 2, 3, 4}, body.readAllBytes());
+        }
+
+        assertFalse(Files.exists(file));
+    }
+}
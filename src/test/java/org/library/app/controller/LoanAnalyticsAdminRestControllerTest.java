@@ -0,0 +1,46 @@
+package org.library.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.controller.dto.LoanRollupRecomputeDTO;
+import org.library.app.service.LoanAnalyticsService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanAnalyticsAdminRestControllerTest {
+
+    @Mock
+    LoanAnalyticsService service;
+
+    @InjectMocks
+    LoanAnalyticsAdminRestController controller;
+
+    @Test
+    void startRecompute_ReturnsAcceptedWithProgress() {
+        var progress = new LoanRollupRecomputeDTO("RUNNING", Instant.EPOCH, null, 0, 0, 0, 0, null);
+        doReturn(progress).when(this.service).startRecompute();
+
+        var result = this.controller.startRecompute();
+
+        assertEquals(HttpStatus.ACCEPTED, result.getStatusCode());
+        assertEquals(progress, result.getBody());
+    }
+
+    @Test
+    void getRecomputeProgress_NeverStarted_NoSuchElementException() {
+        doThrow(new NoSuchElementException("No loan rollup recompute")).when(this.service).getRecomputeProgress();
+
+        var exception = assertThrows(NoSuchElementException.class, () -> this.controller.getRecomputeProgress());
+
+        assertEquals("No loan rollup recompute", exception.getMessage());
+    }
+}
@@ -0,0 +1,38 @@
+package org.library.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.analytics.TimeWindow;
+import org.library.app.controller.dto.LoanRollupDTO;
+import org.library.app.service.LoanAnalyticsService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanAnalyticsRestControllerTest {
+
+    @Mock
+    LoanAnalyticsService service;
+
+    @InjectMocks
+    LoanAnalyticsRestController controller;
+
+    @Test
+    void getLoanRollups_ReturnsRollups() {
+        var rollups = List.of(new LoanRollupDTO(Instant.EPOCH, 5, 4, 30.0));
+        doReturn(rollups).when(this.service).getLoanRollups(TimeWindow.DAY, null, null);
+
+        var result = this.controller.getLoanRollups(TimeWindow.DAY, null, null);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(rollups, result.getBody());
+    }
+}
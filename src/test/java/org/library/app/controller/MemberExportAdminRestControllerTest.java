@@ -0,0 +1,62 @@
+package org.library.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.service.ExportFormat;
+import org.library.app.service.MemberExportService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MemberExportAdminRestControllerTest {
+
+    @Mock
+    MemberExportService exportService;
+
+    @InjectMocks
+    MemberExportAdminRestController controller;
+
+    @Test
+    void exportMembers_ClientAcceptsGzip_StreamsCompressedBody() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("member_id\n1\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(this.exportService).exportMembers(eq(ExportFormat.CSV), any());
+
+        var result = this.controller.exportMembers(ExportFormat.CSV, "gzip, deflate");
+        var body = new ByteArrayOutputStream();
+        result.getBody().writeTo(body);
+
+        assertEquals("gzip", result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("text/csv", result.getHeaders().getContentType().toString());
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            assertEquals("member_id\n1\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void exportMembers_ClientDoesNotAcceptGzip_StreamsPlainBody() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("{}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(this.exportService).exportMembers(eq(ExportFormat.NDJSON), any());
+
+        var result = this.controller.exportMembers(ExportFormat.NDJSON, null);
+        var body = new ByteArrayOutputStream();
+        result.getBody().writeTo(body);
+
+        assertNull(result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("{}\n", body.toString(StandardCharsets.UTF_8));
+    }
+}
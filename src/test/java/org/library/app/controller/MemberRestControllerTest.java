@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.library.app.controller.dto.BookDTO;
 import org.library.app.controller.dto.MemberDTO;
+import org.library.app.controller.dto.OverdueLoanDTO;
 import org.library.app.controller.payload.NewMemberPayload;
 import org.library.app.exception.MemberAlreadyHaveThisBookException;
 import org.library.app.exception.MemberHasBookException;
@@ -18,6 +19,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.validation.MapBindingResult;
 
 import java.sql.Date;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -39,16 +41,16 @@ class MemberRestControllerTest {
     void getMember_RequestIsValid_ReturnMember() {
         var member = new MemberDTO("Joshua Bloch", Date.valueOf(LocalDate.now()));
 
-        doReturn(member).when(this.service).getMemberById(1L);
-        var result = this.controller.getMember(1L);
+        doReturn(member).when(this.service).getMemberById(1L, null);
+        var result = this.controller.getMember(1L, null);
 
-        assertEquals(member, result.getBody());
+        assertEquals(member, result.getBody().getValue());
     }
 
     @Test
     void getMember_RequestIsInvalid_ReturnNoSuchElementException() {
-        doThrow(new NoSuchElementException("Member not found")).when(this.service).getMemberById(1L);
-        var exception = assertThrows(NoSuchElementException.class, () -> this.controller.getMember(1L));
+        doThrow(new NoSuchElementException("Member not found")).when(this.service).getMemberById(1L, null);
+        var exception = assertThrows(NoSuchElementException.class, () -> this.controller.getMember(1L, null));
         assertEquals("Member not found", exception.getMessage());
     }
 
@@ -187,4 +189,16 @@ class MemberRestControllerTest {
 
         assertEquals("Member not found", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getOverdueLoans_RequestIsValid_ReturnsOverdueLoans() {
+        var borrowedAt = Instant.parse("2024-01-01T10:00:00Z");
+        var overdue = List.of(new OverdueLoanDTO(1L, "Title", "Author", borrowedAt, borrowedAt.plusSeconds(60)));
+        doReturn(overdue).when(this.service).getOverdueLoans(1L);
+
+        var result = this.controller.getOverdueLoans(1L);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(overdue, result.getBody());
+    }
+}
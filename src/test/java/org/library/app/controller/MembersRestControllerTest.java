@@ -3,20 +3,28 @@ package org.library.app.controller;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.MemberByIdDTO;
 import org.library.app.controller.dto.MemberDTO;
+import org.library.app.controller.dto.MembersByIdsDTO;
+import org.library.app.controller.dto.MembersPageDTO;
 import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.exception.InvalidRequestException;
 import org.library.app.exception.MemberAlreadyExistException;
+import org.library.app.fields.MemberField;
 import org.library.app.service.MemberService;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.MapBindingResult;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.sql.Date;
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -34,21 +42,56 @@ class MembersRestControllerTest {
     MembersRestController controller;
 
     @Test
-    void getAllMembers_ReturnsAllMembers() {
-        doReturn(List.of(
-                        new MemberDTO("Joshua Bloch", Date.valueOf(LocalDate.now())),
-                        new MemberDTO("Robert C. Martin", Date.valueOf(LocalDate.now())),
-                        new MemberDTO("Craig Walls", Date.valueOf(LocalDate.now()))
-                )
-        ).when(this.service).getAllMembers();
-
-        var result = this.controller.getAllMembers();
-
-        assertEquals(List.of(
+    void getAllMembers_LastPage_ReturnsMembersWithoutNextLink() {
+        var members = List.of(
                 new MemberDTO("Joshua Bloch", Date.valueOf(LocalDate.now())),
                 new MemberDTO("Robert C. Martin", Date.valueOf(LocalDate.now())),
                 new MemberDTO("Craig Walls", Date.valueOf(LocalDate.now()))
-        ), result.getBody());
+        );
+        doReturn(new MembersPageDTO(members, null)).when(this.service).getMembersPage(0, 50, null, null, null, null);
+
+        var result = this.controller.getAllMembers(0, 50, null, null, null, null,
+                UriComponentsBuilder.newInstance());
+
+        assertEquals(members, result.getBody().getValue());
+        assertNull(result.getBody().getFilters());
+        assertNull(result.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    void getAllMembers_MorePages_ReturnsNextLinkWithFilters() {
+        var members = List.of(new MemberDTO("Joshua Bloch", Date.valueOf(LocalDate.now())));
+        doReturn(new MembersPageDTO(members, 7L)).when(this.service)
+                .getMembersPage(0, 1, LocalDate.of(2024, 1, 1), null, "Jo", EnumSet.of(MemberField.NAME));
+
+        var result = this.controller.getAllMembers(0, 1, LocalDate.of(2024, 1, 1), null, "Jo", "name",
+                UriComponentsBuilder.fromUriString("http://localhost"));
+
+        assertEquals(members, result.getBody().getValue());
+        assertNotNull(result.getBody().getFilters());
+        assertEquals("<http://localhost/library-api/members?afterId=7&size=1&createdFrom=2024-01-01&namePrefix=Jo" +
+                        "&fields=name>; rel=\"next\"",
+                result.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    void getMembersByIds_ReturnsMembersAndMissingIds() {
+        var members = new MembersByIdsDTO(List.of(new MemberByIdDTO(1L, "Joshua Bloch",
+                Date.valueOf(LocalDate.now()))), List.of(2L));
+        doReturn(members).when(this.service).getMembersByIds(List.of(1L, 2L));
+
+        var result = this.controller.getMembersByIds(List.of(1L, 2L));
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(members, result.getBody());
+    }
+
+    @Test
+    void getMembersByIds_NoIds_ThrowsInvalidRequestException() {
+        doThrow(new InvalidRequestException("Between 1 and 1000 ids are expected"))
+                .when(this.service).getMembersByIds(List.of());
+
+        assertThrows(InvalidRequestException.class, () -> this.controller.getMembersByIds(List.of()));
     }
 
     @Test
@@ -118,4 +161,4 @@ class MembersRestControllerTest {
                 , exception.getAllErrors());
         verifyNoInteractions(this.service);
     }
-}
\ No newline at end of file
+}
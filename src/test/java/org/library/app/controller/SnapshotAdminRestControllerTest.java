@@ -0,0 +1,62 @@
+package org.library.app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.library.app.controller.dto.SnapshotDTO;
+import org.library.app.service.LibrarySnapshotService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotAdminRestControllerTest {
+
+    @Mock
+    LibrarySnapshotService service;
+
+    @InjectMocks
+    SnapshotAdminRestController controller;
+
+    @Test
+    void createSnapshot_ReturnsSnapshotSummary() throws Exception {
+        var snapshot = new SnapshotDTO("library-1.snap", 3, 2, 1, 512, 7);
+        doReturn(snapshot).when(this.service).createSnapshot();
+
+        var result = this.controller.createSnapshot();
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(snapshot, result.getBody());
+    }
+
+    @Test
+    void downloadSnapshot_ReturnsFileAsAttachment(@TempDir Path directory) throws Exception {
+        Path file = Files.write(directory.resolve("library-1.snap"), new byte[]{1, 2, 3});
+        doReturn(file).when(this.service).resolveSnapshot("library-1.snap");
+
+        var result = this.controller.downloadSnapshot("library-1.snap");
+
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, result.getHeaders().getContentType());
+        assertEquals("attachment; filename=\"library-1.snap\"",
+                result.getHeaders().getFirst("Content-Disposition"));
+        assertEquals(3, result.getBody().contentLength());
+    }
+
+    @Test
+    void restoreSnapshot_ReturnsRestoredCounts() throws Exception {
+        var snapshot = new SnapshotDTO("library-1.snap", 3, 2, 1, 512, 9);
+        doReturn(snapshot).when(this.service).restoreSnapshot("library-1.snap");
+
+        var result = this.controller.restoreSnapshot("library-1.snap");
+
+        assertEquals(snapshot, result.getBody());
+    }
+}
@@ -0,0 +1,137 @@
+package org.library.app.datagen;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryDataGeneratorTest {
+
+    JdbcDataSource dataSource;
+
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createTables() {
+        this.dataSource = dataSource();
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+    }
+
+    @Test
+    void generate_Loans_KeepOpenLoansWithinBorrowRules() {
+        var generated = generator(this.dataSource).generate(20, 30, 2000, 7);
+
+        assertEquals(20, count("public.t_book"));
+        assertEquals(30, count("public.t_member"));
+        assertEquals(2000, count("public.t_member_books"));
+        assertEquals(generated.openLoans(), this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM public.t_member_books WHERE c_returned_at IS NULL", Long.class));
+        assertTrue(generated.openLoans() > 0);
+        assertEquals(0, this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT member_id " +
+                "FROM public.t_member_books WHERE c_returned_at IS NULL GROUP BY member_id HAVING COUNT(*) > 3)",
+                Integer.class));
+        assertEquals(0, this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT member_id, book_id " +
+                "FROM public.t_member_books WHERE c_returned_at IS NULL GROUP BY member_id, book_id " +
+                "HAVING COUNT(*) > 1)", Integer.class));
+        assertEquals(0, this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM public.t_book WHERE c_amount < 0", Integer.class));
+    }
+
+    @Test
+    void generate_SameSeed_SameRowsAndIdsContinueAfterExistingOnes() {
+        var other = dataSource();
+        generator(this.dataSource).generate(5, 5, 50, 11);
+        generator(other).generate(5, 5, 50, 11);
+
+        generator(this.dataSource).generate(2, 2, 3, 12);
+        this.jdbcTemplate.update("INSERT INTO public.t_book (c_title, c_author, c_amount) VALUES ('Next', 'A B', 1)");
+
+        String loans = "SELECT member_id, book_id, c_returned_at IS NULL FROM public.t_member_books " +
+                "WHERE id <= 50 ORDER BY id";
+        assertEquals(new JdbcTemplate(other).queryForList(loans), this.jdbcTemplate.queryForList(loans));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L), this.jdbcTemplate.queryForList(
+                "SELECT id FROM public.t_book ORDER BY id", Long.class));
+        assertEquals(Map.of("c_title", "Book 6"), this.jdbcTemplate.queryForMap(
+                "SELECT c_title FROM public.t_book WHERE id = 6"));
+    }
+
+    @Test
+    void generate_MoreWriterThreads_SameRows() {
+        var other = dataSource();
+        generator(this.dataSource, 1, 1.0).generate(50, 40, 3000, 5);
+        generator(other, 4, 1.0).generate(50, 40, 3000, 5);
+
+        for (String rows : List.of("SELECT * FROM public.t_book ORDER BY id",
+                "SELECT id, c_name FROM public.t_member ORDER BY id",
+                "SELECT id, member_id, book_id, c_returned_at IS NULL FROM public.t_member_books ORDER BY id")) {
+            assertEquals(new JdbcTemplate(other).queryForList(rows), this.jdbcTemplate.queryForList(rows));
+        }
+    }
+
+    @Test
+    void generate_Skew_FewBooksAndAuthorsTakeMostOfTheLoans() {
+        generator(this.dataSource, 2, 1.0).generate(1000, 5000, 20000, 3);
+
+        long topLoans = this.jdbcTemplate.queryForObject("SELECT SUM(loans) FROM (SELECT COUNT(*) AS loans " +
+                "FROM public.t_member_books GROUP BY book_id ORDER BY loans DESC LIMIT 100)", Long.class);
+        assertTrue(topLoans > 20000 / 2, "top 10% of books took " + topLoans + " loans");
+        assertTrue(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM public.t_member WHERE id NOT IN " +
+                "(SELECT member_id FROM public.t_member_books)", Integer.class) > 0);
+        var authors = this.jdbcTemplate.queryForList("SELECT c_author FROM public.t_book GROUP BY c_author " +
+                "ORDER BY COUNT(*) DESC", String.class);
+        assertTrue(authors.size() > 100 && authors.size() <= 250, authors.size() + " authors");
+        assertTrue(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM public.t_book WHERE c_author = ?",
+                Integer.class, authors.get(0)) >= 20);
+        assertTrue(authors.stream().allMatch(author -> author.matches("^[A-Z][a-z]+ [A-Z][a-z]+$")));
+    }
+
+    @Test
+    void author_DifferentNumbers_DifferentNames() {
+        var names = new HashSet<String>();
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(names.add(LibraryDataGenerator.author(i)), LibraryDataGenerator.author(i));
+        }
+    }
+
+    @Test
+    void generate_NoBooks_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> generator(this.dataSource).generate(0, 1, 1, 1));
+    }
+
+    private static LibraryDataGenerator generator(JdbcDataSource dataSource) {
+        return generator(dataSource, 2, 0.0);
+    }
+
+    private static LibraryDataGenerator generator(JdbcDataSource dataSource, int threads, double skew) {
+        return new LibraryDataGenerator(dataSource, 100, threads, 3, Duration.ofDays(14), 0.5, skew);
+    }
+
+    private long count(String table) {
+        return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static JdbcDataSource dataSource() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+                "DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS public");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE public.t_book (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "c_title VARCHAR(255) NOT NULL, c_author VARCHAR(255) NOT NULL, c_amount INT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE public.t_member (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "c_name VARCHAR(255) NOT NULL UNIQUE, c_creation_date DATE NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE public.t_member_books (id BIGINT GENERATED BY DEFAULT AS IDENTITY " +
+                "PRIMARY KEY, member_id BIGINT NOT NULL REFERENCES public.t_member, " +
+                "book_id BIGINT NOT NULL REFERENCES public.t_book, c_borrowed_at TIMESTAMP WITH TIME ZONE NOT NULL, " +
+                "c_returned_at TIMESTAMP WITH TIME ZONE, c_due_at TIMESTAMP WITH TIME ZONE, " +
+                "c_overdue BOOLEAN DEFAULT FALSE NOT NULL)");
+        return dataSource;
+    }
+}
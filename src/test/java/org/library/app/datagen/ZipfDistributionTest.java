@@ -0,0 +1,45 @@
+package org.library.app.datagen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipfDistributionTest {
+
+    @Test
+    void sample_ExponentOne_RankTwoComesUpHalfAsOftenAsRankOne() {
+        var random = new Random(1);
+        var distribution = new ZipfDistribution(100, 1.0, random);
+        int[] counts = new int[100];
+
+        for (int i = 0; i < 200_000; i++) {
+            counts[distribution.sample(random)]++;
+        }
+
+        int[] sorted = Arrays.stream(counts).boxed().sorted((a, b) -> b - a).mapToInt(Integer::intValue).toArray();
+        assertEquals(2.0, (double) sorted[0] / sorted[1], 0.1);
+        assertEquals(200_000 / 5.187, sorted[0], 1000);
+        assertNotEquals(0, Arrays.stream(counts).min().orElseThrow());
+    }
+
+    @Test
+    void sample_ExponentZero_Uniform() {
+        var random = new Random(2);
+        var distribution = new ZipfDistribution(10, 0.0, random);
+        int[] counts = new int[10];
+
+        for (int i = 0; i < 100_000; i++) {
+            counts[distribution.sample(random)]++;
+        }
+
+        assertTrue(Arrays.stream(counts).allMatch(count -> Math.abs(count - 10_000) < 500), Arrays.toString(counts));
+    }
+
+    @Test
+    void new_NoItems_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(0, 1.0, new Random()));
+    }
+}
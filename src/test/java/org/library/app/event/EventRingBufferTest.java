@@ -0,0 +1,110 @@
+package org.library.app.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRingBufferTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void poll_EventsPublished_ReturnsEventsInOrderInBatches() {
+        var ringBuffer = new EventRingBuffer(8, BackpressurePolicy.BLOCK, WAIT, this.spillDirectory);
+        var cursor = ringBuffer.addCursor("test");
+        for (long i = 1; i <= 5; i++) {
+            ringBuffer.publish(LibraryEventType.BOOK_BORROWED, i, i * 10, i * 100, 0, 0);
+        }
+
+        var batch = new ArrayList<LibraryEvent>();
+        assertEquals(3, ringBuffer.poll(cursor, 3, batch));
+        assertEquals(new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 10, 100, 0, 0), batch.get(0));
+        assertEquals(2, ringBuffer.lag(cursor));
+
+        batch.clear();
+        assertEquals(2, ringBuffer.poll(cursor, 3, batch));
+        assertEquals(List.of(4L, 5L), batch.stream().map(LibraryEvent::memberId).toList());
+        assertEquals(0, ringBuffer.lag(cursor));
+    }
+
+    @Test
+    void publish_DropOldest_LaggingConsumerSkipsOverwrittenEvents() {
+        var ringBuffer = new EventRingBuffer(4, BackpressurePolicy.DROP_OLDEST, WAIT, this.spillDirectory);
+        var cursor = ringBuffer.addCursor("test");
+        for (long i = 1; i <= 10; i++) {
+            assertTrue(ringBuffer.publish(LibraryEventType.BOOK_RETURNED, i, i, i, i, 0));
+        }
+
+        var batch = new ArrayList<LibraryEvent>();
+        ringBuffer.poll(cursor, 16, batch);
+
+        assertEquals(List.of(7L, 8L, 9L, 10L), batch.stream().map(LibraryEvent::memberId).toList());
+        assertEquals(6, ringBuffer.dropped());
+    }
+
+    @Test
+    void publish_SpillToDisk_SpilledEventsReplayedInOrder() {
+        try (var ringBuffer = new EventRingBuffer(4, BackpressurePolicy.SPILL_TO_DISK, WAIT, this.spillDirectory)) {
+            var cursor = ringBuffer.addCursor("test");
+            for (long i = 1; i <= 10; i++) {
+                assertTrue(ringBuffer.publish(LibraryEventType.BOOK_BORROWED, 1, i, i, 0, i * 100));
+            }
+            assertEquals(6, ringBuffer.spilled());
+
+            var received = new ArrayList<LibraryEvent>();
+            while (received.size() < 10) {
+                ringBuffer.poll(cursor, 2, received);
+                ringBuffer.drainSpill();
+            }
+
+            assertEquals(LongStream.rangeClosed(1, 10).boxed().toList(),
+                    received.stream().map(LibraryEvent::bookId).toList());
+            assertEquals(LongStream.rangeClosed(1, 10).map(i -> i * 100).boxed().toList(),
+                    received.stream().map(LibraryEvent::loanId).toList());
+            assertEquals(0, ringBuffer.dropped());
+        }
+    }
+
+    @Test
+    void publish_BlockAndBufferFull_WaitsForSlowestConsumer() throws Exception {
+        var ringBuffer = new EventRingBuffer(2, BackpressurePolicy.BLOCK, WAIT, this.spillDirectory);
+        var cursor = ringBuffer.addCursor("test");
+        ringBuffer.publish(LibraryEventType.BOOK_BORROWED, 1, 1, 1, 0, 0);
+        ringBuffer.publish(LibraryEventType.BOOK_BORROWED, 2, 2, 2, 0, 0);
+
+        var blocked = CompletableFuture.supplyAsync(
+                () -> ringBuffer.publish(LibraryEventType.BOOK_BORROWED, 3, 3, 3, 0, 0));
+        assertThrows(TimeoutException.class, () -> blocked.get(100, TimeUnit.MILLISECONDS));
+
+        ringBuffer.poll(cursor, 1, new ArrayList<>());
+
+        assertTrue(blocked.get(5, TimeUnit.SECONDS));
+        assertEquals(2, ringBuffer.lag(cursor));
+    }
+
+    @Test
+    void publish_BlockAndConsumerStuckPastTimeout_DropsEvent() {
+        var ringBuffer = new EventRingBuffer(2, BackpressurePolicy.BLOCK, Duration.ofMillis(50), this.spillDirectory);
+        var cursor = ringBuffer.addCursor("test");
+        ringBuffer.publish(LibraryEventType.BOOK_BORROWED, 1, 1, 1, 0, 0);
+        ringBuffer.publish(LibraryEventType.BOOK_BORROWED, 2, 2, 2, 0, 0);
+
+        assertFalse(ringBuffer.publish(LibraryEventType.BOOK_BORROWED, 3, 3, 3, 0, 0));
+
+        assertEquals(1, ringBuffer.dropped());
+        assertEquals(2, ringBuffer.lag(cursor));
+    }
+}
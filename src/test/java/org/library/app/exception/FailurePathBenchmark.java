@@ -0,0 +1,94 @@
+package org.library.app.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Throughput of a rejected borrow from the throw in the service to the response entity handed to Spring MVC.
+ * "depth" is the number of frames between the handler and the throw; a real request sits well over 100 frames deep
+ * once filters, proxies and the dispatcher are counted.
+ *  - withStackTrace: the previous path, exception with a filled-in trace and a new ResponseEntity<String>
+ *  - stacklessRenderedPerCall: no trace, but the problem body is serialized for every failure
+ *  - stacklessFromTemplate: the current path
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=FailurePathBenchmark
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FailurePathBenchmark {
+
+    private static final String DETAIL = "Member have this book";
+
+    @Param({"10", "120"})
+    int depth;
+
+    ObjectMapper objectMapper;
+
+    ProblemResponses problemResponses;
+
+    @Setup
+    public void setUp() {
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.problemResponses = new ProblemResponses(this.objectMapper);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> withStackTrace() {
+        try {
+            throwAt(this.depth, true);
+            throw new AssertionError();
+        } catch (MemberAlreadyHaveThisBookException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> stacklessRenderedPerCall() throws Exception {
+        try {
+            throwAt(this.depth, false);
+            throw new AssertionError();
+        } catch (MemberAlreadyHaveThisBookException e) {
+            return ProblemResponses.responseBuilder(e.problem()).body(
+                    this.objectMapper.writeValueAsBytes(ProblemResponses.problemDetail(e.problem(), e.getMessage())));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> stacklessFromTemplate() {
+        try {
+            throwAt(this.depth, false);
+            throw new AssertionError();
+        } catch (MemberAlreadyHaveThisBookException e) {
+            return this.problemResponses.of(e.problem(), e.getMessage());
+        }
+    }
+
+    private static void throwAt(int depth, boolean stackTrace) {
+        if (depth > 0) {
+            throwAt(depth - 1, stackTrace);
+            return;
+        }
+        throw stackTrace
+                ? new MemberAlreadyHaveThisBookException(DETAIL, null, true, true)
+                : new MemberAlreadyHaveThisBookException(DETAIL);
+    }
+}
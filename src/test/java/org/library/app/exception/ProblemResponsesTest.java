@@ -0,0 +1,62 @@
+package org.library.app.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProblemResponsesTest {
+
+    final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    final ProblemResponses problemResponses = new ProblemResponses(this.objectMapper);
+
+    final ExceptionControllerAdvice advice = new ExceptionControllerAdvice(this.problemResponses);
+
+    @Test
+    void handleLibraryException_DomainFailure_ReturnsSameProblemResponseEveryTime() throws Exception {
+        var first = this.advice.handleLibraryException(new MemberAlreadyHaveThisBookException("Member have this book"));
+        var second = this.advice.handleLibraryException(new MemberAlreadyHaveThisBookException("Member have this book"));
+
+        assertSame(first, second);
+        assertEquals(400, first.getStatusCode().value());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, first.getHeaders().getContentType());
+        JsonNode body = this.objectMapper.readTree(first.getBody());
+        assertEquals("member-already-has-book", body.get("code").asText());
+        assertEquals("urn:library:problem:member-already-has-book", body.get("type").asText());
+        assertEquals("Member have this book", body.get("detail").asText());
+        assertEquals(400, body.get("status").asInt());
+    }
+
+    @Test
+    void handleLibraryException_MessageOtherThanTitle_KeepsMessageAsDetailAndCachesIt() throws Exception {
+        var first = this.advice.handleLibraryException(new MemberReachedLimitException("Limit of books is 10"));
+        var second = this.advice.handleLibraryException(new MemberReachedLimitException("Limit of books is 10"));
+
+        assertSame(first, second);
+        JsonNode body = this.objectMapper.readTree(first.getBody());
+        assertEquals("member-reached-limit", body.get("code").asText());
+        assertEquals("Limit of books is reached", body.get("title").asText());
+        assertEquals("Limit of books is 10", body.get("detail").asText());
+    }
+
+    @Test
+    void handleLibraryException_BulkheadFull_Returns503WithRetryAfter() throws Exception {
+        var response = this.advice.handleLibraryException(new BulkheadFullException("Bulkhead analytics is full"));
+
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("bulkhead-full", this.objectMapper.readTree(response.getBody()).get("code").asText());
+    }
+
+    @Test
+    void domainExceptions_AreStackless() {
+        assertEquals(0, new BookIsOverException("This book amount is over").getStackTrace().length);
+        assertEquals(0, new MemberHasBookException("Member has books").getStackTrace().length);
+        assertTrue(new MemberHasBookException("Member has books", null, true, true).getStackTrace().length > 0);
+    }
+}
@@ -0,0 +1,89 @@
+package org.library.app.fields;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.h2.jdbcx.JdbcDataSource;
+import org.library.app.repository.SparseProjectionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/*
+ * Time to select and serialize the whole catalog of `books` books for a fieldset, on an in-memory H2 database, so
+ * the numbers are the JDBC, mapping and JSON work in this process without network or disk. The response size of each
+ * fieldset is printed once per trial.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=SparseFieldsBenchmark
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SparseFieldsBenchmark {
+
+    @Param({"100000"})
+    int books;
+
+    @Param({"title,author,amount", "title,author", "title"})
+    String fields;
+
+    JdbcTemplate jdbcTemplate;
+
+    SparseProjectionRepository repository;
+
+    Set<BookField> fieldset;
+
+    ObjectWriter writer;
+
+    @Setup
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS public");
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.execute("CREATE TABLE public.t_book (id BIGINT PRIMARY KEY, c_title VARCHAR(255), " +
+                "c_author VARCHAR(255), c_amount INT)");
+        this.jdbcTemplate.batchUpdate("INSERT INTO public.t_book VALUES (?, ?, ?, ?)",
+                IntStream.rangeClosed(1, this.books)
+                        .mapToObj(i -> new Object[]{i, "The Collected Works, Volume " + i,
+                                "Author Surname " + (i % 5000), i % 10})
+                        .toList());
+        this.repository = new SparseProjectionRepository(dataSource);
+        this.fieldset = SparseFields.parse(this.fields, BookField.class);
+
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        new SparseFieldsConfiguration().sparseFieldsCustomizer().customize(builder);
+        ObjectMapper objectMapper = builder.build();
+        this.writer = objectMapper.writer(SparseFields.filter(this.fieldset));
+        System.out.printf("%n%d books, fields=%s: %d bytes%n", this.books, this.fields,
+                selectAndSerialize().length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Benchmark
+    public byte[] selectAndSerialize() throws Exception {
+        return this.writer.writeValueAsBytes(this.repository.findAllBooks(this.fieldset));
+    }
+}
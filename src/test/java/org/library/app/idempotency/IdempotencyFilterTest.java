@@ -0,0 +1,214 @@
+package org.library.app.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.library.app.exception.ProblemResponses;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    final IdempotencyFilter filter = new IdempotencyFilter(new SimpleMeterRegistry(),
+            new ProblemResponses(Jackson2ObjectMapperBuilder.json().build()), 100,
+            Duration.ofMinutes(1), Duration.ofSeconds(5), DataSize.ofBytes(64));
+
+    final AtomicInteger executions = new AtomicInteger();
+
+    final FilterChain createBook = (request, response) -> {
+        int execution = this.executions.incrementAndGet();
+        request.getInputStream().readAllBytes();
+        ((HttpServletResponse) response).setStatus(201);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"amount\":" + execution + "}");
+    };
+
+    @Test
+    void doFilter_RetryWithSameKey_ReplaysStoredResponseWithoutExecuting() throws Exception {
+        var first = perform(request("key-1", "{\"title\":\"Title\"}"), this.createBook);
+        var retry = perform(request("key-1", "{\"title\":\"Title\"}"), this.createBook);
+
+        assertEquals(1, this.executions.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("application/json", retry.getContentType());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void doFilter_KeyReusedForDifferentRequest_Returns422() throws Exception {
+        perform(request("key-1", "{\"title\":\"Title\"}"), this.createBook);
+
+        var response = perform(request("key-1", "{\"title\":\"Other\"}"), this.createBook);
+
+        assertEquals(422, response.getStatus());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON_VALUE, response.getContentType());
+        assertTrue(response.getContentAsString().contains("\"code\":\"idempotency-key-reused\""));
+        assertEquals(1, this.executions.get());
+    }
+
+    @Test
+    void doFilter_SameKeyFromOtherClientOrPath_ExecutedSeparately() throws Exception {
+        var first = perform(request("key-1", "{}"), this.createBook);
+        var otherClient = request("key-1", "{}");
+        otherClient.setRemoteAddr("10.0.0.2");
+        var otherPath = request("key-1", "{}");
+        otherPath.setRequestURI("/library-api/members");
+
+        assertNotEquals(first.getContentAsString(), perform(otherClient, this.createBook).getContentAsString());
+        assertNull(perform(otherPath, this.createBook).getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(3, this.executions.get());
+    }
+
+    @Test
+    void doFilter_ConcurrentDuplicates_ExecutedOnce() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        FilterChain slowChain = (request, response) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.createBook.doFilter(request, response);
+        };
+
+        var first = CompletableFuture.supplyAsync(() -> performUnchecked(request("key-1", "{}"), slowChain));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        var duplicate = CompletableFuture.supplyAsync(() -> performUnchecked(request("key-1", "{}"), slowChain));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(201, first.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(201, duplicate.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(first.get().getContentAsString(), duplicate.get().getContentAsString());
+        assertEquals(1, this.executions.get());
+    }
+
+    @Test
+    void doFilter_ServerError_NotStoredAndRetryExecutesAgain() throws Exception {
+        FilterChain failingOnce = (request, response) -> {
+            if (this.executions.getAndIncrement() == 0) {
+                ((HttpServletResponse) response).setStatus(500);
+            } else {
+                ((HttpServletResponse) response).setStatus(204);
+            }
+        };
+
+        assertEquals(500, perform(request("key-1", "{}"), failingOnce).getStatus());
+        assertEquals(204, perform(request("key-1", "{}"), failingOnce).getStatus());
+        assertEquals(2, this.executions.get());
+    }
+
+    @Test
+    void doFilter_HandlerReadsBodyWithReadListener_GetsWholeBody() throws Exception {
+        var read = new ByteArrayOutputStream();
+        var allRead = new AtomicBoolean();
+        FilterChain nonBlocking = (request, response) -> {
+            ServletInputStream input = request.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (input.isReady() && !input.isFinished()) {
+                        read.write(input.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+            });
+            ((HttpServletResponse) response).setStatus(204);
+        };
+
+        assertEquals(204, perform(request("key-1", "{\"title\":\"Title\"}"), nonBlocking).getStatus());
+        assertEquals("{\"title\":\"Title\"}", read.toString(StandardCharsets.UTF_8));
+        assertTrue(allRead.get());
+    }
+
+    @Test
+    void doFilter_NoKeyOrSafeMethod_AlwaysExecutes() throws Exception {
+        var withoutKey = new MockHttpServletRequest("POST", "/library-api/books");
+        perform(withoutKey, this.createBook);
+        perform(new MockHttpServletRequest("POST", "/library-api/books"), this.createBook);
+        var get = new MockHttpServletRequest("GET", "/library-api/books/list");
+        get.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        perform(get, this.createBook);
+
+        assertEquals(3, this.executions.get());
+    }
+
+    @Test
+    void doFilter_BlankKey_Returns400() throws Exception {
+        var response = perform(request(" ", "{}"), this.createBook);
+
+        assertEquals(400, response.getStatus());
+        assertEquals(0, this.executions.get());
+    }
+
+    @Test
+    void doFilter_BodyOverMaxSize_Returns413WithoutExecuting() throws Exception {
+        String body = "{\"title\":\"%s\"}".formatted("x".repeat(64));
+        var declared = request("key-1", body);
+        var chunked = new MockHttpServletRequest("POST", "/library-api/books") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-2");
+        chunked.setContentType("application/json");
+        chunked.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(413, perform(declared, this.createBook).getStatus());
+        assertEquals(413, perform(chunked, this.createBook).getStatus());
+        assertEquals(0, this.executions.get());
+    }
+
+    private static MockHttpServletRequest request(String key, String body) {
+        var request = new MockHttpServletRequest("POST", "/library-api/books");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        var response = new MockHttpServletResponse();
+        this.filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private MockHttpServletResponse performUnchecked(MockHttpServletRequest request, FilterChain chain) {
+        try {
+            return perform(request, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
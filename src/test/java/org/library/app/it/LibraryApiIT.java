@@ -0,0 +1,373 @@
+package org.library.app.it;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.library.app.controller.dto.AuthorDTO;
+import org.library.app.controller.dto.BookByIdDTO;
+import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.BooksByIdsDTO;
+import org.library.app.controller.dto.LoanRollupDTO;
+import org.library.app.controller.dto.LoanRollupRecomputeDTO;
+import org.library.app.controller.dto.MemberDTO;
+import org.library.app.controller.dto.OverdueLoanDTO;
+import org.library.app.controller.dto.RelatedBookDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * The whole application on an in-memory H2 database in PostgreSQL mode, seeded by the datagen profile before the
+ * startup listeners (member name filter, overdue wheel) load their state, and driven over HTTP. Besides the response,
+ * each test checks how many statements Hibernate ran for the endpoint, read from the library.sql.statements summary.
+ * The test profile also enforces the library.sql-budget budgets, so any request over its endpoint's budget fails
+ * outright. Data generation recomputes the loan rollups before startup returns. Run with mvn verify.
+ * The 90th percentile latency of repeated calls is only held to its ceiling under mvn -Platency verify, on a machine
+ * quiet enough for wall-clock numbers to mean something; -Dlibrary.it.latency-factor=2 doubles every ceiling.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"it", "datagen"})
+class LibraryApiIT {
+
+    private static final int WARM_UP_CALLS = 5;
+
+    private static final int MEASURED_CALLS = 20;
+
+    private static final String RECOMPUTE_PATH = "/library-api/admin/analytics/loans/recompute";
+
+    @Autowired
+    TestRestTemplate http;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${library.datagen.books}")
+    int books;
+
+    @Value("${library.it.latency:false}")
+    boolean latency;
+
+    @Value("${library.it.latency-factor:1.0}")
+    double latencyFactor;
+
+    @Value("${library.datagen.members}")
+    int members;
+
+    @Test
+    void booksList_SeededCatalog_ReturnsEveryBookFromOneQuery() {
+        var response = call("GET /library-api/books/**", 1,
+                () -> this.http.getForEntity("/library-api/books/list", BookDTO[].class));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM public.t_book", Integer.class),
+                response.getBody().length);
+        assertEquals(this.jdbcTemplate.queryForObject("SELECT SUM(c_amount) FROM public.t_book", Long.class),
+                Arrays.stream(response.getBody()).mapToLong(BookDTO::amount).sum());
+        Map<?, ?>[] titles = this.http.getForObject("/library-api/books/list?fields=title,author", Map[].class);
+        assertEquals(response.getBody().length, titles.length);
+        assertEquals(Map.of("title", response.getBody()[0].title(), "author", response.getBody()[0].author()),
+                titles[0]);
+        assertLatency("/library-api/books/list", 150);
+    }
+
+    @Test
+    void bookById_ExistingAndMissing_ReturnsRowOr404() {
+        Map<String, Object> row = this.jdbcTemplate.queryForMap(
+                "SELECT c_title, c_author, c_amount FROM public.t_book WHERE id = 42");
+
+        var response = call("GET /library-api/books/**", 0,
+                () -> this.http.getForEntity("/library-api/books/42", BookDTO.class));
+        var missing = this.http.getForEntity("/library-api/books/" + (this.books + 1000), String.class);
+
+        assertEquals(new BookDTO((String) row.get("c_title"), (String) row.get("c_author"),
+                (Integer) row.get("c_amount")), response.getBody());
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+        assertEquals(Map.of("title", row.get("c_title")),
+                this.http.getForObject("/library-api/books/42?fields=title", Map.class));
+        assertLatency("/library-api/books/42", 20);
+    }
+
+    @Test
+    void booksByIds_SomeMissing_ReturnsFoundInOrderFromOneBatch() {
+        long missingId = this.books + 1000L;
+
+        var response = call("GET /library-api/books/**", 1, () -> this.http.getForEntity(
+                "/library-api/books?ids=7,3," + missingId + ",5", BooksByIdsDTO.class));
+
+        assertEquals(List.of(7L, 3L, 5L), response.getBody().books().stream().map(BookByIdDTO::id).toList());
+        assertEquals(List.of(missingId), response.getBody().missing());
+        assertLatency("/library-api/books?ids=11,12,13,14,15,16,17,18,19,20", 30);
+    }
+
+    @Test
+    void relatedBooks_PopularBook_ReturnsCoBorrowedBooksFromMemory() {
+        long bookId = this.jdbcTemplate.queryForObject("SELECT book_id FROM public.t_member_books " +
+                "GROUP BY book_id ORDER BY COUNT(*) DESC, book_id LIMIT 1", Long.class);
+
+        var response = call("GET /library-api/books/**", 0, () -> this.http.getForEntity(
+                "/library-api/books/" + bookId + "/related?limit=5", RelatedBookDTO[].class));
+
+        var related = Arrays.asList(response.getBody());
+        assertEquals(5, related.size());
+        for (int i = 1; i < related.size(); i++) {
+            assertTrue(related.get(i - 1).count() >= related.get(i).count());
+        }
+        assertTrue(this.jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT a.member_id) FROM " +
+                "public.t_member_books a JOIN public.t_member_books b ON a.member_id = b.member_id " +
+                "WHERE a.book_id = ? AND b.book_id = ?", Long.class, bookId, related.get(0).id()) > 0);
+        assertEquals(HttpStatus.BAD_REQUEST, this.http.getForEntity(
+                "/library-api/books/" + bookId + "/related?limit=0", String.class).getStatusCode());
+        assertLatency("/library-api/books/" + bookId + "/related?limit=10", 20);
+    }
+
+    @Test
+    void membersPage_FollowingNextLink_ReturnsConsecutiveKeysetPages() {
+        var first = call("GET /library-api/members", 1,
+                () -> this.http.getForEntity("/library-api/members?size=50", MemberDTO[].class));
+        String next = first.getHeaders().getFirst(HttpHeaders.LINK);
+        var second = this.http.getForEntity(next.substring(next.indexOf('<') + 1, next.indexOf('>')),
+                MemberDTO[].class);
+
+        assertEquals(50, first.getBody().length);
+        assertEquals("Member1", first.getBody()[0].name());
+        assertEquals("Member50", first.getBody()[49].name());
+        assertEquals("Member51", second.getBody()[0].name());
+        assertLatency("/library-api/members?size=50", 30);
+        assertLatency("/library-api/members?size=50&afterId=" + (this.members - 500), 30);
+    }
+
+    @Test
+    void membersPage_NamePrefix_ReturnsOnlyMatchingMembers() {
+        var response = call("GET /library-api/members", 1,
+                () -> this.http.getForEntity("/library-api/members?size=500&namePrefix=Member19", MemberDTO[].class));
+
+        assertEquals(this.jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM public.t_member WHERE c_name LIKE 'Member19%' AND id <= " +
+                                "(SELECT MAX(id) FROM (SELECT id FROM public.t_member WHERE c_name LIKE 'Member19%' " +
+                                "ORDER BY id LIMIT 500))", Integer.class),
+                response.getBody().length);
+        assertTrue(Arrays.stream(response.getBody()).allMatch(member -> member.name().startsWith("Member19")));
+        assertLatency("/library-api/members?size=500&namePrefix=Member19", 150);
+    }
+
+    @Test
+    void booksOfMember_MemberWithOpenLoans_ReturnsExactlyTheirOpenLoans() {
+        String name = this.jdbcTemplate.queryForObject("SELECT m.c_name FROM public.t_member m " +
+                "JOIN public.t_member_books l ON l.member_id = m.id WHERE l.c_returned_at IS NULL " +
+                "GROUP BY m.c_name ORDER BY COUNT(*) DESC, m.c_name LIMIT 1", String.class);
+        List<String> titles = this.jdbcTemplate.queryForList("SELECT b.c_title FROM public.t_member_books l " +
+                "JOIN public.t_member m ON m.id = l.member_id JOIN public.t_book b ON b.id = l.book_id " +
+                "WHERE m.c_name = ? AND l.c_returned_at IS NULL ORDER BY b.c_title", String.class, name);
+
+        var response = call("GET /library-api/members/*", 2,
+                () -> this.http.getForEntity("/library-api/members/" + name, BookDTO[].class));
+
+        assertFalse(titles.isEmpty());
+        assertEquals(titles, Arrays.stream(response.getBody()).map(BookDTO::title).sorted().toList());
+        assertLatency("/library-api/members/" + name, 30);
+    }
+
+    @Test
+    void authorsPage_FollowingNextLink_MatchesTotalsOverBooksAndLoans() {
+        var first = call("GET /library-api/authors/**", 1,
+                () -> this.http.getForEntity("/library-api/authors?size=20", AuthorDTO[].class));
+        String next = first.getHeaders().getFirst(HttpHeaders.LINK);
+        var second = this.http.getForEntity(URI.create(next.substring(next.indexOf('<') + 1, next.indexOf('>'))),
+                AuthorDTO[].class);
+
+        List<AuthorDTO> expected = this.jdbcTemplate.query("SELECT b.c_author, COUNT(*), " +
+                        "SUM(b.c_amount + COALESCE(l.on_loan, 0)), SUM(COALESCE(l.on_loan, 0)) FROM public.t_book b " +
+                        "LEFT JOIN (SELECT book_id, COUNT(*) AS on_loan FROM public.t_member_books " +
+                        "WHERE c_returned_at IS NULL GROUP BY book_id) l ON l.book_id = b.id " +
+                        "GROUP BY b.c_author ORDER BY b.c_author LIMIT 40",
+                (rs, rowNum) -> new AuthorDTO(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)));
+        assertEquals(expected.subList(0, 20), List.of(first.getBody()));
+        assertEquals(expected.subList(20, 40), List.of(second.getBody()));
+        assertLatency("/library-api/authors?size=50", 30);
+    }
+
+    @Test
+    void booksByAuthor_MostProlificAuthor_ReturnsTheirBooksByTitleFromIndex() {
+        String author = this.jdbcTemplate.queryForObject("SELECT c_author FROM public.t_book " +
+                "GROUP BY c_author ORDER BY COUNT(*) DESC, c_author LIMIT 1", String.class);
+        List<Long> ids = this.jdbcTemplate.queryForList("SELECT id FROM public.t_book WHERE c_author = ? " +
+                "ORDER BY c_title, id", Long.class, author);
+
+        var response = call("GET /library-api/authors/**", 1, () -> this.http.getForEntity(
+                "/library-api/authors/{author}/books", BookByIdDTO[].class, author));
+        var missing = this.http.getForEntity("/library-api/authors/{author}/books", String.class, "Nobody Atall");
+
+        assertEquals(ids, Arrays.stream(response.getBody()).map(BookByIdDTO::id).toList());
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+        assertLatency(() -> assertTrue(this.http.getForEntity("/library-api/authors/{author}/books", byte[].class,
+                author).getStatusCode().is2xxSuccessful()), 50);
+    }
+
+    @Test
+    void borrowAndReturn_AvailableBook_MovesOneCopyBothWays() {
+        long memberId = this.jdbcTemplate.queryForObject("SELECT MIN(m.id) FROM public.t_member m " +
+                "WHERE NOT EXISTS (SELECT 1 FROM public.t_member_books l " +
+                "WHERE l.member_id = m.id AND l.c_returned_at IS NULL)", Long.class);
+        long bookId = this.jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM public.t_book WHERE c_amount > 1", Long.class);
+        int amount = amount(bookId);
+        String path = "/library-api/members/%d/book/%d".formatted(memberId, bookId);
+
+        var borrowed = call("POST /library-api/members/*/book/*", 7,
+                () -> this.http.postForEntity(path, null, BookDTO.class));
+        assertEquals(HttpStatus.CREATED, borrowed.getStatusCode());
+        assertEquals(amount - 1, borrowed.getBody().amount());
+        assertEquals(amount - 1, amount(bookId));
+        var borrowedAgain = this.http.postForEntity(path, null, String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, borrowedAgain.getStatusCode());
+
+        var returned = call("DELETE /library-api/members/*/book/*", 7,
+                () -> this.http.exchange(path, HttpMethod.DELETE, null, Void.class));
+        assertEquals(HttpStatus.NO_CONTENT, returned.getStatusCode());
+        assertEquals(amount, amount(bookId));
+
+        assertLatency(() -> {
+            this.http.postForEntity(path, null, Void.class);
+            this.http.exchange(path, HttpMethod.DELETE, null, Void.class);
+        }, 150);
+        assertEquals(amount, amount(bookId));
+    }
+
+    @Test
+    void overdueLoans_LoanPastItsDueDate_ListedOnceTheWheelMarksIt() throws InterruptedException {
+        long memberId = this.jdbcTemplate.queryForObject("SELECT MIN(member_id) FROM public.t_member_books " +
+                "WHERE c_returned_at IS NULL AND c_due_at < CURRENT_TIMESTAMP", Long.class);
+        String path = "/library-api/members/%d/overdue".formatted(memberId);
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        OverdueLoanDTO[] overdue = this.http.getForObject(path, OverdueLoanDTO[].class);
+        while (overdue.length == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            overdue = this.http.getForObject(path, OverdueLoanDTO[].class);
+        }
+
+        var response = call("GET /library-api/members/*/overdue", 2,
+                () -> this.http.getForEntity(path, OverdueLoanDTO[].class));
+
+        assertEquals(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM public.t_member_books " +
+                "WHERE member_id = ? AND c_returned_at IS NULL AND c_due_at < CURRENT_TIMESTAMP",
+                Integer.class, memberId), response.getBody().length);
+        assertTrue(Arrays.stream(response.getBody()).allMatch(loan -> loan.dueAt().isBefore(loan.borrowedAt()
+                .plus(Duration.ofDays(15)))));
+        assertLatency(path, 30);
+    }
+
+    @Test
+    void createBook_NewThenExisting_CreatesOnceAndCountsCopies() {
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        var request = new HttpEntity<>("{\"title\":\"Integration Testing\",\"author\":\"Kent Beck\"}", headers);
+
+        var created = call("POST /library-api/books", 5,
+                () -> this.http.postForEntity("/library-api/books", request, BookDTO.class));
+        var copy = this.http.postForEntity("/library-api/books", request, BookDTO.class);
+
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        assertEquals(new BookDTO("Integration Testing", "Kent Beck", 1), created.getBody());
+        assertEquals(2, copy.getBody().amount());
+        assertEquals(1, this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM public.t_book " +
+                "WHERE c_title = 'Integration Testing' AND c_author = 'Kent Beck'", Integer.class));
+    }
+
+    @Test
+    void distinctBorrowedBooks_ReportMatchesOpenLoans() {
+        List<String> expected = this.jdbcTemplate.queryForList("SELECT DISTINCT b.c_title FROM public.t_book b " +
+                "JOIN public.t_member_books l ON l.book_id = b.id WHERE l.c_returned_at IS NULL", String.class);
+
+        var response = this.http.getForEntity("/library-api/books/all-borrowed-books", String[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expected.stream().sorted().toList(), Arrays.stream(response.getBody()).sorted().toList());
+        assertLatency("/library-api/books/all-borrowed-books", 500);
+    }
+
+    @Test
+    void loanRollupRecompute_RunAfterDataGeneration_CountsEveryLoanInChunks() {
+        var response = this.http.getForEntity(RECOMPUTE_PATH, LoanRollupRecomputeDTO.class);
+        LoanRollupRecomputeDTO progress = response.getBody();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("COMPLETED", progress.state());
+        assertEquals(progress.chunks(), progress.chunksScanned());
+        assertTrue(progress.chunks() >= 10);
+        Map<String, Object> loans = this.jdbcTemplate.queryForMap("SELECT COUNT(*) AS borrows, " +
+                "COUNT(c_returned_at) AS returns FROM public.t_member_books");
+        var days = this.http.getForObject("/library-api/analytics/loans?granularity=DAY&from={from}",
+                LoanRollupDTO[].class, Instant.now().minus(Duration.ofDays(800)));
+        assertEquals(((Number) loans.get("borrows")).longValue(),
+                Arrays.stream(days).mapToLong(LoanRollupDTO::borrows).sum());
+        assertEquals(((Number) loans.get("returns")).longValue(),
+                Arrays.stream(days).mapToLong(LoanRollupDTO::returns).sum());
+    }
+
+    /*
+     * Runs the call once and checks the statements Hibernate ran for it, read as the growth of the endpoint's
+     * library.sql.statements total.
+     * */
+    private <T> ResponseEntity<T> call(String endpoint, int maxStatements, Supplier<ResponseEntity<T>> call) {
+        var statements = this.meterRegistry.get("library.sql.statements").tag("endpoint", endpoint).summary();
+        double before = statements.totalAmount();
+        long requestsBefore = statements.count();
+        ResponseEntity<T> response = call.get();
+        assertEquals(requestsBefore + 1, statements.count());
+        double ran = statements.totalAmount() - before;
+        assertTrue(ran <= maxStatements, "%s ran %.0f statements, expected at most %d"
+                .formatted(endpoint, ran, maxStatements));
+        return response;
+    }
+
+    private void assertLatency(String path, long ceilingMillis) {
+        assertLatency(() -> assertTrue(this.http.getForEntity(path, byte[].class).getStatusCode().is2xxSuccessful()),
+                ceilingMillis);
+    }
+
+    private void assertLatency(Runnable call, long ceilingMillis) {
+        if (!this.latency) {
+            return;
+        }
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            call.run();
+        }
+        List<Long> nanos = new ArrayList<>(MEASURED_CALLS);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            long start = System.nanoTime();
+            call.run();
+            nanos.add(System.nanoTime() - start);
+        }
+        nanos.sort(null);
+        long p90 = Duration.ofNanos(nanos.get(MEASURED_CALLS * 9 / 10 - 1)).toMillis();
+        long ceiling = Math.round(ceilingMillis * this.latencyFactor);
+        assertTrue(p90 <= ceiling, "p90 latency %d ms over the ceiling of %d ms".formatted(p90, ceiling));
+    }
+
+    private int amount(long bookId) {
+        return this.jdbcTemplate.queryForObject("SELECT c_amount FROM public.t_book WHERE id = ?", Integer.class,
+                bookId);
+    }
+}
@@ -0,0 +1,138 @@
+package org.library.app.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.library.app.exception.BulkheadFullException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryOperationEventTest {
+
+    @TempDir
+    Path directory;
+
+    Recording recording;
+
+    @BeforeEach
+    void startRecording() {
+        this.recording = new Recording();
+        this.recording.enable(BorrowEvent.class);
+        this.recording.enable(AnalyticsQueryEvent.class);
+        this.recording.start();
+    }
+
+    @AfterEach
+    void closeRecording() {
+        this.recording.close();
+    }
+
+    @Test
+    void finish_NoTransaction_CommitsAtOnceWithStatementTime() throws Exception {
+        var listener = new DatabaseTimeSessionListener();
+        var event = new BorrowEvent(1, 2);
+
+        event.start();
+        listener.jdbcExecuteStatementStart();
+        Thread.sleep(5);
+        listener.jdbcExecuteStatementEnd();
+        event.loanId(3);
+        event.finish();
+
+        RecordedEvent recorded = single("org.library.Borrow");
+        assertEquals(1, recorded.getLong("memberId"));
+        assertEquals(2, recorded.getLong("bookId"));
+        assertEquals(3, recorded.getLong("loanId"));
+        assertEquals(LibraryOperationEvent.OK, recorded.getString("outcome"));
+        assertTrue(recorded.getDuration("dbTime").toMillis() >= 5);
+        assertTrue(recorded.getDuration().compareTo(recorded.getDuration("dbTime")) >= 0);
+    }
+
+    @Test
+    void finish_InsideTransaction_CommitsOnCompletionWithExceptionOrRollback() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            var failed = new BorrowEvent(1, 2);
+            failed.start();
+            failed.failed(new IllegalStateException());
+            failed.finish();
+            var rolledBack = new BorrowEvent(1, 3);
+            rolledBack.start();
+            rolledBack.finish();
+
+            assertTrue(events("org.library.Borrow").isEmpty());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        List<RecordedEvent> recorded = events("org.library.Borrow");
+        assertEquals(2, recorded.size());
+        assertEquals("IllegalStateException", recorded.get(0).getString("outcome"));
+        assertEquals(LibraryOperationEvent.ROLLED_BACK, recorded.get(1).getString("outcome"));
+    }
+
+    @Test
+    void finish_AsyncFailure_RecordsCauseAndGivenDatabaseTime() throws Exception {
+        var event = new AnalyticsQueryEvent("distinct-borrowed-books");
+
+        event.start();
+        event.finish(1_000_000, new CompletionException(new BulkheadFullException("full")));
+
+        RecordedEvent recorded = single("org.library.AnalyticsQuery");
+        assertEquals("distinct-borrowed-books", recorded.getString("query"));
+        assertEquals("BulkheadFullException", recorded.getString("outcome"));
+        assertEquals(1, recorded.getDuration("dbTime").toMillis());
+    }
+
+    @Test
+    void record_OperationThrows_CommitsEventWithExceptionAndRethrows() throws Exception {
+        var event = new BorrowEvent(1, 2);
+
+        assertThrows(IllegalStateException.class, () -> LibraryOperationEvent.record(event, () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(4, LibraryOperationEvent.record(new BorrowEvent(1, 3), () -> 4));
+
+        List<RecordedEvent> recorded = events("org.library.Borrow");
+        assertEquals(List.of("IllegalStateException", LibraryOperationEvent.OK),
+                recorded.stream().map(borrow -> borrow.getString("outcome")).toList());
+    }
+
+    @Test
+    void finish_EventNotEnabled_RecordsNothing() throws Exception {
+        this.recording.disable(BorrowEvent.class);
+        var event = new BorrowEvent(1, 2);
+
+        event.start();
+        event.finish();
+
+        assertTrue(events("org.library.Borrow").isEmpty());
+    }
+
+    private RecordedEvent single(String name) throws Exception {
+        List<RecordedEvent> recorded = events(name);
+        assertEquals(1, recorded.size());
+        return recorded.getFirst();
+    }
+
+    private List<RecordedEvent> events(String name) throws Exception {
+        Path file = this.directory.resolve(System.nanoTime() + ".jfr");
+        this.recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .toList();
+    }
+}
@@ -0,0 +1,97 @@
+package org.library.app.overdue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000;
+
+    @Test
+    void advanceTo_DeadlinesWithinFirstLevel_ExpireInDeadlineOrder() {
+        var wheel = new HierarchicalTimingWheel<String>(10, 8, 3, START);
+        wheel.schedule("c", START + 70);
+        wheel.schedule("a", START + 10);
+        wheel.schedule("b", START + 35);
+        List<String> expired = new ArrayList<>();
+
+        assertEquals(1, wheel.advanceTo(START + 10, expired::add));
+        assertEquals(0, wheel.advanceTo(START + 39, expired::add));
+        assertEquals(2, wheel.advanceTo(START + 80, expired::add));
+
+        assertEquals(List.of("a", "b", "c"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancel_PendingTimeout_NeverExpires() {
+        var wheel = new HierarchicalTimingWheel<String>(10, 8, 3, START);
+        var cancelled = wheel.schedule("cancelled", START + 500);
+        var kept = wheel.schedule("kept", START + 500);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertFalse(cancelled.pending());
+        assertTrue(kept.pending());
+        assertEquals(1, wheel.size());
+
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(START + 1_000, expired::add);
+
+        assertEquals(List.of("kept"), expired);
+        assertFalse(kept.pending());
+        assertFalse(wheel.cancel(kept));
+    }
+
+    @Test
+    void advanceTo_DeadlinesInHigherLevels_CascadeAndExpireOnTheirOwnTick() {
+        var wheel = new HierarchicalTimingWheel<Long>(1, 4, 3, START);
+        var random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long deadline = START + 1 + random.nextInt(64);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        for (long now = START + 1; now <= START + 64; now++) {
+            long tick = now;
+            wheel.advanceTo(now, deadline -> assertEquals(tick, deadline));
+        }
+
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advanceTo_DeadlineBeyondWheelSpan_ExpiresOnTime() {
+        var wheel = new HierarchicalTimingWheel<String>(1, 4, 2, START);
+        wheel.schedule("far", START + 100);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advanceTo(START + 99, expired::add);
+        assertTrue(expired.isEmpty());
+        assertEquals(1, wheel.size());
+
+        wheel.advanceTo(START + 100, expired::add);
+        assertEquals(List.of("far"), expired);
+    }
+
+    @Test
+    void schedule_DeadlineInThePast_ExpiresOnNextTick() {
+        var wheel = new HierarchicalTimingWheel<String>(10, 8, 3, START);
+        wheel.advanceTo(START + 100, expired -> fail());
+        wheel.schedule("late", START - 5_000);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advanceTo(START + 105, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advanceTo(START + 110, expired::add);
+
+        assertEquals(List.of("late"), expired);
+    }
+}
@@ -0,0 +1,74 @@
+package org.library.app.overdue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.cache.CacheInvalidationPublisher;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueLoanTrackerRebuildTest {
+
+    @Mock
+    DataSource dataSource;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    Statement statement;
+
+    @Mock
+    ResultSet openLoans;
+
+    @Mock
+    EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    CacheInvalidationPublisher cacheInvalidation;
+
+    OverdueLoanTracker tracker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.tracker = new OverdueLoanTracker(this.dataSource, this.entityManagerFactory, this.cacheInvalidation,
+                new SimpleMeterRegistry(), Duration.ofHours(1), Duration.ofSeconds(1), 64, 4, 500, 100);
+        doReturn(this.connection).when(this.dataSource).getConnection();
+        doReturn(this.statement).when(this.connection).createStatement();
+        doReturn(this.openLoans).when(this.statement).executeQuery(anyString());
+    }
+
+    @Test
+    void rebuild_ScheduleAndCancelWhileTableIsRead_ReplayedOnRebuiltWheel() throws Exception {
+        Instant due = Instant.now().plus(Duration.ofHours(1));
+        doReturn(1L).when(this.openLoans).getLong(1);
+        doReturn(Timestamp.from(due)).when(this.openLoans).getTimestamp(3);
+        doReturn(true).doAnswer(invocation -> {
+            // committed after loan 1 was read: loan 1 returned, loan 2 borrowed
+            this.tracker.cancel(1);
+            this.tracker.schedule(2, due);
+            return false;
+        }).when(this.openLoans).next();
+
+        this.tracker.rebuild();
+
+        assertEquals(1, this.tracker.scheduledCount());
+        this.tracker.cancel(2);
+        assertEquals(0, this.tracker.scheduledCount());
+    }
+}
@@ -0,0 +1,100 @@
+package org.library.app.overdue;
+
+import org.junit.jupiter.api.Test;
+import org.library.app.controller.payload.NewBookPayload;
+import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.repository.BooksRepository;
+import org.library.app.repository.LoansRepository;
+import org.library.app.repository.MembersRepository;
+import org.library.app.service.BooksService;
+import org.library.app.service.MemberService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:overdue-loans;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+                "DEFAULT_NULL_ORDERING=HIGH;INIT=CREATE SCHEMA IF NOT EXISTS public",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "library.loans.period=1h",
+        "library.loans.overdue.tick=1s"})
+class OverdueLoanTrackerTest {
+
+    @Autowired
+    OverdueLoanTracker tracker;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    BooksService booksService;
+
+    @Autowired
+    MembersRepository membersRepository;
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Autowired
+    LoansRepository loansRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void expire_BorrowedAndReturnedLoans_MarksOnlyOpenLoansOverdue() {
+        this.memberService.createMember(new NewMemberPayload("Late Reader"));
+        this.booksService.createBook(new NewBookPayload("Kept", "Author"));
+        this.booksService.createBook(new NewBookPayload("Returned", "Author"));
+        long memberId = this.membersRepository.findByName("Late Reader").orElseThrow().getId();
+        long kept = this.booksRepository.findByTitleAndAuthor("Kept", "Author").orElseThrow().getId();
+        long returned = this.booksRepository.findByTitleAndAuthor("Returned", "Author").orElseThrow().getId();
+        long scheduledBefore = this.tracker.scheduledCount();
+
+        this.memberService.memberBorrowBook(memberId, kept);
+        this.memberService.memberBorrowBook(memberId, returned);
+        this.memberService.memberReturnBook(memberId, returned);
+
+        assertEquals(scheduledBefore + 1, this.tracker.scheduledCount());
+        assertEquals(0, this.tracker.expire(Instant.now().plusSeconds(1800).toEpochMilli()));
+        assertTrue(this.memberService.getOverdueLoans(memberId).isEmpty());
+
+        assertEquals(1, this.tracker.expire(Instant.now().plusSeconds(7200).toEpochMilli()));
+
+        var overdue = this.memberService.getOverdueLoans(memberId);
+        assertEquals(1, overdue.size());
+        assertEquals(kept, overdue.getFirst().bookId());
+        assertEquals("Kept", overdue.getFirst().title());
+        assertTrue(overdue.getFirst().dueAt().isAfter(overdue.getFirst().borrowedAt()));
+        assertEquals(scheduledBefore, this.tracker.scheduledCount());
+
+        // a returned overdue loan is no longer listed
+        this.memberService.memberReturnBook(memberId, kept);
+        assertTrue(this.memberService.getOverdueLoans(memberId).isEmpty());
+    }
+
+    @Test
+    void rebuild_OpenLoansInDatabase_SchedulesThemUsingBorrowDateWhenDueDateIsMissing() {
+        this.memberService.createMember(new NewMemberPayload("Legacy Reader"));
+        this.booksService.createBook(new NewBookPayload("Legacy", "Author"));
+        long memberId = this.membersRepository.findByName("Legacy Reader").orElseThrow().getId();
+        long bookId = this.booksRepository.findByTitleAndAuthor("Legacy", "Author").orElseThrow().getId();
+        Instant borrowedAt = Instant.parse("2024-01-01T10:00:00Z");
+        this.jdbcTemplate.update("INSERT INTO public.t_member_books (member_id, book_id, c_borrowed_at, c_overdue) " +
+                "VALUES (?, ?, ?, FALSE)", memberId, bookId, Timestamp.from(borrowedAt));
+
+        this.tracker.rebuild();
+        this.tracker.expire(System.currentTimeMillis() + 2000);
+
+        var overdue = this.memberService.getOverdueLoans(memberId);
+        assertEquals(1, overdue.size());
+        assertEquals(borrowedAt.plus(Duration.ofHours(1)), overdue.getFirst().dueAt());
+        assertNull(this.loansRepository.findOverdueByMemberId(memberId).getFirst().dueAt());
+    }
+}
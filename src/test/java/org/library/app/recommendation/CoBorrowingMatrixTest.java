@@ -0,0 +1,115 @@
+package org.library.app.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoBorrowingMatrixTest {
+
+    @Test
+    void related_BooksBorrowedBySameMembers_OrderedByCountThenId() {
+        var matrix = new CoBorrowingMatrix(10, 0);
+        matrix.borrowed(1, 10);
+        matrix.borrowed(1, 20);
+        matrix.borrowed(1, 30);
+        matrix.borrowed(2, 10);
+        matrix.borrowed(2, 30);
+        matrix.borrowed(3, 40);
+
+        assertEquals(List.of(new CoBorrowingMatrix.Related(30, 2), new CoBorrowingMatrix.Related(20, 1)),
+                matrix.related(10, 5));
+        assertEquals(List.of(new CoBorrowingMatrix.Related(30, 2)), matrix.related(10, 1));
+        assertEquals(List.of(new CoBorrowingMatrix.Related(10, 1), new CoBorrowingMatrix.Related(30, 1)),
+                matrix.related(20, 5));
+        assertEquals(List.of(), matrix.related(40, 5));
+        assertEquals(3, matrix.pairs());
+    }
+
+    @Test
+    void borrowed_BookAlreadyInHistory_CountsNothingAgain() {
+        var matrix = new CoBorrowingMatrix(10, 0);
+        matrix.borrowed(1, 10);
+        matrix.borrowed(1, 20);
+        matrix.borrowed(1, 10);
+
+        assertEquals(List.of(new CoBorrowingMatrix.Related(20, 1)), matrix.related(10, 5));
+    }
+
+    @Test
+    void borrowed_HistoryFull_OldestBookNoLongerPaired() {
+        var matrix = new CoBorrowingMatrix(2, 0);
+        matrix.borrowed(1, 10);
+        matrix.borrowed(1, 20);
+        matrix.borrowed(1, 30);
+
+        assertEquals(List.of(new CoBorrowingMatrix.Related(20, 1)), matrix.related(30, 5));
+    }
+
+    @Test
+    void decay_HalvesCountsAndDropsPairsAtZero() {
+        var matrix = new CoBorrowingMatrix(10, 0);
+        for (long member = 1; member <= 3; member++) {
+            matrix.borrowed(member, 10);
+            matrix.borrowed(member, 20);
+        }
+        matrix.borrowed(4, 10);
+        matrix.borrowed(4, 30);
+
+        matrix.decay(0.5, 1000);
+
+        assertEquals(List.of(new CoBorrowingMatrix.Related(20, 1)), matrix.related(10, 5));
+        assertEquals(List.of(), matrix.related(30, 5));
+        assertEquals(1, matrix.pairs());
+        assertEquals(2, matrix.books());
+        assertEquals(1000, matrix.decayedAt());
+    }
+
+    @Test
+    void decay_MemberIdleSinceLastDecay_HistoryDropped() throws IOException {
+        var matrix = new CoBorrowingMatrix(10, 0);
+        matrix.borrowed(1, 10);
+        matrix.borrowed(2, 10);
+        matrix.decay(0.5, 1000);
+        matrix.borrowed(2, 20);
+
+        matrix.decay(0.5, 2000);
+        matrix.borrowed(1, 30);
+        var bytes = new ByteArrayOutputStream();
+        matrix.writeTo(new DataOutputStream(bytes));
+
+        assertEquals(2, matrix.members());
+        assertEquals(List.of(), matrix.related(30, 5));
+        var read = CoBorrowingMatrix.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 10);
+        read.borrowed(2, 30);
+        assertEquals(List.of(new CoBorrowingMatrix.Related(10, 1), new CoBorrowingMatrix.Related(20, 1)),
+                read.related(30, 5));
+    }
+
+        @Test
+    void readFrom_WrittenMatrix_SameCountsAndHistories() throws IOException {
+        var matrix = new CoBorrowingMatrix(3, 42);
+        matrix.borrowed(1, 10);
+        matrix.borrowed(1, 20);
+        matrix.borrowed(2, 20);
+        matrix.borrowed(2, 30);
+        var bytes = new ByteArrayOutputStream();
+        matrix.writeTo(new DataOutputStream(bytes));
+
+        var read = CoBorrowingMatrix.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 3);
+        read.borrowed(1, 30);
+
+        assertEquals(42, read.decayedAt());
+        assertEquals(List.of(new CoBorrowingMatrix.Related(30, 2), new CoBorrowingMatrix.Related(10, 1)),
+                read.related(20, 5));
+        assertEquals(3, read.pairs());
+        assertThrows(IOException.class, () -> CoBorrowingMatrix.readFrom(
+                new DataInputStream(new ByteArrayInputStream(new byte[8])), 3));
+    }
+}
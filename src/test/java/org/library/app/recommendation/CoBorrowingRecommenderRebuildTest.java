@@ -0,0 +1,67 @@
+package org.library.app.recommendation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.event.LibraryEvent;
+import org.library.app.event.LibraryEventType;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoBorrowingRecommenderRebuildTest {
+
+    @Mock
+    DataSource dataSource;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    PreparedStatement statement;
+
+    @Mock
+    ResultSet loans;
+
+    CoBorrowingRecommender recommender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.recommender = new CoBorrowingRecommender(this.dataSource, new SimpleMeterRegistry(), 20,
+                Duration.ofDays(7), 0.5, "", Duration.ofMinutes(5), 100, 100);
+        doReturn(this.connection).when(this.dataSource).getConnection();
+        doReturn(this.statement).when(this.connection).prepareStatement(anyString());
+        doReturn(this.loans).when(this.statement).executeQuery();
+    }
+
+    @Test
+    void rebuild_BorrowWhileTableIsRead_ReplayedOnRebuiltMatrix() throws Exception {
+        doReturn(1L).when(this.loans).getLong(1);
+        doReturn(1L).when(this.loans).getLong(2);
+        doReturn(10L).when(this.loans).getLong(3);
+        doReturn(OffsetDateTime.now().minusMinutes(1)).when(this.loans).getObject(4, OffsetDateTime.class);
+        doReturn(true).doAnswer(invocation -> {
+            // consumed after loan 1 was read: member 1 borrows book 20
+            this.recommender.onBatch(List.of(new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 20,
+                    System.currentTimeMillis(), 0, 0)));
+            return false;
+        }).when(this.loans).next();
+
+        this.recommender.rebuild();
+
+        assertEquals(List.of(new CoBorrowingMatrix.Related(20, 1)), this.recommender.related(10, 10));
+    }
+}
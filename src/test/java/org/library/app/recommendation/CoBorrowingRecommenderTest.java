@@ -0,0 +1,144 @@
+package org.library.app.recommendation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.library.app.event.LibraryEvent;
+import org.library.app.event.LibraryEventType;
+import org.library.app.exception.InvalidRequestException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoBorrowingRecommenderTest {
+
+    @TempDir
+    Path directory;
+
+    JdbcDataSource dataSource;
+
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createLoans() {
+        this.dataSource = new JdbcDataSource();
+        this.dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;" +
+                "INIT=CREATE SCHEMA IF NOT EXISTS public");
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        this.jdbcTemplate.execute("CREATE TABLE public.t_member_books (id BIGINT PRIMARY KEY, member_id BIGINT, " +
+                "book_id BIGINT, c_borrowed_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP - INTERVAL '1' HOUR)");
+        this.jdbcTemplate.update("INSERT INTO public.t_member_books (id, member_id, book_id) VALUES (1, 1, 10), " +
+                "(2, 1, 20), (3, 2, 10), (4, 2, 20), (5, 2, 30)");
+    }
+
+    @Test
+    void start_NoSnapshot_RebuildsFromLoansAndFollowsBorrows() throws Exception {
+        var recommender = recommender(this.directory.resolve("co-borrowing.bin"));
+        recommender.start();
+        try {
+            recommender.onBatch(List.of(
+                    new LibraryEvent(LibraryEventType.BOOK_BORROWED, 3, 30, 0, 0, 0),
+                    new LibraryEvent(LibraryEventType.BOOK_RETURNED, 3, 30, 0, 0, 0),
+                    new LibraryEvent(LibraryEventType.BOOK_BORROWED, 3, 10, 0, 0, 0)));
+
+            assertEquals(List.of(new CoBorrowingMatrix.Related(20, 2), new CoBorrowingMatrix.Related(30, 2)),
+                    recommender.related(10, 10));
+        } finally {
+            recommender.stop();
+        }
+    }
+
+    @Test
+    void start_SnapshotWrittenOnStop_LoadsSnapshotInsteadOfLoans() throws Exception {
+        var file = this.directory.resolve("co-borrowing.bin");
+        var first = recommender(file);
+        first.start();
+        first.onBatch(List.of(new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 40, 0, 0, 0)));
+        first.stop();
+        this.jdbcTemplate.update("DELETE FROM public.t_member_books");
+
+        var second = recommender(file);
+        second.start();
+        try {
+            assertEquals(List.of(new CoBorrowingMatrix.Related(10, 1), new CoBorrowingMatrix.Related(20, 1)),
+                    second.related(40, 10));
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void start_LoansAfterSnapshot_ReplayedOntoSnapshot() throws Exception {
+        var file = this.directory.resolve("co-borrowing.bin");
+        var first = recommender(file);
+        first.start();
+        first.stop();
+        this.jdbcTemplate.update("INSERT INTO public.t_member_books (id, member_id, book_id) VALUES (6, 1, 30)");
+
+        var second = recommender(file);
+        second.start();
+        try {
+            assertEquals(List.of(new CoBorrowingMatrix.Related(10, 2), new CoBorrowingMatrix.Related(20, 2)),
+                    second.related(30, 10));
+            assertEquals(List.of(new CoBorrowingMatrix.Related(20, 2), new CoBorrowingMatrix.Related(30, 2)),
+                    second.related(10, 10));
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void start_LoanOfAnotherNodeBeforeLatestBorrow_ReplayedOntoSnapshot() throws Exception {
+        var file = this.directory.resolve("co-borrowing.bin");
+        var first = recommender(file);
+        first.start();
+        this.jdbcTemplate.update("INSERT INTO public.t_member_books (id, member_id, book_id) VALUES (6, 1, 40)");
+        // loan 7 was borrowed through another node, so this one never sees its event
+        this.jdbcTemplate.update("INSERT INTO public.t_member_books (id, member_id, book_id) VALUES (7, 2, 40)");
+        first.onBatch(List.of(new LibraryEvent(LibraryEventType.BOOK_BORROWED, 1, 40, System.currentTimeMillis(),
+                0, 6)));
+        first.stop();
+
+        var second = recommender(file);
+        second.start();
+        try {
+            assertEquals(List.of(new CoBorrowingMatrix.Related(10, 2), new CoBorrowingMatrix.Related(20, 2),
+                    new CoBorrowingMatrix.Related(30, 1)), second.related(40, 10));
+        } finally {
+            second.stop();
+        }
+    }
+
+        @Test
+    void rebuild_OldLoans_DecayedByAge() {
+        this.jdbcTemplate.update("UPDATE public.t_member_books SET c_borrowed_at = CURRENT_TIMESTAMP - " +
+                "INTERVAL '15' DAY WHERE member_id = 1");
+        var recommender = recommender(this.directory.resolve("co-borrowing.bin"));
+
+        recommender.rebuild();
+
+        // member 1's pair went through two decays by 0.5 and dropped out, member 2's is fresh
+        assertEquals(List.of(new CoBorrowingMatrix.Related(20, 1), new CoBorrowingMatrix.Related(30, 1)),
+                recommender.related(10, 10));
+    }
+
+    @Test
+    void related_LimitOutOfRange_ThrowsInvalidRequestException() {
+        var recommender = recommender(this.directory.resolve("co-borrowing.bin"));
+
+        assertThrows(InvalidRequestException.class, () -> recommender.related(10, 0));
+        assertThrows(InvalidRequestException.class, () -> recommender.related(10, 101));
+    }
+
+    private CoBorrowingRecommender recommender(Path snapshotFile) {
+        return new CoBorrowingRecommender(this.dataSource, new SimpleMeterRegistry(), 20, Duration.ofDays(7), 0.5,
+                snapshotFile.toString(), Duration.ofMinutes(5), 100, 100);
+    }
+}
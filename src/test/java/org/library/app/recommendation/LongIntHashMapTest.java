@@ -0,0 +1,52 @@
+package org.library.app.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void addTo_RandomKeys_SameAsHashMap() {
+        var map = new LongIntHashMap(0);
+        var expected = new HashMap<Long, Integer>();
+        var random = new Random(3);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = 1 + random.nextInt(2000);
+            assertEquals((int) expected.merge(key, 1, Integer::sum), map.addTo(key, 1));
+        }
+
+        var actual = new HashMap<Long, Integer>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key, -1)));
+        assertEquals(-1, map.get(5000, -1));
+    }
+
+    @Test
+    void updateValues_DropsEntriesAtZero() {
+        var map = new LongIntHashMap(4);
+        map.put(1, 1);
+        map.put(2, 2);
+        map.put(3, 5);
+
+        map.updateValues(value -> value / 2);
+
+        var actual = new HashMap<Long, Integer>();
+        map.forEach(actual::put);
+        assertEquals(Map.of(2L, 1, 3L, 2), actual);
+        assertEquals(2, map.size());
+        assertEquals(3, map.addTo(3, 1));
+    }
+
+    @Test
+    void put_KeyZero_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new LongIntHashMap(1).put(0, 1));
+    }
+}
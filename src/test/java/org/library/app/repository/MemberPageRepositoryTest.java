@@ -0,0 +1,86 @@
+package org.library.app.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.repository.projection.MemberSummary;
+import org.library.app.service.MemberService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:member-page;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+                "DEFAULT_NULL_ORDERING=HIGH;INIT=CREATE SCHEMA IF NOT EXISTS public",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "org.library.app.repository.MemberPageRepositoryTest$LastStatementInspector"})
+class MemberPageRepositoryTest {
+
+    @Autowired
+    MemberPageRepository repository;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MembersRepository membersRepository;
+
+    @BeforeEach
+    void createMembers() {
+        for (String name : List.of("Page_Reader", "Page%Writer", "Page_Editor")) {
+            if (!this.membersRepository.existsByName(name)) {
+                this.memberService.createMember(new NewMemberPayload(name));
+            }
+        }
+    }
+
+    @Test
+    void findPage_NoFilters_QueriesIdRangeOnly() {
+        List<MemberSummary> page = this.repository.findPage(0, null, null, null, 2);
+
+        assertEquals(2, page.size());
+        assertTrue(page.get(0).id() < page.get(1).id());
+        String sql = LastStatementInspector.last().toLowerCase();
+        assertFalse(sql.contains("like"));
+        assertFalse(sql.contains("c_creation_date>") || sql.contains("c_creation_date <")
+                || sql.contains("between"));
+    }
+
+    @Test
+    void findPage_NamePrefixWithWildcard_MatchesPrefixLiterally() {
+        List<MemberSummary> page = this.repository.findPage(0, null, null, "Page_", 10);
+
+        assertEquals(List.of("Page_Reader", "Page_Editor"), page.stream().map(MemberSummary::name).toList());
+        assertTrue(LastStatementInspector.last().toLowerCase().contains("like"));
+    }
+
+    @Test
+    void findPage_CreationDateRange_KeepsMembersInsideIt() {
+        LocalDate today = LocalDate.now();
+
+        assertEquals(3, this.repository.findPage(0, today, today, "Page", 10).size());
+        assertTrue(this.repository.findPage(0, today.plusDays(1), null, null, 10).isEmpty());
+        assertTrue(this.repository.findPage(0, null, today.minusDays(1), null, 10).isEmpty());
+    }
+
+    public static class LastStatementInspector implements StatementInspector {
+
+        private static final ThreadLocal<String> LAST = new ThreadLocal<>();
+
+        static String last() {
+            return LAST.get();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            LAST.set(sql);
+            return sql;
+        }
+    }
+}
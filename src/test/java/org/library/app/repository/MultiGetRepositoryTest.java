@@ -0,0 +1,126 @@
+package org.library.app.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.app.controller.dto.BookByIdDTO;
+import org.library.app.controller.payload.NewBookPayload;
+import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.service.BooksService;
+import org.library.app.service.MemberService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:multi-get;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+                "DEFAULT_NULL_ORDERING=HIGH;INIT=CREATE SCHEMA IF NOT EXISTS public",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "library.multi-get.batch-size=2",
+        "library.multi-get.max-ids=10",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "org.library.app.repository.MultiGetRepositoryTest$CountingStatementInspector"})
+class MultiGetRepositoryTest {
+
+    @Autowired
+    BooksService booksService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Autowired
+    MembersRepository membersRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    List<Long> bookIds;
+
+    @BeforeEach
+    void createBooks() {
+        this.bookIds = List.of("First", "Second", "Third", "Fourth").stream()
+                .map(title -> {
+                    this.booksService.createBook(new NewBookPayload(title, "Multi Author"));
+                    return this.booksRepository.findByTitleAndAuthor(title, "Multi Author").orElseThrow().getId();
+                })
+                .toList();
+    }
+
+    @Test
+    void getBooksByIds_ColdCache_KeepsRequestOrderAndReportsMissingIdsInChunkedQueries() {
+        this.entityManagerFactory.getCache().evictAll();
+        long unknown = this.bookIds.getLast() + 1000;
+        CountingStatementInspector.reset();
+
+        var result = this.booksService.getBooksByIds(List.of(this.bookIds.get(3), unknown, this.bookIds.get(0),
+                this.bookIds.get(3), this.bookIds.get(2)));
+
+        assertEquals(List.of(this.bookIds.get(3), this.bookIds.get(0), this.bookIds.get(2)),
+                result.books().stream().map(BookByIdDTO::id).toList());
+        assertEquals("Fourth", result.books().getFirst().title());
+        assertEquals(List.of(unknown), result.missing());
+        // 4 distinct ids, 2 per statement
+        assertEquals(2, CountingStatementInspector.count());
+    }
+
+    @Test
+    void getBooksByIds_WarmCache_DoesNotQueryTheDatabase() {
+        this.booksService.getBooksByIds(this.bookIds);
+        CountingStatementInspector.reset();
+
+        var result = this.booksService.getBooksByIds(this.bookIds.reversed());
+
+        assertEquals(this.bookIds.reversed(), result.books().stream().map(BookByIdDTO::id).toList());
+        assertTrue(result.missing().isEmpty());
+        assertEquals(0, CountingStatementInspector.count());
+    }
+
+    @Test
+    void getMembersByIds_SomeIdsMissing_ReturnsFoundMembersInOrder() {
+        this.memberService.createMember(new NewMemberPayload("MultiGetReader" + this.bookIds.getFirst()));
+        long memberId = this.membersRepository.findByName("MultiGetReader" + this.bookIds.getFirst())
+                .orElseThrow().getId();
+
+        var result = this.memberService.getMembersByIds(List.of(memberId + 1000, memberId));
+
+        assertEquals(1, result.members().size());
+        assertEquals(memberId, result.members().getFirst().id());
+        assertEquals(List.of(memberId + 1000), result.missing());
+    }
+
+    @Test
+    void getBooksByIds_TooManyIds_ThrowsInvalidRequestException() {
+        var ids = LongStream.rangeClosed(1, 11).boxed().toList();
+
+        assertThrows(InvalidRequestException.class, () -> this.booksService.getBooksByIds(ids));
+        assertThrows(InvalidRequestException.class, () -> this.booksService.getBooksByIds(List.of()));
+    }
+
+    public static class CountingStatementInspector implements StatementInspector {
+
+        private static final ThreadLocal<int[]> STATEMENTS = ThreadLocal.withInitial(() -> new int[1]);
+
+        static void reset() {
+            STATEMENTS.get()[0] = 0;
+        }
+
+        static int count() {
+            return STATEMENTS.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.get()[0]++;
+            return sql;
+        }
+    }
+}
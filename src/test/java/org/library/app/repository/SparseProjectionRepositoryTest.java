@@ -0,0 +1,81 @@
+package org.library.app.repository;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.MemberDTO;
+import org.library.app.fields.BookField;
+import org.library.app.fields.MemberField;
+import org.library.app.repository.projection.MemberSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseProjectionRepositoryTest {
+
+    final Date created = Date.valueOf(LocalDate.of(2024, 1, 1));
+
+    SparseProjectionRepository repository;
+
+    @BeforeEach
+    void createTables() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+                "DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS public");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE public.t_book (id BIGINT PRIMARY KEY, c_title VARCHAR(255), " +
+                "c_author VARCHAR(255), c_amount INT)");
+        jdbcTemplate.execute("CREATE TABLE public.t_member (id BIGINT PRIMARY KEY, c_name VARCHAR(255), " +
+                "c_creation_date DATE)");
+        jdbcTemplate.update("INSERT INTO public.t_book VALUES (2, 'Clean Code', 'Robert Martin', 3), " +
+                "(1, 'Effective Java', 'Joshua Bloch', 5)");
+        for (long id = 1; id <= 3; id++) {
+            jdbcTemplate.update("INSERT INTO public.t_member VALUES (?, ?, ?)", id, "Reader_" + id, this.created);
+        }
+        this.repository = new SparseProjectionRepository(dataSource);
+    }
+
+    @Test
+    void findAllBooks_TitleOnly_LeavesOtherFieldsEmptyInIdOrder() {
+        assertEquals(List.of(new BookDTO("Effective Java", null, null), new BookDTO("Clean Code", null, null)),
+                this.repository.findAllBooks(EnumSet.of(BookField.TITLE)));
+    }
+
+    @Test
+    void findBookById_AuthorAndAmount_ReturnsThoseFields() {
+        assertEquals(Optional.of(new BookDTO(null, "Robert Martin", 3)),
+                this.repository.findBookById(2, EnumSet.of(BookField.AUTHOR, BookField.AMOUNT)));
+        assertTrue(this.repository.findBookById(9, EnumSet.of(BookField.TITLE)).isEmpty());
+    }
+
+    @Test
+    void findMemberById_CreationDateOnly_ReturnsCreationDate() {
+        assertEquals(Optional.of(new MemberDTO(null, this.created)),
+                this.repository.findMemberById(3, EnumSet.of(MemberField.CREATION_DATE)));
+    }
+
+    @Test
+    void findMembersPage_NameOnly_KeepsCursorAndFilters() {
+        var page = this.repository.findMembersPage(1, null, null, "Reader_", 5, EnumSet.of(MemberField.NAME));
+
+        assertEquals(List.of(new MemberSummary(2L, "Reader_2", null), new MemberSummary(3L, "Reader_3", null)), page);
+    }
+
+    @Test
+    void findMembersPage_CreationDateRange_KeepsMembersInsideIt() {
+        LocalDate day = this.created.toLocalDate();
+
+        assertEquals(3, this.repository.findMembersPage(0, day, day, null, 5,
+                EnumSet.of(MemberField.CREATION_DATE)).size());
+        assertTrue(this.repository.findMembersPage(0, day.plusDays(1), null, null, 5,
+                EnumSet.of(MemberField.NAME)).isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package org.library.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.library.app.controller.dto.AuthorDTO;
+import org.library.app.controller.dto.BookByIdDTO;
+import org.library.app.controller.payload.NewBookPayload;
+import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.repository.AuthorStatsRepository;
+import org.library.app.repository.BooksRepository;
+import org.library.app.repository.MembersRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:author-stats;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+                "DEFAULT_NULL_ORDERING=HIGH;INIT=CREATE SCHEMA IF NOT EXISTS public",
+        "spring.jpa.hibernate.ddl-auto=create-drop"})
+class AuthorServiceTest {
+
+    @Autowired
+    AuthorService authorService;
+
+    @Autowired
+    BooksService booksService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    @Autowired
+    MembersRepository membersRepository;
+
+    @Autowired
+    AuthorStatsRepository statsRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void record_BookAndLoanOperations_KeepTotalsEqualToRebuild() {
+        this.booksService.createBook(new NewBookPayload("Kobzar", "Taras Shevchenko"));
+        this.booksService.createBook(new NewBookPayload("Kobzar", "Taras Shevchenko"));
+        this.booksService.createBook(new NewBookPayload("Haidamaky", "Taras Shevchenko"));
+        this.booksService.createBook(new NewBookPayload("Moved", "Lesya Ukrainka"));
+        this.booksService.createBook(new NewBookPayload("Zakhar Berkut", "Ivan Franko"));
+        this.memberService.createMember(new NewMemberPayload("Author Reader"));
+        long memberId = this.membersRepository.findByName("Author Reader").orElseThrow().getId();
+        long kobzar = bookId("Kobzar", "Taras Shevchenko");
+        long moved = bookId("Moved", "Lesya Ukrainka");
+        long berkut = bookId("Zakhar Berkut", "Ivan Franko");
+
+        this.memberService.memberBorrowBook(memberId, kobzar);
+        this.memberService.memberBorrowBook(memberId, moved);
+        this.memberService.memberBorrowBook(memberId, berkut);
+        this.memberService.memberReturnBook(memberId, berkut);
+        this.booksService.deleteBook(kobzar);
+        this.booksService.updateBook(moved, new NewBookPayload("Moved", "Taras Shevchenko"));
+
+        List<AuthorDTO> incremental = this.authorService.getAuthorsPage(null, 500).authors();
+        assertTrue(incremental.contains(new AuthorDTO("Ivan Franko", 1, 1, 0)));
+        assertTrue(incremental.contains(new AuthorDTO("Taras Shevchenko", 3, 3, 2)));
+        assertTrue(incremental.stream().noneMatch(author -> author.author().equals("Lesya Ukrainka")));
+        this.authorService.rebuild();
+        assertEquals(incremental, this.authorService.getAuthorsPage(null, 500).authors());
+    }
+
+    @Test
+    void insertFromBooks_AuthorsAlreadyFilledByAnotherNode_KeepsTheirRows() {
+        this.booksService.createBook(new NewBookPayload("Lisova pisnia", "Lesya Ukrainka"));
+        List<AuthorDTO> filled = this.authorService.getAuthorsPage(null, 500).authors();
+
+        this.transactionTemplate.executeWithoutResult(status -> this.statsRepository.insertFromBooks());
+
+        assertEquals(filled, this.authorService.getAuthorsPage(null, 500).authors());
+    }
+
+    @Test
+    void getAuthorsPage_FollowingNextAfter_ReturnsConsecutivePages() {
+        for (String author : List.of("Anna Akhmatova", "Boris Pasternak", "Craig Walls")) {
+            this.booksService.createBook(new NewBookPayload("Paged " + author, author));
+        }
+
+        var first = this.authorService.getAuthorsPage("A", 2);
+        var second = this.authorService.getAuthorsPage(first.nextAfter(), 2);
+
+        assertEquals(List.of("Anna Akhmatova", "Boris Pasternak"),
+                first.authors().stream().map(AuthorDTO::author).toList());
+        assertEquals("Boris Pasternak", first.nextAfter());
+        assertEquals("Craig Walls", second.authors().get(0).author());
+    }
+
+    @Test
+    void getBooksByAuthor_ReturnsBooksOrderedByTitle() {
+        this.booksService.createBook(new NewBookPayload("Second", "Robert Martin"));
+        this.booksService.createBook(new NewBookPayload("First", "Robert Martin"));
+
+        var books = this.authorService.getBooksByAuthor("Robert Martin");
+
+        assertEquals(List.of("First", "Second"), books.stream().map(BookByIdDTO::title).toList());
+        assertThrows(NoSuchElementException.class, () -> this.authorService.getBooksByAuthor("Nobody Here"));
+    }
+
+    private long bookId(String title, String author) {
+        return this.booksRepository.findByTitleAndAuthor(title, author).orElseThrow().getId();
+    }
+}
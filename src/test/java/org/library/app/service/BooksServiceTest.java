@@ -2,19 +2,40 @@ package org.library.app.service;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.analytics.SpaceSavingSketch;
+import org.library.app.analytics.TimeWindow;
+import org.library.app.analytics.TopBorrowedBooksTracker;
+import org.library.app.bulkhead.Bulkhead;
+import org.library.app.cache.CacheInvalidationPublisher;
 import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.BookByIdDTO;
+import org.library.app.controller.dto.BooksByIdsDTO;
+import org.library.app.controller.dto.RelatedBookDTO;
+import org.library.app.controller.dto.TopBookDTO;
 import org.library.app.controller.payload.NewBookPayload;
 import org.library.app.entity.BookEntity;
+import org.library.app.event.LibraryEventPublisher;
 import org.library.app.exception.BookIsOverException;
+import org.library.app.exception.BulkheadFullException;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.recommendation.CoBorrowingMatrix;
+import org.library.app.recommendation.CoBorrowingRecommender;
 import org.library.app.repository.BooksRepository;
+import org.library.app.repository.BorrowedBooksReportRepository;
+import org.library.app.repository.LoansRepository;
+import org.library.app.repository.MultiGetRepository;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +47,33 @@ class BooksServiceTest {
     @Mock
     BooksRepository repository;
 
+    @Mock
+    LibraryEventPublisher eventPublisher;
+
+    @Mock
+    TopBorrowedBooksTracker topBorrowedBooksTracker;
+
+    @Mock
+    BorrowedBooksReportRepository reportRepository;
+
+    @Mock
+    Bulkhead analyticsBulkhead;
+
+    @Mock
+    CacheInvalidationPublisher cacheInvalidation;
+
+    @Mock
+    CoBorrowingRecommender coBorrowingRecommender;
+
+    @Mock
+    AuthorService authorService;
+
+    @Mock
+    LoansRepository loansRepository;
+
+    @Mock
+    MultiGetRepository multiGetRepository;
+
     @InjectMocks
     BooksService service;
 
@@ -73,6 +121,35 @@ class BooksServiceTest {
         verifyNoMoreInteractions(this.repository);
     }
 
+    @Test
+    void getBooksByIds_SomeIdsMissing_ReturnsFoundBooksInRequestOrder() {
+        var ids = List.of(3L, 7L, 1L, 3L);
+        doReturn(List.of(3L, 7L, 1L)).when(this.multiGetRepository).distinctIds(ids);
+        doReturn(Arrays.asList(
+                new BookEntity(3L, "Clean Code", "Robert C. Martin", 3, new HashSet<>()),
+                null,
+                new BookEntity(1L, "Effective Java", "Joshua Bloch", 5, new HashSet<>())
+        )).when(this.multiGetRepository).findAllByIdInOrder(BookEntity.class, List.of(3L, 7L, 1L));
+
+        var result = this.service.getBooksByIds(ids);
+
+        assertEquals(new BooksByIdsDTO(List.of(
+                new BookByIdDTO(3L, "Clean Code", "Robert C. Martin", 3),
+                new BookByIdDTO(1L, "Effective Java", "Joshua Bloch", 5)
+        ), List.of(7L)), result);
+    }
+
+    @Test
+    void getBooksByIds_IdsRejected_ThrowsInvalidRequestExceptionWithoutLoading() {
+        doThrow(new InvalidRequestException("Between 1 and 1000 ids are expected"))
+                .when(this.multiGetRepository).distinctIds(List.of());
+
+        assertThrows(InvalidRequestException.class, () -> this.service.getBooksByIds(List.of()));
+
+        verify(this.multiGetRepository).distinctIds(List.of());
+        verifyNoMoreInteractions(this.multiGetRepository);
+    }
+
     @Test
     void createBook_ReturnsCreatedBook() {
         var newBook = new NewBookPayload("Книжка", "автор");
@@ -89,7 +166,8 @@ class BooksServiceTest {
         assertEquals(new BookDTO("Книжка", "автор", 1), result);
 
         verify(this.repository).save(new BookEntity(1L, "Книжка", "автор", 1, new HashSet<>()));
-        verifyNoMoreInteractions(this.repository);
+        verify(this.authorService).record("автор", 0, 1, 0);
+        verifyNoMoreInteractions(this.repository, this.authorService);
     }
 
     @Test
@@ -120,6 +198,21 @@ class BooksServiceTest {
         verify(this.repository).findById(1L);
         verify(this.repository).save(bookEntity);
         verifyNoMoreInteractions(this.repository);
+        verifyNoInteractions(this.authorService, this.loansRepository);
+    }
+
+    @Test
+    void updateBook_AuthorChanged_MovesCopiesAndLoansToNewAuthor() {
+        var bookEntity = new BookEntity(1L, "Книжка", "автор", 3, new HashSet<>());
+        doReturn(Optional.of(bookEntity)).when(this.repository).findById(1L);
+        doReturn(2L).when(this.loansRepository).countByBookIdAndReturnedAtIsNull(1L);
+
+        this.service.updateBook(1L, new NewBookPayload("Книжка", "інший автор"));
+
+        assertEquals("інший автор", bookEntity.getAuthor());
+        verify(this.authorService).record("автор", -1, -5, -2);
+        verify(this.authorService).record("інший автор", 1, 5, 2);
+        verifyNoMoreInteractions(this.authorService);
     }
 
     @Test
@@ -144,6 +237,7 @@ class BooksServiceTest {
 
         verify(this.repository).findById(1L);
         verify(this.repository).save(bookEntity);
+        verify(this.authorService).record("автор", 0, -1, 0);
         verifyNoMoreInteractions(this.repository);
     }
 
@@ -171,15 +265,16 @@ class BooksServiceTest {
     @Test
     void getAllDistinctBorrowedBooks_ReturnsDistinctBooks() {
         var books = List.of("Book 1", "Book 2", "Book 3", "Book 4", "Book 5");
-        doReturn(books).when(this.repository).findDistinctBorrowedBookTitles();
+        runAnalyticsInline();
+        doReturn(books).when(this.reportRepository).findDistinctBorrowedBookTitles();
 
-        var result = this.service.getAllDistinctBorrowedBooks();
+        var result = this.service.getAllDistinctBorrowedBooks().join();
 
         assertNotNull(result);
         assertEquals(books, result);
 
-        verify(this.repository).findDistinctBorrowedBookTitles();
-        verifyNoMoreInteractions(this.repository);
+        verify(this.reportRepository).findDistinctBorrowedBookTitles();
+        verifyNoInteractions(this.repository);
     }
 
     @Test
@@ -187,16 +282,67 @@ class BooksServiceTest {
         Object[] book1 = new Object[]{"Книжка1", 5};
         Object[] book2 = new Object[]{"Книжка2", 3};
 
+        runAnalyticsInline();
         doReturn(List.of(book1, book2))
-                .when(repository).findDistinctBorrowedBooksAndCounts();
+                .when(reportRepository).findDistinctBorrowedBooksAndCounts();
 
-        List<String> result = service.getAllBorrowedBooksAndCountWasBorrowed();
+        List<String> result = service.getAllBorrowedBooksAndCountWasBorrowed().join();
 
         assertEquals(2, result.size());
         assertEquals("Book name: Книжка1, Book count that borrowed: 5", result.get(0));
         assertEquals("Book name: Книжка2, Book count that borrowed: 3", result.get(1));
 
-        verify(this.repository).findDistinctBorrowedBooksAndCounts();
+        verify(this.reportRepository).findDistinctBorrowedBooksAndCounts();
+        verifyNoInteractions(this.repository);
+    }
+
+    @Test
+    void getAllDistinctBorrowedBooks_BulkheadFull_ReturnsFailedFuture() {
+        doReturn(CompletableFuture.failedFuture(new BulkheadFullException("Bulkhead analytics is full")))
+                .when(this.analyticsBulkhead).supplyAsync(any());
+
+        var result = this.service.getAllDistinctBorrowedBooks();
+
+        var exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(BulkheadFullException.class, exception.getCause());
+        verifyNoInteractions(this.reportRepository);
+    }
+
+    @Test
+    void getTopBorrowedBooks_ReturnsTopWithTitles() {
+        doReturn(new TopBorrowedBooksTracker.WindowTop(0, 3_600_000, 5, 0, List.of(
+                new SpaceSavingSketch.Entry(2L, 3, 0),
+                new SpaceSavingSketch.Entry(1L, 2, 0))))
+                .when(this.topBorrowedBooksTracker).top(eq(TimeWindow.HOUR), eq(20), anyLong());
+        doReturn(List.of(
+                new BookEntity(1L, "Книжка1", "автор", 1, new HashSet<>()),
+                new BookEntity(2L, "Книжка2", "автор", 1, new HashSet<>())))
+                .when(this.repository).findAllById(List.of(2L, 1L));
+
+        var result = this.service.getTopBorrowedBooks(TimeWindow.HOUR, 20);
+
+        assertEquals("HOUR", result.window());
+        assertEquals(5, result.totalBorrows());
+        assertEquals(List.of(new TopBookDTO(2L, "Книжка2", 3, 0), new TopBookDTO(1L, "Книжка1", 2, 0)),
+                result.books());
+
+        verify(this.repository).findAllById(List.of(2L, 1L));
         verifyNoMoreInteractions(this.repository);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getRelatedBooks_ReturnsRelatedFromMemoryWithoutQueries() {
+        doReturn(List.of(new CoBorrowingMatrix.Related(7L, 4), new CoBorrowingMatrix.Related(3L, 1)))
+                .when(this.coBorrowingRecommender).related(1L, 10);
+
+        var result = this.service.getRelatedBooks(1L, 10);
+
+        assertEquals(List.of(new RelatedBookDTO(7L, 4), new RelatedBookDTO(3L, 1)), result);
+        verifyNoInteractions(this.repository);
+    }
+
+    private void runAnalyticsInline() {
+        doAnswer(invocation -> CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(0).get()))
+                .when(this.analyticsBulkhead).supplyAsync(any());
+    }
+}
@@ -0,0 +1,136 @@
+package org.library.app.service;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.library.app.controller.payload.NewBookPayload;
+import org.library.app.controller.payload.NewMemberPayload;
+import org.library.app.exception.AlreadyRunningException;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.exception.MemberAlreadyHaveThisBookException;
+import org.library.app.repository.BooksRepository;
+import org.library.app.repository.MembersRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:flight-recording;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+                "DEFAULT_NULL_ORDERING=HIGH;INIT=CREATE SCHEMA IF NOT EXISTS public",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "library.jfr.directory=${java.io.tmpdir}/library-jfr-test",
+        "library.jfr.max-duration=5m"})
+class FlightRecordingServiceTest {
+
+    @Autowired
+    FlightRecordingService service;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    BooksService booksService;
+
+    @Autowired
+    MembersRepository membersRepository;
+
+    @Autowired
+    BooksRepository booksRepository;
+
+    @AfterEach
+    void close() throws IOException {
+        this.service.close();
+    }
+
+    @Test
+    void stop_AfterBorrowAndReturn_FileHoldsLibraryEventsWithOutcomeAndDatabaseTime() throws Exception {
+        this.memberService.createMember(new NewMemberPayload("Recorded Reader"));
+        long memberId = this.membersRepository.findByName("Recorded Reader").orElseThrow().getId();
+
+        var started = this.service.start(Duration.ofMinutes(1));
+        this.booksService.createBook(new NewBookPayload("Recorded", "Author"));
+        long bookId = this.booksRepository.findByTitleAndAuthor("Recorded", "Author").orElseThrow().getId();
+        this.memberService.memberBorrowBook(memberId, bookId);
+        assertThrows(MemberAlreadyHaveThisBookException.class,
+                () -> this.memberService.memberBorrowBook(memberId, bookId));
+        this.memberService.memberReturnBook(memberId, bookId);
+        Path file = this.service.stop();
+
+        assertEquals("RUNNING", started.state());
+        assertEquals(60, started.durationSeconds());
+        assertEquals(started.file(), file.getFileName().toString());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith("org.library."))
+                .toList();
+        assertEquals(List.of("org.library.CreateBook", "org.library.Borrow", "org.library.Borrow",
+                        "org.library.Return"),
+                events.stream().map(event -> event.getEventType().getName()).toList());
+        assertEquals(bookId, events.get(0).getLong("bookId"));
+        assertEquals(List.of("ok", "ok", "MemberAlreadyHaveThisBookException", "ok"),
+                events.stream().map(event -> event.getString("outcome")).toList());
+        RecordedEvent borrow = events.get(1);
+        assertEquals(memberId, borrow.getLong("memberId"));
+        assertEquals(bookId, borrow.getLong("bookId"));
+        assertEquals(borrow.getLong("loanId"), events.get(3).getLong("loanId"));
+        assertTrue(borrow.getDuration("dbTime").toNanos() > 0);
+        assertTrue(borrow.getDuration().compareTo(borrow.getDuration("dbTime")) >= 0);        Files.delete(file);
+    }
+
+    @Test
+    void start_TooLong_ThrowsInvalidRequestException() {
+        assertThrows(InvalidRequestException.class, () -> this.service.start(Duration.ofMinutes(6)));
+        assertThrows(InvalidRequestException.class, () -> this.service.start(Duration.ZERO));
+    }
+
+    @Test
+    void start_AlreadyRunning_ThrowsAlreadyRunningException() throws Exception {
+        this.service.start(null);
+
+        assertThrows(AlreadyRunningException.class, () -> this.service.start(Duration.ofSeconds(10)));
+        assertEquals("RUNNING", this.service.status().state());
+    }
+
+    @Test
+    void start_AfterStop_LeavesStoppedFileToCallerAndWritesNewFile() throws Exception {
+        this.service.start(Duration.ofSeconds(30));
+        Path first = this.service.stop();
+
+        var second = this.service.start(Duration.ofSeconds(30));
+
+        assertTrue(Files.exists(first));
+        assertNotEquals(first.getFileName().toString(), second.file());
+        Files.delete(first);
+    }
+
+    @Test
+    void close_RecordingNotStopped_DeletesItsFile() throws Exception {
+        var first = this.service.start(Duration.ofSeconds(30));
+        Path firstFile = Path.of(System.getProperty("java.io.tmpdir"), "library-jfr-test", first.file());
+        this.service.close();
+
+        assertFalse(Files.exists(firstFile));
+    }
+
+    @Test
+    void status_NoRecording_ThrowsNoSuchElementException() {
+        assertThrows(NoSuchElementException.class, () -> this.service.status());
+        assertThrows(NoSuchElementException.class, () -> this.service.stop());
+    }
+
+    @Test
+    void status_AfterStop_ThrowsNoSuchElementException() throws Exception {
+        this.service.start(Duration.ofSeconds(30));
+        Files.delete(this.service.stop());
+
+        assertThrows(NoSuchElementException.class, () -> this.service.status());
+    }
+}
@@ -0,0 +1,79 @@
+package org.library.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.analytics.LoanRollupRecomputer;
+import org.library.app.analytics.TimeWindow;
+import org.library.app.controller.dto.LoanRollupDTO;
+import org.library.app.controller.dto.LoanRollupRecomputeDTO;
+import org.library.app.entity.LoanRollupEntity;
+import org.library.app.exception.InvalidRequestException;
+import org.library.app.repository.LoanRollupsRepository;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanAnalyticsServiceTest {
+
+    @Mock
+    LoanRollupsRepository repository;
+
+    @Mock
+    LoanRollupRecomputer recomputer;
+
+    @InjectMocks
+    LoanAnalyticsService service;
+
+    @Test
+    void getLoanRollups_ReturnsBucketsWithAverageDuration() {
+        var from = Instant.parse("2024-06-05T10:30:00Z");
+        var to = Instant.parse("2024-06-05T12:30:00Z");
+        doReturn(List.of(
+                new LoanRollupEntity(1L, TimeWindow.HOUR, Instant.parse("2024-06-05T10:00:00Z"), 3, 2, 120_000),
+                new LoanRollupEntity(2L, TimeWindow.HOUR, Instant.parse("2024-06-05T11:00:00Z"), 1, 0, 0)))
+                .when(this.repository).findByGranularityAndBucketStartBetweenOrderByBucketStart(
+                        TimeWindow.HOUR, Instant.parse("2024-06-05T10:00:00Z"), to);
+
+        var result = this.service.getLoanRollups(TimeWindow.HOUR, from, to);
+
+        assertEquals(List.of(
+                new LoanRollupDTO(Instant.parse("2024-06-05T10:00:00Z"), 3, 2, 60.0),
+                new LoanRollupDTO(Instant.parse("2024-06-05T11:00:00Z"), 1, 0, null)), result);
+    }
+
+    @Test
+    void getLoanRollups_RangeTooWide_ClampedToMaxBuckets() {
+        var to = Instant.parse("2024-06-05T00:00:00Z");
+
+        this.service.getLoanRollups(TimeWindow.DAY, Instant.EPOCH, to);
+
+        verify(this.repository).findByGranularityAndBucketStartBetweenOrderByBucketStart(
+                TimeWindow.DAY, to.minusSeconds(86_400L * 1000), to);
+    }
+
+    @Test
+    void getLoanRollups_WeekGranularity_ThrowsInvalidRequestException() {
+        assertThrows(InvalidRequestException.class,
+                () -> this.service.getLoanRollups(TimeWindow.WEEK, null, null));
+
+        verifyNoInteractions(this.repository);
+    }
+
+    @Test
+    void getRecomputeProgress_ReturnsProgressOfLastRecompute() {
+        var startedAt = Instant.parse("2024-06-05T10:00:00Z");
+        doReturn(new LoanRollupRecomputer.Progress(LoanRollupRecomputer.State.RUNNING, startedAt, null, 20, 7,
+                350_000, 0, null)).when(this.recomputer).progress();
+
+        var result = this.service.getRecomputeProgress();
+
+        assertEquals(new LoanRollupRecomputeDTO("RUNNING", startedAt, null, 20, 7, 350_000, 0, null), result);
+    }
+}
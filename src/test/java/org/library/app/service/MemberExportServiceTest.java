@@ -0,0 +1,83 @@
+package org.library.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.repository.MembersRepository;
+import org.library.app.repository.projection.MemberLoanRow;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MemberExportServiceTest {
+
+    @Mock
+    MembersRepository repository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    MemberExportService service;
+
+    @BeforeEach
+    void setUp() {
+        var objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.service = new MemberExportService(this.repository, this.transactionManager, objectMapper);
+    }
+
+    @Test
+    void exportMembers_Csv_WritesRowPerLoanAndEscapesFields() throws Exception {
+        var closed = new boolean[1];
+        doReturn(rows().onClose(() -> closed[0] = true)).when(this.repository).streamMembersWithOpenLoans();
+        var out = new ByteArrayOutputStream();
+
+        this.service.exportMembers(ExportFormat.CSV, out);
+
+        assertEquals("""
+                member_id,member_name,creation_date,book_id,title,author,borrowed_at
+                1,Alice,2024-06-01,10,"Dune, part one",Frank Herbert,2024-06-05T12:00:00Z
+                1,Alice,2024-06-01,11,Emma,Jane Austen,2024-06-06T12:00:00Z
+                2,Bob,2024-06-02,,,,
+                """, out.toString(StandardCharsets.UTF_8));
+        assertTrue(closed[0]);
+        verify(this.transactionManager).commit(any());
+    }
+
+    @Test
+    void exportMembers_Ndjson_WritesLinePerMemberWithLoans() throws Exception {
+        doReturn(rows()).when(this.repository).streamMembersWithOpenLoans();
+        var out = new ByteArrayOutputStream();
+
+        this.service.exportMembers(ExportFormat.NDJSON, out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"name\":\"Alice\""));
+        assertTrue(lines[0].contains("\"title\":\"Dune, part one\""));
+        assertTrue(lines[0].contains("\"title\":\"Emma\""));
+        assertTrue(lines[1].startsWith("{\"id\":2,\"name\":\"Bob\""));
+        assertTrue(lines[1].endsWith("\"loans\":[]}"));
+    }
+
+    private static Stream<MemberLoanRow> rows() {
+        return Stream.of(
+                new MemberLoanRow(1L, "Alice", Date.valueOf("2024-06-01"), 10L, "Dune, part one", "Frank Herbert",
+                        Instant.parse("2024-06-05T12:00:00Z")),
+                new MemberLoanRow(1L, "Alice", Date.valueOf("2024-06-01"), 11L, "Emma", "Jane Austen",
+                        Instant.parse("2024-06-06T12:00:00Z")),
+                new MemberLoanRow(2L, "Bob", Date.valueOf("2024-06-02"), null, null, null, null));
+    }
+}
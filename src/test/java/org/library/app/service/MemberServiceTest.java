@@ -2,24 +2,44 @@ package org.library.app.service;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.library.app.bloom.MemberNameFilter;
+import org.library.app.cache.CacheInvalidationPublisher;
+import org.library.app.cache.CacheRegions;
 import org.library.app.controller.dto.BookDTO;
+import org.library.app.controller.dto.MemberByIdDTO;
 import org.library.app.controller.dto.MemberDTO;
+import org.library.app.controller.dto.MembersByIdsDTO;
+import org.library.app.controller.dto.OverdueLoanDTO;
 import org.library.app.controller.payload.NewMemberPayload;
 import org.library.app.entity.BookEntity;
+import org.library.app.entity.LoanEntity;
 import org.library.app.entity.MemberEntity;
+import org.library.app.event.LibraryEventPublisher;
+import org.library.app.event.LibraryEventType;
+import org.library.app.exception.BookNotAvailableException;
+import org.library.app.exception.InvalidRequestException;
 import org.library.app.exception.MemberAlreadyExistException;
 import org.library.app.exception.MemberAlreadyHaveThisBookException;
 import org.library.app.exception.MemberHasBookException;
 import org.library.app.exception.MemberReachedLimitException;
 import org.library.app.repository.BooksRepository;
+import org.library.app.repository.LoansRepository;
+import org.library.app.overdue.OverdueLoanTracker;
+import org.library.app.repository.MemberPageRepository;
 import org.library.app.repository.MembersRepository;
+import org.library.app.repository.MultiGetRepository;
+import org.library.app.repository.projection.MemberSummary;
+import org.library.app.repository.projection.OverdueLoan;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.TestPropertySource;
 
 import java.sql.Date;
+import java.sql.SQLException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.IntStream;
@@ -37,6 +57,30 @@ class MemberServiceTest {
     @Mock
     BooksRepository booksRepository;
 
+    @Mock
+    LoansRepository loansRepository;
+
+    @Mock
+    LibraryEventPublisher eventPublisher;
+
+    @Mock
+    MemberNameFilter memberNameFilter;
+
+    @Mock
+    CacheInvalidationPublisher cacheInvalidation;
+
+    @Mock
+    OverdueLoanTracker overdueLoanTracker;
+
+    @Mock
+    AuthorService authorService;
+
+    @Mock
+    MultiGetRepository multiGetRepository;
+
+    @Mock
+    MemberPageRepository memberPageRepository;
+
     @Value("${member.max.book.limit}")
     int bookLimit = 10;
 
@@ -44,21 +88,36 @@ class MemberServiceTest {
     MemberService service;
 
     @Test
-    void getAllMembers_ReturnAllMembers() {
+    void getMembersPage_NoFilters_ReturnsPageWithoutNextCursor() {
         var members = IntStream.range(1, 4)
-                .mapToObj(i ->
-                        new MemberEntity(Integer.toUnsignedLong(i),
-                                "Користувач №%d".formatted(i), Date.valueOf(LocalDate.now()) ,new HashSet<>())
+                .mapToObj(i -> new MemberSummary(Integer.toUnsignedLong(i),
+                        "Користувач №%d".formatted(i), Date.valueOf(LocalDate.now()))
                 ).toList();
-        doReturn(members).when(this.membersRepository).findAll();
+        doReturn(members).when(this.memberPageRepository).findPage(0L, null, null, null, 51);
 
-        var result = service.getAllMembers();
+        var result = service.getMembersPage(0, 50, null, null, null);
 
         assertEquals(members.stream().map(member ->
-                new MemberDTO(member.getName(), member.getCreationDate())).toList(), result);
+                new MemberDTO(member.name(), member.creationDate())).toList(), result.members());
+        assertNull(result.nextAfterId());
 
-        verify(this.membersRepository).findAll();
-        verifyNoMoreInteractions(this.membersRepository);
+        verify(this.memberPageRepository).findPage(0L, null, null, null, 51);
+        verifyNoInteractions(this.membersRepository);
+    }
+
+    @Test
+    void getMembersPage_MoreMembersThanPage_ReturnsNextCursor() {
+        var from = LocalDate.of(2024, 1, 1);
+        var to = LocalDate.of(2024, 12, 31);
+        var members = IntStream.range(5, 8)
+                .mapToObj(i -> new MemberSummary((long) i, "50%_off" + i, Date.valueOf(from)))
+                .toList();
+        doReturn(members).when(this.memberPageRepository).findPage(4L, from, to, "50%_off", 3);
+
+        var result = service.getMembersPage(4, 2, from, to, "50%_off");
+
+        assertEquals(2, result.members().size());
+        assertEquals(6L, result.nextAfterId());
     }
 
     @Test
@@ -86,6 +145,29 @@ class MemberServiceTest {
         verifyNoMoreInteractions(this.membersRepository);
     }
 
+    @Test
+    void getMembersByIds_SomeIdsMissing_ReturnsFoundMembersInRequestOrder() {
+        var created = Date.valueOf(LocalDate.now());
+        doReturn(List.of(5L, 2L)).when(this.multiGetRepository).distinctIds(List.of(5L, 2L, 5L));
+        doReturn(Arrays.asList(null, new MemberEntity(2L, "Member", created, new HashSet<>())))
+                .when(this.multiGetRepository).findAllByIdInOrder(MemberEntity.class, List.of(5L, 2L));
+
+        var result = this.service.getMembersByIds(List.of(5L, 2L, 5L));
+
+        assertEquals(new MembersByIdsDTO(List.of(new MemberByIdDTO(2L, "Member", created)), List.of(5L)), result);
+    }
+
+    @Test
+    void getMembersByIds_IdsRejected_ThrowsInvalidRequestExceptionWithoutLoading() {
+        doThrow(new InvalidRequestException("Between 1 and 1000 ids are expected"))
+                .when(this.multiGetRepository).distinctIds(List.of());
+
+        assertThrows(InvalidRequestException.class, () -> this.service.getMembersByIds(List.of()));
+
+        verify(this.multiGetRepository).distinctIds(List.of());
+        verifyNoMoreInteractions(this.multiGetRepository);
+    }
+
     @Test
     void retrieveAllBookByMemberName_NameCorrect_ReturnsAllBooks() {
         var members = List.of(new BookEntity(1L, "Книжка", "автор", 1, new HashSet<>()));
@@ -117,26 +199,45 @@ class MemberServiceTest {
     }
 
     @Test
-    void createMember_RequestIsValid_ReturnsMember() {
+    void createMember_NameCertainlyFree_SkipsExistsQueryAndReturnsMember() {
         var payload = new NewMemberPayload("Member");
         var savedMember = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>());
 
-        doReturn(false).when(this.membersRepository).existsByName(payload.name());
-        doReturn(savedMember).when(this.membersRepository).save(any(MemberEntity.class));
+        doReturn(false).when(this.memberNameFilter).mightExist(payload.name());
+        doReturn(savedMember).when(this.membersRepository).saveAndFlush(any(MemberEntity.class));
 
         var result = this.service.createMember(payload);
 
         assertNotNull(result);
         assertEquals(new MemberDTO(savedMember.getName(), savedMember.getCreationDate()), result);
 
-        verify(this.membersRepository).save(any(MemberEntity.class));
+        verify(this.membersRepository).saveAndFlush(any(MemberEntity.class));
+        verify(this.memberNameFilter).added("Member");
+        verifyNoMoreInteractions(this.membersRepository);
+    }
+
+    @Test
+    void createMember_NameMightExistButDoesNot_ReturnsMember() {
+        var payload = new NewMemberPayload("Member");
+        var savedMember = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>());
+
+        doReturn(true).when(this.memberNameFilter).mightExist(payload.name());
+        doReturn(false).when(this.membersRepository).existsByName(payload.name());
+        doReturn(savedMember).when(this.membersRepository).saveAndFlush(any(MemberEntity.class));
+
+        var result = this.service.createMember(payload);
+
+        assertEquals(new MemberDTO(savedMember.getName(), savedMember.getCreationDate()), result);
+
         verify(this.membersRepository).existsByName("Member");
+        verify(this.membersRepository).saveAndFlush(any(MemberEntity.class));
         verifyNoMoreInteractions(this.membersRepository);
     }
 
     @Test
     void createMember_RequestIsInvalid_ReturnsMemberAlreadyExistException() {
         var payload = new NewMemberPayload("Member");
+        doReturn(true).when(this.memberNameFilter).mightExist(payload.name());
         doReturn(true).when(this.membersRepository).existsByName(payload.name());
 
         var exception = assertThrows(MemberAlreadyExistException.class,
@@ -146,6 +247,33 @@ class MemberServiceTest {
 
         verify(this.membersRepository).existsByName("Member");
         verifyNoMoreInteractions(this.membersRepository);
+        verify(this.memberNameFilter, never()).added(any());
+    }
+
+    @Test
+    void createMember_UniqueNameConstraintViolated_ThrowsMemberAlreadyExistException() {
+        var payload = new NewMemberPayload("Member");
+        doReturn(false).when(this.memberNameFilter).mightExist(payload.name());
+        doThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLException("duplicate key value violates unique constraint", "23505")))
+                .when(this.membersRepository).saveAndFlush(any(MemberEntity.class));
+
+        var exception = assertThrows(MemberAlreadyExistException.class,
+                () -> this.service.createMember(payload));
+
+        assertEquals("Member already exists", exception.getMessage());
+        verify(this.membersRepository, never()).existsByName(any());
+        verify(this.memberNameFilter, never()).added(any());
+    }
+
+    @Test
+    void createMember_OtherConstraintViolated_RethrowsDataIntegrityViolationException() {
+        var payload = new NewMemberPayload("Member");
+        doThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLException("null value in column violates not-null constraint", "23502")))
+                .when(this.membersRepository).saveAndFlush(any(MemberEntity.class));
+
+        assertThrows(DataIntegrityViolationException.class, () -> this.service.createMember(payload));
     }
 
     @Test
@@ -155,15 +283,18 @@ class MemberServiceTest {
         var savedMember = new MemberEntity(1L, "Member1", Date.valueOf(LocalDate.now()), new HashSet<>());
 
         doReturn(Optional.of(member)).when(this.membersRepository).findById(1L);
+        doReturn(true).when(this.memberNameFilter).mightExist(payload.name());
         doReturn(false).when(this.membersRepository).existsByName(payload.name());
-        doReturn(savedMember).when(this.membersRepository).save(any(MemberEntity.class));
+        doReturn(savedMember).when(this.membersRepository).saveAndFlush(any(MemberEntity.class));
 
         this.service.updateMember(payload, 1L);
 
         verify(this.membersRepository).findById(1L);
         verify(this.membersRepository).existsByName(payload.name());
-        verify(this.membersRepository).save(any(MemberEntity.class));
+        verify(this.membersRepository).saveAndFlush(any(MemberEntity.class));
         verifyNoMoreInteractions(this.membersRepository);
+        verify(this.memberNameFilter).added("Member1");
+        verify(this.memberNameFilter).removed("Member");
     }
 
     @Test
@@ -172,6 +303,7 @@ class MemberServiceTest {
         var member = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>());
 
         doReturn(Optional.of(member)).when(this.membersRepository).findById(1L);
+        doReturn(true).when(this.memberNameFilter).mightExist(payload.name());
         doReturn(true).when(this.membersRepository).existsByName(payload.name());
 
         var exception = assertThrows(MemberAlreadyExistException.class,
@@ -202,14 +334,16 @@ class MemberServiceTest {
     void deleteMember_MemberExistsAndHasNoBooks_DeletesMember() {
         var member = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>());
         doReturn(Optional.of(member)).when(this.membersRepository).findById(1L);
-        doReturn(true).when(this.membersRepository).existsByIdAndBorrowedBooksIsEmpty(1L);
+        doReturn(false).when(this.loansRepository).existsByMemberIdAndReturnedAtIsNull(1L);
 
         this.service.deleteMember(1L);
 
         verify(this.membersRepository).findById(1L);
-        verify(this.membersRepository).existsByIdAndBorrowedBooksIsEmpty(1L);
+        verify(this.loansRepository).existsByMemberIdAndReturnedAtIsNull(1L);
+        verify(this.loansRepository).detachMember(1L);
         verify(this.membersRepository).deleteById(1L);
-        verifyNoMoreInteractions(this.membersRepository);
+        verifyNoMoreInteractions(this.membersRepository, this.loansRepository);
+        verify(this.memberNameFilter).removed("Member");
     }
 
 
@@ -230,7 +364,7 @@ class MemberServiceTest {
     void deleteMember_MemberHasBooks_ThrowsMemberHasBookException() {
         var member = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>());
         doReturn(Optional.of(member)).when(this.membersRepository).findById(1L);
-        doReturn(false).when(this.membersRepository).existsByIdAndBorrowedBooksIsEmpty(1L);
+        doReturn(true).when(this.loansRepository).existsByMemberIdAndReturnedAtIsNull(1L);
 
         var exception = assertThrows(MemberHasBookException.class,
                 () -> this.service.deleteMember(1L));
@@ -238,26 +372,30 @@ class MemberServiceTest {
         assertEquals("Member has books", exception.getMessage());
 
         verify(this.membersRepository).findById(1L);
-        verify(this.membersRepository).existsByIdAndBorrowedBooksIsEmpty(1L);
-        verifyNoMoreInteractions(this.membersRepository);
+        verify(this.loansRepository).existsByMemberIdAndReturnedAtIsNull(1L);
+        verifyNoMoreInteractions(this.membersRepository, this.loansRepository);
     }
 
     @Test
     void memberBorrowBook_MemberAlreadyHasBook_ThrowsMemberAlreadyHaveThisBookException() {
-        doReturn(true).when(this.membersRepository).existsByBookIdAndMemberId(1L, 1L);
+        var bookEntity = new BookEntity(1L, "Title", "Author", 1, new HashSet<>());
+        var memberEntity = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>());
+        memberEntity.getLoans().add(new LoanEntity(1L, memberEntity, bookEntity, Instant.now(), null, null, false));
+
+        doReturn(Optional.of(memberEntity)).when(this.membersRepository).findById(1L);
 
         var exception = assertThrows(MemberAlreadyHaveThisBookException.class,
                 () -> this.service.memberBorrowBook(1L, 1L));
 
         assertEquals("Member have this book", exception.getMessage());
 
-        verify(this.membersRepository).existsByBookIdAndMemberId(1L, 1L);
+        verify(this.membersRepository).findById(1L);
         verifyNoMoreInteractions(this.membersRepository);
+        verifyNoInteractions(this.booksRepository, this.loansRepository);
     }
 
     @Test
     void memberBorrowBook_MemberNotFound_ThrowsNoSuchElementException() {
-        doReturn(false).when(this.membersRepository).existsByBookIdAndMemberId(1L, 1L);
         doReturn(Optional.empty()).when(this.membersRepository).findById(1L);
 
         var exception = assertThrows(NoSuchElementException.class,
@@ -265,9 +403,9 @@ class MemberServiceTest {
 
         assertEquals("Member not found", exception.getMessage());
 
-        verify(this.membersRepository).existsByBookIdAndMemberId(1L, 1L);
         verify(this.membersRepository).findById(1L);
         verifyNoMoreInteractions(this.membersRepository);
+        verifyNoInteractions(this.booksRepository, this.loansRepository);
     }
 
     /*
@@ -276,14 +414,15 @@ class MemberServiceTest {
     @Test
     void memberBorrowBook_MemberReachedLimit_ThrowsMemberReachedLimitException()
             throws NoSuchFieldException, IllegalAccessException {
-        Set<BookEntity> borrowedBooks = new HashSet<>();
+        Set<LoanEntity> loans = new HashSet<>();
         var bookLimitField = this.service.getClass().getDeclaredField("bookLimit");
         bookLimitField.setAccessible(true);
         bookLimitField.setInt(this.service, 10);
-        for (int i = 1; i <= 10; i++) {
-            borrowedBooks.add(new BookEntity((long) i, "Title " + i, "Author " + i, 1, new HashSet<>()));
+        for (int i = 2; i <= 11; i++) {
+            loans.add(new LoanEntity((long) i, null,
+                    new BookEntity((long) i, "Title " + i, "Author " + i, 1, new HashSet<>()), Instant.now(), null, null, false));
         }
-        MemberEntity memberEntity = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), borrowedBooks);
+        MemberEntity memberEntity = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), loans);
 
         doReturn(Optional.of(memberEntity)).when(this.membersRepository).findById(1L);
 
@@ -292,33 +431,34 @@ class MemberServiceTest {
 
         assertEquals("Limit of books is 10", exception.getMessage());
 
-        verify(this.membersRepository).existsByBookIdAndMemberId(1L, 1L);
         verify(this.membersRepository).findById(1L);
         verifyNoMoreInteractions(this.membersRepository);
+        verifyNoInteractions(this.booksRepository, this.loansRepository);
     }
 
 
     @Test
-    void memberBorrowBook_BookNotAvailable_ThrowsNoSuchElementException() throws NoSuchFieldException,
+    void memberBorrowBook_BookNotAvailable_ThrowsStacklessBookNotAvailableException() throws NoSuchFieldException,
             IllegalAccessException {
         var bookLimitField = this.service.getClass().getDeclaredField("bookLimit");
         bookLimitField.setAccessible(true);
         bookLimitField.setInt(this.service, 10);
         var memberEntity = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>());
 
-        doReturn(false).when(this.membersRepository).existsByBookIdAndMemberId(1L, 1L);
         doReturn(Optional.of(memberEntity)).when(this.membersRepository).findById(1L);
-        doReturn(Optional.empty()).when(this.booksRepository).findByIdAndAmountGreaterThan(1L, 0);
+        doReturn(Optional.of(new BookEntity(1L, "Title", "Author", 0, new HashSet<>())))
+                .when(this.booksRepository).findById(1L);
 
-        var exception = assertThrows(NoSuchElementException.class,
+        var exception = assertThrows(BookNotAvailableException.class,
                 () -> this.service.memberBorrowBook(1L, 1L));
 
         assertEquals("Book not available", exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
 
-        verify(this.membersRepository).existsByBookIdAndMemberId(1L, 1L);
         verify(this.membersRepository).findById(1L);
-        verify(this.booksRepository).findByIdAndAmountGreaterThan(1L, 0);
+        verify(this.booksRepository).findById(1L);
         verifyNoMoreInteractions(this.membersRepository, this.booksRepository);
+        verifyNoInteractions(this.loansRepository);
     }
 
     @Test
@@ -329,10 +469,16 @@ class MemberServiceTest {
         bookLimitField.setInt(this.service, 10);
         var memberEntity = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>());
         var bookEntity = new BookEntity(1L, "Title", "Author", 1, new HashSet<>());
+        var dueAt = Instant.now().plusSeconds(3600);
 
-        doReturn(false).when(this.membersRepository).existsByBookIdAndMemberId(1L, 1L);
         doReturn(Optional.of(memberEntity)).when(this.membersRepository).findById(1L);
-        doReturn(Optional.of(bookEntity)).when(this.booksRepository).findByIdAndAmountGreaterThan(1L, 0);
+        doReturn(Optional.of(bookEntity)).when(this.booksRepository).findById(1L);
+        doReturn(dueAt).when(this.overdueLoanTracker).dueDate(any());
+        doAnswer(invocation -> {
+            LoanEntity loan = invocation.getArgument(0);
+            loan.setId(5L);
+            return loan;
+        }).when(this.loansRepository).save(any());
 
         var result = this.service.memberBorrowBook(1L, 1L);
 
@@ -341,12 +487,20 @@ class MemberServiceTest {
         assertEquals("Author", result.author());
         assertEquals(0, result.amount());
 
-        verify(this.membersRepository).existsByBookIdAndMemberId(1L, 1L);
         verify(this.membersRepository).findById(1L);
-        verify(this.booksRepository).findByIdAndAmountGreaterThan(1L, 0);
+        verify(this.booksRepository).findById(1L);
         verify(this.booksRepository).save(bookEntity);
-        verify(this.membersRepository).save(memberEntity);
-        verifyNoMoreInteractions(this.membersRepository, this.booksRepository);
+        verify(this.loansRepository).save(argThat(loan ->
+                loan.getMember() == memberEntity && loan.getBook() == bookEntity
+                        && loan.getBorrowedAt() != null && loan.getReturnedAt() == null
+                        && loan.getDueAt() == dueAt && !loan.isOverdue()));
+        verify(this.overdueLoanTracker).scheduleAfterCommit(5L, dueAt);
+        verify(this.authorService).record("Author", 0, 0, 1);
+        verify(this.eventPublisher).publishAfterCommit(eq(LibraryEventType.BOOK_BORROWED), eq(1L), eq(1L),
+                anyLong(), eq(0L), eq(5L));
+        verify(this.cacheInvalidation).invalidateAfterCommit(CacheRegions.BOOK, 1L);
+        verify(this.cacheInvalidation).invalidateAfterCommit(CacheRegions.MEMBER_LOANS, 1L);
+        verifyNoMoreInteractions(this.membersRepository, this.booksRepository, this.cacheInvalidation);
     }
 
     @Test
@@ -380,27 +534,77 @@ class MemberServiceTest {
         verifyNoMoreInteractions(this.booksRepository);
     }
 
+    @Test
+    void memberReturnBook_LoanNotFound_ThrowsNoSuchElementException() {
+        doReturn(Optional.of(new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>())))
+                .when(this.membersRepository).findById(1L);
+        doReturn(Optional.of(new BookEntity(1L, "Book", "Author", 1, new HashSet<>())))
+                .when(this.booksRepository).findById(1L);
+
+        var exception = assertThrows(NoSuchElementException.class,
+                () -> this.service.memberReturnBook(1L, 1L));
+
+        assertEquals("Loan not found", exception.getMessage());
+
+        verifyNoInteractions(this.loansRepository);
+        verifyNoInteractions(this.eventPublisher);
+    }
+
     @Test
     void memberReturnBook_SuccessfullyReturnsBook() {
         BookEntity bookEntity = new BookEntity(1L, "Book", "Author", 1, new HashSet<>());
-        MemberEntity memberEntity = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>(Set.of(bookEntity)));
-
-        bookEntity.getMembers().add(memberEntity);
+        MemberEntity memberEntity = new MemberEntity(1L, "Member", Date.valueOf(LocalDate.now()), new HashSet<>());
+        LoanEntity loan = new LoanEntity(1L, memberEntity, bookEntity, Instant.now().minusSeconds(60), null,
+                null, false);
+        memberEntity.getLoans().add(loan);
 
         doReturn(Optional.of(memberEntity)).when(this.membersRepository).findById(1L);
         doReturn(Optional.of(bookEntity)).when(this.booksRepository).findById(1L);
 
         this.service.memberReturnBook(1L, 1L);
 
-        assertFalse(memberEntity.getBorrowedBooks().contains(bookEntity));
-        assertFalse(bookEntity.getMembers().contains(memberEntity));
+        assertNotNull(loan.getReturnedAt());
         assertEquals(2, bookEntity.getAmount());
+        assertTrue(memberEntity.getLoans().isEmpty());
 
         verify(this.membersRepository).findById(1L);
         verify(this.booksRepository).findById(1L);
         verify(this.booksRepository).save(bookEntity);
-        verify(this.membersRepository).save(memberEntity);
-        verifyNoMoreInteractions(this.membersRepository);
-        verifyNoMoreInteractions(this.booksRepository);
+        verify(this.loansRepository).save(loan);
+        verify(this.eventPublisher).publishAfterCommit(eq(LibraryEventType.BOOK_RETURNED), eq(1L), eq(1L),
+                eq(loan.getReturnedAt().toEpochMilli()), longThat(duration -> duration >= 60_000), eq(loan.getId()));
+        verify(this.cacheInvalidation).invalidateAfterCommit(CacheRegions.BOOK, 1L);
+        verify(this.cacheInvalidation).invalidateAfterCommit(CacheRegions.MEMBER_LOANS, 1L);
+        verify(this.cacheInvalidation).invalidateAfterCommit(CacheRegions.LOAN, 1L);
+        verify(this.overdueLoanTracker).cancelAfterCommit(1L);
+        verify(this.authorService).record("Author", 0, 0, -1);
+        verifyNoMoreInteractions(this.membersRepository, this.booksRepository, this.loansRepository,
+                this.cacheInvalidation, this.overdueLoanTracker, this.authorService);
+    }
+
+    @Test
+    void getOverdueLoans_MemberNotFound_ThrowsNoSuchElementException() {
+        doReturn(false).when(this.membersRepository).existsById(1L);
+
+        var exception = assertThrows(NoSuchElementException.class, () -> this.service.getOverdueLoans(1L));
+
+        assertEquals("Member not found", exception.getMessage());
+        verifyNoInteractions(this.loansRepository);
+    }
+
+    @Test
+    void getOverdueLoans_LegacyLoanWithoutDueDate_FallsBackToLoanPeriod() {
+        var borrowedAt = Instant.parse("2024-01-01T10:00:00Z");
+        var dueAt = Instant.parse("2024-01-15T10:00:00Z");
+        doReturn(true).when(this.membersRepository).existsById(1L);
+        doReturn(List.of(new OverdueLoan(7L, 2L, "Title", "Author", borrowedAt, dueAt),
+                new OverdueLoan(8L, 3L, "Legacy", "Author", borrowedAt, null)))
+                .when(this.loansRepository).findOverdueByMemberId(1L);
+        doReturn(dueAt).when(this.overdueLoanTracker).dueDate(borrowedAt);
+
+        var result = this.service.getOverdueLoans(1L);
+
+        assertEquals(List.of(new OverdueLoanDTO(2L, "Title", "Author", borrowedAt, dueAt),
+                new OverdueLoanDTO(3L, "Legacy", "Author", borrowedAt, dueAt)), result);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,144 @@
+package org.library.app.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readBack_RecordsSpanningManyBuffers_ReturnsEveryRecordUnchanged() throws IOException {
+        Path file = this.directory.resolve("library.snap");
+        var books = new ArrayList<BookRecord>();
+        for (int i = 0; i < 40_000; i++) {
+            books.add(new BookRecord(i, "Назва " + i, "Author " + i, i % 7));
+        }
+        books.add(new BookRecord(40_000, "x".repeat(3 << 20), "Long Title Author", 1));
+        var members = List.of(new MemberRecord(1, "Alice", LocalDate.of(2024, 2, 29)),
+                new MemberRecord(2, "Bob", LocalDate.of(1999, 12, 31)));
+        var loans = List.of(new LoanRecord(1, 1, 3, Instant.parse("2024-03-01T10:15:30.123456Z"), null,
+                        Instant.parse("2024-03-15T10:15:30.123456Z"), true),
+                new LoanRecord(2, 2, 3, Instant.parse("2024-03-01T10:15:30Z"), Instant.parse("2024-03-05T08:00:00Z"),
+                        null, false));
+
+        long bytes = write(file, books, members, loans);
+
+        var readBooks = new ArrayList<BookRecord>();
+        var readMembers = new ArrayList<MemberRecord>();
+        var readLoans = new ArrayList<LoanRecord>();
+        try (var reader = new SnapshotReader(file)) {
+            assertEquals(123L, reader.createdAt());
+            assertEquals(SnapshotFormat.VERSION, reader.version());
+            assertEquals(books.size(), reader.readBooks(readBooks::add));
+            assertEquals(2, reader.readMembers(readMembers::add));
+            assertEquals(2, reader.readLoans(readLoans::add));
+            reader.finish();
+        }
+        assertEquals(file.toFile().length(), bytes);
+        assertEquals(books, readBooks);
+        assertEquals(members, readMembers);
+        assertEquals(loans, readLoans);
+    }
+
+    @Test
+    void finish_FlippedByte_ThrowsChecksumMismatch() throws IOException {
+        Path file = this.directory.resolve("library.snap");
+        write(file, List.of(new BookRecord(1, "Title", "Author", 1)), List.of(), List.of());
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'T' ^ 1}), SnapshotFormat.HEADER_BYTES + 1 + 8 + 8 + 4 + 4);
+        }
+
+        try (var reader = new SnapshotReader(file)) {
+            reader.readBooks(book -> assertEquals("Uitle", book.title()));
+            reader.readMembers(member -> fail());
+            reader.readLoans(loan -> fail());
+            var exception = assertThrows(SnapshotFormatException.class, reader::finish);
+            assertEquals("Snapshot checksum mismatch", exception.getMessage());
+        }
+    }
+
+    @Test
+    void open_UnknownVersion_IsRejected() throws IOException {
+        Path file = this.directory.resolve("library.snap");
+        write(file, List.of(), List.of(), List.of());
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(2).putShort(0, (short) 99), 4);
+        }
+
+        var exception = assertThrows(SnapshotFormatException.class, () -> new SnapshotReader(file));
+        assertEquals("Unsupported snapshot version 99", exception.getMessage());
+    }
+
+    @Test
+    void readLoans_Version1File_ReadsLoansWithoutDueDates() throws IOException {
+        Path file = this.directory.resolve("library.snap");
+        ByteBuffer bytes = ByteBuffer.allocate(SnapshotFormat.HEADER_BYTES + 3 * (1 + 8) + 8 * 3 + 12 + 1 + 12
+                + SnapshotFormat.TRAILER_BYTES);
+        bytes.putInt(SnapshotFormat.MAGIC).putShort((short) 1).putShort((short) 0).putLong(123);
+        bytes.put(SnapshotFormat.SECTION_BOOKS).putLong(0).put(SnapshotFormat.SECTION_MEMBERS).putLong(0);
+        bytes.put(SnapshotFormat.SECTION_LOANS).putLong(1);
+        bytes.putLong(7).putLong(1).putLong(3).putLong(1_709_288_130L).putInt(0);
+        bytes.put((byte) 1).putLong(1_709_625_600L).putInt(0);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.array(), 0, bytes.position());
+        bytes.putInt(SnapshotFormat.TRAILER_MAGIC).putInt((int) crc.getValue());
+        Files.write(file, bytes.array());
+
+        var readLoans = new ArrayList<LoanRecord>();
+        try (var reader = new SnapshotReader(file)) {
+            assertEquals(1, reader.version());
+            reader.readBooks(book -> fail());
+            reader.readMembers(member -> fail());
+            reader.readLoans(readLoans::add);
+            reader.finish();
+        }
+        assertEquals(List.of(new LoanRecord(7, 1, 3, Instant.parse("2024-03-01T10:15:30Z"),
+                Instant.parse("2024-03-05T08:00:00Z"), null, false)), readLoans);
+    }
+
+    @Test
+    void write_MoreRecordsThanAnnounced_Throws() throws IOException {
+        try (var writer = new SnapshotWriter(this.directory.resolve("library.snap"), 0)) {
+            writer.beginSection(SnapshotFormat.SECTION_BOOKS, 1);
+            writer.write(new BookRecord(1, "Title", "Author", 1));
+
+            assertThrows(IllegalStateException.class, () -> writer.write(new BookRecord(2, "Title", "Author", 1)));
+            assertThrows(IllegalStateException.class, writer::finish);
+        }
+    }
+
+    private static long write(Path file, List<BookRecord> books, List<MemberRecord> members,
+                              List<LoanRecord> loans) throws IOException {
+        try (var writer = new SnapshotWriter(file, 123)) {
+            writer.beginSection(SnapshotFormat.SECTION_BOOKS, books.size());
+            for (BookRecord book : books) {
+                writer.write(book);
+            }
+            writer.beginSection(SnapshotFormat.SECTION_MEMBERS, members.size());
+            for (MemberRecord member : members) {
+                writer.write(member);
+            }
+            writer.beginSection(SnapshotFormat.SECTION_LOANS, loans.size());
+            for (LoanRecord loan : loans) {
+                writer.write(loan);
+            }
+            return writer.finish();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.library.app.sqlbudget;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementBudgetConfigurationTest {
+
+    @Test
+    void statementBudgetProperties_InspectorAlreadyConfigured_WrapsIt() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AvailableSettings.STATEMENT_INSPECTOR, UpperCaseInspector.class.getName());
+
+        new StatementBudgetConfiguration().statementBudgetProperties(StatementBudgetMode.ENFORCE).customize(properties);
+
+        var inspector = (StatementInspector) properties.get(AvailableSettings.STATEMENT_INSPECTOR);
+        assertInstanceOf(StatementBudgetInspector.class, inspector);
+        assertEquals("SELECT 1", inspector.inspect("select 1"));
+    }
+
+    @Test
+    void statementBudgetProperties_ModeOff_LeavesPropertiesAlone() {
+        Map<String, Object> properties = new HashMap<>();
+
+        new StatementBudgetConfiguration().statementBudgetProperties(StatementBudgetMode.OFF).customize(properties);
+
+        assertTrue(properties.isEmpty());
+    }
+
+    public static class UpperCaseInspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            return sql.toUpperCase();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.library.app.sqlbudget;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.library.app.exception.StatementBudgetExceededException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementBudgetFilterTest {
+
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    final StatementBudgetInspector inspector = new StatementBudgetInspector(null);
+
+    @Test
+    void doFilter_EnforcedEndpointOverBudget_FailsOnFirstStatementOverAndCountsIt() {
+        var filter = filter(StatementBudgetMode.ENFORCE);
+
+        var exception = assertThrows(StatementBudgetExceededException.class,
+                () -> perform(filter, "POST", "/library-api/members/1/book/2", 4));
+
+        assertEquals("POST /library-api/members/*/book/* exceeded its budget of 2 SQL statements",
+                exception.getMessage());
+        assertEquals(1, exceeded("POST /library-api/members/*/book/*"));
+    }
+
+    @Test
+    void doFilter_LoggedEndpointOverBudget_CompletesAndCountsIt() throws Exception {
+        var filter = filter(StatementBudgetMode.LOG);
+
+        perform(filter, "GET", "/library-api/members", 6);
+        perform(filter, "GET", "/library-api/members", 5);
+
+        assertEquals(1, exceeded("GET /library-api/members"));
+        assertEquals(0, exceeded("default"));
+        var statements = this.meterRegistry.get("library.sql.statements")
+                .tag("endpoint", "GET /library-api/members").summary();
+        assertEquals(2, statements.count());
+        assertEquals(11, statements.totalAmount());
+    }
+
+    @Test
+    void doFilter_UnlistedEndpoint_UsesDefaultBudget() throws Exception {
+        var filter = filter(StatementBudgetMode.ENFORCE);
+
+        perform(filter, "GET", "/library-api/books/list", 3);
+
+        assertThrows(StatementBudgetExceededException.class,
+                () -> perform(filter, "GET", "/library-api/books/list", 4));
+        assertEquals(1, exceeded("default"));
+    }
+
+    @Test
+    void doFilter_OutsideRequestOrModeOff_StatementsAreNotCounted() throws Exception {
+        var filter = filter(StatementBudgetMode.OFF);
+
+        perform(filter, "POST", "/library-api/members/1/book/2", 10);
+        this.inspector.inspect("select 1");
+
+        assertEquals(0, exceeded("POST /library-api/members/*/book/*"));
+    }
+
+    @Test
+    void new_MalformedEndpointBudget_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new StatementBudgetFilter(this.meterRegistry,
+                StatementBudgetMode.LOG, 3, 50, List.of("/library-api/books=2")));
+    }
+
+    private StatementBudgetFilter filter(StatementBudgetMode mode) {
+        return new StatementBudgetFilter(this.meterRegistry, mode, 3, 50,
+                List.of(" POST /library-api/members/*/book/*=2", " GET /library-api/members=5"));
+    }
+
+    private void perform(StatementBudgetFilter filter, String method, String path, int statements) throws Exception {
+        FilterChain chain = (request, response) -> {
+            for (int i = 0; i < statements; i++) {
+                this.inspector.inspect("select " + i);
+            }
+        };
+        filter.doFilter(new MockHttpServletRequest(method, path), new MockHttpServletResponse(), chain);
+    }
+
+    private double exceeded(String endpoint) {
+        return this.meterRegistry.get("library.sql.budget.exceeded").tag("endpoint", endpoint).counter().count();
+    }
+}